@@ -1,6 +1,13 @@
 package com.mycompany.store_.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Properties specific to Store.
@@ -10,4 +17,452 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final ImageStore imageStore = new ImageStore();
+
+    private final ImageVariants imageVariants = new ImageVariants();
+
+    private final SearchOutbox searchOutbox = new SearchOutbox();
+
+    private final SearchReindex searchReindex = new SearchReindex();
+
+    private final Search search = new Search();
+
+    private final SearchResultCache searchResultCache = new SearchResultCache();
+
+    private final ProductSuggestions productSuggestions = new ProductSuggestions();
+
+    private final ProductFacets productFacets = new ProductFacets();
+
+    private final CatalogSnapshot catalogSnapshot = new CatalogSnapshot();
+
+    private final CatalogChanges catalogChanges = new CatalogChanges();
+
+    private final CatalogFeed catalogFeed = new CatalogFeed();
+
+    private final OrderCodes orderCodes = new OrderCodes();
+
+    public ImageStore getImageStore() {
+        return imageStore;
+    }
+
+    public ImageVariants getImageVariants() {
+        return imageVariants;
+    }
+
+    public SearchOutbox getSearchOutbox() {
+        return searchOutbox;
+    }
+
+    public SearchReindex getSearchReindex() {
+        return searchReindex;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public SearchResultCache getSearchResultCache() {
+        return searchResultCache;
+    }
+
+    public ProductSuggestions getProductSuggestions() {
+        return productSuggestions;
+    }
+
+    public ProductFacets getProductFacets() {
+        return productFacets;
+    }
+
+    public CatalogSnapshot getCatalogSnapshot() {
+        return catalogSnapshot;
+    }
+
+    public CatalogChanges getCatalogChanges() {
+        return catalogChanges;
+    }
+
+    public CatalogFeed getCatalogFeed() {
+        return catalogFeed;
+    }
+
+    public OrderCodes getOrderCodes() {
+        return orderCodes;
+    }
+
+    public static class ImageStore {
+
+        private String directory = "data/images";
+
+        private DataSize maxSize = DataSize.ofMegabytes(5);
+
+        private int migrationBatchSize = 50;
+
+        private Duration sweepInterval = Duration.ofHours(1);
+
+        private Duration sweepGracePeriod = Duration.ofHours(1);
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMigrationBatchSize() {
+            return migrationBatchSize;
+        }
+
+        public void setMigrationBatchSize(int migrationBatchSize) {
+            this.migrationBatchSize = migrationBatchSize;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        public Duration getSweepGracePeriod() {
+            return sweepGracePeriod;
+        }
+
+        public void setSweepGracePeriod(Duration sweepGracePeriod) {
+            this.sweepGracePeriod = sweepGracePeriod;
+        }
+    }
+
+    public static class ImageVariants {
+
+        private List<Integer> widths = new ArrayList<>(Arrays.asList(64, 256, 1024));
+
+        private int poolSize = 2;
+
+        private int queueCapacity = 100;
+
+        private long maxPixels = 40_000_000L;
+
+        public List<Integer> getWidths() {
+            return widths;
+        }
+
+        public void setWidths(List<Integer> widths) {
+            this.widths = widths;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getMaxPixels() {
+            return maxPixels;
+        }
+
+        public void setMaxPixels(long maxPixels) {
+            this.maxPixels = maxPixels;
+        }
+    }
+
+    public static class SearchOutbox {
+
+        private int batchSize = 500;
+
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        private Duration metricsInterval = Duration.ofSeconds(30);
+
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        private Duration maxBackoff = Duration.ofMinutes(5);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getMetricsInterval() {
+            return metricsInterval;
+        }
+
+        public void setMetricsInterval(Duration metricsInterval) {
+            this.metricsInterval = metricsInterval;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class SearchReindex {
+
+        private int parallelism = 4;
+
+        private int rangeSize = 10_000;
+
+        private int bulkSize = 1_000;
+
+        private int maxDocumentsPerSecond = 5_000;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getRangeSize() {
+            return rangeSize;
+        }
+
+        public void setRangeSize(int rangeSize) {
+            this.rangeSize = rangeSize;
+        }
+
+        public int getBulkSize() {
+            return bulkSize;
+        }
+
+        public void setBulkSize(int bulkSize) {
+            this.bulkSize = bulkSize;
+        }
+
+        public int getMaxDocumentsPerSecond() {
+            return maxDocumentsPerSecond;
+        }
+
+        public void setMaxDocumentsPerSecond(int maxDocumentsPerSecond) {
+            this.maxDocumentsPerSecond = maxDocumentsPerSecond;
+        }
+    }
+
+    public static class Search {
+
+        private String backend = "elasticsearch";
+
+        private final Lucene lucene = new Lucene();
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public Lucene getLucene() {
+            return lucene;
+        }
+
+        public static class Lucene {
+
+            private String directory = "data/lucene";
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+        }
+    }
+
+    public static class SearchResultCache {
+
+        private boolean enabled = true;
+
+        private int maxSize = 10_000;
+
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        private Duration refreshInterval = Duration.ofSeconds(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class ProductSuggestions {
+
+        private int maxSize = 20;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class ProductFacets {
+
+        private List<BigDecimal> priceBands = new ArrayList<>(Arrays.asList(
+            new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100")));
+
+        public List<BigDecimal> getPriceBands() {
+            return priceBands;
+        }
+
+        public void setPriceBands(List<BigDecimal> priceBands) {
+            this.priceBands = priceBands;
+        }
+    }
+
+    public static class CatalogSnapshot {
+
+        private String file = "data/catalog.snapshot";
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+    }
+
+    public static class CatalogChanges {
+
+        private Duration retention = Duration.ofDays(30);
+
+        private Duration purgeInterval = Duration.ofHours(1);
+
+        private int maxLimit = 1000;
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    public static class CatalogFeed {
+
+        private Duration reloadInterval = Duration.ofMinutes(10);
+
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
+
+        public void setReloadInterval(Duration reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+    }
+
+    public static class OrderCodes {
+
+        private int blockSize = 100;
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(int blockSize) {
+            this.blockSize = blockSize;
+        }
+    }
 }
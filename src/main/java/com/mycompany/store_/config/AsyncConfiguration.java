@@ -14,12 +14,19 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class AsyncConfiguration implements AsyncConfigurer {
 
+    public static final String IMAGE_VARIANT_TASK_EXECUTOR = "imageVariantTaskExecutor";
+
+    public static final String SEARCH_OUTBOX_TASK_EXECUTOR = "searchOutboxTaskExecutor";
+
+    public static final String CATALOG_FEED_TASK_EXECUTOR = "catalogFeedTaskExecutor";
+
     private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
 
     private final TaskExecutionProperties taskExecutionProperties;
@@ -40,6 +47,55 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Bounded executor dedicated to product image variants, so that image processing cannot
+     * starve the general purpose task executor. Tasks are rejected once the queue is full.
+     */
+    @Bean(name = IMAGE_VARIANT_TASK_EXECUTOR)
+    public ThreadPoolTaskExecutor imageVariantTaskExecutor(ApplicationProperties applicationProperties) {
+        log.debug("Creating Image Variant Task Executor");
+        ApplicationProperties.ImageVariants imageVariants = applicationProperties.getImageVariants();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageVariants.getPoolSize());
+        executor.setMaxPoolSize(imageVariants.getPoolSize());
+        executor.setQueueCapacity(imageVariants.getQueueCapacity());
+        executor.setThreadNamePrefix("store-image-");
+        return executor;
+    }
+
+    /**
+     * Single thread executor draining the search outbox after commits. At most one drain waits
+     * behind the running one: it will see every entry committed meanwhile, so further ones are
+     * discarded.
+     */
+    @Bean(name = SEARCH_OUTBOX_TASK_EXECUTOR)
+    public ThreadPoolTaskExecutor searchOutboxTaskExecutor() {
+        log.debug("Creating Search Outbox Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("store-search-outbox-");
+        return executor;
+    }
+
+    /**
+     * Single thread executor polling the catalog changes after commits. At most one poll waits
+     * behind the running one, like for the search outbox.
+     */
+    @Bean(name = CATALOG_FEED_TASK_EXECUTOR)
+    public ThreadPoolTaskExecutor catalogFeedTaskExecutor() {
+        log.debug("Creating Catalog Feed Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("store-catalog-feed-");
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -3,6 +3,8 @@ package com.mycompany.store_.config;
 import io.github.jhipster.config.JHipsterConstants;
 import io.github.jhipster.config.JHipsterProperties;
 
+import com.mycompany.store_.service.SearchResultCache;
+
 import com.hazelcast.config.*;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.Hazelcast;
@@ -52,7 +54,7 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         log.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("store_");
         if (hazelCastInstance != null) {
@@ -77,6 +79,7 @@ public class CacheConfiguration {
         // Full reference is available at: https://docs.hazelcast.org/docs/management-center/3.9/manual/html/Deploying_and_Starting.html
         config.setManagementCenterConfig(initializeDefaultManagementCenterConfig(jHipsterProperties));
         config.getMapConfigs().put("com.mycompany.store_.domain.*", initializeDomainMapConfig(jHipsterProperties));
+        config.getMapConfigs().put(SearchResultCache.RESULTS_MAP_NAME, initializeSearchResultMapConfig(applicationProperties));
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -124,6 +127,17 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
+    private MapConfig initializeSearchResultMapConfig(ApplicationProperties applicationProperties) {
+        ApplicationProperties.SearchResultCache properties = applicationProperties.getSearchResultCache();
+        MapConfig mapConfig = new MapConfig();
+        // The results are found again in the search index if a node is lost
+        mapConfig.setBackupCount(0);
+        mapConfig.setEvictionPolicy(EvictionPolicy.LRU);
+        mapConfig.setMaxSizeConfig(new MaxSizeConfig(properties.getMaxSize(), MaxSizeConfig.MaxSizePolicy.PER_NODE));
+        mapConfig.setTimeToLiveSeconds((int) properties.getTimeToLive().getSeconds());
+        return mapConfig;
+    }
+
     @Autowired(required = false)
     public void setGitProperties(GitProperties gitProperties) {
         this.gitProperties = gitProperties;
@@ -1,11 +1,15 @@
 package com.mycompany.store_.config;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.github.vanroy.springdata.jest.JestElasticsearchTemplate;
 import com.github.vanroy.springdata.jest.mapper.DefaultJestResultsMapper;
 import io.searchbox.client.JestClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.elasticsearch.ElasticsearchProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -15,11 +19,13 @@ import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.EntityMapper;
 import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
 import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 import org.springframework.data.mapping.MappingException;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @EnableConfigurationProperties(ElasticsearchProperties.class)
@@ -48,10 +54,32 @@ public class ElasticsearchConfiguration {
             new DefaultJestResultsMapper(mappingContext, entityMapper));
     }
 
+    /**
+     * The repositories create the indices and their mappings at startup, which needs the cluster: they
+     * are left out when the search backend is not Elasticsearch.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.search", name = "backend", havingValue = "elasticsearch", matchIfMissing = true)
+    @EnableElasticsearchRepositories("com.mycompany.store_.repository.search")
+    public static class ElasticsearchRepositoriesConfiguration {
+    }
+
+    /**
+     * Maps entities to and from their search documents.
+     * <p>
+     * Readers and writers are cached per class, and conversions between entities and maps go through
+     * a token buffer rather than through JSON text.
+     */
     public class CustomEntityMapper implements EntityMapper {
 
         private ObjectMapper objectMapper;
 
+        private final JavaType mapType;
+
+        private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+        private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
         public CustomEntityMapper(ObjectMapper objectMapper) {
             this.objectMapper = objectMapper;
             objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -59,23 +87,24 @@ public class ElasticsearchConfiguration {
             objectMapper.configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, true);
             objectMapper.configure(SerializationFeature.INDENT_OUTPUT, false);
             objectMapper.configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, true);
+            this.mapType = objectMapper.getTypeFactory().constructMapType(HashMap.class, String.class, Object.class);
         }
 
         @Override
         public String mapToString(Object object) throws IOException {
-            return objectMapper.writeValueAsString(object);
+            return writers.computeIfAbsent(object.getClass(), objectMapper::writerFor).writeValueAsString(object);
         }
 
         @Override
         public <T> T mapToObject(String source, Class<T> clazz) throws IOException {
-            return objectMapper.readValue(source, clazz);
+            return readers.computeIfAbsent(clazz, objectMapper::readerFor).readValue(source);
         }
 
         @Override
         public Map<String, Object> mapObject(Object source) {
             try {
-                return objectMapper.readValue(mapToString(source), HashMap.class);
-            } catch (IOException e) {
+                return objectMapper.convertValue(source, mapType);
+            } catch (IllegalArgumentException e) {
                 throw new MappingException(e.getMessage(), e);
             }
         }
@@ -83,8 +112,8 @@ public class ElasticsearchConfiguration {
         @Override
         public <T> T readObject(Map<String, Object> source, Class<T> targetType) {
             try {
-                return mapToObject(mapToString(source), targetType);
-            } catch (IOException e) {
+                return objectMapper.convertValue(source, targetType);
+            } catch (IllegalArgumentException e) {
                 throw new MappingException(e.getMessage(), e);
             }
         }
@@ -28,10 +28,12 @@ public class JacksonConfiguration {
 
     /*
      * Support for Hibernate types in Jackson.
+     * Associations that were not fetched are written with their id only.
      */
     @Bean
     public Hibernate5Module hibernate5Module() {
-        return new Hibernate5Module();
+        return new Hibernate5Module()
+            .enable(Hibernate5Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
     }
 
     /*
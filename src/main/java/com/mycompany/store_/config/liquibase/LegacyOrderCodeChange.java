@@ -0,0 +1,70 @@
+package com.mycompany.store_.config.liquibase;
+
+import com.mycompany.store_.service.OrderCodeAllocator;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Rewrites the codes chosen by the clients before the {@link OrderCodeAllocator} which are valid
+ * allocator codes, as the allocator could hand them out again. They get their order id as a suffix
+ * after a dash, which is not in the alphabet of the allocator, like the duplicate codes.
+ * <p>
+ * Written in Java to check the codes with {@link OrderCodeAllocator#isValid(String)}, so that only
+ * the codes which can collide are changed.
+ */
+public class LegacyOrderCodeChange implements CustomTaskChange {
+
+    private int rewritten;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("select id, code from product_order where code is not null");
+             PreparedStatement update = connection.prepareStatement("update product_order set code = ? where id = ?")) {
+            while (rows.next()) {
+                long id = rows.getLong("id");
+                String code = rows.getString("code");
+                if (OrderCodeAllocator.isValid(code)) {
+                    update.setString(1, code + "-" + id);
+                    update.setLong(2, id);
+                    update.addBatch();
+                    rewritten++;
+                }
+            }
+            if (rewritten > 0) {
+                update.executeBatch();
+            }
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Could not rewrite the legacy order codes", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Rewrote " + rewritten + " legacy order codes in the format of the allocator";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase changes written in Java.
+ */
+package com.mycompany.store_.config.liquibase;
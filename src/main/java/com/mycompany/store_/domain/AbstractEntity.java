@@ -0,0 +1,47 @@
+package com.mycompany.store_.domain;
+
+import org.hibernate.proxy.HibernateProxy;
+
+import java.io.Serializable;
+
+/**
+ * Base class for entities with a generated id, defining their identity.
+ * <p>
+ * Two entities are equal when they are of the same entity class and have the same id; an
+ * entity without id is only equal to itself. The hash code is the one of the entity class, so
+ * that it does not change when the entity is persisted: an entity added to a
+ * {@link java.util.HashSet} before being persisted can still be found in it afterwards.
+ */
+public abstract class AbstractEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public abstract Long getId();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AbstractEntity) || entityClass(this) != entityClass(o)) {
+            return false;
+        }
+        Long id = getId();
+        return id != null && id.equals(((AbstractEntity) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return entityClass(this).hashCode();
+    }
+
+    /**
+     * The class of an entity, without initializing it if it is a lazy proxy.
+     */
+    private static Class<?> entityClass(Object entity) {
+        if (entity instanceof HibernateProxy) {
+            return ((HibernateProxy) entity).getHibernateLazyInitializer().getPersistentClass();
+        }
+        return entity.getClass();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mycompany.store_.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A write of a product or a category, written in the same transaction as the entity and read by
+ * the clients synchronizing the catalog.
+ * <p>
+ * The sequence is allocated by the writing transaction under a lock held until it commits, so that
+ * the changes are numbered without gaps in the order they become visible.
+ *
+ * @see com.mycompany.store_.service.CatalogChangeLog
+ */
+@Entity
+@Table(name = "catalog_change")
+public class CatalogChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "sequence_number")
+    private Long sequence;
+
+    @NotNull
+    @Column(name = "entity_type", length = 50, nullable = false)
+    private String entityType;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogChange{" +
+            "sequence=" + sequence +
+            ", entityType='" + entityType + "'" +
+            ", entityId=" + entityId +
+            ", deleted=" + deleted +
+            "}";
+    }
+}
@@ -7,7 +7,6 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
-import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -20,12 +19,14 @@ import com.mycompany.store_.domain.enumeration.Gender;
 @Table(name = "customer")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "customer")
-public class Customer implements Serializable {
+public class Customer extends AbstractEntity {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customerIdGenerator")
+    @TableGenerator(name = "customerIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "customer", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -65,7 +66,7 @@ public class Customer implements Serializable {
     @Column(name = "country", nullable = false)
     private String country;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(unique = true)
     private User user;
 
@@ -74,6 +75,7 @@ public class Customer implements Serializable {
     private Set<ProductOrder> orders = new HashSet<>();
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
+    @Override
     public Long getId() {
         return id;
     }
@@ -238,22 +240,6 @@ public class Customer implements Serializable {
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (!(o instanceof Customer)) {
-            return false;
-        }
-        return id != null && id.equals(((Customer) o).id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 31;
-    }
-
     // prettier-ignore
     @Override
     public String toString() {
@@ -8,7 +8,6 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
-import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.HashSet;
@@ -25,12 +24,14 @@ import com.mycompany.store_.domain.enumeration.PaymentMethod;
 @Table(name = "invoice")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "invoice")
-public class Invoice implements Serializable {
+public class Invoice extends AbstractEntity {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "invoiceIdGenerator")
+    @TableGenerator(name = "invoiceIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "invoice", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -62,11 +63,12 @@ public class Invoice implements Serializable {
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Shipment> shipments = new HashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = "invoices", allowSetters = true)
     private ProductOrder order;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
+    @Override
     public Long getId() {
         return id;
     }
@@ -192,22 +194,6 @@ public class Invoice implements Serializable {
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (!(o instanceof Invoice)) {
-            return false;
-        }
-        return id != null && id.equals(((Invoice) o).id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 31;
-    }
-
     // prettier-ignore
     @Override
     public String toString() {
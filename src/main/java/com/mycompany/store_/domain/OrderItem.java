@@ -8,7 +8,6 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 
 import org.springframework.data.elasticsearch.annotations.FieldType;
-import java.io.Serializable;
 
 import com.mycompany.store_.domain.enumeration.OrderItemStatus;
 
@@ -19,12 +18,14 @@ import com.mycompany.store_.domain.enumeration.OrderItemStatus;
 @Table(name = "order_item")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "orderitem")
-public class OrderItem implements Serializable {
+public class OrderItem extends AbstractEntity {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orderItemIdGenerator")
+    @TableGenerator(name = "orderItemIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "order_item", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -37,15 +38,16 @@ public class OrderItem implements Serializable {
     @Column(name = "status", nullable = false)
     private OrderItemStatus status;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = "orderItems", allowSetters = true)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = "orderItems", allowSetters = true)
     private ProductOrder order;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
+    @Override
     public Long getId() {
         return id;
     }
@@ -107,22 +109,6 @@ public class OrderItem implements Serializable {
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (!(o instanceof OrderItem)) {
-            return false;
-        }
-        return id != null && id.equals(((OrderItem) o).id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 31;
-    }
-
     // prettier-ignore
     @Override
     public String toString() {
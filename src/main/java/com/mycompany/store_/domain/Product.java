@@ -1,6 +1,8 @@
 package com.mycompany.store_.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.annotations.ApiModel;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
@@ -8,9 +10,11 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.elasticsearch.annotations.FieldType;
-import java.io.Serializable;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 import com.mycompany.store_.domain.enumeration.Size;
 
@@ -19,15 +23,18 @@ import com.mycompany.store_.domain.enumeration.Size;
  */
 @ApiModel(description = "Product sold by the Online Store")
 @Entity
+@EntityListeners(AuditingEntityListener.class)
 @Table(name = "product")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "product")
-public class Product implements Serializable {
+public class Product extends AbstractEntity {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "productIdGenerator")
+    @TableGenerator(name = "productIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "product", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -47,18 +54,34 @@ public class Product implements Serializable {
     @Column(name = "size", nullable = false)
     private Size size;
 
-    @Lob
-    @Column(name = "image")
-    private byte[] image;
+    /**
+     * Image uploaded inline with the product; it is moved to the
+     * {@link com.mycompany.store_.service.ProductImageStore} on save and never read back.
+     * Declared {@code transient} rather than {@code @Transient}, which Jackson's Hibernate module would ignore.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private transient byte[] image;
+
+    @Column(name = "image_key", length = 64)
+    private String imageKey;
 
     @Column(name = "image_content_type")
     private String imageContentType;
 
-    @ManyToOne
+    /**
+     * Set on each write, to find the changes made since a catalog snapshot was taken.
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_date", nullable = false)
+    @JsonIgnore
+    private Instant lastModifiedDate = Instant.now();
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = "products", allowSetters = true)
     private ProductCategory productCategory;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
+    @Override
     public Long getId() {
         return id;
     }
@@ -132,6 +155,19 @@ public class Product implements Serializable {
         this.image = image;
     }
 
+    public String getImageKey() {
+        return imageKey;
+    }
+
+    public Product imageKey(String imageKey) {
+        this.imageKey = imageKey;
+        return this;
+    }
+
+    public void setImageKey(String imageKey) {
+        this.imageKey = imageKey;
+    }
+
     public String getImageContentType() {
         return imageContentType;
     }
@@ -145,6 +181,14 @@ public class Product implements Serializable {
         this.imageContentType = imageContentType;
     }
 
+    public Instant getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     public ProductCategory getProductCategory() {
         return productCategory;
     }
@@ -159,22 +203,6 @@ public class Product implements Serializable {
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (!(o instanceof Product)) {
-            return false;
-        }
-        return id != null && id.equals(((Product) o).id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 31;
-    }
-
     // prettier-ignore
     @Override
     public String toString() {
@@ -184,7 +212,7 @@ public class Product implements Serializable {
             ", description='" + getDescription() + "'" +
             ", price=" + getPrice() +
             ", size='" + getSize() + "'" +
-            ", image='" + getImage() + "'" +
+            ", imageKey='" + getImageKey() + "'" +
             ", imageContentType='" + getImageContentType() + "'" +
             "}";
     }
@@ -1,13 +1,16 @@
 package com.mycompany.store_.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
 
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.elasticsearch.annotations.FieldType;
-import java.io.Serializable;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -15,15 +18,18 @@ import java.util.Set;
  * A ProductCategory.
  */
 @Entity
+@EntityListeners(AuditingEntityListener.class)
 @Table(name = "product_category")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "productcategory")
-public class ProductCategory implements Serializable {
+public class ProductCategory extends AbstractEntity {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "productCategoryIdGenerator")
+    @TableGenerator(name = "productCategoryIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "product_category", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -33,11 +39,20 @@ public class ProductCategory implements Serializable {
     @Column(name = "description")
     private String description;
 
+    /**
+     * Set on each write, to find the changes made since a catalog snapshot was taken.
+     */
+    @LastModifiedDate
+    @Column(name = "last_modified_date", nullable = false)
+    @JsonIgnore
+    private Instant lastModifiedDate = Instant.now();
+
     @OneToMany(mappedBy = "productCategory")
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Product> products = new HashSet<>();
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
+    @Override
     public Long getId() {
         return id;
     }
@@ -72,6 +87,14 @@ public class ProductCategory implements Serializable {
         this.description = description;
     }
 
+    public Instant getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     public Set<Product> getProducts() {
         return products;
     }
@@ -98,22 +121,6 @@ public class ProductCategory implements Serializable {
     }
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (!(o instanceof ProductCategory)) {
-            return false;
-        }
-        return id != null && id.equals(((ProductCategory) o).id);
-    }
-
-    @Override
-    public int hashCode() {
-        return 31;
-    }
-
     // prettier-ignore
     @Override
     public String toString() {
@@ -0,0 +1,26 @@
+package com.mycompany.store_.repository;
+
+import com.mycompany.store_.domain.CatalogChange;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the {@link CatalogChange} entity.
+ */
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    List<CatalogChange> findBySequenceGreaterThanOrderBySequence(Long sequence, Pageable pageable);
+
+    @Modifying
+    @Query("delete from CatalogChange change where change.createdDate < :date")
+    int deleteByCreatedDateBefore(@Param("date") Instant date);
+}
@@ -2,13 +2,25 @@ package com.mycompany.store_.repository;
 
 import com.mycompany.store_.domain.Customer;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Customer entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends KeysetRepository<Customer, Long> {
+
+    @Query(value = "select customer from Customer customer left join fetch customer.user",
+        countQuery = "select count(customer) from Customer customer")
+    Page<Customer> findAllWithUser(Pageable pageable);
+
+    @Query("select customer from Customer customer left join fetch customer.user where customer.id = :id")
+    Optional<Customer> findOneWithUser(@Param("id") Long id);
 }
@@ -0,0 +1,27 @@
+package com.mycompany.store_.repository;
+
+/**
+ * Thrown when a keyset page is requested with a malformed cursor or an unsupported sort.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String entityName;
+
+    private final String errorKey;
+
+    public InvalidCursorException(String message, String entityName, String errorKey) {
+        super(message);
+        this.entityName = entityName;
+        this.errorKey = errorKey;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getErrorKey() {
+        return errorKey;
+    }
+}
@@ -2,13 +2,29 @@ package com.mycompany.store_.repository;
 
 import com.mycompany.store_.domain.Invoice;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Invoice entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends KeysetRepository<Invoice, Long> {
+
+    @Query(value = "select invoice from Invoice invoice left join fetch invoice.order",
+        countQuery = "select count(invoice) from Invoice invoice")
+    Page<Invoice> findAllWithOrder(Pageable pageable);
+
+    @Query("select invoice from Invoice invoice left join fetch invoice.order where invoice.id = :id")
+    Optional<Invoice> findOneWithOrder(@Param("id") Long id);
+
+    @Query("select distinct invoice from Invoice invoice left join fetch invoice.shipments where invoice.order.id = :orderId")
+    List<Invoice> findAllWithShipmentsByOrderId(@Param("orderId") Long orderId);
 }
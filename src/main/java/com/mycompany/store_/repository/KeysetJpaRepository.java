@@ -0,0 +1,225 @@
+package com.mycompany.store_.repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.util.DirectFieldAccessFallbackBeanWrapper;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Base class of the Spring Data JPA repositories, implementing {@link KeysetRepository}.
+ * <p>
+ * A page after a cursor {@code (v1, ..., vn, id)} is selected with
+ * {@code k1 > v1 or (k1 = v1 and k2 > v2) or ...}, flipping the comparison for descending
+ * keys, so that every page costs the same whatever its depth. One extra row is fetched to
+ * know whether there is a next page, instead of counting. The to-one associations of the
+ * entities are fetched with them.
+ *
+ * @param <T> the domain type.
+ * @param <ID> the type of the id of the entity.
+ */
+public class KeysetJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements KeysetRepository<T, ID> {
+
+    private static final List<Class<?>> SEEKABLE_TYPES = Arrays.asList(
+        String.class, Long.class, Integer.class, BigDecimal.class, Instant.class, LocalDate.class, ZonedDateTime.class);
+
+    private final EntityManager em;
+
+    private final EntityType<T> entityType;
+
+    private final String idName;
+
+    private final String entityName;
+
+    public KeysetJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.em = entityManager;
+        this.entityType = entityManager.getMetamodel().entity(entityInformation.getJavaType());
+        this.idName = entityInformation.getIdAttribute().getName();
+        this.entityName = StringUtils.uncapitalize(entityInformation.getJavaType().getSimpleName());
+    }
+
+    @Override
+    public KeysetSlice<T> findAllAfter(String after, Pageable pageable) {
+        return findAllAfter(null, after, pageable);
+    }
+
+    @Override
+    public KeysetSlice<T> findAllAfter(Specification<T> spec, String after, Pageable pageable) {
+        List<Sort.Order> orders = keysetOrders(pageable.getSort());
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(getDomainClass());
+        Root<T> root = query.from(getDomainClass());
+        fetchToOneAssociations(root);
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate filter = spec.toPredicate(root, query, cb);
+            if (filter != null) {
+                predicates.add(filter);
+            }
+        }
+        if (!after.isEmpty()) {
+            predicates.add(seek(cb, root, orders, decode(after, orders)));
+        }
+        if (!predicates.isEmpty()) {
+            query.where(predicates.toArray(new Predicate[0]));
+        }
+        Sort sort = Sort.by(orders);
+        query.select(root).orderBy(QueryUtils.toOrders(sort, root, cb));
+        int size = pageable.getPageSize();
+        List<T> content = em.createQuery(query).setMaxResults(size + 1).getResultList();
+        String nextCursor = null;
+        if (content.size() > size) {
+            content = new ArrayList<>(content.subList(0, size));
+            nextCursor = encode(content.get(size - 1), orders);
+        }
+        return new KeysetSlice<>(content, PageRequest.of(0, size, sort), nextCursor);
+    }
+
+    /**
+     * Pages are fetched with their to-one associations, like the other list queries of the
+     * repositories, so that the associations are not loaded one row at a time.
+     */
+    private void fetchToOneAssociations(Root<T> root) {
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.isAssociation()) {
+                root.fetch(attribute, JoinType.LEFT);
+            }
+        }
+    }
+
+    /**
+     * The requested orders, up to the id, which makes the keyset unique and is appended if missing.
+     */
+    private List<Sort.Order> keysetOrders(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (order.getProperty().equals(idName)) {
+                orders.add(order);
+                return orders;
+            }
+            SingularAttribute<? super T, ?> attribute = seekableAttribute(order.getProperty());
+            if (attribute == null) {
+                throw new InvalidCursorException("Cannot page by keyset on " + order.getProperty(), entityName, "cursorsort");
+            }
+            orders.add(order);
+        }
+        orders.add(Sort.Order.asc(idName));
+        return orders;
+    }
+
+    private SingularAttribute<? super T, ?> seekableAttribute(String property) {
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.getName().equals(property)) {
+                boolean seekable = attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC
+                    && !attribute.isOptional()
+                    && (attribute.getJavaType().isEnum() || SEEKABLE_TYPES.contains(attribute.getJavaType()));
+                return seekable ? attribute : null;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Predicate seek(CriteriaBuilder cb, Root<T> root, List<Sort.Order> orders, List<Object> values) {
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalities = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Expression<Comparable> key = root.get(order.getProperty());
+            Comparable value = (Comparable) values.get(i);
+            List<Predicate> alternative = new ArrayList<>(equalities);
+            alternative.add(order.isAscending() ? cb.greaterThan(key, value) : cb.lessThan(key, value));
+            alternatives.add(cb.and(alternative.toArray(new Predicate[0])));
+            equalities.add(cb.equal(key, value));
+        }
+        return cb.or(alternatives.toArray(new Predicate[0]));
+    }
+
+    /**
+     * The cursor holds the sort property names and values of the last entity of a page, so that a
+     * cursor used with another sort is rejected rather than silently skipping entities.
+     */
+    private String encode(T entity, List<Sort.Order> orders) {
+        DirectFieldAccessFallbackBeanWrapper wrapper = new DirectFieldAccessFallbackBeanWrapper(entity);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(orders.size());
+            for (Sort.Order order : orders) {
+                out.writeUTF(order.getProperty());
+                out.writeUTF(String.valueOf(wrapper.getPropertyValue(order.getProperty())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private List<Object> decode(String cursor, List<Sort.Order> orders) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readUnsignedByte() != orders.size()) {
+                throw new InvalidCursorException("Cursor does not match the sort", entityName, "cursor");
+            }
+            List<Object> values = new ArrayList<>(orders.size());
+            for (Sort.Order order : orders) {
+                if (!in.readUTF().equals(order.getProperty())) {
+                    throw new InvalidCursorException("Cursor does not match the sort", entityName, "cursor");
+                }
+                values.add(parse(in.readUTF(), entityType.getSingularAttribute(order.getProperty()).getJavaType()));
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor", entityName, "cursor");
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object parse(String text, Class<?> type) {
+        if (type == Long.class) {
+            return Long.valueOf(text);
+        } else if (type == Integer.class) {
+            return Integer.valueOf(text);
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(text);
+        } else if (type == Instant.class) {
+            return Instant.parse(text);
+        } else if (type == LocalDate.class) {
+            return LocalDate.parse(text);
+        } else if (type == ZonedDateTime.class) {
+            return ZonedDateTime.parse(text);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, text);
+        }
+        return text;
+    }
+}
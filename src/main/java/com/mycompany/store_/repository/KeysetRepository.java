@@ -0,0 +1,46 @@
+package com.mycompany.store_.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * Spring Data repository able to page through its entities by keyset.
+ * <p>
+ * Instead of skipping rows with an offset, each page seeks past the sort values and id of the
+ * last entity of the previous page, carried by an opaque cursor. Pages are not counted.
+ * Implemented by {@link KeysetJpaRepository}.
+ *
+ * @param <T> the domain type.
+ * @param <ID> the type of the id of the entity.
+ */
+@NoRepositoryBean
+public interface KeysetRepository<T, ID> extends JpaRepository<T, ID> {
+
+    /**
+     * Returns a page of entities following a cursor.
+     * <p>
+     * The sort of the pageable may only use non-null basic attributes of the entity; the id is
+     * always used as the last sort key. The page number of the pageable is ignored. The to-one
+     * associations of the entities are fetched with them.
+     *
+     * @param after the cursor returned with the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page if there is one.
+     * @throws InvalidCursorException if the cursor is malformed or the sort is not supported.
+     */
+    KeysetSlice<T> findAllAfter(String after, Pageable pageable);
+
+    /**
+     * Returns a page of the entities matching a specification following a cursor, as
+     * {@link #findAllAfter(String, Pageable)} does for all the entities.
+     *
+     * @param spec the filter of the entities.
+     * @param after the cursor returned with the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page if there is one.
+     * @throws InvalidCursorException if the cursor is malformed or the sort is not supported.
+     */
+    KeysetSlice<T> findAllAfter(Specification<T> spec, String after, Pageable pageable);
+}
@@ -2,13 +2,25 @@ package com.mycompany.store_.repository;
 
 import com.mycompany.store_.domain.OrderItem;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the OrderItem entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+public interface OrderItemRepository extends KeysetRepository<OrderItem, Long> {
+
+    @Query(value = "select orderItem from OrderItem orderItem left join fetch orderItem.product left join fetch orderItem.order",
+        countQuery = "select count(orderItem) from OrderItem orderItem")
+    Page<OrderItem> findAllWithProductAndOrder(Pageable pageable);
+
+    @Query("select orderItem from OrderItem orderItem left join fetch orderItem.product left join fetch orderItem.order where orderItem.id = :id")
+    Optional<OrderItem> findOneWithProductAndOrder(@Param("id") Long id);
 }
@@ -1,14 +1,53 @@
 package com.mycompany.store_.repository;
 
 import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the ProductOrder entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductOrderRepository extends JpaRepository<ProductOrder, Long> {
+public interface ProductOrderRepository extends KeysetRepository<ProductOrder, Long> {
+
+    @Query(value = "select productOrder from ProductOrder productOrder left join fetch productOrder.customer",
+        countQuery = "select count(productOrder) from ProductOrder productOrder")
+    Page<ProductOrder> findAllWithCustomer(Pageable pageable);
+
+    @Query("select productOrder from ProductOrder productOrder left join fetch productOrder.customer where productOrder.id = :id")
+    Optional<ProductOrder> findOneWithCustomer(@Param("id") Long id);
+
+    @Query("select distinct productOrder from ProductOrder productOrder left join fetch productOrder.customer " +
+        "left join fetch productOrder.orderItems orderItem left join fetch orderItem.product where productOrder.id = :id")
+    Optional<ProductOrder> findOneWithCustomerAndOrderItems(@Param("id") Long id);
+
+    /**
+     * Returns a keyset page of the orders of a customer, the latest first, seeking on the
+     * {@code (customer_id, placed_date, id, status)} index.
+     *
+     * @param customerId the id of the customer.
+     * @param statuses the statuses to keep, or none to keep all of them.
+     * @param after the cursor returned with the previous page, or an empty string for the first page.
+     * @param size the size of the page.
+     * @return the page of orders, with the cursor of the next page if there is one.
+     * @throws InvalidCursorException if the cursor is malformed.
+     */
+    default KeysetSlice<ProductOrder> findAllByCustomerAfter(Long customerId, Collection<OrderStatus> statuses, String after, int size) {
+        Specification<ProductOrder> spec = (root, query, cb) -> statuses == null || statuses.isEmpty()
+            ? cb.equal(root.get("customer").get("id"), customerId)
+            : cb.and(cb.equal(root.get("customer").get("id"), customerId), root.get("status").in(statuses));
+        return findAllAfter(spec, after, PageRequest.of(0, size, Sort.by(Sort.Order.desc("placedDate"), Sort.Order.desc("id"))));
+    }
 }
@@ -2,13 +2,36 @@ package com.mycompany.store_.repository;
 
 import com.mycompany.store_.domain.Product;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Product entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends KeysetRepository<Product, Long> {
+
+    @Query("select product.imageKey from Product product where product.id = :id")
+    Optional<String> findImageKeyById(@Param("id") Long id);
+
+    @Query("select distinct product.imageKey from Product product where product.imageKey in :imageKeys")
+    List<String> findImageKeysByImageKeyIn(@Param("imageKeys") Collection<String> imageKeys);
+
+    @Query(value = "select product from Product product left join fetch product.productCategory",
+        countQuery = "select count(product) from Product product")
+    Page<Product> findAllWithProductCategory(Pageable pageable);
+
+    @Query("select product from Product product left join fetch product.productCategory where product.id = :id")
+    Optional<Product> findOneWithProductCategory(@Param("id") Long id);
+
+    @Query("select product from Product product left join fetch product.productCategory where product.id in :ids")
+    List<Product> findAllWithProductCategoryByIdIn(@Param("ids") Collection<Long> ids);
 }
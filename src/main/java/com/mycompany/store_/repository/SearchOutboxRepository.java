@@ -0,0 +1,30 @@
+package com.mycompany.store_.repository;
+
+import com.mycompany.store_.domain.SearchOutboxEntry;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the {@link SearchOutboxEntry} entity.
+ */
+@Repository
+public interface SearchOutboxRepository extends JpaRepository<SearchOutboxEntry, Long> {
+
+    List<SearchOutboxEntry> findByNextAttemptDateLessThanEqualOrderById(Instant date, Pageable pageable);
+
+    @Query("select min(entry.createdDate) from SearchOutboxEntry entry")
+    Instant findOldestCreatedDate();
+
+    @Modifying
+    @Query("delete from SearchOutboxEntry entry where entry.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
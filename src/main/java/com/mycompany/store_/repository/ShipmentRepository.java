@@ -2,13 +2,25 @@ package com.mycompany.store_.repository;
 
 import com.mycompany.store_.domain.Shipment;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Spring Data  repository for the Shipment entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
+public interface ShipmentRepository extends KeysetRepository<Shipment, Long> {
+
+    @Query(value = "select shipment from Shipment shipment left join fetch shipment.invoice",
+        countQuery = "select count(shipment) from Shipment shipment")
+    Page<Shipment> findAllWithInvoice(Pageable pageable);
+
+    @Query("select shipment from Shipment shipment left join fetch shipment.invoice where shipment.id = :id")
+    Optional<Shipment> findOneWithInvoice(@Param("id") Long id);
 }
@@ -0,0 +1,220 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.CatalogChange;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.repository.CatalogChangeRepository;
+import com.mycompany.store_.repository.ProductCategoryRepository;
+import com.mycompany.store_.repository.ProductRepository;
+import com.mycompany.store_.service.dto.CatalogChangeDTO;
+import com.mycompany.store_.service.dto.CatalogChangesDTO;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service recording the writes of products and categories, in the transaction writing them, and
+ * reading them back for the clients synchronizing the catalog.
+ * <p>
+ * Each change takes the next sequence from its row of {@code id_generator}, which stays locked
+ * until the transaction ends: catalog writes are serialized, so that the changes are numbered
+ * without gaps in the order they become visible, and a client reading the changes after a sequence
+ * never misses one committed later with a lower sequence. Changes are purged after the retention
+ * period; a client asking for changes since a purged one must synchronize the whole catalog again.
+ * <p>
+ * Each change is also published as an application event, for the listeners to run once the
+ * transaction commits, like the {@link CatalogFeed}.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class CatalogChangeLog {
+
+    private static final String SEQUENCE_NAME = "catalog_change";
+
+    private static final String PRODUCT = Product.class.getSimpleName();
+
+    private static final String PRODUCT_CATEGORY = ProductCategory.class.getSimpleName();
+
+    private final Logger log = LoggerFactory.getLogger(CatalogChangeLog.class);
+
+    private final CatalogChangeRepository catalogChangeRepository;
+
+    private final ProductRepository productRepository;
+
+    private final ProductCategoryRepository productCategoryRepository;
+
+    private final EntityManager em;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final Duration retention;
+
+    private final int maxLimit;
+
+    public CatalogChangeLog(CatalogChangeRepository catalogChangeRepository, ProductRepository productRepository,
+            ProductCategoryRepository productCategoryRepository, EntityManager em, ApplicationEventPublisher applicationEventPublisher,
+            ApplicationProperties applicationProperties) {
+        this.catalogChangeRepository = catalogChangeRepository;
+        this.productRepository = productRepository;
+        this.productCategoryRepository = productCategoryRepository;
+        this.em = em;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.retention = applicationProperties.getCatalogChanges().getRetention();
+        this.maxLimit = applicationProperties.getCatalogChanges().getMaxLimit();
+    }
+
+    /**
+     * Record that a product or category was created or updated.
+     *
+     * @param entityType {@link Product} or {@link ProductCategory}.
+     * @param id the id of the entity.
+     */
+    public void changed(Class<?> entityType, Long id) {
+        record(entityType, id, false);
+    }
+
+    /**
+     * Record that a product or category was deleted.
+     *
+     * @param entityType {@link Product} or {@link ProductCategory}.
+     * @param id the id of the entity.
+     */
+    public void deleted(Class<?> entityType, Long id) {
+        record(entityType, id, true);
+    }
+
+    private void record(Class<?> entityType, Long id, boolean deleted) {
+        CatalogChange change = new CatalogChange();
+        change.setSequence(nextSequence());
+        change.setEntityType(entityType.getSimpleName());
+        change.setEntityId(id);
+        change.setDeleted(deleted);
+        change.setCreatedDate(Instant.now());
+        em.persist(change);
+        applicationEventPublisher.publishEvent(change);
+    }
+
+    private long nextSequence() {
+        // Only id_generator is written: without it Hibernate would evict the whole second-level cache
+        em.createNativeQuery("update id_generator set next_val = next_val + 1 where sequence_name = :name")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("id_generator")
+            .setParameter("name", SEQUENCE_NAME)
+            .executeUpdate();
+        return nextValue() - 1;
+    }
+
+    private long nextValue() {
+        return ((Number) em.createNativeQuery("select next_val from id_generator where sequence_name = :name")
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace("id_generator")
+            .setParameter("name", SEQUENCE_NAME)
+            .getSingleResult()).longValue();
+    }
+
+    /**
+     * Get the sequence of the last change, to read the changes from after synchronizing the whole catalog.
+     *
+     * @return the sequence of the last change, with no changes.
+     */
+    @Transactional(readOnly = true)
+    public CatalogChangesDTO findLastSequence() {
+        CatalogChangesDTO result = new CatalogChangesDTO();
+        result.setNext(nextValue() - 1);
+        return result;
+    }
+
+    /**
+     * Get the changes after a sequence: the latest change of each product and category changed,
+     * with their current state.
+     *
+     * @param since the sequence of the last change already read.
+     * @param limit the most changes to read, at most the configured maximum.
+     * @return the changes, and the sequence to read the following ones from.
+     * @throws CatalogChangesExpiredException if changes after the sequence have been purged.
+     * @throws InvalidCatalogSequenceException if the sequence is after the last change.
+     */
+    @Transactional(readOnly = true)
+    public CatalogChangesDTO findChanges(long since, int limit) {
+        long last = nextValue() - 1;
+        if (since > last) {
+            throw new InvalidCatalogSequenceException(since, last);
+        }
+        limit = Math.max(1, Math.min(limit, maxLimit));
+        List<CatalogChange> changes = catalogChangeRepository.findBySequenceGreaterThanOrderBySequence(since, PageRequest.of(0, limit + 1));
+        boolean more = changes.size() > limit;
+        if (more) {
+            changes = changes.subList(0, limit);
+        }
+        if (changes.isEmpty() ? since < nextValue() - 1 : changes.get(0).getSequence() > since + 1) {
+            throw new CatalogChangesExpiredException(since);
+        }
+        // Only the latest change of an entity matters, as its current state is returned
+        Map<String, CatalogChange> latest = new LinkedHashMap<>();
+        for (CatalogChange change : changes) {
+            String key = change.getEntityType() + ":" + change.getEntityId();
+            latest.remove(key);
+            latest.put(key, change);
+        }
+        Map<Long, Product> products = productRepository.findAllWithProductCategoryByIdIn(entityIds(latest, PRODUCT)).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<Long, ProductCategory> categories = productCategoryRepository.findAllById(entityIds(latest, PRODUCT_CATEGORY)).stream()
+            .collect(Collectors.toMap(ProductCategory::getId, Function.identity()));
+
+        CatalogChangesDTO result = new CatalogChangesDTO();
+        for (CatalogChange change : latest.values()) {
+            CatalogChangeDTO dto = new CatalogChangeDTO();
+            dto.setSequence(change.getSequence());
+            dto.setEntityType(change.getEntityType());
+            dto.setId(change.getEntityId());
+            if (!change.isDeleted() && PRODUCT.equals(change.getEntityType())) {
+                dto.setProduct(products.get(change.getEntityId()));
+            } else if (!change.isDeleted() && PRODUCT_CATEGORY.equals(change.getEntityType())) {
+                dto.setProductCategory(categories.get(change.getEntityId()));
+            }
+            // An entity deleted by a change not read yet is already a tombstone
+            dto.setDeleted(dto.getProduct() == null && dto.getProductCategory() == null);
+            result.getChanges().add(dto);
+        }
+        result.setNext(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence());
+        result.setMore(more);
+        return result;
+    }
+
+    private static List<Long> entityIds(Map<String, CatalogChange> changes, String entityType) {
+        List<Long> ids = new ArrayList<>();
+        for (CatalogChange change : changes.values()) {
+            if (!change.isDeleted() && entityType.equals(change.getEntityType())) {
+                ids.add(change.getEntityId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Purge the changes older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${application.catalog-changes.purge-interval:PT1H}")
+    @Transactional
+    public void purge() {
+        int purged = catalogChangeRepository.deleteByCreatedDateBefore(Instant.now().minus(retention));
+        log.debug("Purged {} catalog changes", purged);
+    }
+}
@@ -0,0 +1,14 @@
+package com.mycompany.store_.service;
+
+/**
+ * Thrown when the changes of the catalog are requested since a sequence whose following changes
+ * have been purged: the client must synchronize the whole catalog again.
+ */
+public class CatalogChangesExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CatalogChangesExpiredException(long since) {
+        super("The catalog changes since " + since + " have expired");
+    }
+}
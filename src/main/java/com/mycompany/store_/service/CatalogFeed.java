@@ -0,0 +1,205 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.config.AsyncConfiguration;
+import com.mycompany.store_.domain.CatalogChange;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.service.dto.CatalogChangeDTO;
+import com.mycompany.store_.service.dto.CatalogChangesDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds the in-memory copies of the catalog held by each application: the {@link CatalogSnapshot},
+ * the {@link ProductSuggestionIndex} and the {@link ProductFacetIndex}.
+ * <p>
+ * The copies are loaded together from one read of the catalog, once the application is ready and
+ * then every reload interval: the snapshot is read from the database, or from its file at startup,
+ * and the indexes are built from its products. In between, the changes recorded by the
+ * {@link CatalogChangeLog} after the last one applied are read and applied to the three copies, as
+ * soon as a transaction of this application recording one commits, and every poll interval for the
+ * changes made by the other applications.
+ * <p>
+ * Loads and polls are serialized. The sequence of the last change is read before the catalog, so
+ * that the changes committed while a load reads it are applied again by the next poll.
+ */
+@Component
+public class CatalogFeed {
+
+    private static final String PRODUCT = Product.class.getSimpleName();
+
+    private final Logger log = LoggerFactory.getLogger(CatalogFeed.class);
+
+    private final CatalogChangeLog catalogChangeLog;
+
+    private final CatalogSnapshot catalogSnapshot;
+
+    private final ProductSuggestionIndex productSuggestionIndex;
+
+    private final ProductFacetIndex productFacetIndex;
+
+    private final EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final int batchSize;
+
+    private final Object lock = new Object();
+
+    /**
+     * The sequence of the last change applied, or -1 until the copies are loaded.
+     */
+    private long lastSequence = -1;
+
+    public CatalogFeed(CatalogChangeLog catalogChangeLog, CatalogSnapshot catalogSnapshot, ProductSuggestionIndex productSuggestionIndex,
+            ProductFacetIndex productFacetIndex, EntityManager em, PlatformTransactionManager transactionManager,
+            @Qualifier(AsyncConfiguration.CATALOG_FEED_TASK_EXECUTOR) ThreadPoolTaskExecutor executor,
+            ApplicationProperties applicationProperties) {
+        this.catalogChangeLog = catalogChangeLog;
+        this.catalogSnapshot = catalogSnapshot;
+        this.productSuggestionIndex = productSuggestionIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.executor = executor;
+        this.batchSize = applicationProperties.getCatalogChanges().getMaxLimit();
+    }
+
+    /**
+     * Load the copies once the application is ready, the snapshot from its file if there is one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        load(true);
+    }
+
+    /**
+     * Load the copies from the database.
+     */
+    @Scheduled(fixedDelayString = "${application.catalog-feed.reload-interval:PT10M}",
+        initialDelayString = "${application.catalog-feed.reload-interval:PT10M}")
+    public void reload() {
+        load(false);
+    }
+
+    private void load(boolean warmUp) {
+        synchronized (lock) {
+            transactionTemplate.execute(status -> {
+                long sequence = catalogChangeLog.findLastSequence().getNext();
+                if (warmUp) {
+                    catalogSnapshot.warmUp();
+                } else {
+                    catalogSnapshot.rebuild();
+                }
+                List<CatalogSnapshot.ProductRow> products = catalogSnapshot.products();
+                Map<Long, String> names = new HashMap<>();
+                List<Object[]> facets = new ArrayList<>(products.size());
+                for (CatalogSnapshot.ProductRow product : products) {
+                    names.put(product.id, product.name);
+                    facets.add(new Object[] { product.id, product.getSize(), product.getCategoryId(), product.getPrice() });
+                }
+                productSuggestionIndex.load(names, popularity());
+                productFacetIndex.load(facets);
+                lastSequence = sequence;
+                log.debug("Loaded the catalog of {} products, up to the change {}", products.size(), sequence);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * @return the quantity ordered of each product, by id.
+     */
+    private Map<Long, Long> popularity() {
+        Map<Long, Long> popularity = new HashMap<>();
+        for (Object[] row : em.createQuery("select i.product.id, sum(i.quantity) from OrderItem i " +
+                "where i.product is not null group by i.product.id", Object[].class).getResultList()) {
+            popularity.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return popularity;
+    }
+
+    /**
+     * Poll the changes on the {@link AsyncConfiguration#CATALOG_FEED_TASK_EXECUTOR} executor, once
+     * the transaction which recorded a change has committed.
+     *
+     * @param change the change recorded.
+     */
+    @TransactionalEventListener
+    public void changed(CatalogChange change) {
+        executor.execute(this::poll);
+    }
+
+    /**
+     * Apply the changes recorded since the last one applied. Loads the copies again if some of them
+     * were purged, and does nothing until the copies are loaded.
+     */
+    @Scheduled(fixedDelayString = "${application.catalog-feed.poll-interval:PT5S}")
+    public void poll() {
+        synchronized (lock) {
+            if (lastSequence < 0) {
+                return;
+            }
+            try {
+                transactionTemplate.execute(status -> {
+                    CatalogChangesDTO changes;
+                    do {
+                        changes = catalogChangeLog.findChanges(lastSequence, batchSize);
+                        changes.getChanges().forEach(this::apply);
+                        lastSequence = changes.getNext();
+                    } while (changes.isMore());
+                    return null;
+                });
+            } catch (CatalogChangesExpiredException e) {
+                log.info("The catalog changes after {} were purged, loading the catalog again", lastSequence);
+                load(false);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply the catalog changes after {}", lastSequence, e);
+            }
+        }
+    }
+
+    private void apply(CatalogChangeDTO change) {
+        Long id = change.getId();
+        if (PRODUCT.equals(change.getEntityType())) {
+            Product product = change.getProduct();
+            if (change.isDeleted()) {
+                productSuggestionIndex.remove(id);
+                productFacetIndex.remove(id);
+                catalogSnapshot.removeProduct(id);
+            } else {
+                Long categoryId = product.getProductCategory() == null ? null : product.getProductCategory().getId();
+                productSuggestionIndex.put(id, product.getName());
+                productFacetIndex.put(id, product.getSize(), categoryId, product.getPrice());
+                catalogSnapshot.putProduct(id, product.getName(), product.getPrice(), product.getSize(), categoryId,
+                    product.getImageContentType());
+            }
+        } else {
+            ProductCategory category = change.getProductCategory();
+            if (change.isDeleted()) {
+                catalogSnapshot.removeCategory(id);
+            } else {
+                catalogSnapshot.putCategory(id, category.getName(), category.getDescription());
+            }
+        }
+    }
+}
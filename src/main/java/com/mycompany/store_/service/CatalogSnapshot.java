@@ -0,0 +1,753 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.service.dto.CatalogCategoryDTO;
+import com.mycompany.store_.service.dto.CatalogProductDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory copy of the catalog, serving the product listings browsed by visitors without reading
+ * the database.
+ * <p>
+ * The products are held in columns of primitive arrays in id order, prices as cents and sizes as
+ * ordinals, with the orders of the products by name and by price precomputed. Names and image
+ * content types are shared between the products which have the same. A snapshot is immutable and
+ * replaced on each change, so readers never lock: a change copies the columns and patches the slot
+ * of the product, and moves it within the orders by binary search rather than sorting them again.
+ * <p>
+ * Each application builds its own snapshot, fed by the {@link CatalogFeed}: it is rebuilt from the
+ * database periodically, and follows the changes of the products and categories in between.
+ * <p>
+ * Each rebuild is also written to a {@link CatalogSnapshotFile}, which the application loads when it
+ * starts. It then only reads the products written since the snapshot was taken, and the ids of
+ * the products to find the deleted ones, rather than the whole catalog.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final long NO_CATEGORY = Long.MIN_VALUE;
+
+    /**
+     * The price of the products without one, sorted before all the others.
+     */
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    /**
+     * How long before the watermark of a snapshot file changes are read again, for the transactions
+     * which wrote before the snapshot was read but committed after.
+     */
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    private static final String PRODUCT_QUERY = "select p.id, p.name, p.price, p.size, c.id, p.imageContentType " +
+        "from Product p left join p.productCategory c";
+
+    private static final String CATEGORY_QUERY = "select c.id, c.name, c.description from ProductCategory c";
+
+    private final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    private final EntityManager em;
+
+    private final Path file;
+
+    private final Object lock = new Object();
+
+    private volatile Catalog catalog = Catalog.EMPTY;
+
+    public CatalogSnapshot(EntityManager em, ApplicationProperties applicationProperties) {
+        this.em = em;
+        String file = applicationProperties.getCatalogSnapshot().getFile();
+        this.file = file == null || file.isEmpty() ? null : Paths.get(file);
+    }
+
+    /**
+     * @param property a property of {@link CatalogProductDTO}.
+     * @return whether products can be sorted by the property.
+     */
+    public static boolean isSortable(String property) {
+        return "id".equals(property) || "name".equals(property) || "price".equals(property);
+    }
+
+    /**
+     * Get a page of the products matching a filter.
+     *
+     * @param categoryId the id of the category of the products, or null for all of them.
+     * @param size the size of the products, or null for all of them.
+     * @param minPrice the lowest price of the products, or null.
+     * @param maxPrice the highest price of the products, or null.
+     * @param pageable the page, sorted by the first of its orders on id, name or price, by id otherwise.
+     * @return the page of products.
+     */
+    public Page<CatalogProductDTO> findProducts(Long categoryId, Size size, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return catalog.findProducts(categoryId, size, minPrice, maxPrice, pageable);
+    }
+
+    /**
+     * @return the categories, by id, with their number of products.
+     */
+    public List<CatalogCategoryDTO> findCategories() {
+        return catalog.findCategories();
+    }
+
+    /**
+     * Add or replace a product.
+     *
+     * @param id the id of the product.
+     * @param name the name of the product.
+     * @param price the price of the product.
+     * @param size the size of the product.
+     * @param categoryId the id of the category of the product, if any.
+     * @param imageContentType the content type of the image of the product, if any.
+     */
+    public void putProduct(Long id, String name, BigDecimal price, Size size, Long categoryId, String imageContentType) {
+        ProductRow row = new ProductRow(id, name, price, size, categoryId, imageContentType);
+        apply(current -> current.withProduct(row));
+    }
+
+    /**
+     * Remove a product.
+     *
+     * @param id the id of the product.
+     */
+    public void removeProduct(Long id) {
+        apply(current -> current.withoutProduct(id));
+    }
+
+    /**
+     * Add or replace a category.
+     *
+     * @param id the id of the category.
+     * @param name the name of the category.
+     * @param description the description of the category.
+     */
+    public void putCategory(Long id, String name, String description) {
+        CategoryRow row = new CategoryRow(id, name, description);
+        apply(current -> current.withCategory(row));
+    }
+
+    /**
+     * Remove a category.
+     *
+     * @param id the id of the category.
+     */
+    public void removeCategory(Long id) {
+        apply(current -> current.withoutCategory(id));
+    }
+
+    /**
+     * Load the snapshot file and read the changes made since it was taken, or rebuild the snapshot
+     * from the database if there is no valid file.
+     */
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        if (file != null && Files.exists(file)) {
+            try {
+                CatalogSnapshotFile.Contents contents = CatalogSnapshotFile.read(file);
+                catchUp(contents);
+                log.info("Loaded the catalog snapshot of {} products from {}", contents.getProducts().size(), file);
+                return;
+            } catch (IOException e) {
+                log.warn("Could not load the catalog snapshot from {}, rebuilding it", file, e);
+            }
+        }
+        rebuild();
+    }
+
+    private void catchUp(CatalogSnapshotFile.Contents contents) {
+        Instant watermark = Instant.now();
+        Set<Long> ids = new HashSet<>(em.createQuery("select p.id from Product p", Long.class).getResultList());
+        List<Object[]> changed = em.createQuery(PRODUCT_QUERY + " where p.lastModifiedDate >= :since", Object[].class)
+            .setParameter("since", contents.getWatermark().minus(CATCH_UP_MARGIN))
+            .getResultList();
+        List<ProductRow> products = new ArrayList<>(ids.size());
+        for (Object[] product : changed) {
+            products.add(productRow(product));
+            ids.remove((Long) product[0]);
+        }
+        for (ProductRow product : contents.getProducts()) {
+            if (ids.contains(product.id)) {
+                products.add(product);
+            }
+        }
+        List<CategoryRow> categories = new ArrayList<>();
+        for (Object[] category : em.createQuery(CATEGORY_QUERY, Object[].class).getResultList()) {
+            categories.add(categoryRow(category));
+        }
+        replace(Catalog.build(watermark, products, categories));
+        log.debug("Caught up with {} products written since {}", changed.size(), contents.getWatermark());
+    }
+
+    /**
+     * Rebuild the snapshot from the database, and write it to the snapshot file.
+     */
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Instant watermark = Instant.now();
+        List<Object[]> categories = em.createQuery(CATEGORY_QUERY, Object[].class).getResultList();
+        List<Object[]> products = em.createQuery(PRODUCT_QUERY, Object[].class).getResultList();
+        load(watermark, products, categories);
+        log.debug("Rebuilt the catalog snapshot of {} products in {} categories", products.size(), categories.size());
+        if (file != null) {
+            Catalog current = catalog;
+            try {
+                CatalogSnapshotFile.write(file, new CatalogSnapshotFile.Contents(current.watermark,
+                    current.productRows(id -> true), current.categoryRows(id -> true)));
+            } catch (IOException e) {
+                log.warn("Could not write the catalog snapshot to {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * @return the products, in id order.
+     */
+    List<ProductRow> products() {
+        return catalog.productRows(id -> true);
+    }
+
+    /**
+     * Replace the snapshot.
+     *
+     * @param watermark the time the products and categories were read.
+     * @param products the id, name, price, size, category id and image content type of each product.
+     * @param categories the id, name and description of each category.
+     */
+    void load(Instant watermark, List<Object[]> products, List<Object[]> categories) {
+        List<ProductRow> productRows = new ArrayList<>(products.size());
+        for (Object[] product : products) {
+            productRows.add(productRow(product));
+        }
+        List<CategoryRow> categoryRows = new ArrayList<>(categories.size());
+        for (Object[] category : categories) {
+            categoryRows.add(categoryRow(category));
+        }
+        replace(Catalog.build(watermark, productRows, categoryRows));
+    }
+
+    private void replace(Catalog loaded) {
+        synchronized (lock) {
+            catalog = loaded;
+        }
+    }
+
+    private static ProductRow productRow(Object[] product) {
+        return new ProductRow((Long) product[0], (String) product[1], (BigDecimal) product[2], (Size) product[3],
+            (Long) product[4], (String) product[5]);
+    }
+
+    private static CategoryRow categoryRow(Object[] category) {
+        return new CategoryRow((Long) category[0], (String) category[1], (String) category[2]);
+    }
+
+    private void apply(UnaryOperator<Catalog> change) {
+        synchronized (lock) {
+            catalog = change.apply(catalog);
+        }
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * The columns of a product, as held in a snapshot.
+     */
+    static final class ProductRow {
+
+        final long id;
+
+        final String name;
+
+        final long priceCents;
+
+        final byte size;
+
+        final long categoryId;
+
+        final String imageContentType;
+
+        ProductRow(long id, String name, long priceCents, byte size, long categoryId, String imageContentType) {
+            this.id = id;
+            this.name = name;
+            this.priceCents = priceCents;
+            this.size = size;
+            this.categoryId = categoryId;
+            this.imageContentType = imageContentType;
+        }
+
+        private ProductRow(Long id, String name, BigDecimal price, Size size, Long categoryId, String imageContentType) {
+            this(id, name, price == null ? NO_PRICE : toCents(price), size == null ? -1 : (byte) size.ordinal(),
+                categoryId == null ? NO_CATEGORY : categoryId, imageContentType);
+        }
+
+        BigDecimal getPrice() {
+            return priceCents == NO_PRICE ? null : BigDecimal.valueOf(priceCents, 2);
+        }
+
+        Size getSize() {
+            return size < 0 ? null : Catalog.SIZES[size];
+        }
+
+        Long getCategoryId() {
+            return categoryId == NO_CATEGORY ? null : categoryId;
+        }
+    }
+
+    /**
+     * The columns of a category, as held in a snapshot.
+     */
+    static final class CategoryRow {
+
+        final long id;
+
+        final String name;
+
+        final String description;
+
+        CategoryRow(long id, String name, String description) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+        }
+    }
+
+    /**
+     * An immutable state of the catalog. A change copies the arrays it changes and shares the
+     * others, as the catalog is written much less often than it is read.
+     */
+    private static final class Catalog {
+
+        private static final Size[] SIZES = Size.values();
+
+        private static final Catalog EMPTY = build(Instant.EPOCH, new ArrayList<>(), new ArrayList<>());
+
+        /**
+         * The time the catalog was read from the database, the changes made since by other
+         * applications not being in it.
+         */
+        private final Instant watermark;
+
+        private final long[] ids;
+
+        private final String[] names;
+
+        private final long[] prices;
+
+        private final byte[] sizes;
+
+        private final long[] categories;
+
+        private final String[] imageContentTypes;
+
+        /**
+         * The positions of the products sorted by name, then by id.
+         */
+        private final int[] byName;
+
+        /**
+         * The positions of the products sorted by price, then by id.
+         */
+        private final int[] byPrice;
+
+        private final long[] categoryIds;
+
+        private final String[] categoryNames;
+
+        private final String[] categoryDescriptions;
+
+        private final long[] categoryProductCounts;
+
+        private Catalog(Instant watermark, List<ProductRow> sortedProducts, List<CategoryRow> sortedCategories) {
+            this.watermark = watermark;
+            int count = sortedProducts.size();
+            ids = new long[count];
+            names = new String[count];
+            prices = new long[count];
+            sizes = new byte[count];
+            categories = new long[count];
+            imageContentTypes = new String[count];
+            Map<String, String> strings = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                ProductRow row = sortedProducts.get(i);
+                ids[i] = row.id;
+                names[i] = share(strings, row.name);
+                prices[i] = row.priceCents;
+                sizes[i] = row.size;
+                categories[i] = row.categoryId;
+                imageContentTypes[i] = share(strings, row.imageContentType);
+            }
+            byName = order(count, nameOrder(names));
+            byPrice = order(count, priceOrder(prices));
+            categoryIds = new long[sortedCategories.size()];
+            categoryNames = new String[sortedCategories.size()];
+            categoryDescriptions = new String[sortedCategories.size()];
+            for (int i = 0; i < categoryIds.length; i++) {
+                CategoryRow row = sortedCategories.get(i);
+                categoryIds[i] = row.id;
+                categoryNames[i] = row.name;
+                categoryDescriptions[i] = row.description;
+            }
+            categoryProductCounts = new long[categoryIds.length];
+            for (long category : categories) {
+                int position = category == NO_CATEGORY ? -1 : Arrays.binarySearch(categoryIds, category);
+                if (position >= 0) {
+                    categoryProductCounts[position]++;
+                }
+            }
+        }
+
+        private Catalog(Catalog previous, long[] ids, String[] names, long[] prices, byte[] sizes, long[] categories,
+                String[] imageContentTypes, int[] byName, int[] byPrice, long[] categoryIds, String[] categoryNames,
+                String[] categoryDescriptions, long[] categoryProductCounts) {
+            this.watermark = previous.watermark;
+            this.ids = ids;
+            this.names = names;
+            this.prices = prices;
+            this.sizes = sizes;
+            this.categories = categories;
+            this.imageContentTypes = imageContentTypes;
+            this.byName = byName;
+            this.byPrice = byPrice;
+            this.categoryIds = categoryIds;
+            this.categoryNames = categoryNames;
+            this.categoryDescriptions = categoryDescriptions;
+            this.categoryProductCounts = categoryProductCounts;
+        }
+
+        private static Catalog build(Instant watermark, List<ProductRow> products, List<CategoryRow> categories) {
+            products.sort(Comparator.comparingLong(row -> row.id));
+            categories.sort(Comparator.comparingLong(row -> row.id));
+            return new Catalog(watermark, products, categories);
+        }
+
+        private static String share(Map<String, String> strings, String value) {
+            return value == null ? null : strings.computeIfAbsent(value, key -> key);
+        }
+
+        /**
+         * @return the positions sorted by an order, with a merge sort of the positions, unboxed.
+         */
+        private static int[] order(int count, IntBinaryOperator comparator) {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[count];
+            for (int width = 1; width < count; width *= 2) {
+                for (int from = 0; from < count - width; from += 2 * width) {
+                    int middle = from + width;
+                    int to = Math.min(from + 2 * width, count);
+                    int left = from;
+                    int right = middle;
+                    for (int i = from; i < to; i++) {
+                        buffer[i] = right >= to || (left < middle && comparator.applyAsInt(order[left], order[right]) <= 0)
+                            ? order[left++] : order[right++];
+                    }
+                    System.arraycopy(buffer, from, order, from, to - from);
+                }
+            }
+            return order;
+        }
+
+        private Catalog withProduct(ProductRow added) {
+            int position = Arrays.binarySearch(ids, added.id);
+            boolean inserted = position < 0;
+            if (inserted) {
+                position = -position - 1;
+            }
+            long[] newIds = inserted ? insert(ids, position) : ids;
+            String[] newNames = inserted ? insert(names, position) : names.clone();
+            long[] newPrices = inserted ? insert(prices, position) : prices.clone();
+            byte[] newSizes = inserted ? insert(sizes, position) : sizes.clone();
+            long[] newCategories = inserted ? insert(categories, position) : categories.clone();
+            String[] newImageContentTypes = inserted ? insert(imageContentTypes, position) : imageContentTypes.clone();
+            newIds[position] = added.id;
+            newNames[position] = added.name;
+            newPrices[position] = added.priceCents;
+            newSizes[position] = added.size;
+            newCategories[position] = added.categoryId;
+            newImageContentTypes[position] = added.imageContentType;
+            long[] counts = categoryProductCounts.clone();
+            if (!inserted) {
+                countProduct(counts, categories[position], -1);
+            }
+            countProduct(counts, added.categoryId, 1);
+            return new Catalog(this, newIds, newNames, newPrices, newSizes, newCategories, newImageContentTypes,
+                reorder(byName, position, inserted, nameOrder(newNames)), reorder(byPrice, position, inserted, priceOrder(newPrices)),
+                categoryIds, categoryNames, categoryDescriptions, counts);
+        }
+
+        private Catalog withoutProduct(long removed) {
+            int position = Arrays.binarySearch(ids, removed);
+            if (position < 0) {
+                return this;
+            }
+            long[] counts = categoryProductCounts.clone();
+            countProduct(counts, categories[position], -1);
+            return new Catalog(this, remove(ids, position), remove(names, position), remove(prices, position),
+                remove(sizes, position), remove(categories, position), remove(imageContentTypes, position),
+                withoutPosition(byName, position), withoutPosition(byPrice, position),
+                categoryIds, categoryNames, categoryDescriptions, counts);
+        }
+
+        private Catalog withCategory(CategoryRow added) {
+            int position = Arrays.binarySearch(categoryIds, added.id);
+            if (position >= 0) {
+                String[] newNames = categoryNames.clone();
+                String[] newDescriptions = categoryDescriptions.clone();
+                newNames[position] = added.name;
+                newDescriptions[position] = added.description;
+                return new Catalog(this, ids, names, prices, sizes, categories, imageContentTypes, byName, byPrice,
+                    categoryIds, newNames, newDescriptions, categoryProductCounts);
+            }
+            position = -position - 1;
+            long[] newIds = insert(categoryIds, position);
+            String[] newNames = insert(categoryNames, position);
+            String[] newDescriptions = insert(categoryDescriptions, position);
+            long[] counts = insert(categoryProductCounts, position);
+            newIds[position] = added.id;
+            newNames[position] = added.name;
+            newDescriptions[position] = added.description;
+            // Products may have been put in the category before it was
+            for (long category : categories) {
+                if (category == added.id) {
+                    counts[position]++;
+                }
+            }
+            return new Catalog(this, ids, names, prices, sizes, categories, imageContentTypes, byName, byPrice,
+                newIds, newNames, newDescriptions, counts);
+        }
+
+        private Catalog withoutCategory(long removed) {
+            int position = Arrays.binarySearch(categoryIds, removed);
+            return position < 0 ? this : new Catalog(this, ids, names, prices, sizes, categories, imageContentTypes, byName, byPrice,
+                remove(categoryIds, position), remove(categoryNames, position), remove(categoryDescriptions, position),
+                remove(categoryProductCounts, position));
+        }
+
+        private void countProduct(long[] counts, long category, int delta) {
+            int position = category == NO_CATEGORY ? -1 : Arrays.binarySearch(categoryIds, category);
+            if (position >= 0) {
+                counts[position] += delta;
+            }
+        }
+
+        /**
+         * @return the order of the positions by name, then by position, which is the id order.
+         */
+        private static IntBinaryOperator nameOrder(String[] names) {
+            Comparator<String> order = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+            return (a, b) -> {
+                int result = order.compare(names[a], names[b]);
+                return result != 0 ? result : Integer.compare(a, b);
+            };
+        }
+
+        /**
+         * @return the order of the positions by price, then by position.
+         */
+        private static IntBinaryOperator priceOrder(long[] prices) {
+            return (a, b) -> {
+                int result = Long.compare(prices[a], prices[b]);
+                return result != 0 ? result : Integer.compare(a, b);
+            };
+        }
+
+        /**
+         * Move a position within an order, after the product at that position was replaced or
+         * inserted there, the positions after an inserted one being shifted.
+         *
+         * @param order the positions sorted by the order, before the change.
+         * @param position the position of the product changed.
+         * @param inserted whether the product was inserted at the position, rather than replaced.
+         * @param comparator the order of the positions after the change.
+         * @return the positions sorted by the order, after the change.
+         */
+        private static int[] reorder(int[] order, int position, boolean inserted, IntBinaryOperator comparator) {
+            int[] result = new int[inserted ? order.length + 1 : order.length];
+            int size = 0;
+            for (int other : order) {
+                if (inserted) {
+                    result[size++] = other >= position ? other + 1 : other;
+                } else if (other != position) {
+                    result[size++] = other;
+                }
+            }
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (comparator.applyAsInt(result[middle], position) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            System.arraycopy(result, low, result, low + 1, size - low);
+            result[low] = position;
+            return result;
+        }
+
+        /**
+         * @return an order without a position, the positions after it being shifted.
+         */
+        private static int[] withoutPosition(int[] order, int position) {
+            int[] result = new int[order.length - 1];
+            int size = 0;
+            for (int other : order) {
+                if (other != position) {
+                    result[size++] = other > position ? other - 1 : other;
+                }
+            }
+            return result;
+        }
+
+        private static long[] insert(long[] array, int position) {
+            long[] result = new long[array.length + 1];
+            System.arraycopy(array, 0, result, 0, position);
+            System.arraycopy(array, position, result, position + 1, array.length - position);
+            return result;
+        }
+
+        private static byte[] insert(byte[] array, int position) {
+            byte[] result = new byte[array.length + 1];
+            System.arraycopy(array, 0, result, 0, position);
+            System.arraycopy(array, position, result, position + 1, array.length - position);
+            return result;
+        }
+
+        private static String[] insert(String[] array, int position) {
+            String[] result = new String[array.length + 1];
+            System.arraycopy(array, 0, result, 0, position);
+            System.arraycopy(array, position, result, position + 1, array.length - position);
+            return result;
+        }
+
+        private static long[] remove(long[] array, int position) {
+            long[] result = new long[array.length - 1];
+            System.arraycopy(array, 0, result, 0, position);
+            System.arraycopy(array, position + 1, result, position, result.length - position);
+            return result;
+        }
+
+        private static byte[] remove(byte[] array, int position) {
+            byte[] result = new byte[array.length - 1];
+            System.arraycopy(array, 0, result, 0, position);
+            System.arraycopy(array, position + 1, result, position, result.length - position);
+            return result;
+        }
+
+        private static String[] remove(String[] array, int position) {
+            String[] result = new String[array.length - 1];
+            System.arraycopy(array, 0, result, 0, position);
+            System.arraycopy(array, position + 1, result, position, result.length - position);
+            return result;
+        }
+
+        private List<ProductRow> productRows(LongPredicate included) {
+            List<ProductRow> rows = new ArrayList<>(ids.length + 1);
+            for (int i = 0; i < ids.length; i++) {
+                if (included.test(ids[i])) {
+                    rows.add(new ProductRow(ids[i], names[i], prices[i], sizes[i], categories[i], imageContentTypes[i]));
+                }
+            }
+            return rows;
+        }
+
+        private List<CategoryRow> categoryRows(LongPredicate included) {
+            List<CategoryRow> rows = new ArrayList<>(categoryIds.length + 1);
+            for (int i = 0; i < categoryIds.length; i++) {
+                if (included.test(categoryIds[i])) {
+                    rows.add(new CategoryRow(categoryIds[i], categoryNames[i], categoryDescriptions[i]));
+                }
+            }
+            return rows;
+        }
+
+        private Page<CatalogProductDTO> findProducts(Long categoryId, Size size, BigDecimal minPrice, BigDecimal maxPrice,
+                Pageable pageable) {
+            Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+            int[] positions = "name".equals(order.getProperty()) ? byName : "price".equals(order.getProperty()) ? byPrice : null;
+            long category = categoryId == null ? 0 : categoryId;
+            byte sizeOrdinal = size == null ? -1 : (byte) size.ordinal();
+            long minCents = minPrice == null ? Long.MIN_VALUE : minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+            long maxCents = maxPrice == null ? Long.MAX_VALUE : maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+            boolean priced = minPrice != null || maxPrice != null;
+            long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+            List<CatalogProductDTO> content = new ArrayList<>(Math.min(limit, ids.length));
+            long total = 0;
+            for (int i = 0; i < ids.length; i++) {
+                int rank = order.isAscending() ? i : ids.length - 1 - i;
+                int position = positions == null ? rank : positions[rank];
+                if ((categoryId != null && categories[position] != category)
+                    || (size != null && sizes[position] != sizeOrdinal)
+                    || (prices[position] == NO_PRICE ? priced : prices[position] < minCents || prices[position] > maxCents)) {
+                    continue;
+                }
+                if (total++ >= skip && content.size() < limit) {
+                    content.add(toProduct(position));
+                }
+            }
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        private CatalogProductDTO toProduct(int position) {
+            CatalogProductDTO product = new CatalogProductDTO();
+            product.setId(ids[position]);
+            product.setName(names[position]);
+            product.setPrice(prices[position] == NO_PRICE ? null : BigDecimal.valueOf(prices[position], 2));
+            product.setSize(sizes[position] < 0 ? null : SIZES[sizes[position]]);
+            product.setImageContentType(imageContentTypes[position]);
+            if (categories[position] != NO_CATEGORY) {
+                product.setProductCategoryId(categories[position]);
+                int category = Arrays.binarySearch(categoryIds, categories[position]);
+                if (category >= 0) {
+                    product.setProductCategoryName(categoryNames[category]);
+                }
+            }
+            return product;
+        }
+
+        private List<CatalogCategoryDTO> findCategories() {
+            List<CatalogCategoryDTO> result = new ArrayList<>(categoryIds.length);
+            for (int i = 0; i < categoryIds.length; i++) {
+                CatalogCategoryDTO category = new CatalogCategoryDTO();
+                category.setId(categoryIds[i]);
+                category.setName(categoryNames[i]);
+                category.setDescription(categoryDescriptions[i]);
+                category.setProductCount(categoryProductCounts[i]);
+                result.add(category);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.mycompany.store_.service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The binary file of a {@link CatalogSnapshot}, loaded at startup instead of reading the whole
+ * catalog from the database.
+ * <p>
+ * The file is made of, in big-endian order:
+ * <ul>
+ * <li>a header: magic number, version, watermark in epoch milliseconds, and the number of products,
+ * categories and strings;</li>
+ * <li>a fixed-width record per product: id, price in cents, category id, name and image content
+ * type as indexes in the string table, and size ordinal;</li>
+ * <li>a fixed-width record per category: id, and name and description as indexes in the string table;</li>
+ * <li>the string table: the length and UTF-8 bytes of each distinct string;</li>
+ * <li>the CRC-32 of all the previous bytes.</li>
+ * </ul>
+ * A missing string is the index -1, a missing price or category is {@link Long#MIN_VALUE} and a
+ * missing size is -1.
+ */
+final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x43415453;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+
+    private static final int PRODUCT_SIZE = 8 + 8 + 8 + 4 + 4 + 1;
+
+    private static final int CATEGORY_SIZE = 8 + 4 + 4;
+
+    private static final int CHECKSUM_SIZE = 8;
+
+    private CatalogSnapshotFile() {
+    }
+
+    /**
+     * The content of a snapshot file.
+     */
+    static final class Contents {
+
+        private final Instant watermark;
+
+        private final List<CatalogSnapshot.ProductRow> products;
+
+        private final List<CatalogSnapshot.CategoryRow> categories;
+
+        Contents(Instant watermark, List<CatalogSnapshot.ProductRow> products, List<CatalogSnapshot.CategoryRow> categories) {
+            this.watermark = watermark;
+            this.products = products;
+            this.categories = categories;
+        }
+
+        /**
+         * @return the time the snapshot was read from the database: the changes made since are not in it.
+         */
+        Instant getWatermark() {
+            return watermark;
+        }
+
+        List<CatalogSnapshot.ProductRow> getProducts() {
+            return products;
+        }
+
+        List<CatalogSnapshot.CategoryRow> getCategories() {
+            return categories;
+        }
+    }
+
+    /**
+     * Write a snapshot file, replacing the previous one atomically.
+     *
+     * @param file the path of the file.
+     * @param contents the snapshot.
+     * @throws IOException if the file could not be written.
+     */
+    static void write(Path file, Contents contents) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (CatalogSnapshot.ProductRow product : contents.products) {
+            intern(strings, product.name);
+            intern(strings, product.imageContentType);
+        }
+        for (CatalogSnapshot.CategoryRow category : contents.categories) {
+            intern(strings, category.name);
+            intern(strings, category.description);
+        }
+        List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+        long size = HEADER_SIZE + (long) PRODUCT_SIZE * contents.products.size()
+            + (long) CATEGORY_SIZE * contents.categories.size() + CHECKSUM_SIZE;
+        for (String string : strings.keySet()) {
+            byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(encoded);
+            size += 4 + encoded.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Catalog snapshot too large: " + size + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC)
+            .putInt(VERSION)
+            .putLong(contents.watermark.toEpochMilli())
+            .putInt(contents.products.size())
+            .putInt(contents.categories.size())
+            .putInt(strings.size());
+        for (CatalogSnapshot.ProductRow product : contents.products) {
+            buffer.putLong(product.id)
+                .putLong(product.priceCents)
+                .putLong(product.categoryId)
+                .putInt(index(strings, product.name))
+                .putInt(index(strings, product.imageContentType))
+                .put(product.size);
+        }
+        for (CatalogSnapshot.CategoryRow category : contents.categories) {
+            buffer.putLong(category.id)
+                .putInt(index(strings, category.name))
+                .putInt(index(strings, category.description));
+        }
+        for (byte[] encoded : encodedStrings) {
+            buffer.putInt(encoded.length).put(encoded);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(checksum.getValue());
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Read a snapshot file, mapped in memory.
+     *
+     * @param file the path of the file.
+     * @return the snapshot.
+     * @throws IOException if the file could not be read, or is not a valid snapshot.
+     */
+    static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + CHECKSUM_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid catalog snapshot size: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int checksumPosition = (int) size - CHECKSUM_SIZE;
+            CRC32 checksum = new CRC32();
+            ByteBuffer content = buffer.duplicate();
+            content.limit(checksumPosition);
+            checksum.update(content);
+            if (checksum.getValue() != buffer.getLong(checksumPosition)) {
+                throw new IOException("Invalid catalog snapshot checksum");
+            }
+            return decode(buffer, checksumPosition);
+        }
+    }
+
+    private static Contents decode(ByteBuffer buffer, int end) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a catalog snapshot of version " + VERSION);
+            }
+            Instant watermark = Instant.ofEpochMilli(buffer.getLong());
+            int productCount = buffer.getInt();
+            int categoryCount = buffer.getInt();
+            int stringCount = buffer.getInt();
+            long stringsPosition = HEADER_SIZE + (long) PRODUCT_SIZE * productCount + (long) CATEGORY_SIZE * categoryCount;
+            if (productCount < 0 || categoryCount < 0 || stringCount < 0 || stringsPosition > end) {
+                throw new IOException("Invalid catalog snapshot header");
+            }
+            ByteBuffer stringTable = buffer.duplicate();
+            stringTable.position((int) stringsPosition).limit(end);
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                byte[] encoded = new byte[stringTable.getInt()];
+                stringTable.get(encoded);
+                strings[i] = new String(encoded, StandardCharsets.UTF_8);
+            }
+            List<CatalogSnapshot.ProductRow> products = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                int record = HEADER_SIZE + i * PRODUCT_SIZE;
+                products.add(new CatalogSnapshot.ProductRow(buffer.getLong(record), string(strings, buffer.getInt(record + 24)),
+                    buffer.getLong(record + 8), buffer.get(record + 32), buffer.getLong(record + 16),
+                    string(strings, buffer.getInt(record + 28))));
+            }
+            List<CatalogSnapshot.CategoryRow> categories = new ArrayList<>(categoryCount);
+            for (int i = 0; i < categoryCount; i++) {
+                int record = HEADER_SIZE + productCount * PRODUCT_SIZE + i * CATEGORY_SIZE;
+                categories.add(new CatalogSnapshot.CategoryRow(buffer.getLong(record), string(strings, buffer.getInt(record + 8)),
+                    string(strings, buffer.getInt(record + 12))));
+            }
+            return new Contents(watermark, products, categories);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Invalid catalog snapshot", e);
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, String string) {
+        if (string != null) {
+            strings.putIfAbsent(string, strings.size());
+        }
+    }
+
+    private static int index(Map<String, Integer> strings, String string) {
+        return string == null ? -1 : strings.get(string);
+    }
+
+    private static String string(String[] strings, int index) {
+        return index < 0 ? null : strings[index];
+    }
+}
@@ -0,0 +1,162 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.enumeration.InvoiceStatus;
+import com.mycompany.store_.domain.enumeration.OrderItemStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.repository.CustomerRepository;
+import com.mycompany.store_.repository.InvoiceRepository;
+import com.mycompany.store_.repository.OrderItemRepository;
+import com.mycompany.store_.repository.ProductOrderRepository;
+import com.mycompany.store_.repository.ProductRepository;
+import com.mycompany.store_.service.dto.CheckoutDTO;
+import com.mycompany.store_.service.dto.CheckoutResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service placing an order from a cart: the order, its items and its invoice are written in a
+ * single transaction.
+ * <p>
+ * The products of the cart are loaded with one query, and the rows are inserted in one JDBC batch
+ * per table at flush, their ids being allocated in blocks by the table generators and the code of the
+ * order by the {@link OrderCodeAllocator}. The search documents are written after commit, by the
+ * {@link SearchOutboxDispatcher}.
+ */
+@Service
+@Transactional
+public class CheckoutService {
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutService.class);
+
+    private final CustomerRepository customerRepository;
+
+    private final ProductRepository productRepository;
+
+    private final ProductOrderRepository productOrderRepository;
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final InvoiceRepository invoiceRepository;
+
+    private final SearchOutbox searchOutbox;
+
+    private final OrderCodeAllocator orderCodeAllocator;
+
+    public CheckoutService(CustomerRepository customerRepository, ProductRepository productRepository,
+            ProductOrderRepository productOrderRepository, OrderItemRepository orderItemRepository, InvoiceRepository invoiceRepository,
+            SearchOutbox searchOutbox, OrderCodeAllocator orderCodeAllocator) {
+        this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.productOrderRepository = productOrderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.searchOutbox = searchOutbox;
+        this.orderCodeAllocator = orderCodeAllocator;
+    }
+
+    /**
+     * Place the order of a cart, with an item per product and an invoice of the total price.
+     *
+     * @param cart the cart; the quantities of the lines of the same product are added.
+     * @return the order placed.
+     * @throws InvalidCartException if the customer or a product of the cart does not exist.
+     */
+    public CheckoutResultDTO checkout(CheckoutDTO cart) {
+        log.debug("Request to check out the cart of Customer : {}", cart.getCustomerId());
+        Customer customer = customerRepository.findById(cart.getCustomerId())
+            .orElseThrow(() -> new InvalidCartException("Unknown customer " + cart.getCustomerId(), "customernotfound"));
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CheckoutDTO.ItemDTO line : cart.getItems()) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new InvalidCartException("Unknown product " + productId, "productnotfound");
+            }
+        }
+
+        Instant now = Instant.now();
+        ProductOrder order = new ProductOrder()
+            .placedDate(now)
+            .status(OrderStatus.PENDING)
+            .code(orderCodeAllocator.next())
+            .customer(customer);
+        List<OrderItem> items = new ArrayList<>(quantities.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> quantity : quantities.entrySet()) {
+            Product product = products.get(quantity.getKey());
+            OrderItem item = new OrderItem()
+                .product(product)
+                .quantity(quantity.getValue())
+                .status(OrderItemStatus.AVAILABLE);
+            order.addOrderItem(item);
+            items.add(item);
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(quantity.getValue())));
+        }
+        Invoice invoice = new Invoice()
+            .date(now)
+            .details(cart.getDetails())
+            .status(InvoiceStatus.ISSUED)
+            .paymentMethod(cart.getPaymentMethod())
+            .paymentDate(now)
+            .paymentAmount(total);
+        order.addInvoice(invoice);
+        productOrderRepository.save(order);
+        orderItemRepository.saveAll(items);
+        invoiceRepository.save(invoice);
+
+        // The items first: finding the orders embedding them flushes the inserts, before any outbox entry
+        searchOutbox.index(OrderItem.class, items.stream().map(OrderItem::getId).collect(Collectors.toList()));
+        searchOutbox.index(Invoice.class, invoice.getId());
+        searchOutbox.index(ProductOrder.class, order.getId());
+        return toResult(order, items, invoice);
+    }
+
+    private static CheckoutResultDTO toResult(ProductOrder order, List<OrderItem> items, Invoice invoice) {
+        CheckoutResultDTO result = new CheckoutResultDTO();
+        result.setId(order.getId());
+        result.setCode(order.getCode());
+        result.setPlacedDate(order.getPlacedDate());
+        result.setStatus(order.getStatus());
+        result.setCustomerId(order.getCustomer().getId());
+        List<CheckoutResultDTO.ItemDTO> resultItems = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            CheckoutResultDTO.ItemDTO resultItem = new CheckoutResultDTO.ItemDTO();
+            resultItem.setId(item.getId());
+            resultItem.setProductId(item.getProduct().getId());
+            resultItem.setProductName(item.getProduct().getName());
+            resultItem.setPrice(item.getProduct().getPrice());
+            resultItem.setQuantity(item.getQuantity());
+            resultItem.setStatus(item.getStatus());
+            resultItems.add(resultItem);
+        }
+        result.setItems(resultItems);
+        CheckoutResultDTO.InvoiceDTO resultInvoice = new CheckoutResultDTO.InvoiceDTO();
+        resultInvoice.setId(invoice.getId());
+        resultInvoice.setDate(invoice.getDate());
+        resultInvoice.setStatus(invoice.getStatus());
+        resultInvoice.setPaymentMethod(invoice.getPaymentMethod());
+        resultInvoice.setPaymentDate(invoice.getPaymentDate());
+        resultInvoice.setPaymentAmount(invoice.getPaymentAmount());
+        result.setInvoice(resultInvoice);
+        return result;
+    }
+}
@@ -1,8 +1,8 @@
 package com.mycompany.store_.service;
 
 import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.repository.CustomerRepository;
-import com.mycompany.store_.repository.search.CustomerSearchRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +26,14 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
 
-    private final CustomerSearchRepository customerSearchRepository;
+    private final SearchOutbox searchOutbox;
 
-    public CustomerService(CustomerRepository customerRepository, CustomerSearchRepository customerSearchRepository) {
+    private final SearchHydrator searchHydrator;
+
+    public CustomerService(CustomerRepository customerRepository, SearchOutbox searchOutbox, SearchHydrator searchHydrator) {
         this.customerRepository = customerRepository;
-        this.customerSearchRepository = customerSearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
     }
 
     /**
@@ -42,12 +45,12 @@ public class CustomerService {
     public Customer save(Customer customer) {
         log.debug("Request to save Customer : {}", customer);
         Customer result = customerRepository.save(customer);
-        customerSearchRepository.save(result);
+        searchOutbox.index(Customer.class, result.getId());
         return result;
     }
 
     /**
-     * Get all the customers.
+     * Get all the customers, with their user.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -55,12 +58,25 @@ public class CustomerService {
     @Transactional(readOnly = true)
     public Page<Customer> findAll(Pageable pageable) {
         log.debug("Request to get all Customers");
-        return customerRepository.findAll(pageable);
+        return customerRepository.findAllWithUser(pageable);
+    }
+
+    /**
+     * Get a keyset page of the customers, without counting them.
+     *
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Customer> findAllAfter(String after, Pageable pageable) {
+        log.debug("Request to get Customers after {}", after);
+        return customerRepository.findAllAfter(after, pageable);
     }
 
 
     /**
-     * Get one customer by id.
+     * Get one customer by id, with its user.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -68,7 +84,7 @@ public class CustomerService {
     @Transactional(readOnly = true)
     public Optional<Customer> findOne(Long id) {
         log.debug("Request to get Customer : {}", id);
-        return customerRepository.findById(id);
+        return customerRepository.findOneWithUser(id);
     }
 
     /**
@@ -79,7 +95,7 @@ public class CustomerService {
     public void delete(Long id) {
         log.debug("Request to delete Customer : {}", id);
         customerRepository.deleteById(id);
-        customerSearchRepository.deleteById(id);
+        searchOutbox.delete(Customer.class, id);
     }
 
     /**
@@ -92,5 +108,6 @@ public class CustomerService {
     @Transactional(readOnly = true)
     public Page<Customer> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of Customers for query {}", query);
-        return customerSearchRepository.search(queryStringQuery(query), pageable);    }
+        return searchHydrator.search(Customer.class, queryStringQuery(query), pageable, "user");
+    }
 }
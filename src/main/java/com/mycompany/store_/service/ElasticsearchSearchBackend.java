@@ -0,0 +1,219 @@
+package com.mycompany.store_.service;
+
+import com.google.gson.JsonElement;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MultiMap;
+import io.searchbox.action.BulkableAction;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Index;
+import io.searchbox.core.Search;
+import io.searchbox.core.SearchResult;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Elasticsearch cluster, reached with the Jest client.
+ * <p>
+ * The shadow indices are registered in a Hazelcast map, so that the node running a reindex has the
+ * changes written by every node copied to its new indices. They are only honoured while the lock of
+ * the {@link SearchReindexService} is held, so that the registrations left by a node that died
+ * during a reindex are ignored.
+ * <p>
+ * The ids of the documents deleted from a shadow index are recorded as well: the reindex may
+ * create such a document after it was deleted, and checks them again once its scan is complete.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.search", name = "backend", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchSearchBackend implements SearchBackend {
+
+    /**
+     * The most documents Elasticsearch returns, unless {@code index.max_result_window} is raised.
+     */
+    private static final int MAX_RESULT_WINDOW = 10000;
+
+    /**
+     * Name of the Hazelcast map of the shadow indices, by entity name.
+     */
+    public static final String SHADOW_INDICES_MAP_NAME = "search-shadow-indices";
+
+    /**
+     * Name of the Hazelcast multimap of the ids deleted from the shadow indices, by index name.
+     */
+    public static final String SHADOW_DELETES_MAP_NAME = "search-shadow-deletes";
+
+    private final Logger log = LoggerFactory.getLogger(ElasticsearchSearchBackend.class);
+
+    private final JestClient jestClient;
+
+    private final SearchDocumentTypes searchDocumentTypes;
+
+    private final IMap<String, String> shadowIndices;
+
+    private final MultiMap<String, Long> shadowDeletes;
+
+    @SuppressWarnings("deprecation")
+    private final com.hazelcast.core.ILock reindexLock;
+
+    @SuppressWarnings("deprecation")
+    public ElasticsearchSearchBackend(JestClient jestClient, SearchDocumentTypes searchDocumentTypes, HazelcastInstance hazelcastInstance) {
+        this.jestClient = jestClient;
+        this.searchDocumentTypes = searchDocumentTypes;
+        this.shadowIndices = hazelcastInstance.getMap(SHADOW_INDICES_MAP_NAME);
+        this.shadowDeletes = hazelcastInstance.getMultiMap(SHADOW_DELETES_MAP_NAME);
+        this.reindexLock = hazelcastInstance.getLock(SearchReindexService.LOCK_NAME);
+    }
+
+    /**
+     * Also write the documents of an entity type to another index, on every node, until
+     * {@link #removeShadowIndex(SearchDocumentType)} is called. Used while a new index is built, so
+     * that it does not miss the changes made meanwhile.
+     *
+     * @param documentType the entity type.
+     * @param indexName the name of the other index.
+     */
+    public void addShadowIndex(SearchDocumentType documentType, String indexName) {
+        shadowIndices.put(documentType.getEntityName(), indexName);
+    }
+
+    public void removeShadowIndex(SearchDocumentType documentType) {
+        String indexName = shadowIndices.remove(documentType.getEntityName());
+        if (indexName != null) {
+            shadowDeletes.remove(indexName);
+        }
+    }
+
+    /**
+     * Forget the shadow indices left by a reindex that did not finish.
+     */
+    public void clearShadowIndices() {
+        shadowIndices.clear();
+        shadowDeletes.clear();
+    }
+
+    /**
+     * @param indexName the name of a shadow index.
+     * @return the ids of the documents deleted from it so far.
+     */
+    public Collection<Long> getShadowDeletes(String indexName) {
+        return shadowDeletes.get(indexName);
+    }
+
+    /**
+     * Write the documents in one bulk request.
+     */
+    @Override
+    public List<SearchDocument> write(List<SearchDocument> documents) {
+        // One read of the map per bulk request rather than one per document
+        Map<String, String> shadows = reindexLock.isLocked() ? new HashMap<>(shadowIndices) : Collections.emptyMap();
+        Map<String, SearchDocument> documentsByKey = new LinkedHashMap<>();
+        List<BulkableAction<?>> actions = new ArrayList<>(documents.size());
+        for (SearchDocument document : documents) {
+            SearchDocumentType documentType = document.getDocumentType();
+            documentsByKey.put(key(documentType.getEntityName(), document.getId().toString()), document);
+            actions.add(action(document, documentType.getIndexName()));
+            String shadowIndex = shadows.get(documentType.getEntityName());
+            if (shadowIndex != null) {
+                actions.add(action(document, shadowIndex));
+                // Recorded before the delete is sent, so that a reindex checking them afterwards sees it
+                if (document.getSource() == null) {
+                    shadowDeletes.put(shadowIndex, document.getId());
+                }
+            }
+        }
+        BulkResult result;
+        try {
+            result = jestClient.execute(new Bulk.Builder().addAction(actions).build());
+        } catch (IOException e) {
+            log.warn("Could not write {} search documents: {}", documents.size(), e.toString());
+            return documents;
+        }
+        if (result.getItems().isEmpty() && !result.isSucceeded()) {
+            log.warn("Could not write {} search documents: {}", documents.size(), result.getErrorMessage());
+            return documents;
+        }
+        Map<String, String> entityNames = new HashMap<>();
+        searchDocumentTypes.all().forEach(documentType -> entityNames.put(documentType.getIndexName(), documentType.getEntityName()));
+        shadows.forEach((entityName, indexName) -> entityNames.put(indexName, entityName));
+        Map<String, SearchDocument> failed = new LinkedHashMap<>();
+        for (BulkResult.BulkResultItem item : result.getFailedItems()) {
+            log.warn("Could not write the search document {}/{}: {}", item.index, item.id, item.error);
+            // Failures name the concrete index, which is versioned once the index was rebuilt
+            String entityName = entityNames.getOrDefault(item.index, entityNames.get(item.index.replaceFirst("_v\\d+$", "")));
+            String key = key(entityName, item.id);
+            SearchDocument document = documentsByKey.get(key);
+            if (document != null) {
+                failed.put(key, document);
+            }
+        }
+        return new ArrayList<>(failed.values());
+    }
+
+    /**
+     * Search with the source of the documents disabled, as only their ids are used.
+     */
+    @Override
+    public Page<Long> search(SearchDocumentType documentType, QueryBuilder query, Pageable pageable) {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(query).fetchSource(false);
+        if (pageable.isPaged()) {
+            source.from((int) pageable.getOffset()).size(pageable.getPageSize());
+        } else {
+            source.size(MAX_RESULT_WINDOW);
+        }
+        pageable.getSort().forEach(order -> source.sort(SortBuilders.fieldSort(order.getProperty())
+            .order(order.isAscending() ? SortOrder.ASC : SortOrder.DESC)));
+        SearchResult result;
+        try {
+            result = jestClient.execute(new Search.Builder(source.toString())
+                .addIndex(documentType.getIndexName())
+                .addType(documentType.getIndexType())
+                // No document was written yet if the index does not exist
+                .setParameter("ignore_unavailable", true)
+                .build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!result.isSucceeded()) {
+            throw new IllegalStateException("Could not search " + documentType.getIndexName() + ": " + result.getErrorMessage());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (JsonElement hit : result.getJsonObject().getAsJsonObject("hits").getAsJsonArray("hits")) {
+            ids.add(Long.valueOf(hit.getAsJsonObject().get("_id").getAsString()));
+        }
+        return new PageImpl<>(ids, pageable, result.getTotal());
+    }
+
+    private static BulkableAction<?> action(SearchDocument document, String indexName) {
+        String indexType = document.getDocumentType().getIndexType();
+        if (document.getSource() == null) {
+            return new Delete.Builder(document.getId().toString()).index(indexName).type(indexType).build();
+        }
+        return new Index.Builder(document.getSource()).index(indexName).type(indexType).id(document.getId().toString()).build();
+    }
+
+    private static String key(String entityName, String id) {
+        return entityName + "#" + id;
+    }
+}
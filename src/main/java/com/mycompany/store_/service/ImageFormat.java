@@ -0,0 +1,75 @@
+package com.mycompany.store_.service;
+
+import java.util.Optional;
+
+/**
+ * Image formats accepted for product images, recognised by their leading magic bytes
+ * rather than by the content type announced by the client.
+ */
+public enum ImageFormat {
+
+    PNG("image/png", "png"),
+    JPEG("image/jpeg", "jpeg"),
+    GIF("image/gif", "gif"),
+    WEBP("image/webp", "webp");
+
+    /**
+     * Number of leading bytes needed by {@link #detect(byte[], int)}.
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private final String contentType;
+
+    private final String formatName;
+
+    ImageFormat(String contentType, String formatName) {
+        this.contentType = contentType;
+        this.formatName = formatName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the {@link javax.imageio.ImageIO} format name.
+     */
+    public String getFormatName() {
+        return formatName;
+    }
+
+    /**
+     * Detect the format of an image from its first bytes.
+     *
+     * @param header the first bytes of the image.
+     * @param length the number of valid bytes in {@code header}.
+     * @return the format, or empty if the bytes are not those of a supported image.
+     */
+    public static Optional<ImageFormat> detect(byte[] header, int length) {
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, length, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(header, length, 0, 'G', 'I', 'F', '8', '9', 'a')) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F') && startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mycompany.store_.service;
+
+/**
+ * Thrown when a cart cannot be checked out, because it refers to a customer or product that does not exist.
+ */
+public class InvalidCartException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String errorKey;
+
+    public InvalidCartException(String message, String errorKey) {
+        super(message);
+        this.errorKey = errorKey;
+    }
+
+    public String getErrorKey() {
+        return errorKey;
+    }
+}
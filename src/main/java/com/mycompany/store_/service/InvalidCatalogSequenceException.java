@@ -0,0 +1,14 @@
+package com.mycompany.store_.service;
+
+/**
+ * Thrown when the changes of the catalog are requested since a sequence no change has yet: it was
+ * not returned by this application, and reading from it would skip the changes up to it.
+ */
+public class InvalidCatalogSequenceException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCatalogSequenceException(long since, long last) {
+        super("The catalog changes since " + since + " cannot be read, the last change is " + last);
+    }
+}
@@ -1,8 +1,8 @@
 package com.mycompany.store_.service;
 
 import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.repository.InvoiceRepository;
-import com.mycompany.store_.repository.search.InvoiceSearchRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +26,14 @@ public class InvoiceService {
 
     private final InvoiceRepository invoiceRepository;
 
-    private final InvoiceSearchRepository invoiceSearchRepository;
+    private final SearchOutbox searchOutbox;
 
-    public InvoiceService(InvoiceRepository invoiceRepository, InvoiceSearchRepository invoiceSearchRepository) {
+    private final SearchHydrator searchHydrator;
+
+    public InvoiceService(InvoiceRepository invoiceRepository, SearchOutbox searchOutbox, SearchHydrator searchHydrator) {
         this.invoiceRepository = invoiceRepository;
-        this.invoiceSearchRepository = invoiceSearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
     }
 
     /**
@@ -42,12 +45,12 @@ public class InvoiceService {
     public Invoice save(Invoice invoice) {
         log.debug("Request to save Invoice : {}", invoice);
         Invoice result = invoiceRepository.save(invoice);
-        invoiceSearchRepository.save(result);
+        searchOutbox.index(Invoice.class, result.getId());
         return result;
     }
 
     /**
-     * Get all the invoices.
+     * Get all the invoices, with their order.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -55,12 +58,25 @@ public class InvoiceService {
     @Transactional(readOnly = true)
     public Page<Invoice> findAll(Pageable pageable) {
         log.debug("Request to get all Invoices");
-        return invoiceRepository.findAll(pageable);
+        return invoiceRepository.findAllWithOrder(pageable);
+    }
+
+    /**
+     * Get a keyset page of the invoices, without counting them.
+     *
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Invoice> findAllAfter(String after, Pageable pageable) {
+        log.debug("Request to get Invoices after {}", after);
+        return invoiceRepository.findAllAfter(after, pageable);
     }
 
 
     /**
-     * Get one invoice by id.
+     * Get one invoice by id, with its order.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -68,7 +84,7 @@ public class InvoiceService {
     @Transactional(readOnly = true)
     public Optional<Invoice> findOne(Long id) {
         log.debug("Request to get Invoice : {}", id);
-        return invoiceRepository.findById(id);
+        return invoiceRepository.findOneWithOrder(id);
     }
 
     /**
@@ -79,7 +95,7 @@ public class InvoiceService {
     public void delete(Long id) {
         log.debug("Request to delete Invoice : {}", id);
         invoiceRepository.deleteById(id);
-        invoiceSearchRepository.deleteById(id);
+        searchOutbox.delete(Invoice.class, id);
     }
 
     /**
@@ -92,5 +108,6 @@ public class InvoiceService {
     @Transactional(readOnly = true)
     public Page<Invoice> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of Invoices for query {}", query);
-        return invoiceSearchRepository.search(queryStringQuery(query), pageable);    }
+        return searchHydrator.search(Invoice.class, queryStringQuery(query), pageable, "order");
+    }
 }
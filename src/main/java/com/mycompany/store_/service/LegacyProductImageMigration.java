@@ -0,0 +1,94 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Moves images still held in the legacy {@code product.image} column to the {@link ProductImageStore}.
+ * <p>
+ * Runs once the application is ready and processes the rows in small batches, so that a
+ * failure leaves the already migrated rows in place and the next start resumes the work.
+ */
+@Service
+public class LegacyProductImageMigration {
+
+    private final Logger log = LoggerFactory.getLogger(LegacyProductImageMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ProductImageStore productImageStore;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final int batchSize;
+
+    public LegacyProductImageMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ProductImageStore productImageStore, EntityManagerFactory entityManagerFactory,
+            ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.productImageStore = productImageStore;
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = applicationProperties.getImageStore().getMigrationBatchSize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            int migrated = 0;
+            int count;
+            while ((count = migrateBatch()) > 0) {
+                migrated += count;
+            }
+            if (migrated > 0) {
+                entityManagerFactory.getCache().evict(Product.class);
+                log.info("Moved {} product images to the image store", migrated);
+            }
+        } catch (DataAccessException | IOException e) {
+            log.warn("Could not move product images to the image store, will retry on next start: {}", e.getMessage());
+        }
+    }
+
+    private int migrateBatch() throws IOException {
+        List<LegacyImage> rows = transactionTemplate.execute(status -> jdbcTemplate.query(
+            "select id, image from product where image is not null and image_key is null",
+            ps -> ps.setMaxRows(batchSize),
+            (rs, rowNum) -> new LegacyImage(rs.getLong("id"), rs.getBytes("image"))));
+        if (rows == null) {
+            return 0;
+        }
+        for (LegacyImage row : rows) {
+            String key = productImageStore.put(new ByteArrayInputStream(row.image), Long.MAX_VALUE);
+            transactionTemplate.execute(status ->
+                jdbcTemplate.update("update product set image_key = ?, image = null where id = ?", key, row.id));
+        }
+        return rows.size();
+    }
+
+    private static final class LegacyImage {
+
+        private final long id;
+
+        private final byte[] image;
+
+        private LegacyImage(long id, byte[] image) {
+            this.id = id;
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.mycompany.store_.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.store_.config.ApplicationProperties;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
+import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
+import org.apache.lucene.queryparser.flexible.standard.config.PointsConfig;
+import org.apache.lucene.queryparser.flexible.standard.config.StandardQueryConfigHandler;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lucene indices in a local directory, one per entity type, searched in the application.
+ * <p>
+ * Each field of a document is indexed under its path, such as {@code productCategory.name}, and
+ * in a catch-all field searched by default. Numbers are indexed as points, so that queries such as
+ * {@code id:42} or {@code price:[10 TO 20]} compare them as numbers. The first value of a field is
+ * also kept for sorting.
+ * <p>
+ * Writes are committed before they return, as their outbox entries are deleted next, and are then
+ * visible to the searches.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.search", name = "backend", havingValue = "lucene")
+public class LuceneSearchBackend implements SearchBackend {
+
+    private static final String ID_FIELD = "_id";
+
+    private static final String ALL_FIELD = "_all";
+
+    /**
+     * Prefix of the commit data recording the type of the fields, which the query parser needs.
+     */
+    private static final String FIELD_TYPE_PREFIX = "field.";
+
+    /**
+     * Strings are sorted by their first characters.
+     */
+    private static final int MAX_SORT_LENGTH = 256;
+
+    private final Logger log = LoggerFactory.getLogger(LuceneSearchBackend.class);
+
+    private final Path directory;
+
+    private final ObjectMapper objectMapper;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private final Map<String, LuceneIndex> indices = new ConcurrentHashMap<>();
+
+    public LuceneSearchBackend(ApplicationProperties applicationProperties, ObjectMapper objectMapper) {
+        this.directory = Paths.get(applicationProperties.getSearch().getLucene().getDirectory());
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<SearchDocument> write(List<SearchDocument> documents) {
+        Map<String, List<SearchDocument>> documentsByIndex = new LinkedHashMap<>();
+        for (SearchDocument document : documents) {
+            documentsByIndex.computeIfAbsent(document.getDocumentType().getIndexName(), indexName -> new ArrayList<>()).add(document);
+        }
+        List<SearchDocument> failed = new ArrayList<>();
+        documentsByIndex.forEach((indexName, indexDocuments) -> {
+            try {
+                failed.addAll(index(indexName).write(indexDocuments));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write {} search documents to {}: {}", indexDocuments.size(), indexName, e.toString());
+                failed.addAll(indexDocuments);
+            }
+        });
+        return failed;
+    }
+
+    @Override
+    public Page<Long> search(SearchDocumentType documentType, QueryBuilder query, Pageable pageable) {
+        try {
+            return index(documentType.getIndexName()).search(query, pageable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (LuceneIndex index : indices.values()) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                log.warn("Could not close the search index {}", index.name, e);
+            }
+        }
+        indices.clear();
+    }
+
+    private LuceneIndex index(String indexName) throws IOException {
+        try {
+            return indices.computeIfAbsent(indexName, name -> {
+                try {
+                    return new LuceneIndex(name);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private enum FieldType {
+        LONG, DOUBLE, STRING
+    }
+
+    private final class LuceneIndex {
+
+        private final String name;
+
+        private final MMapDirectory luceneDirectory;
+
+        private final IndexWriter writer;
+
+        private final SearcherManager searcherManager;
+
+        private final Map<String, FieldType> fieldTypes = new ConcurrentHashMap<>();
+
+        private LuceneIndex(String name) throws IOException {
+            this.name = name;
+            Path path = directory.resolve(name);
+            Files.createDirectories(path);
+            this.luceneDirectory = new MMapDirectory(path);
+            if (DirectoryReader.indexExists(luceneDirectory)) {
+                SegmentInfos.readLatestCommit(luceneDirectory).getUserData().forEach((key, value) -> {
+                    if (key.startsWith(FIELD_TYPE_PREFIX)) {
+                        fieldTypes.put(key.substring(FIELD_TYPE_PREFIX.length()), FieldType.valueOf(value));
+                    }
+                });
+            }
+            this.writer = new IndexWriter(luceneDirectory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+
+        private List<SearchDocument> write(List<SearchDocument> documents) throws IOException {
+            List<SearchDocument> failed = new ArrayList<>();
+            for (SearchDocument document : documents) {
+                Term id = new Term(ID_FIELD, document.getId().toString());
+                if (document.getSource() == null) {
+                    writer.deleteDocuments(id);
+                    continue;
+                }
+                Document luceneDocument;
+                try {
+                    luceneDocument = document(document);
+                } catch (IOException e) {
+                    log.warn("Could not read the search document {}/{}: {}", name, document.getId(), e.toString());
+                    failed.add(document);
+                    continue;
+                }
+                writer.updateDocument(id, luceneDocument);
+            }
+            Map<String, String> commitData = new HashMap<>();
+            fieldTypes.forEach((field, type) -> commitData.put(FIELD_TYPE_PREFIX + field, type.name()));
+            writer.setLiveCommitData(commitData.entrySet());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            return failed;
+        }
+
+        private Document document(SearchDocument document) throws IOException {
+            Document luceneDocument = new Document();
+            luceneDocument.add(new StringField(ID_FIELD, document.getId().toString(), Field.Store.YES));
+            addFields(luceneDocument, null, objectMapper.readTree(document.getSource()), new HashSet<>());
+            return luceneDocument;
+        }
+
+        private void addFields(Document document, String path, JsonNode node, Set<String> sortedFields) {
+            if (node.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    addFields(document, path == null ? field.getKey() : path + "." + field.getKey(), field.getValue(), sortedFields);
+                }
+            } else if (node.isArray()) {
+                for (JsonNode element : node) {
+                    addFields(document, path, element, sortedFields);
+                }
+            } else if (!node.isNull() && path != null) {
+                addValue(document, path, node, sortedFields.add(path));
+            }
+        }
+
+        /**
+         * Index a value; a value of another type than the first values of the field is only searched as text.
+         */
+        private void addValue(Document document, String field, JsonNode value, boolean sorted) {
+            FieldType valueType = value.isIntegralNumber() ? FieldType.LONG : value.isNumber() ? FieldType.DOUBLE : FieldType.STRING;
+            FieldType fieldType = fieldTypes.computeIfAbsent(field, f -> valueType);
+            // A round number in a field of decimals, such as a price, is a decimal
+            FieldType type = fieldType == FieldType.DOUBLE && value.isNumber() ? FieldType.DOUBLE : valueType;
+            String text = value.asText();
+            document.add(new TextField(ALL_FIELD, text, Field.Store.NO));
+            if (fieldType != type) {
+                document.add(new TextField(field, text, Field.Store.NO));
+                return;
+            }
+            switch (type) {
+                case LONG:
+                    document.add(new LongPoint(field, value.asLong()));
+                    if (sorted) {
+                        document.add(new NumericDocValuesField(field, value.asLong()));
+                    }
+                    break;
+                case DOUBLE:
+                    document.add(new DoublePoint(field, value.asDouble()));
+                    if (sorted) {
+                        document.add(new DoubleDocValuesField(field, value.asDouble()));
+                    }
+                    break;
+                default:
+                    document.add(new TextField(field, text, Field.Store.NO));
+                    if (sorted) {
+                        document.add(new SortedDocValuesField(field, new BytesRef(text.length() > MAX_SORT_LENGTH ? text.substring(0, MAX_SORT_LENGTH) : text)));
+                    }
+            }
+        }
+
+        private Page<Long> search(QueryBuilder query, Pageable pageable) throws IOException {
+            Query luceneQuery = query(query);
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                // Far pages are clamped rather than overflowing: they are empty, as no index has that many documents
+                long end = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : searcher.getIndexReader().maxDoc();
+                int count = (int) Math.min(end, Integer.MAX_VALUE);
+                Sort sort = sort(pageable);
+                TopDocs topDocs = sort == null
+                    ? searcher.search(luceneQuery, Math.max(1, count))
+                    : searcher.search(luceneQuery, Math.max(1, count), sort);
+                int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE) : 0;
+                List<Long> ids = new ArrayList<>();
+                Set<String> idField = Collections.singleton(ID_FIELD);
+                for (int i = from; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    ids.add(Long.valueOf(searcher.doc(scoreDoc.doc, idField).get(ID_FIELD)));
+                }
+                return new PageImpl<>(ids, pageable, topDocs.totalHits);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        }
+
+        /**
+         * Translate a query string query, the query of the searches, or a match all query.
+         */
+        private Query query(QueryBuilder query) {
+            if (query instanceof MatchAllQueryBuilder) {
+                return new MatchAllDocsQuery();
+            }
+            if (!(query instanceof QueryStringQueryBuilder)) {
+                throw new IllegalArgumentException("Unsupported search query: " + query.getName());
+            }
+            QueryStringQueryBuilder queryString = (QueryStringQueryBuilder) query;
+            StandardQueryParser parser = new StandardQueryParser(analyzer);
+            parser.setAllowLeadingWildcard(true);
+            parser.setDefaultOperator(queryString.defaultOperator() == Operator.AND
+                ? StandardQueryConfigHandler.Operator.AND
+                : StandardQueryConfigHandler.Operator.OR);
+            Map<String, PointsConfig> pointsConfig = new HashMap<>();
+            fieldTypes.forEach((field, type) -> {
+                if (type == FieldType.LONG) {
+                    pointsConfig.put(field, new PointsConfig(NumberFormat.getIntegerInstance(Locale.ROOT), Long.class));
+                } else if (type == FieldType.DOUBLE) {
+                    pointsConfig.put(field, new PointsConfig(NumberFormat.getNumberInstance(Locale.ROOT), Double.class));
+                }
+            });
+            parser.setPointsConfigMap(pointsConfig);
+            String defaultField = queryString.defaultField() == null || "*".equals(queryString.defaultField()) ? ALL_FIELD : queryString.defaultField();
+            try {
+                return parser.parse(queryString.queryString(), defaultField);
+            } catch (QueryNodeException e) {
+                throw new IllegalArgumentException("Invalid search query: " + queryString.queryString(), e);
+            }
+        }
+
+        /**
+         * @return the sort of the page, or null to sort by relevance. Fields no document has are ignored.
+         */
+        private Sort sort(Pageable pageable) {
+            List<SortField> sortFields = new ArrayList<>();
+            pageable.getSort().forEach(order -> {
+                FieldType type = fieldTypes.get(order.getProperty());
+                if (type != null) {
+                    SortField.Type sortType = type == FieldType.LONG ? SortField.Type.LONG : type == FieldType.DOUBLE ? SortField.Type.DOUBLE : SortField.Type.STRING;
+                    sortFields.add(new SortField(order.getProperty(), sortType, order.isDescending()));
+                }
+            });
+            return sortFields.isEmpty() ? null : new Sort(sortFields.toArray(new SortField[0]));
+        }
+
+        private void close() throws IOException {
+            searcherManager.close();
+            writer.close();
+            luceneDirectory.close();
+        }
+    }
+}
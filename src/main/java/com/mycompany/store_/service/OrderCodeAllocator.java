@@ -0,0 +1,164 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator of the codes of the orders: short, unique across the nodes of the cluster, and ending
+ * with a check character catching a mistyped character or two swapped ones.
+ * <p>
+ * Each node reserves a block of values from the {@code order_code} row of {@code id_generator}, in
+ * a transaction of its own, then hands them out from memory: only the order exhausting a block waits
+ * for the database. The values left in the block of a node when it stops are never used, so codes
+ * are unique but not consecutive.
+ * <p>
+ * A code is the value in Crockford's base 32, at least {@value #MIN_LENGTH} characters long, followed
+ * by its Luhn mod 32 check character.
+ */
+@Service
+public class OrderCodeAllocator {
+
+    private static final String SEQUENCE_NAME = "order_code";
+
+    static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    static final int MIN_LENGTH = 6;
+
+    private final Logger log = LoggerFactory.getLogger(OrderCodeAllocator.class);
+
+    private final EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int blockSize;
+
+    private volatile Block block = new Block(0, 0);
+
+    public OrderCodeAllocator(EntityManager em, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = applicationProperties.getOrderCodes().getBlockSize();
+    }
+
+    /**
+     * Allocate the code of a new order.
+     *
+     * @return a code no other order of the cluster was given.
+     */
+    public String next() {
+        return format(nextValue());
+    }
+
+    private long nextValue() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return value;
+            }
+            synchronized (this) {
+                if (block == current) {
+                    block = reserve();
+                }
+            }
+        }
+    }
+
+    private Block reserve() {
+        long end = transactionTemplate.execute(status -> {
+            // Only id_generator is written: without it Hibernate would evict the whole second-level cache
+            em.createNativeQuery("update id_generator set next_val = next_val + :size where sequence_name = :name")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("id_generator")
+                .setParameter("size", blockSize)
+                .setParameter("name", SEQUENCE_NAME)
+                .executeUpdate();
+            return ((Number) em.createNativeQuery("select next_val from id_generator where sequence_name = :name")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("id_generator")
+                .setParameter("name", SEQUENCE_NAME)
+                .getSingleResult()).longValue();
+        });
+        log.debug("Reserved order codes {} to {}", end - blockSize, end - 1);
+        return new Block(end - blockSize, end);
+    }
+
+    /**
+     * Format a value as a code.
+     *
+     * @param value a positive value.
+     * @return the code of the value.
+     */
+    static String format(long value) {
+        StringBuilder code = new StringBuilder();
+        for (long rest = value; rest > 0; rest /= ALPHABET.length()) {
+            code.append(ALPHABET.charAt((int) (rest % ALPHABET.length())));
+        }
+        while (code.length() < MIN_LENGTH) {
+            code.append(ALPHABET.charAt(0));
+        }
+        code.reverse();
+        return code.append(ALPHABET.charAt(checkValue(code, 2))).toString();
+    }
+
+    /**
+     * Check a code, typically read back or typed by a customer, before looking the order up.
+     *
+     * @param code the code.
+     * @return whether the code is well formed and its check character matches.
+     */
+    public static boolean isValid(String code) {
+        if (code == null || code.length() < MIN_LENGTH + 1) {
+            return false;
+        }
+        for (int i = 0; i < code.length(); i++) {
+            if (ALPHABET.indexOf(code.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return checkValue(code, 1) == 0;
+    }
+
+    /**
+     * The Luhn mod N algorithm: from the right, every other value is doubled and its base N digits
+     * are added up. Computed with a first factor of 2 over a code without its check character, this is
+     * the check value; with a first factor of 1 over a whole code, it is 0 for a valid code.
+     */
+    private static int checkValue(CharSequence code, int firstFactor) {
+        int base = ALPHABET.length();
+        int factor = firstFactor;
+        int sum = 0;
+        for (int i = code.length() - 1; i >= 0; i--) {
+            int addend = factor * ALPHABET.indexOf(code.charAt(i));
+            sum += addend / base + addend % base;
+            factor = 3 - factor;
+        }
+        return (base - sum % base) % base;
+    }
+
+    /**
+     * The values reserved by this node, from {@code next} up to {@code end} excluded.
+     */
+    private static final class Block {
+
+        private final AtomicLong next;
+
+        private final long end;
+
+        private Block(long next, long end) {
+            this.next = new AtomicLong(next);
+            this.end = end;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.mycompany.store_.service;
 
 import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.repository.OrderItemRepository;
-import com.mycompany.store_.repository.search.OrderItemSearchRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +26,14 @@ public class OrderItemService {
 
     private final OrderItemRepository orderItemRepository;
 
-    private final OrderItemSearchRepository orderItemSearchRepository;
+    private final SearchOutbox searchOutbox;
 
-    public OrderItemService(OrderItemRepository orderItemRepository, OrderItemSearchRepository orderItemSearchRepository) {
+    private final SearchHydrator searchHydrator;
+
+    public OrderItemService(OrderItemRepository orderItemRepository, SearchOutbox searchOutbox, SearchHydrator searchHydrator) {
         this.orderItemRepository = orderItemRepository;
-        this.orderItemSearchRepository = orderItemSearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
     }
 
     /**
@@ -42,12 +45,12 @@ public class OrderItemService {
     public OrderItem save(OrderItem orderItem) {
         log.debug("Request to save OrderItem : {}", orderItem);
         OrderItem result = orderItemRepository.save(orderItem);
-        orderItemSearchRepository.save(result);
+        searchOutbox.index(OrderItem.class, result.getId());
         return result;
     }
 
     /**
-     * Get all the orderItems.
+     * Get all the orderItems, with their product and order.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -55,12 +58,25 @@ public class OrderItemService {
     @Transactional(readOnly = true)
     public Page<OrderItem> findAll(Pageable pageable) {
         log.debug("Request to get all OrderItems");
-        return orderItemRepository.findAll(pageable);
+        return orderItemRepository.findAllWithProductAndOrder(pageable);
+    }
+
+    /**
+     * Get a keyset page of the orderItems, without counting them.
+     *
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<OrderItem> findAllAfter(String after, Pageable pageable) {
+        log.debug("Request to get OrderItems after {}", after);
+        return orderItemRepository.findAllAfter(after, pageable);
     }
 
 
     /**
-     * Get one orderItem by id.
+     * Get one orderItem by id, with its product and order.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -68,7 +84,7 @@ public class OrderItemService {
     @Transactional(readOnly = true)
     public Optional<OrderItem> findOne(Long id) {
         log.debug("Request to get OrderItem : {}", id);
-        return orderItemRepository.findById(id);
+        return orderItemRepository.findOneWithProductAndOrder(id);
     }
 
     /**
@@ -79,7 +95,7 @@ public class OrderItemService {
     public void delete(Long id) {
         log.debug("Request to delete OrderItem : {}", id);
         orderItemRepository.deleteById(id);
-        orderItemSearchRepository.deleteById(id);
+        searchOutbox.delete(OrderItem.class, id);
     }
 
     /**
@@ -92,5 +108,6 @@ public class OrderItemService {
     @Transactional(readOnly = true)
     public Page<OrderItem> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of OrderItems for query {}", query);
-        return orderItemSearchRepository.search(queryStringQuery(query), pageable);    }
+        return searchHydrator.search(OrderItem.class, queryStringQuery(query), pageable, "product", "order");
+    }
 }
@@ -0,0 +1,361 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.domain.AbstractEntity;
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.Shipment;
+import com.mycompany.store_.domain.enumeration.InvoiceStatus;
+import com.mycompany.store_.domain.enumeration.OrderItemStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.domain.enumeration.PaymentMethod;
+import com.mycompany.store_.service.dto.OrderSearchDocument;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link OrderSearchDocument} of an order, with its customer, items, invoices and shipments.
+ * <p>
+ * The documents are assembled with one query per entity type, of the columns they embed only.
+ */
+@Component
+public class OrderSearchProjection implements SearchProjection<OrderSearchDocument> {
+
+    /**
+     * The queries of the ids of the orders embedding an entity, by entity type.
+     */
+    private static final Map<Class<?>, String> ORDER_ID_QUERIES = new HashMap<>();
+
+    static {
+        ORDER_ID_QUERIES.put(OrderItem.class, "select i.order.id from OrderItem i where i.id in :ids");
+        ORDER_ID_QUERIES.put(Invoice.class, "select i.order.id from Invoice i where i.id in :ids");
+        ORDER_ID_QUERIES.put(Shipment.class, "select s.invoice.order.id from Shipment s where s.id in :ids");
+        ORDER_ID_QUERIES.put(Customer.class, "select o.id from ProductOrder o where o.customer.id in :ids");
+        ORDER_ID_QUERIES.put(Product.class, "select distinct i.order.id from OrderItem i where i.product.id in :ids");
+    }
+
+    /**
+     * The properties embedded in the orders, by type of the entities embedded in many orders: the
+     * orders are only written again when one of these properties changed.
+     */
+    private static final Map<Class<?>, Set<String>> EMBEDDED_PROPERTIES = new HashMap<>();
+
+    static {
+        EMBEDDED_PROPERTIES.put(Customer.class, new HashSet<>(Arrays.asList("firstName", "lastName", "email")));
+        EMBEDDED_PROPERTIES.put(Product.class, Collections.singleton("name"));
+    }
+
+    /**
+     * The property of the parent of the entities that can be moved to another order, by entity type:
+     * the parent is an order, but for shipments an invoice.
+     */
+    private static final Map<Class<?>, String> PARENT_PROPERTIES = new HashMap<>();
+
+    static {
+        PARENT_PROPERTIES.put(OrderItem.class, "order");
+        PARENT_PROPERTIES.put(Invoice.class, "order");
+        PARENT_PROPERTIES.put(Shipment.class, "invoice");
+    }
+
+    private final EntityManager em;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OrderSearchProjection(EntityManager em, EntityManagerFactory entityManagerFactory) {
+        this.em = em;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void registerChangeListener() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, ChangeListener.INSTANCE);
+        registry.appendListeners(EventType.POST_DELETE, ChangeListener.INSTANCE);
+    }
+
+    @Override
+    public Class<OrderSearchDocument> getDocumentType() {
+        return OrderSearchDocument.class;
+    }
+
+    @Override
+    public Class<?> getRootEntityType() {
+        return ProductOrder.class;
+    }
+
+    /**
+     * The changes to the entities are found with the dirty checking of Hibernate, whether they were
+     * flushed earlier in the transaction or not: an item moved to another order is embedded in both,
+     * and a removed item is still found in the order it was removed from.
+     * <p>
+     * A customer or a product is embedded in all of its orders, so they are only found when a
+     * property they embed changed: saving the price of a product does not write its orders again.
+     */
+    @Override
+    public Collection<Long> findDocumentIds(Class<?> entityType, Collection<Long> ids) {
+        if (entityType == ProductOrder.class) {
+            return ids;
+        }
+        String query = ORDER_ID_QUERIES.get(entityType);
+        if (query == null || ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Changes changes = Changes.current();
+        recordUnflushedChanges(changes, entityType, ids);
+        boolean embedded = EMBEDDED_PROPERTIES.containsKey(entityType);
+        Collection<Long> changedIds = embedded ? changes.takeEmbeddedChanges(entityType, ids) : ids;
+        if (changedIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Long> orderIds = new LinkedHashSet<>(findOrderIds(query, changedIds));
+        // The query may have flushed the changes recorded above, which the listener then records again
+        if (embedded) {
+            changes.takeEmbeddedChanges(entityType, changedIds);
+        }
+        Set<Long> previousParentIds = changes.takePreviousParentIds(entityType, changedIds);
+        if (!previousParentIds.isEmpty()) {
+            orderIds.addAll(entityType == Shipment.class ? findOrderIds(ORDER_ID_QUERIES.get(Invoice.class), previousParentIds) : previousParentIds);
+        }
+        orderIds.remove(null);
+        return orderIds;
+    }
+
+    /**
+     * Dirty check the entities of the persistence context the way a flush would, without flushing:
+     * a flush here would write the outbox entries already recorded in a separate batch.
+     */
+    private void recordUnflushedChanges(Changes changes, Class<?> entityType, Collection<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        for (Long id : ids) {
+            Object entity = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            EntityEntry entry = entity != null ? persistenceContext.getEntry(entity) : null;
+            if (entry == null || entry.getLoadedState() == null) {
+                continue;
+            }
+            if (entry.getStatus() == Status.DELETED) {
+                changes.record(persister, id, entry.getLoadedState(), null, true);
+            } else if (entry.getStatus() == Status.MANAGED) {
+                int[] dirtyProperties = persister.findDirty(persister.getPropertyValues(entity), entry.getLoadedState(), entity, session);
+                if (dirtyProperties != null) {
+                    changes.record(persister, id, entry.getLoadedState(), dirtyProperties, false);
+                }
+            }
+        }
+    }
+
+    private List<Long> findOrderIds(String query, Collection<Long> ids) {
+        return em.createQuery(query, Long.class)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    @Override
+    public Map<Long, OrderSearchDocument> findDocuments(Set<Long> ids) {
+        Map<Long, OrderSearchDocument> documents = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return documents;
+        }
+        for (Object[] row : rows("select o.id, o.code, o.placedDate, o.status, c.id, c.firstName, c.lastName, c.email " +
+                "from ProductOrder o left join o.customer c where o.id in :ids", ids)) {
+            OrderSearchDocument document = new OrderSearchDocument();
+            document.setId((Long) row[0]);
+            document.setCode((String) row[1]);
+            document.setPlacedDate((Instant) row[2]);
+            document.setStatus((OrderStatus) row[3]);
+            if (row[4] != null) {
+                OrderSearchDocument.CustomerView customer = new OrderSearchDocument.CustomerView();
+                customer.setId((Long) row[4]);
+                customer.setFirstName((String) row[5]);
+                customer.setLastName((String) row[6]);
+                customer.setEmail((String) row[7]);
+                document.setCustomer(customer);
+            }
+            documents.put(document.getId(), document);
+        }
+        if (documents.isEmpty()) {
+            return documents;
+        }
+        for (Object[] row : rows("select i.order.id, i.id, p.id, p.name, i.quantity, i.status " +
+                "from OrderItem i left join i.product p where i.order.id in :ids order by i.id", documents.keySet())) {
+            OrderSearchDocument.ItemView item = new OrderSearchDocument.ItemView();
+            item.setId((Long) row[1]);
+            item.setProductId((Long) row[2]);
+            item.setProductName((String) row[3]);
+            item.setQuantity((Integer) row[4]);
+            item.setStatus((OrderItemStatus) row[5]);
+            documents.get((Long) row[0]).getItems().add(item);
+        }
+        Map<Long, OrderSearchDocument.InvoiceView> invoices = new HashMap<>();
+        for (Object[] row : rows("select i.order.id, i.id, i.date, i.status, i.paymentMethod, i.paymentDate " +
+                "from Invoice i where i.order.id in :ids order by i.id", documents.keySet())) {
+            OrderSearchDocument.InvoiceView invoice = new OrderSearchDocument.InvoiceView();
+            invoice.setId((Long) row[1]);
+            invoice.setDate((Instant) row[2]);
+            invoice.setStatus((InvoiceStatus) row[3]);
+            invoice.setPaymentMethod((PaymentMethod) row[4]);
+            invoice.setPaymentDate((Instant) row[5]);
+            documents.get((Long) row[0]).getInvoices().add(invoice);
+            invoices.put(invoice.getId(), invoice);
+        }
+        if (!invoices.isEmpty()) {
+            for (Object[] row : rows("select s.invoice.id, s.id, s.trackingCode, s.date " +
+                    "from Shipment s where s.invoice.id in :ids order by s.id", invoices.keySet())) {
+                OrderSearchDocument.ShipmentView shipment = new OrderSearchDocument.ShipmentView();
+                shipment.setId((Long) row[1]);
+                shipment.setTrackingCode((String) row[2]);
+                shipment.setDate((Instant) row[3]);
+                invoices.get((Long) row[0]).getShipments().add(shipment);
+            }
+        }
+        return documents;
+    }
+
+    private List<Object[]> rows(String query, Collection<Long> ids) {
+        return em.createQuery(query, Object[].class)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    /**
+     * The changes to the entities embedded in the orders, flushed in the current transaction and not
+     * looked up yet by {@link #findDocumentIds(Class, Collection)}.
+     */
+    private static final class Changes {
+
+        private static final Object RESOURCE_KEY = Changes.class;
+
+        private final Map<Class<?>, Set<Long>> embeddedChanges = new HashMap<>();
+
+        private final Map<Class<?>, Map<Long, Set<Long>>> previousParentIds = new HashMap<>();
+
+        /**
+         * @return the changes bound to the current transaction, or none outside of a transaction.
+         */
+        private static Changes current() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return new Changes();
+            }
+            Changes changes = (Changes) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+            if (changes == null) {
+                changes = new Changes();
+                TransactionSynchronizationManager.bindResource(RESOURCE_KEY, changes);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                    }
+                });
+            }
+            return changes;
+        }
+
+        /**
+         * Record a change to an entity, from its state before the change.
+         *
+         * @param dirtyProperties the indices of the properties changed, or null if unknown.
+         */
+        private void record(EntityPersister persister, Long id, Object[] previousState, int[] dirtyProperties, boolean deleted) {
+            Class<?> entityType = persister.getMappedClass();
+            String[] propertyNames = persister.getPropertyNames();
+            Set<String> embeddedProperties = EMBEDDED_PROPERTIES.get(entityType);
+            if (embeddedProperties != null && (deleted || dirtyProperties == null || previousState == null
+                    || Arrays.stream(dirtyProperties).anyMatch(index -> embeddedProperties.contains(propertyNames[index])))) {
+                embeddedChanges.computeIfAbsent(entityType, type -> new HashSet<>()).add(id);
+            }
+            String parentProperty = PARENT_PROPERTIES.get(entityType);
+            Object previousParent = parentProperty != null && previousState != null
+                ? previousState[Arrays.asList(propertyNames).indexOf(parentProperty)]
+                : null;
+            if (previousParent instanceof AbstractEntity) {
+                previousParentIds.computeIfAbsent(entityType, type -> new HashMap<>())
+                    .computeIfAbsent(id, key -> new HashSet<>())
+                    .add(((AbstractEntity) previousParent).getId());
+            }
+        }
+
+        private Set<Long> takeEmbeddedChanges(Class<?> entityType, Collection<Long> ids) {
+            Set<Long> changed = embeddedChanges.getOrDefault(entityType, Collections.emptySet());
+            Set<Long> result = new LinkedHashSet<>();
+            for (Long id : ids) {
+                if (changed.remove(id)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        private Set<Long> takePreviousParentIds(Class<?> entityType, Collection<Long> ids) {
+            Map<Long, Set<Long>> parents = previousParentIds.getOrDefault(entityType, Collections.emptyMap());
+            Set<Long> result = new LinkedHashSet<>();
+            for (Long id : ids) {
+                Set<Long> parentIds = parents.remove(id);
+                if (parentIds != null) {
+                    result.addAll(parentIds);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Records the changes to the entities embedded in the orders when Hibernate flushes them, from
+     * the dirty properties and the previous state it computed, as the persistence context no longer
+     * holds the previous state once flushed.
+     */
+    private static final class ChangeListener implements PostUpdateEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final ChangeListener INSTANCE = new ChangeListener();
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            // A merge without the previous state reports no dirty properties
+            Changes.current().record(event.getPersister(), (Long) event.getId(), event.getOldState(), event.getDirtyProperties(), false);
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            Changes.current().record(event.getPersister(), (Long) event.getId(), event.getDeletedState(), null, true);
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+}
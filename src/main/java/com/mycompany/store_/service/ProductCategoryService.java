@@ -2,17 +2,16 @@ package com.mycompany.store_.service;
 
 import com.mycompany.store_.domain.ProductCategory;
 import com.mycompany.store_.repository.ProductCategoryRepository;
-import com.mycompany.store_.repository.search.ProductCategorySearchRepository;
+import com.mycompany.store_.service.dto.CatalogCategoryDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -27,11 +26,21 @@ public class ProductCategoryService {
 
     private final ProductCategoryRepository productCategoryRepository;
 
-    private final ProductCategorySearchRepository productCategorySearchRepository;
+    private final SearchOutbox searchOutbox;
 
-    public ProductCategoryService(ProductCategoryRepository productCategoryRepository, ProductCategorySearchRepository productCategorySearchRepository) {
+    private final SearchHydrator searchHydrator;
+
+    private final CatalogSnapshot catalogSnapshot;
+
+    private final CatalogChangeLog catalogChangeLog;
+
+    public ProductCategoryService(ProductCategoryRepository productCategoryRepository, SearchOutbox searchOutbox, SearchHydrator searchHydrator,
+            CatalogSnapshot catalogSnapshot, CatalogChangeLog catalogChangeLog) {
         this.productCategoryRepository = productCategoryRepository;
-        this.productCategorySearchRepository = productCategorySearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
+        this.catalogSnapshot = catalogSnapshot;
+        this.catalogChangeLog = catalogChangeLog;
     }
 
     /**
@@ -43,7 +52,8 @@ public class ProductCategoryService {
     public ProductCategory save(ProductCategory productCategory) {
         log.debug("Request to save ProductCategory : {}", productCategory);
         ProductCategory result = productCategoryRepository.save(productCategory);
-        productCategorySearchRepository.save(result);
+        searchOutbox.index(ProductCategory.class, result.getId());
+        catalogChangeLog.changed(ProductCategory.class, result.getId());
         return result;
     }
 
@@ -59,6 +69,18 @@ public class ProductCategoryService {
     }
 
 
+    /**
+     * Browse the categories of the catalog, with their number of products, from the
+     * {@link CatalogSnapshot} rather than the database.
+     *
+     * @return the categories, by id.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CatalogCategoryDTO> browse() {
+        log.debug("Request to browse ProductCategories");
+        return catalogSnapshot.findCategories();
+    }
+
     /**
      * Get one productCategory by id.
      *
@@ -79,7 +101,8 @@ public class ProductCategoryService {
     public void delete(Long id) {
         log.debug("Request to delete ProductCategory : {}", id);
         productCategoryRepository.deleteById(id);
-        productCategorySearchRepository.deleteById(id);
+        searchOutbox.delete(ProductCategory.class, id);
+        catalogChangeLog.deleted(ProductCategory.class, id);
     }
 
     /**
@@ -91,8 +114,6 @@ public class ProductCategoryService {
     @Transactional(readOnly = true)
     public List<ProductCategory> search(String query) {
         log.debug("Request to search ProductCategories for query {}", query);
-        return StreamSupport
-            .stream(productCategorySearchRepository.search(queryStringQuery(query)).spliterator(), false)
-        .collect(Collectors.toList());
+        return searchHydrator.search(ProductCategory.class, queryStringQuery(query));
     }
 }
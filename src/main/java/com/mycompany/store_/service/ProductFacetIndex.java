@@ -0,0 +1,376 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.service.dto.ProductFacetsDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory bitmaps of the products of each size, category and price band, counting the facets of
+ * the catalog and filtering it without querying the database.
+ * <p>
+ * Each product has an ordinal, assigned in id order when the index is loaded and appended for the
+ * products created since, and each facet value has a bitmap of the ordinals of its products, as
+ * words of 64 bits. A filter is the union of the bitmaps of the selected values of each facet,
+ * intersected across the facets, a word at a time.
+ * <p>
+ * Each application builds its own index, fed by the {@link CatalogFeed}: it is reloaded
+ * periodically, which also reclaims the ordinals of the deleted products, and follows the changes
+ * of the products in between.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private final BigDecimal[] priceBounds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Facets facets;
+
+    public ProductFacetIndex(ApplicationProperties applicationProperties) {
+        this.priceBounds = applicationProperties.getProductFacets().getPriceBands().toArray(new BigDecimal[0]);
+        this.facets = new Facets(priceBounds.length + 1);
+    }
+
+    /**
+     * Count the products of each facet value matching a filter. The values of a facet are counted
+     * with the filters of the other facets only.
+     *
+     * @param sizes the sizes to keep, or none to keep all of them.
+     * @param categoryIds the ids of the categories to keep, or none to keep all of them.
+     * @param priceBands the price bands to keep, or none to keep all of them.
+     * @return the facets.
+     */
+    public ProductFacetsDTO facets(Collection<Size> sizes, Collection<Long> categoryIds, Collection<Integer> priceBands) {
+        lock.readLock().lock();
+        try {
+            long[] sizeFilter = facets.sizeFilter(sizes);
+            long[] categoryFilter = facets.categoryFilter(categoryIds);
+            long[] priceBandFilter = facets.priceBandFilter(priceBands);
+            ProductFacetsDTO result = new ProductFacetsDTO();
+            result.setTotal(cardinality(facets.filter(sizeFilter, categoryFilter, priceBandFilter)));
+            long[] withoutSizes = facets.filter(null, categoryFilter, priceBandFilter);
+            for (Size size : Size.values()) {
+                result.getSizes().put(size, countAnd(withoutSizes, facets.sizes.get(size)));
+            }
+            long[] withoutCategories = facets.filter(sizeFilter, null, priceBandFilter);
+            facets.categories.forEach((categoryId, bitmap) -> {
+                if (cardinality(bitmap) > 0) {
+                    result.getCategories().put(categoryId, countAnd(withoutCategories, bitmap));
+                }
+            });
+            long[] withoutPriceBands = facets.filter(sizeFilter, categoryFilter, null);
+            for (int band = 0; band < facets.priceBands.length; band++) {
+                result.getPriceBands().add(new ProductFacetsDTO.PriceBandDTO(band,
+                    band == 0 ? null : priceBounds[band - 1],
+                    band == priceBounds.length ? null : priceBounds[band],
+                    countAnd(withoutPriceBands, facets.priceBands[band])));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get a page of the ids of the products matching a filter, in the order of their ordinals, which
+     * is the order of their ids unless ids were assigned out of order since the last load.
+     *
+     * @param sizes the sizes to keep, or none to keep all of them.
+     * @param categoryIds the ids of the categories to keep, or none to keep all of them.
+     * @param priceBands the price bands to keep, or none to keep all of them.
+     * @param pageable the page, whose sort is ignored.
+     * @return the page of product ids.
+     */
+    public Page<Long> findIds(Collection<Size> sizes, Collection<Long> categoryIds, Collection<Integer> priceBands, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            long[] matching = facets.filter(facets.sizeFilter(sizes), facets.categoryFilter(categoryIds), facets.priceBandFilter(priceBands));
+            long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+            List<Long> ids = new ArrayList<>(Math.min(limit, 1_000));
+            for (int word = 0; word < matching.length && ids.size() < limit; word++) {
+                long bits = matching[word];
+                int count = Long.bitCount(bits);
+                if (skip >= count) {
+                    skip -= count;
+                    continue;
+                }
+                for (; bits != 0 && ids.size() < limit; bits &= bits - 1) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        ids.add(facets.ids[word * Long.SIZE + Long.numberOfTrailingZeros(bits)]);
+                    }
+                }
+            }
+            return new PageImpl<>(ids, pageable, cardinality(matching));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Index the facet values of a product.
+     *
+     * @param id the id of the product.
+     * @param size the size of the product.
+     * @param categoryId the id of the category of the product, if any.
+     * @param price the price of the product.
+     */
+    public void put(Long id, Size size, Long categoryId, BigDecimal price) {
+        int band = priceBand(price);
+        apply(current -> current.put(id, size, categoryId, band));
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param id the id of the product.
+     */
+    public void remove(Long id) {
+        apply(current -> current.remove(id));
+    }
+
+    /**
+     * Replace the index.
+     *
+     * @param products the id, size, category id and price of each product, in id order.
+     */
+    void load(List<Object[]> products) {
+        Facets loaded = new Facets(priceBounds.length + 1);
+        for (Object[] product : products) {
+            loaded.put((Long) product[0], (Size) product[1], (Long) product[2], priceBand((BigDecimal) product[3]));
+        }
+        lock.writeLock().lock();
+        try {
+            facets = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Facets> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the band of a price: the number of band bounds not greater than the price.
+     */
+    private int priceBand(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        int band = 0;
+        while (band < priceBounds.length && priceBounds[band].compareTo(price) <= 0) {
+            band++;
+        }
+        return band;
+    }
+
+    private static long cardinality(long[] bitmap) {
+        long count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static long countAnd(long[] bitmap, long[] other) {
+        long count = 0;
+        for (int i = 0, length = Math.min(bitmap.length, other.length); i < length; i++) {
+            count += Long.bitCount(bitmap[i] & other[i]);
+        }
+        return count;
+    }
+
+    /**
+     * The bitmaps, and the facet values of each ordinal to clear its bits when the product changes.
+     * Bitmaps are grown as ordinals are assigned, a missing word being empty.
+     */
+    private static final class Facets {
+
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+
+        private int ordinalCount;
+
+        private long[] ids = new long[0];
+
+        private Size[] sizeOf = new Size[0];
+
+        private Long[] categoryOf = new Long[0];
+
+        private int[] priceBandOf = new int[0];
+
+        private long[] all = new long[0];
+
+        private final Map<Size, long[]> sizes = new EnumMap<>(Size.class);
+
+        private final Map<Long, long[]> categories = new TreeMap<>();
+
+        private final long[][] priceBands;
+
+        private Facets(int priceBandCount) {
+            for (Size size : Size.values()) {
+                sizes.put(size, new long[0]);
+            }
+            priceBands = new long[priceBandCount][0];
+        }
+
+        private void put(Long id, Size size, Long categoryId, int priceBand) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                ordinal = nextOrdinal();
+                ordinals.put(id, ordinal);
+                ids[ordinal] = id;
+                all = set(all, ordinal);
+            } else {
+                clear(ordinal);
+            }
+            sizeOf[ordinal] = size;
+            categoryOf[ordinal] = categoryId;
+            priceBandOf[ordinal] = priceBand;
+            if (size != null) {
+                sizes.put(size, set(sizes.get(size), ordinal));
+            }
+            if (categoryId != null) {
+                categories.put(categoryId, set(categories.getOrDefault(categoryId, new long[0]), ordinal));
+            }
+            if (priceBand >= 0) {
+                priceBands[priceBand] = set(priceBands[priceBand], ordinal);
+            }
+        }
+
+        private void remove(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                clear(ordinal);
+                unset(all, ordinal);
+            }
+        }
+
+        /**
+         * Assign the ordinal after the last one, deleted products keeping theirs until the next load.
+         */
+        private int nextOrdinal() {
+            int ordinal = ordinalCount++;
+            if (ordinal == ids.length) {
+                int capacity = Math.max(64, ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                sizeOf = Arrays.copyOf(sizeOf, capacity);
+                categoryOf = Arrays.copyOf(categoryOf, capacity);
+                priceBandOf = Arrays.copyOf(priceBandOf, capacity);
+            }
+            return ordinal;
+        }
+
+        private void clear(int ordinal) {
+            if (sizeOf[ordinal] != null) {
+                unset(sizes.get(sizeOf[ordinal]), ordinal);
+            }
+            if (categoryOf[ordinal] != null) {
+                unset(categories.get(categoryOf[ordinal]), ordinal);
+            }
+            if (priceBandOf[ordinal] >= 0) {
+                unset(priceBands[priceBandOf[ordinal]], ordinal);
+            }
+        }
+
+        private long[] sizeFilter(Collection<Size> values) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            long[] filter = new long[all.length];
+            for (Size size : values) {
+                or(filter, sizes.get(size));
+            }
+            return filter;
+        }
+
+        private long[] categoryFilter(Collection<Long> values) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            long[] filter = new long[all.length];
+            for (Long categoryId : values) {
+                or(filter, categories.getOrDefault(categoryId, new long[0]));
+            }
+            return filter;
+        }
+
+        private long[] priceBandFilter(Collection<Integer> values) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            long[] filter = new long[all.length];
+            for (Integer band : values) {
+                if (band != null && band >= 0 && band < priceBands.length) {
+                    or(filter, priceBands[band]);
+                }
+            }
+            return filter;
+        }
+
+        /**
+         * @return the products matching each of the filters which is not null.
+         */
+        private long[] filter(long[]... filters) {
+            long[] result = all.clone();
+            for (long[] filter : filters) {
+                if (filter != null) {
+                    and(result, filter);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static void or(long[] target, long[] bitmap) {
+        for (int i = 0, length = Math.min(target.length, bitmap.length); i < length; i++) {
+            target[i] |= bitmap[i];
+        }
+    }
+
+    private static void and(long[] target, long[] bitmap) {
+        int length = Math.min(target.length, bitmap.length);
+        for (int i = 0; i < length; i++) {
+            target[i] &= bitmap[i];
+        }
+        Arrays.fill(target, length, target.length, 0L);
+    }
+
+    private static long[] set(long[] bitmap, int ordinal) {
+        int word = ordinal >>> 6;
+        long[] result = word < bitmap.length ? bitmap : Arrays.copyOf(bitmap, Math.max(word + 1, bitmap.length * 2));
+        result[word] |= 1L << ordinal;
+        return result;
+    }
+
+    private static void unset(long[] bitmap, int ordinal) {
+        int word = ordinal >>> 6;
+        if (word < bitmap.length) {
+            bitmap[word] &= ~(1L << ordinal);
+        }
+    }
+}
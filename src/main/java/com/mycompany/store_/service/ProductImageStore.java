@@ -0,0 +1,98 @@
+package com.mycompany.store_.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for {@link com.mycompany.store_.domain.Product} images.
+ * <p>
+ * Images are keyed by the hex encoded SHA-256 digest of their bytes, so identical
+ * images are stored once and a key always designates the same content.
+ */
+public interface ProductImageStore {
+
+    /**
+     * Store the given content.
+     * <p>
+     * The content is copied through a bounded buffer, and nothing is stored if it is
+     * larger than {@code maxSize}. Content already stored is marked as stored again, so
+     * that it is not swept as unused until the upload reusing it is saved.
+     *
+     * @param content the image bytes, read until the end of the stream.
+     * @param maxSize the maximum number of bytes accepted.
+     * @return the SHA-256 key of the stored content.
+     * @throws InvalidProductImageException if the content is larger than {@code maxSize}.
+     * @throws IOException if the content could not be read or written.
+     */
+    String put(InputStream content, long maxSize) throws IOException;
+
+    /**
+     * Locate the file holding the content of the given key.
+     *
+     * @param key the SHA-256 key of the content.
+     * @return the path of the content, or empty if nothing is stored under this key.
+     */
+    Optional<Path> locate(String key);
+
+    /**
+     * Store a variant of the content of the given key, resized to the given width.
+     *
+     * @param key the SHA-256 key of the original content.
+     * @param width the width of the variant, in pixels.
+     * @param format the format of the variant.
+     * @param content the variant bytes.
+     * @throws IOException if the content could not be written.
+     */
+    void putVariant(String key, int width, ImageFormat format, byte[] content) throws IOException;
+
+    /**
+     * Record that the variant of the content of the given key for the given width is the content
+     * itself, without storing a copy of it.
+     *
+     * @param key the SHA-256 key of the original content.
+     * @param width the width of the variant, in pixels.
+     * @throws IOException if the variant could not be recorded.
+     */
+    void putOriginalVariant(String key, int width) throws IOException;
+
+    /**
+     * Locate a variant of the content of the given key.
+     *
+     * @param key the SHA-256 key of the original content.
+     * @param width the width of the variant, in pixels.
+     * @return the variant, or empty if it has not been stored.
+     */
+    Optional<ProductImageVariant> locateVariant(String key, int width);
+
+    /**
+     * List the keys of the content last stored before the given instant.
+     *
+     * @param instant the instant.
+     * @return the keys, in no particular order.
+     * @throws IOException if the stored content could not be listed.
+     */
+    List<String> findKeysStoredBefore(Instant instant) throws IOException;
+
+    /**
+     * Delete the content of the given key and all its variants, unless it was stored again since
+     * the given instant.
+     *
+     * @param key the SHA-256 key of the content.
+     * @param instant the instant.
+     * @return whether the content was deleted.
+     * @throws IOException if the content could not be deleted.
+     */
+    boolean deleteIfStoredBefore(String key, Instant instant) throws IOException;
+
+    /**
+     * Delete the content of the given key and all its variants, if any.
+     *
+     * @param key the SHA-256 key of the content.
+     * @throws IOException if the content could not be deleted.
+     */
+    void delete(String key) throws IOException;
+}
@@ -0,0 +1,75 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the images of the {@link ProductImageStore} that no product uses.
+ * <p>
+ * Images are shared by content, so a product dropping an image cannot delete it: an upload of the
+ * same bytes for another product may be reusing it in a transaction not yet committed. Only the
+ * images not stored again for the grace period are considered, and deleted if no committed product
+ * references them.
+ */
+@Service
+public class ProductImageSweeper {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(ProductImageSweeper.class);
+
+    private final ProductImageStore productImageStore;
+
+    private final ProductRepository productRepository;
+
+    private final Duration gracePeriod;
+
+    public ProductImageSweeper(ProductImageStore productImageStore, ProductRepository productRepository,
+            ApplicationProperties applicationProperties) {
+        this.productImageStore = productImageStore;
+        this.productRepository = productRepository;
+        this.gracePeriod = applicationProperties.getImageStore().getSweepGracePeriod();
+    }
+
+    /**
+     * Delete the images stored before the grace period that no product uses. Not run on startup, so
+     * that restarting the nodes does not sweep the images each time.
+     *
+     * @return the number of images deleted.
+     */
+    @Scheduled(fixedDelayString = "${application.image-store.sweep-interval:PT1H}",
+        initialDelayString = "${application.image-store.sweep-interval:PT1H}")
+    public int sweep() {
+        int deleted = 0;
+        try {
+            Instant storedBefore = Instant.now().minus(gracePeriod);
+            List<String> keys = productImageStore.findKeysStoredBefore(storedBefore);
+            for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+                List<String> batch = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+                Set<String> used = new HashSet<>(productRepository.findImageKeysByImageKeyIn(batch));
+                for (String key : batch) {
+                    if (!used.contains(key) && productImageStore.deleteIfStoredBefore(key, storedBefore)) {
+                        deleted++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep unused product images", e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unused product images", deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mycompany.store_.service;
+
+import java.nio.file.Path;
+
+/**
+ * A variant of a product image held by the {@link ProductImageStore}: a resized copy with its
+ * format, or the original image itself when it is not wider than the variant or cannot be resized.
+ */
+public final class ProductImageVariant {
+
+    /**
+     * The variant of an image which is served as the original.
+     */
+    public static final ProductImageVariant ORIGINAL = new ProductImageVariant(null, null);
+
+    private final Path path;
+
+    private final ImageFormat format;
+
+    private ProductImageVariant(Path path, ImageFormat format) {
+        this.path = path;
+        this.format = format;
+    }
+
+    /**
+     * @param path the path of the resized copy.
+     * @param format the format of the resized copy.
+     * @return the variant.
+     */
+    public static ProductImageVariant of(Path path, ImageFormat format) {
+        return new ProductImageVariant(path, format);
+    }
+
+    /**
+     * @return whether the original image is served for this variant.
+     */
+    public boolean isOriginal() {
+        return path == null;
+    }
+
+    /**
+     * @return the path of the resized copy, null for the original.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the format of the resized copy, null for the original.
+     */
+    public ImageFormat getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,226 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.config.AsyncConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service generating fixed-width variants of product images, so that lists and grids do not
+ * download the original image.
+ * <p>
+ * Variants are generated with {@link ImageIO} on the bounded
+ * {@link AsyncConfiguration#IMAGE_VARIANT_TASK_EXECUTOR} executor. Until a variant exists the
+ * original image is served. Images that cannot be decoded, are too large to decode, or are not
+ * wider than a variant have that variant recorded as the original, which is then served without
+ * storing a copy of it.
+ */
+@Service
+public class ProductImageVariantService {
+
+    private final Logger log = LoggerFactory.getLogger(ProductImageVariantService.class);
+
+    private final ProductImageStore productImageStore;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final List<Integer> widths;
+
+    private final long maxPixels;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final Timer generationTimer;
+
+    private final Counter rejectedCounter;
+
+    public ProductImageVariantService(ProductImageStore productImageStore,
+            @Qualifier(AsyncConfiguration.IMAGE_VARIANT_TASK_EXECUTOR) ThreadPoolTaskExecutor executor,
+            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.productImageStore = productImageStore;
+        this.executor = executor;
+        this.widths = applicationProperties.getImageVariants().getWidths().stream().sorted().distinct().collect(Collectors.toList());
+        this.maxPixels = applicationProperties.getImageVariants().getMaxPixels();
+        Gauge.builder("product.image.variants.queue", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+            .description("Number of product images waiting for their variants")
+            .register(meterRegistry);
+        this.generationTimer = Timer.builder("product.image.variants.generation")
+            .description("Time spent generating all the variants of a product image")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("product.image.variants.rejected")
+            .description("Number of product images whose variants were not scheduled because the queue was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Select the variant to serve for a requested width.
+     *
+     * @param requestedWidth the width requested by the client, in pixels.
+     * @return the smallest variant width at least as large as the requested one,
+     * or empty if the original image should be served.
+     */
+    public OptionalInt selectWidth(int requestedWidth) {
+        return widths.stream().mapToInt(Integer::intValue).filter(width -> width >= requestedWidth).findFirst();
+    }
+
+    /**
+     * Locate a variant of an image, scheduling the generation of the variants if it is missing.
+     *
+     * @param key the key of the original image.
+     * @param width a variant width, as returned by {@link #selectWidth(int)}.
+     * @return the variant, or empty if it is not available yet.
+     */
+    public Optional<ProductImageVariant> locate(String key, int width) {
+        Optional<ProductImageVariant> variant = productImageStore.locateVariant(key, width);
+        if (!variant.isPresent() && productImageStore.locate(key).isPresent()) {
+            schedule(key);
+        }
+        return variant;
+    }
+
+    /**
+     * Schedule the generation of the variants of an image.
+     * <p>
+     * When the queue is full the request is dropped; the variants are then scheduled again
+     * the next time one of them is requested.
+     *
+     * @param key the key of the original image.
+     */
+    public void schedule(String key) {
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(key);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not generate the variants of product image {}", key, e);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pending.remove(key);
+            rejectedCounter.increment();
+            log.debug("Image variant queue is full, skipping product image {}", key);
+        }
+    }
+
+    /**
+     * Generate and store all the variants of an image, in the calling thread.
+     *
+     * @param key the key of the original image.
+     * @throws IOException if the image could not be read or the variants could not be stored.
+     */
+    public void generate(String key) throws IOException {
+        Optional<Path> original = productImageStore.locate(key);
+        if (!original.isPresent()) {
+            return;
+        }
+        long start = System.nanoTime();
+        DecodedImage decoded = decode(original.get());
+        for (int width : widths) {
+            if (decoded == null || decoded.image.getWidth() <= width) {
+                productImageStore.putOriginalVariant(key, width);
+            } else {
+                ImageFormat format = decoded.jpeg ? ImageFormat.JPEG : ImageFormat.PNG;
+                productImageStore.putVariant(key, width, format, encode(resize(decoded.image, width, decoded.jpeg), format));
+            }
+        }
+        generationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Generated the variants of product image {}", key);
+    }
+
+    private DecodedImage decode(Path path) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    log.warn("Product image {} is too large to generate variants", path.getFileName());
+                    return null;
+                }
+                return new DecodedImage(reader.read(0), "jpeg".equalsIgnoreCase(reader.getFormatName()));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Downscale by successive halvings, which keeps bilinear interpolation sharp for large ratios.
+     */
+    private static BufferedImage resize(BufferedImage source, int targetWidth, boolean opaque) {
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        int type = opaque || !source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, ImageFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format.getFormatName(), out)) {
+            throw new IOException("No image writer available");
+        }
+        return out.toByteArray();
+    }
+
+    private static final class DecodedImage {
+
+        private final BufferedImage image;
+
+        private final boolean jpeg;
+
+        private DecodedImage(BufferedImage image, boolean jpeg) {
+            this.image = image;
+            this.jpeg = jpeg;
+        }
+    }
+}
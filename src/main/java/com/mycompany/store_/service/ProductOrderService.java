@@ -1,8 +1,17 @@
 package com.mycompany.store_.service;
 
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
 import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.Shipment;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.repository.InvoiceRepository;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.repository.ProductOrderRepository;
-import com.mycompany.store_.repository.search.ProductOrderSearchRepository;
+import com.mycompany.store_.service.dto.OrderDetailsDTO;
+import com.mycompany.store_.service.dto.OrderSearchDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,6 +20,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
@@ -26,28 +38,52 @@ public class ProductOrderService {
 
     private final ProductOrderRepository productOrderRepository;
 
-    private final ProductOrderSearchRepository productOrderSearchRepository;
+    private final InvoiceRepository invoiceRepository;
 
-    public ProductOrderService(ProductOrderRepository productOrderRepository, ProductOrderSearchRepository productOrderSearchRepository) {
+    private final SearchOutbox searchOutbox;
+
+    private final SearchHydrator searchHydrator;
+
+    private final OrderSearchProjection orderSearchProjection;
+
+    public ProductOrderService(ProductOrderRepository productOrderRepository, InvoiceRepository invoiceRepository, SearchOutbox searchOutbox,
+            SearchHydrator searchHydrator, OrderSearchProjection orderSearchProjection) {
         this.productOrderRepository = productOrderRepository;
-        this.productOrderSearchRepository = productOrderSearchRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
+        this.orderSearchProjection = orderSearchProjection;
     }
 
     /**
      * Save a productOrder.
+     * <p>
+     * Its code cannot be changed to one in the format of the {@link OrderCodeAllocator}, which
+     * could later be allocated to another order.
      *
      * @param productOrder the entity to save.
      * @return the persisted entity.
+     * @throws ReservedOrderCodeException if the code is in the format of the allocator and not the one of the order.
      */
     public ProductOrder save(ProductOrder productOrder) {
         log.debug("Request to save ProductOrder : {}", productOrder);
+        if (OrderCodeAllocator.isValid(productOrder.getCode()) && !productOrder.getCode().equals(savedCode(productOrder))) {
+            throw new ReservedOrderCodeException(productOrder.getCode());
+        }
         ProductOrder result = productOrderRepository.save(productOrder);
-        productOrderSearchRepository.save(result);
+        searchOutbox.index(ProductOrder.class, result.getId());
         return result;
     }
 
+    private String savedCode(ProductOrder productOrder) {
+        if (productOrder.getId() == null) {
+            return null;
+        }
+        return productOrderRepository.findById(productOrder.getId()).map(ProductOrder::getCode).orElse(null);
+    }
+
     /**
-     * Get all the productOrders.
+     * Get all the productOrders, with their customer.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -55,12 +91,40 @@ public class ProductOrderService {
     @Transactional(readOnly = true)
     public Page<ProductOrder> findAll(Pageable pageable) {
         log.debug("Request to get all ProductOrders");
-        return productOrderRepository.findAll(pageable);
+        return productOrderRepository.findAllWithCustomer(pageable);
+    }
+
+    /**
+     * Get a keyset page of the productOrders, without counting them.
+     *
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<ProductOrder> findAllAfter(String after, Pageable pageable) {
+        log.debug("Request to get ProductOrders after {}", after);
+        return productOrderRepository.findAllAfter(after, pageable);
     }
 
 
     /**
-     * Get one productOrder by id.
+     * Get a keyset page of the productOrders of a customer, the latest first.
+     *
+     * @param customerId the id of the customer.
+     * @param statuses the statuses to keep, or none to keep all of them.
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param size the size of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<ProductOrder> findAllByCustomer(Long customerId, Collection<OrderStatus> statuses, String after, int size) {
+        log.debug("Request to get ProductOrders of Customer {} after {}", customerId, after);
+        return productOrderRepository.findAllByCustomerAfter(customerId, statuses, after, size);
+    }
+
+    /**
+     * Get one productOrder by id, with its customer.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -68,7 +132,77 @@ public class ProductOrderService {
     @Transactional(readOnly = true)
     public Optional<ProductOrder> findOne(Long id) {
         log.debug("Request to get ProductOrder : {}", id);
-        return productOrderRepository.findById(id);
+        return productOrderRepository.findOneWithCustomer(id);
+    }
+
+    /**
+     * Get one productOrder by id, with its customer, its items and their products, and its invoices
+     * and their shipments.
+     * <p>
+     * The order is loaded with its items and the invoices with their shipments, in two queries
+     * joining a single collection each, rather than one query multiplying the items by the shipments.
+     *
+     * @param id the id of the entity.
+     * @return the order.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderDetailsDTO> findDetails(Long id) {
+        log.debug("Request to get the details of ProductOrder : {}", id);
+        return productOrderRepository.findOneWithCustomerAndOrderItems(id)
+            .map(productOrder -> toDetails(productOrder, invoiceRepository.findAllWithShipmentsByOrderId(id)));
+    }
+
+    private static OrderDetailsDTO toDetails(ProductOrder productOrder, List<Invoice> invoices) {
+        OrderDetailsDTO details = new OrderDetailsDTO();
+        details.setId(productOrder.getId());
+        details.setCode(productOrder.getCode());
+        details.setPlacedDate(productOrder.getPlacedDate());
+        details.setStatus(productOrder.getStatus());
+        Customer customer = productOrder.getCustomer();
+        if (customer != null) {
+            OrderDetailsDTO.CustomerDTO customerDetails = new OrderDetailsDTO.CustomerDTO();
+            customerDetails.setId(customer.getId());
+            customerDetails.setFirstName(customer.getFirstName());
+            customerDetails.setLastName(customer.getLastName());
+            customerDetails.setEmail(customer.getEmail());
+            details.setCustomer(customerDetails);
+        }
+        productOrder.getOrderItems().stream().sorted(Comparator.comparing(OrderItem::getId)).forEach(orderItem -> {
+            OrderDetailsDTO.ItemDTO item = new OrderDetailsDTO.ItemDTO();
+            item.setId(orderItem.getId());
+            item.setQuantity(orderItem.getQuantity());
+            item.setStatus(orderItem.getStatus());
+            Product product = orderItem.getProduct();
+            if (product != null) {
+                OrderDetailsDTO.ProductDTO productDetails = new OrderDetailsDTO.ProductDTO();
+                productDetails.setId(product.getId());
+                productDetails.setName(product.getName());
+                productDetails.setPrice(product.getPrice());
+                productDetails.setSize(product.getSize());
+                item.setProduct(productDetails);
+            }
+            details.getItems().add(item);
+        });
+        invoices.stream().sorted(Comparator.comparing(Invoice::getId)).forEach(invoice -> {
+            OrderDetailsDTO.InvoiceDTO invoiceDetails = new OrderDetailsDTO.InvoiceDTO();
+            invoiceDetails.setId(invoice.getId());
+            invoiceDetails.setDate(invoice.getDate());
+            invoiceDetails.setDetails(invoice.getDetails());
+            invoiceDetails.setStatus(invoice.getStatus());
+            invoiceDetails.setPaymentMethod(invoice.getPaymentMethod());
+            invoiceDetails.setPaymentDate(invoice.getPaymentDate());
+            invoiceDetails.setPaymentAmount(invoice.getPaymentAmount());
+            invoice.getShipments().stream().sorted(Comparator.comparing(Shipment::getId)).forEach(shipment -> {
+                OrderDetailsDTO.ShipmentDTO shipmentDetails = new OrderDetailsDTO.ShipmentDTO();
+                shipmentDetails.setId(shipment.getId());
+                shipmentDetails.setTrackingCode(shipment.getTrackingCode());
+                shipmentDetails.setDate(shipment.getDate());
+                shipmentDetails.setDetails(shipment.getDetails());
+                invoiceDetails.getShipments().add(shipmentDetails);
+            });
+            details.getInvoices().add(invoiceDetails);
+        });
+        return details;
     }
 
     /**
@@ -79,7 +213,7 @@ public class ProductOrderService {
     public void delete(Long id) {
         log.debug("Request to delete ProductOrder : {}", id);
         productOrderRepository.deleteById(id);
-        productOrderSearchRepository.deleteById(id);
+        searchOutbox.delete(ProductOrder.class, id);
     }
 
     /**
@@ -92,5 +226,19 @@ public class ProductOrderService {
     @Transactional(readOnly = true)
     public Page<ProductOrder> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of ProductOrders for query {}", query);
-        return productOrderSearchRepository.search(queryStringQuery(query), pageable);    }
+        return searchHydrator.search(ProductOrder.class, queryStringQuery(query), pageable, "customer");
+    }
+
+    /**
+     * Search for the orders corresponding to the query, with their customer, items, invoices and shipments.
+     *
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @return the list of orders.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderSearchDocument> searchViews(String query, Pageable pageable) {
+        log.debug("Request to search for a page of order views for query {}", query);
+        return searchHydrator.search(orderSearchProjection, queryStringQuery(query), pageable);
+    }
 }
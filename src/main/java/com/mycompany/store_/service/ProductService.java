@@ -1,17 +1,41 @@
 package com.mycompany.store_.service;
 
+import com.mycompany.store_.config.ApplicationProperties;
 import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.repository.ProductRepository;
-import com.mycompany.store_.repository.search.ProductSearchRepository;
+import com.mycompany.store_.service.dto.CatalogChangesDTO;
+import com.mycompany.store_.service.dto.CatalogProductDTO;
+import com.mycompany.store_.service.dto.ProductFacetsDTO;
+import com.mycompany.store_.service.dto.ProductSuggestionDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -26,28 +50,74 @@ public class ProductService {
 
     private final ProductRepository productRepository;
 
-    private final ProductSearchRepository productSearchRepository;
+    private final SearchOutbox searchOutbox;
 
-    public ProductService(ProductRepository productRepository, ProductSearchRepository productSearchRepository) {
+    private final SearchHydrator searchHydrator;
+
+    private final ProductImageStore productImageStore;
+
+    private final ProductImageVariantService productImageVariantService;
+
+    private final ProductSuggestionIndex productSuggestionIndex;
+
+    private final ProductFacetIndex productFacetIndex;
+
+    private final CatalogSnapshot catalogSnapshot;
+
+    private final CatalogChangeLog catalogChangeLog;
+
+    private final long maxImageSize;
+
+    private final int maxSuggestions;
+
+    public ProductService(ProductRepository productRepository, SearchOutbox searchOutbox, SearchHydrator searchHydrator, ProductImageStore productImageStore,
+            ProductImageVariantService productImageVariantService, ProductSuggestionIndex productSuggestionIndex,
+            ProductFacetIndex productFacetIndex, CatalogSnapshot catalogSnapshot, CatalogChangeLog catalogChangeLog,
+            ApplicationProperties applicationProperties) {
         this.productRepository = productRepository;
-        this.productSearchRepository = productSearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
+        this.productImageStore = productImageStore;
+        this.productImageVariantService = productImageVariantService;
+        this.productSuggestionIndex = productSuggestionIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.catalogSnapshot = catalogSnapshot;
+        this.catalogChangeLog = catalogChangeLog;
+        this.maxImageSize = applicationProperties.getImageStore().getMaxSize().toBytes();
+        this.maxSuggestions = applicationProperties.getProductSuggestions().getMaxSize();
     }
 
     /**
      * Save a product.
+     * <p>
+     * Inline image bytes are moved to the {@link ProductImageStore}. Without new bytes the
+     * stored image is kept, unless the image content type was cleared.
      *
      * @param product the entity to save.
      * @return the persisted entity.
      */
     public Product save(Product product) {
         log.debug("Request to save Product : {}", product);
+        String previousImageKey = product.getId() == null ? null : productRepository.findImageKeyById(product.getId()).orElse(null);
+        if (product.getImage() != null) {
+            product.setImageKey(storeImage(product.getImage()));
+            product.setImage(null);
+        } else if (product.getImageContentType() != null) {
+            product.setImageKey(previousImageKey);
+        } else {
+            product.setImageKey(null);
+        }
         Product result = productRepository.save(product);
-        productSearchRepository.save(result);
+        searchOutbox.index(Product.class, result.getId());
+        catalogChangeLog.changed(Product.class, result.getId());
+        if (!Objects.equals(previousImageKey, result.getImageKey())) {
+            scheduleVariants(result.getImageKey());
+        }
         return result;
     }
 
     /**
-     * Get all the products.
+     * Get all the products, with their product category.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -55,12 +125,109 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> findAll(Pageable pageable) {
         log.debug("Request to get all Products");
-        return productRepository.findAll(pageable);
+        return productRepository.findAllWithProductCategory(pageable);
+    }
+
+    /**
+     * Get a keyset page of the products, without counting them.
+     *
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Product> findAllAfter(String after, Pageable pageable) {
+        log.debug("Request to get Products after {}", after);
+        return productRepository.findAllAfter(after, pageable);
+    }
+
+    /**
+     * Suggest the most popular products for a prefix typed in the search box, from the
+     * {@link ProductSuggestionIndex} rather than the search backend.
+     *
+     * @param prefix the prefix of a word of the product names.
+     * @param size the number of products to suggest, up to the configured maximum.
+     * @return the suggested products, the most popular first.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductSuggestionDTO> suggest(String prefix, int size) {
+        return productSuggestionIndex.suggest(prefix, Math.min(size, maxSuggestions));
+    }
+
+    /**
+     * Get the changes of the products and categories after a sequence, from the {@link CatalogChangeLog}.
+     *
+     * @param since the sequence of the last change already read, or {@code null} to get the sequence of the last change only.
+     * @param limit the most changes to read.
+     * @return the changes, and the sequence to read the following ones from.
+     * @throws CatalogChangesExpiredException if changes after the sequence have been purged.
+     * @throws InvalidCatalogSequenceException if the sequence is after the last change.
+     */
+    @Transactional(readOnly = true)
+    public CatalogChangesDTO findChanges(Long since, int limit) {
+        log.debug("Request to get the changes of the catalog since {}", since);
+        return since == null ? catalogChangeLog.findLastSequence() : catalogChangeLog.findChanges(since, limit);
+    }
+
+    /**
+     * Count the products of each size, category and price band matching a filter, from the
+     * {@link ProductFacetIndex} rather than the database.
+     *
+     * @param sizes the sizes to keep, or none to keep all of them.
+     * @param categoryIds the ids of the categories to keep, or none to keep all of them.
+     * @param priceBands the price bands to keep, or none to keep all of them.
+     * @return the facets.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductFacetsDTO facets(Collection<Size> sizes, Collection<Long> categoryIds, Collection<Integer> priceBands) {
+        log.debug("Request to get the facets of Products for sizes {}, categories {} and price bands {}", sizes, categoryIds, priceBands);
+        return productFacetIndex.facets(sizes, categoryIds, priceBands);
     }
 
+    /**
+     * Get a page of the products matching a filter, with their product category, in id order. The
+     * page is found in the {@link ProductFacetIndex}, only its products are read from the database.
+     *
+     * @param sizes the sizes to keep, or none to keep all of them.
+     * @param categoryIds the ids of the categories to keep, or none to keep all of them.
+     * @param priceBands the price bands to keep, or none to keep all of them.
+     * @param pageable the pagination information, whose sort is ignored.
+     * @return the page of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> findAllByFacets(Collection<Size> sizes, Collection<Long> categoryIds, Collection<Integer> priceBands,
+            Pageable pageable) {
+        log.debug("Request to get Products for sizes {}, categories {} and price bands {}", sizes, categoryIds, priceBands);
+        Page<Long> ids = productFacetIndex.findIds(sizes, categoryIds, priceBands, pageable);
+        if (ids.getContent().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements());
+        }
+        Map<Long, Product> products = productRepository.findAllWithProductCategoryByIdIn(ids.getContent()).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // A product deleted by another application since the last rebuild is missing from the page
+        return new PageImpl<>(ids.getContent().stream().map(products::get).filter(Objects::nonNull).collect(Collectors.toList()),
+            pageable, ids.getTotalElements());
+    }
 
     /**
-     * Get one product by id.
+     * Browse the catalog: get a page of the products matching a filter from the
+     * {@link CatalogSnapshot} rather than the database.
+     *
+     * @param categoryId the id of the category of the products, or null for all of them.
+     * @param size the size of the products, or null for all of them.
+     * @param minPrice the lowest price of the products, or null.
+     * @param maxPrice the highest price of the products, or null.
+     * @param pageable the pagination information, sorted by id, name or price.
+     * @return the page of products.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<CatalogProductDTO> browse(Long categoryId, Size size, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        log.debug("Request to browse Products of category {}, size {} and price from {} to {}", categoryId, size, minPrice, maxPrice);
+        return catalogSnapshot.findProducts(categoryId, size, minPrice, maxPrice, pageable);
+    }
+
+    /**
+     * Get one product by id, with its product category.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -68,18 +235,100 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Optional<Product> findOne(Long id) {
         log.debug("Request to get Product : {}", id);
-        return productRepository.findById(id);
+        return productRepository.findOneWithProductCategory(id);
     }
 
     /**
      * Delete the product by id.
+     * <p>
+     * Its image is left in the {@link ProductImageStore}, shared by content with other products:
+     * the {@link ProductImageSweeper} removes it once unused.
      *
      * @param id the id of the entity.
      */
     public void delete(Long id) {
         log.debug("Request to delete Product : {}", id);
         productRepository.deleteById(id);
-        productSearchRepository.deleteById(id);
+        searchOutbox.delete(Product.class, id);
+        catalogChangeLog.deleted(Product.class, id);
+    }
+
+    /**
+     * Replace the image of a product with uploaded content.
+     * <p>
+     * The content is streamed to the {@link ProductImageStore}; its content type is taken from
+     * its magic bytes, whatever the client announced.
+     *
+     * @param id the id of the product.
+     * @param content the image bytes.
+     * @return the updated entity, or empty if there is no product with this id.
+     * @throws InvalidProductImageException if the content is not a supported image or is too large.
+     * @throws IOException if the content could not be read or stored.
+     */
+    public Optional<Product> saveImage(Long id, InputStream content) throws IOException {
+        log.debug("Request to save the image of Product : {}", id);
+        Optional<Product> product = productRepository.findById(id);
+        if (product.isPresent()) {
+            Product result = product.get();
+            InputStream in = new BufferedInputStream(content);
+            ImageFormat format = detectFormat(in)
+                .orElseThrow(() -> new InvalidProductImageException("Unsupported image format", "imageformat"));
+            String previousImageKey = result.getImageKey();
+            result.setImageKey(productImageStore.put(in, maxImageSize));
+            result.setImageContentType(format.getContentType());
+            searchOutbox.index(Product.class, result.getId());
+            catalogChangeLog.changed(Product.class, result.getId());
+            if (!Objects.equals(previousImageKey, result.getImageKey())) {
+                scheduleVariants(result.getImageKey());
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Locate the stored image of the product.
+     *
+     * @param product the product.
+     * @return the path of the image, or empty if the product has no stored image.
+     */
+    public Optional<Path> locateImage(Product product) {
+        return Optional.ofNullable(product.getImageKey()).flatMap(productImageStore::locate);
+    }
+
+    private String storeImage(byte[] image) {
+        try {
+            return productImageStore.put(new ByteArrayInputStream(image), maxImageSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store product image", e);
+        }
+    }
+
+    private static Optional<ImageFormat> detectFormat(InputStream in) throws IOException {
+        byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+        in.mark(header.length);
+        int length = 0;
+        int read;
+        while (length < header.length && (read = in.read(header, length, header.length - length)) != -1) {
+            length += read;
+        }
+        in.reset();
+        return ImageFormat.detect(header, length);
+    }
+
+    /**
+     * Variants are generated once the transaction has committed, so that a rolled back
+     * change does not consume image processing capacity.
+     */
+    private void scheduleVariants(String imageKey) {
+        if (imageKey == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productImageVariantService.schedule(imageKey);
+            }
+        });
     }
 
     /**
@@ -92,5 +341,6 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of Products for query {}", query);
-        return productSearchRepository.search(queryStringQuery(query), pageable);    }
+        return searchHydrator.search(Product.class, queryStringQuery(query), pageable, "productCategory");
+    }
 }
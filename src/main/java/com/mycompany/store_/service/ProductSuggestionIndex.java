@@ -0,0 +1,341 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.service.dto.ProductSuggestionDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the product names, suggesting the most popular products whose name has a word
+ * starting with a prefix.
+ * <p>
+ * Names are indexed from each of their words, lower-cased, in a sorted array searched by binary
+ * search: the products matching a prefix are a range of the array. The most popular products of the
+ * range are taken with a segment tree of the most popular product of each subrange, so that a short
+ * prefix matching most of the catalog costs about as much as a long one. The popularity of a product
+ * is the quantity ordered in its order items.
+ * <p>
+ * Each application builds its own index, fed by the {@link CatalogFeed}: it is reloaded
+ * periodically, which also updates the popularity, and follows the changes of the products in between.
+ */
+@Component
+public class ProductSuggestionIndex {
+
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Suggest products for a prefix.
+     *
+     * @param prefix the prefix of a word of the names, followed by the next words if any.
+     * @param size the number of products to suggest.
+     * @return the most popular products matching the prefix, the most popular first.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int size) {
+        return snapshot.suggest(prefix, size);
+    }
+
+    /**
+     * Index the name of a product, keeping its popularity.
+     *
+     * @param id the id of the product.
+     * @param name the name of the product.
+     */
+    public void put(Long id, String name) {
+        apply(current -> current.with(id, name));
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param id the id of the product.
+     */
+    public void remove(Long id) {
+        apply(current -> current.without(id));
+    }
+
+    /**
+     * Replace the index.
+     *
+     * @param names the names of the products, by id.
+     * @param popularity the popularity of the products, by id.
+     */
+    void load(Map<Long, String> names, Map<Long, Long> popularity) {
+        List<Suggestion> suggestions = new ArrayList<>(names.size());
+        names.forEach((id, name) -> suggestions.add(new Suggestion(id, name, popularity.getOrDefault(id, 0L))));
+        Snapshot loaded = Snapshot.build(suggestions);
+        synchronized (lock) {
+            snapshot = loaded;
+        }
+    }
+
+    private void apply(UnaryOperator<Snapshot> change) {
+        synchronized (lock) {
+            snapshot = change.apply(snapshot);
+        }
+    }
+
+    /**
+     * The words of a name or prefix, lower-cased and separated by single spaces, followed by a space
+     * if the prefix ends with a separator.
+     */
+    static String normalize(String text) {
+        String normalized = String.join(" ", Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+            .filter(word -> !word.isEmpty())
+            .toArray(String[]::new));
+        // A prefix ending with a separator only matches whole words
+        if (!normalized.isEmpty() && !Character.isLetterOrDigit(text.charAt(text.length() - 1))) {
+            normalized += " ";
+        }
+        return normalized;
+    }
+
+    private static final class Suggestion {
+
+        private static final Comparator<Suggestion> RANK = Comparator.<Suggestion>comparingLong(suggestion -> suggestion.popularity)
+            .thenComparing(suggestion -> suggestion.name, Comparator.reverseOrder())
+            .thenComparing(suggestion -> suggestion.id, Comparator.reverseOrder());
+
+        private final Long id;
+
+        private final String name;
+
+        private final long popularity;
+
+        private Suggestion(Long id, String name, long popularity) {
+            this.id = id;
+            this.name = name;
+            this.popularity = popularity;
+        }
+
+        /**
+         * @return the keys of the suggestion: its normalized name from each of its words.
+         */
+        private List<String> keys() {
+            String normalized = name == null ? "" : normalize(name).trim();
+            if (normalized.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<String> keys = new ArrayList<>();
+            keys.add(normalized);
+            for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+                keys.add(normalized.substring(i + 1));
+            }
+            return keys;
+        }
+    }
+
+    /**
+     * An immutable state of the index: the sorted keys, the suggestion of each key, and the segment
+     * tree. A change copies the arrays, as products are written much less often than they are suggested.
+     */
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new String[0], new Suggestion[0]);
+
+        private final String[] keys;
+
+        private final Suggestion[] suggestions;
+
+        /**
+         * The position of the best suggestion of each node, the leaves being the positions of the keys
+         * from {@code keys.length}, and the parent of node {@code i} being node {@code i / 2}.
+         */
+        private final int[] best;
+
+        private Snapshot(String[] keys, Suggestion[] suggestions) {
+            this.keys = keys;
+            this.suggestions = suggestions;
+            int size = keys.length;
+            this.best = new int[2 * size];
+            for (int i = 0; i < size; i++) {
+                best[size + i] = i;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                best[i] = better(best[2 * i], best[2 * i + 1]);
+            }
+        }
+
+        private static Snapshot build(List<Suggestion> suggestions) {
+            List<Entry> entries = new ArrayList<>();
+            for (Suggestion suggestion : suggestions) {
+                for (String key : suggestion.keys()) {
+                    entries.add(new Entry(key, suggestion));
+                }
+            }
+            entries.sort(Entry.ORDER);
+            return of(entries);
+        }
+
+        private static Snapshot of(List<Entry> sortedEntries) {
+            String[] keys = new String[sortedEntries.size()];
+            Suggestion[] suggestions = new Suggestion[sortedEntries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = sortedEntries.get(i).key;
+                suggestions[i] = sortedEntries.get(i).suggestion;
+            }
+            return new Snapshot(keys, suggestions);
+        }
+
+        Snapshot with(Long id, String name) {
+            long popularity = 0;
+            for (Suggestion suggestion : suggestions) {
+                if (suggestion.id.equals(id)) {
+                    popularity = suggestion.popularity;
+                    break;
+                }
+            }
+            Suggestion added = new Suggestion(id, name, popularity);
+            List<Entry> addedEntries = added.keys().stream()
+                .map(key -> new Entry(key, added))
+                .sorted(Entry.ORDER)
+                .collect(Collectors.toList());
+            List<Entry> entries = new ArrayList<>(keys.length + addedEntries.size());
+            int next = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (suggestions[i].id.equals(id)) {
+                    continue;
+                }
+                Entry entry = new Entry(keys[i], suggestions[i]);
+                while (next < addedEntries.size() && Entry.ORDER.compare(addedEntries.get(next), entry) < 0) {
+                    entries.add(addedEntries.get(next++));
+                }
+                entries.add(entry);
+            }
+            entries.addAll(addedEntries.subList(next, addedEntries.size()));
+            return of(entries);
+        }
+
+        Snapshot without(Long id) {
+            List<Entry> entries = new ArrayList<>(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                if (!suggestions[i].id.equals(id)) {
+                    entries.add(new Entry(keys[i], suggestions[i]));
+                }
+            }
+            return entries.size() == keys.length ? this : of(entries);
+        }
+
+        List<ProductSuggestionDTO> suggest(String prefix, int size) {
+            String normalized = normalize(prefix);
+            if (normalized.isEmpty() || size <= 0) {
+                return Collections.emptyList();
+            }
+            int from;
+            int to;
+            if (normalized.endsWith(" ")) {
+                // Whole words: the keys made of them, or followed by other words, as no character of a key
+                // but the space sorts before a letter or digit
+                String words = normalized.trim();
+                from = lowerBound(words);
+                to = lowerBound(words + (char) (' ' + 1));
+            } else {
+                from = lowerBound(normalized);
+                to = lowerBound(normalized + Character.MAX_VALUE);
+            }
+            List<ProductSuggestionDTO> result = new ArrayList<>(size);
+            if (from == to) {
+                return result;
+            }
+            // The best suggestion of a range is followed by the best ones of the ranges on each side of it
+            PriorityQueue<Range> ranges = new PriorityQueue<>(Comparator.comparing((Range range) -> suggestions[range.best], Suggestion.RANK)
+                .reversed());
+            ranges.add(new Range(from, to, best(from, to)));
+            Set<Long> ids = new HashSet<>();
+            while (!ranges.isEmpty() && result.size() < size) {
+                Range range = ranges.poll();
+                Suggestion suggestion = suggestions[range.best];
+                // A name with several words starting with the prefix has several keys in the range
+                if (ids.add(suggestion.id)) {
+                    result.add(new ProductSuggestionDTO(suggestion.id, suggestion.name));
+                }
+                if (range.from < range.best) {
+                    ranges.add(new Range(range.from, range.best, best(range.from, range.best)));
+                }
+                if (range.best + 1 < range.to) {
+                    ranges.add(new Range(range.best + 1, range.to, best(range.best + 1, range.to)));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return the position of the best suggestion of a non-empty range of positions.
+         */
+        private int best(int from, int to) {
+            int result = from;
+            for (int low = from + keys.length, high = to + keys.length; low < high; low >>>= 1, high >>>= 1) {
+                if ((low & 1) == 1) {
+                    result = better(result, best[low++]);
+                }
+                if ((high & 1) == 1) {
+                    result = better(result, best[--high]);
+                }
+            }
+            return result;
+        }
+
+        private int better(int position, int other) {
+            return Suggestion.RANK.compare(suggestions[position], suggestions[other]) >= 0 ? position : other;
+        }
+
+        /**
+         * @return the index of the first key not lower than a key.
+         */
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Range {
+
+        private final int from;
+
+        private final int to;
+
+        private final int best;
+
+        private Range(int from, int to, int best) {
+            this.from = from;
+            this.to = to;
+            this.best = best;
+        }
+    }
+
+    private static final class Entry {
+
+        private static final Comparator<Entry> ORDER = Comparator.<Entry, String>comparing(entry -> entry.key)
+            .thenComparing(entry -> entry.suggestion.id);
+
+        private final String key;
+
+        private final Suggestion suggestion;
+
+        private Entry(String key, Suggestion suggestion) {
+            this.key = key;
+            this.suggestion = suggestion;
+        }
+    }
+}
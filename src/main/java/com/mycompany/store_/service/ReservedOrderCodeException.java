@@ -0,0 +1,14 @@
+package com.mycompany.store_.service;
+
+/**
+ * Thrown when an order is given a code in the format of the {@link OrderCodeAllocator}, which only
+ * the allocator hands out.
+ */
+public class ReservedOrderCodeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReservedOrderCodeException(String code) {
+        super("The code " + code + " is reserved for the codes allocated at checkout");
+    }
+}
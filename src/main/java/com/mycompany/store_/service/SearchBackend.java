@@ -0,0 +1,35 @@
+package com.mycompany.store_.service;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Where the search documents are written and searched, selected by the
+ * {@code application.search.backend} property.
+ *
+ * @see ElasticsearchSearchBackend
+ * @see LuceneSearchBackend
+ */
+public interface SearchBackend {
+
+    /**
+     * Write documents, and delete the documents without source.
+     *
+     * @param documents the documents.
+     * @return the documents that could not be written, to retry.
+     */
+    List<SearchDocument> write(List<SearchDocument> documents);
+
+    /**
+     * Search for documents.
+     *
+     * @param documentType the entity type of the documents.
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @return the page of the ids of the matching entities.
+     */
+    Page<Long> search(SearchDocumentType documentType, QueryBuilder query, Pageable pageable);
+}
@@ -0,0 +1,34 @@
+package com.mycompany.store_.service;
+
+/**
+ * The search document of an entity, to write to a {@link SearchBackend}.
+ */
+public final class SearchDocument {
+
+    private final SearchDocumentType documentType;
+
+    private final Long id;
+
+    private final String source;
+
+    SearchDocument(SearchDocumentType documentType, Long id, String source) {
+        this.documentType = documentType;
+        this.id = id;
+        this.source = source;
+    }
+
+    public SearchDocumentType getDocumentType() {
+        return documentType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the JSON source of the document, or null to delete the document of a deleted entity.
+     */
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mycompany.store_.service;
+
+import java.util.Optional;
+
+/**
+ * An entity indexed in Elasticsearch, or a {@link SearchProjection} of several entities.
+ *
+ * @see SearchDocumentTypes
+ */
+public final class SearchDocumentType {
+
+    private final String entityName;
+
+    private final Class<?> javaType;
+
+    private final String indexName;
+
+    private final String indexType;
+
+    private final SearchProjection<?> projection;
+
+    SearchDocumentType(String entityName, Class<?> javaType, String indexName, String indexType) {
+        this(entityName, javaType, indexName, indexType, null);
+    }
+
+    SearchDocumentType(String entityName, Class<?> javaType, String indexName, String indexType, SearchProjection<?> projection) {
+        this.entityName = entityName;
+        this.javaType = javaType;
+        this.indexName = indexName;
+        this.indexType = indexType;
+        this.projection = projection;
+    }
+
+    /**
+     * @return the JPA entity name, which is the simple name of the entity class, or the simple name of
+     * the document class of a projection.
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    /**
+     * @return the name searched and written by the application: an index or an alias.
+     */
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public String getIndexType() {
+        return indexType;
+    }
+
+    /**
+     * @return the projection assembling the documents, or empty if they are the documents of an entity.
+     */
+    public Optional<SearchProjection<?>> getProjection() {
+        return Optional.ofNullable(projection);
+    }
+}
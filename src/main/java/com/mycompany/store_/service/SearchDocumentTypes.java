@@ -0,0 +1,80 @@
+package com.mycompany.store_.service;
+
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The entities indexed in Elasticsearch, and the {@link SearchProjection}s, with the index of their documents.
+ * <p>
+ * Documents are written as Spring Data Elasticsearch writes them, with the {@link EntityMapper}.
+ */
+@Component
+public class SearchDocumentTypes {
+
+    private final EntityMapper entityMapper;
+
+    private final Map<String, SearchDocumentType> documentTypes = new LinkedHashMap<>();
+
+    public SearchDocumentTypes(EntityManager em, ElasticsearchOperations elasticsearchOperations, EntityMapper entityMapper,
+            List<SearchProjection<?>> projections) {
+        this.entityMapper = entityMapper;
+        for (EntityType<?> entityType : em.getMetamodel().getEntities()) {
+            if (entityType.getJavaType().isAnnotationPresent(Document.class)) {
+                ElasticsearchPersistentEntity<?> document = elasticsearchOperations.getPersistentEntityFor(entityType.getJavaType());
+                documentTypes.put(entityType.getName(),
+                    new SearchDocumentType(entityType.getName(), entityType.getJavaType(), document.getIndexName(), document.getIndexType()));
+            }
+        }
+        for (SearchProjection<?> projection : projections) {
+            ElasticsearchPersistentEntity<?> document = elasticsearchOperations.getPersistentEntityFor(projection.getDocumentType());
+            String name = projection.getDocumentType().getSimpleName();
+            documentTypes.put(name,
+                new SearchDocumentType(name, projection.getDocumentType(), document.getIndexName(), document.getIndexType(), projection));
+        }
+    }
+
+    public Collection<SearchDocumentType> all() {
+        return Collections.unmodifiableCollection(documentTypes.values());
+    }
+
+    public Optional<SearchDocumentType> get(String entityName) {
+        return Optional.ofNullable(documentTypes.get(entityName));
+    }
+
+    /**
+     * @return the document types of the projections.
+     */
+    public List<SearchDocumentType> projections() {
+        return documentTypes.values().stream()
+            .filter(documentType -> documentType.getProjection().isPresent())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The search document of an entity.
+     *
+     * @param entity the entity.
+     * @return the JSON source of the document.
+     */
+    public String source(Object entity) {
+        try {
+            return entityMapper.mapToString(entity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the search document of " + entity, e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mycompany.store_.service;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Searches entities in the {@link SearchBackend}, through the {@link SearchResultCache}, then loads
+ * them from the database.
+ * <p>
+ * The search only returns the ids of the matching documents, not their source: the entities
+ * are loaded in the order of the ids, from the second-level cache when they are cached and with
+ * one query for the others. The results are thus as recent as the rows, and a document whose row
+ * was deleted meanwhile is left out.
+ * <p>
+ * Must be called in a transaction, so that the loaded entities are managed.
+ */
+@Component
+public class SearchHydrator {
+
+    private final SearchDocumentTypes searchDocumentTypes;
+
+    private final SearchResultCache searchResultCache;
+
+    private final EntityManager em;
+
+    public SearchHydrator(SearchDocumentTypes searchDocumentTypes, SearchResultCache searchResultCache, EntityManager em) {
+        this.searchDocumentTypes = searchDocumentTypes;
+        this.searchResultCache = searchResultCache;
+        this.em = em;
+    }
+
+    /**
+     * Search for a page of entities.
+     *
+     * @param entityType the class of the entities.
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @param associations the to-one associations to load with the entities.
+     * @return the page of entities.
+     */
+    public <T> Page<T> search(Class<T> entityType, QueryBuilder query, Pageable pageable, String... associations) {
+        SearchDocumentType documentType = searchDocumentTypes.get(em.getMetamodel().entity(entityType).getName())
+            .orElseThrow(() -> new IllegalArgumentException(entityType + " is not indexed"));
+        Page<Long> ids = searchResultCache.search(documentType, query, pageable);
+        return new PageImpl<>(load(entityType, ids.getContent(), associations), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Search for all the entities, up to the most the search backend returns.
+     *
+     * @param entityType the class of the entities.
+     * @param query the query of the search.
+     * @param associations the to-one associations to load with the entities.
+     * @return the list of entities.
+     */
+    public <T> List<T> search(Class<T> entityType, QueryBuilder query, String... associations) {
+        return search(entityType, query, Pageable.unpaged(), associations).getContent();
+    }
+
+    /**
+     * Search for a page of the documents of a projection, assembled from the database.
+     *
+     * @param projection the projection.
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @return the page of documents.
+     */
+    public <T> Page<T> search(SearchProjection<T> projection, QueryBuilder query, Pageable pageable) {
+        SearchDocumentType documentType = searchDocumentTypes.get(projection.getDocumentType().getSimpleName())
+            .orElseThrow(() -> new IllegalArgumentException(projection.getDocumentType() + " is not indexed"));
+        Page<Long> ids = searchResultCache.search(documentType, query, pageable);
+        Map<Long, T> documents = projection.findDocuments(new LinkedHashSet<>(ids.getContent()));
+        List<T> content = ids.getContent().stream()
+            .map(documents::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    private <T> List<T> load(Class<T> entityType, List<Long> ids, String... associations) {
+        Session session = em.unwrap(Session.class);
+        List<T> entities = session.byMultipleIds(entityType)
+            .enableSessionCheck(true)
+            .multiLoad(ids)
+            .stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (associations.length > 0 && !entities.isEmpty()) {
+            EntityPersister persister = session.unwrap(SessionImplementor.class).getFactory().getMetamodel().entityPersister(entityType);
+            for (String association : associations) {
+                initialize(session, entities.stream()
+                    .map(entity -> persister.getPropertyValue(entity, association))
+                    .collect(Collectors.toList()));
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Initialize the proxies of an association: the targets are loaded like the entities, then the
+     * proxies find them in the session.
+     */
+    private void initialize(Session session, List<Object> values) {
+        Map<Class<?>, List<Serializable>> idsByType = new LinkedHashMap<>();
+        List<HibernateProxy> proxies = new ArrayList<>();
+        for (Object value : values) {
+            if (value instanceof HibernateProxy && !Hibernate.isInitialized(value)) {
+                LazyInitializer initializer = ((HibernateProxy) value).getHibernateLazyInitializer();
+                idsByType.computeIfAbsent(initializer.getPersistentClass(), type -> new ArrayList<>()).add(initializer.getIdentifier());
+                proxies.add((HibernateProxy) value);
+            }
+        }
+        idsByType.forEach((type, ids) -> session.byMultipleIds(type).enableSessionCheck(true).multiLoad(ids));
+        proxies.forEach(Hibernate::initialize);
+    }
+}
@@ -0,0 +1,106 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.domain.SearchOutboxEntry;
+import com.mycompany.store_.repository.SearchOutboxRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service recording the entities whose search documents must be written, in the transaction
+ * writing the entities.
+ * <p>
+ * Nothing is sent to Elasticsearch here: the entries are drained by the
+ * {@link SearchOutboxDispatcher} once the transaction has committed, so that a write does not
+ * wait for Elasticsearch and a rollback leaves no document behind.
+ * <p>
+ * The documents of the {@link SearchProjection}s embedding an entity are recorded with it.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class SearchOutbox {
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final SearchDocumentTypes searchDocumentTypes;
+
+    private final TransactionSynchronization dispatchAfterCommit;
+
+    public SearchOutbox(SearchOutboxRepository searchOutboxRepository, SearchDocumentTypes searchDocumentTypes,
+            SearchOutboxDispatcher searchOutboxDispatcher) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.searchDocumentTypes = searchDocumentTypes;
+        this.dispatchAfterCommit = new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                searchOutboxDispatcher.dispatchAsync();
+            }
+        };
+    }
+
+    /**
+     * Index an entity, as it is once the transaction has committed.
+     *
+     * @param entityType the class of the entity.
+     * @param id the id of the entity.
+     */
+    public void index(Class<?> entityType, Long id) {
+        enqueue(entityType, Collections.singleton(id));
+    }
+
+    /**
+     * Index entities of the same type, as they are once the transaction has committed, looking up
+     * the documents embedding them all at once.
+     *
+     * @param entityType the class of the entities.
+     * @param ids the ids of the entities.
+     */
+    public void index(Class<?> entityType, Collection<Long> ids) {
+        enqueue(entityType, ids);
+    }
+
+    /**
+     * Remove the document of a deleted entity.
+     *
+     * @param entityType the class of the entity.
+     * @param id the id of the entity.
+     */
+    public void delete(Class<?> entityType, Long id) {
+        enqueue(entityType, Collections.singleton(id));
+    }
+
+    /**
+     * Indexing and deleting are recorded alike: the dispatcher writes the document of the row it
+     * finds, or deletes it if there is none.
+     */
+    private void enqueue(Class<?> entityType, Collection<Long> ids) {
+        // The documents are found first, as finding them may flush: the entries are then flushed together
+        Map<String, Collection<Long>> documentIds = new LinkedHashMap<>();
+        documentIds.put(entityType.getSimpleName(), ids);
+        for (SearchDocumentType documentType : searchDocumentTypes.projections()) {
+            documentIds.put(documentType.getEntityName(), documentType.getProjection().get().findDocumentIds(entityType, ids));
+        }
+        documentIds.forEach((documentType, idsOfType) -> idsOfType.forEach(id -> enqueue(documentType, id)));
+    }
+
+    private void enqueue(String entityType, Long id) {
+        Instant now = Instant.now();
+        SearchOutboxEntry entry = new SearchOutboxEntry();
+        entry.setEntityType(entityType);
+        entry.setEntityId(id);
+        entry.setCreatedDate(now);
+        entry.setNextAttemptDate(now);
+        searchOutboxRepository.save(entry);
+        if (!TransactionSynchronizationManager.getSynchronizations().contains(dispatchAfterCommit)) {
+            TransactionSynchronizationManager.registerSynchronization(dispatchAfterCommit);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.mycompany.store_.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.config.AsyncConfiguration;
+import com.mycompany.store_.domain.SearchOutboxEntry;
+import com.mycompany.store_.repository.SearchOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Service draining the search outbox into the {@link SearchBackend}, in batches.
+ * <p>
+ * The outbox is drained after each commit that wrote to it, and polled for the entries that
+ * failed and are due for a retry. Entries of a batch are grouped by entity type and their rows
+ * loaded with one query per type; a row that is found is indexed, a row that is gone is removed
+ * from the index. Entries whose indexing failed are retried with an exponential backoff.
+ * <p>
+ * A single drain runs at a time in the cluster, under a Hazelcast lock held from reading a batch
+ * until its entries are deleted: each drain reads the rows after the previous one wrote its
+ * documents, so a document is never overwritten with an older state of its entity. The lock is
+ * released if its node leaves the cluster.
+ */
+@Service
+public class SearchOutboxDispatcher {
+
+    /**
+     * Name of the Hazelcast lock of the drains.
+     */
+    public static final String LOCK_NAME = "search-outbox-dispatcher";
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxDispatcher.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final SearchBackend searchBackend;
+
+    private final SearchResultCache searchResultCache;
+
+    private final SearchDocumentTypes searchDocumentTypes;
+
+    private final EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final int batchSize;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    // The FencedLock replacing ILock needs a CP subsystem of at least three members
+    @SuppressWarnings("deprecation")
+    private final com.hazelcast.core.ILock lock;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicReference<Instant> oldestCreatedDate = new AtomicReference<>();
+
+    private final Timer writeTimer;
+
+    private final Counter failureCounter;
+
+    @SuppressWarnings("deprecation")
+    public SearchOutboxDispatcher(SearchOutboxRepository searchOutboxRepository, SearchBackend searchBackend,
+            SearchResultCache searchResultCache, SearchDocumentTypes searchDocumentTypes, EntityManager em,
+            PlatformTransactionManager transactionManager,
+            @Qualifier(AsyncConfiguration.SEARCH_OUTBOX_TASK_EXECUTOR) ThreadPoolTaskExecutor executor,
+            HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.searchBackend = searchBackend;
+        this.searchResultCache = searchResultCache;
+        this.searchDocumentTypes = searchDocumentTypes;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.lock = hazelcastInstance.getLock(LOCK_NAME);
+        ApplicationProperties.SearchOutbox properties = applicationProperties.getSearchOutbox();
+        this.batchSize = properties.getBatchSize();
+        this.initialBackoff = properties.getInitialBackoff();
+        this.maxBackoff = properties.getMaxBackoff();
+        Gauge.builder("search.outbox.pending", pending, AtomicLong::get)
+            .description("Number of entities whose search documents are not written yet")
+            .register(meterRegistry);
+        TimeGauge.builder("search.outbox.lag", oldestCreatedDate, TimeUnit.MILLISECONDS, this::lagMillis)
+            .description("Age of the oldest entity whose search document is not written yet")
+            .register(meterRegistry);
+        this.writeTimer = Timer.builder("search.outbox.bulk")
+            .description("Time spent writing batches of search documents")
+            .register(meterRegistry);
+        this.failureCounter = Counter.builder("search.outbox.failures")
+            .description("Number of search documents that could not be written and will be retried")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Drain the outbox on the {@link AsyncConfiguration#SEARCH_OUTBOX_TASK_EXECUTOR} executor.
+     */
+    public void dispatchAsync() {
+        executor.execute(this::dispatch);
+    }
+
+    /**
+     * Write the documents of the entries that are due. Does nothing if a drain is already running in the cluster.
+     */
+    @Scheduled(fixedDelayString = "${application.search-outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            drain(Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Could not dispatch the search outbox", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the documents of all the entries, including those waiting for a retry, in the current
+     * thread. Meant for tests: it joins the current transaction if there is one, and returns once the
+     * outbox is empty or an entry failed.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            drain(Instant.now().plus(maxBackoff));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain(Instant due) {
+        boolean more;
+        do {
+            more = dispatchBatch(due);
+        } while (more);
+    }
+
+    /**
+     * Count the entries not written yet for the gauges, less often than the outbox is polled.
+     */
+    @Scheduled(fixedDelayString = "${application.search-outbox.metrics-interval:PT30S}")
+    public void refreshMetrics() {
+        transactionTemplate.execute(status -> {
+            pending.set(searchOutboxRepository.count());
+            oldestCreatedDate.set(searchOutboxRepository.findOldestCreatedDate());
+            return null;
+        });
+    }
+
+    /**
+     * @return whether the batch was full and written without failure, so that the next one should follow.
+     */
+    private boolean dispatchBatch(Instant due) {
+        List<SearchOutboxEntry> entries = new ArrayList<>();
+        List<SearchDocument> documents = transactionTemplate.execute(status -> {
+            entries.addAll(searchOutboxRepository.findByNextAttemptDateLessThanEqualOrderById(due, PageRequest.of(0, batchSize)));
+            return documents(entries);
+        });
+        if (entries.isEmpty()) {
+            return false;
+        }
+        Set<String> failedKeys = documents.isEmpty() ? Collections.emptySet() : write(documents, entries);
+        transactionTemplate.execute(status -> {
+            complete(entries, failedKeys);
+            return null;
+        });
+        return entries.size() == batchSize && failedKeys.isEmpty();
+    }
+
+    private List<SearchDocument> documents(List<SearchOutboxEntry> entries) {
+        Map<String, Set<Long>> idsByType = new LinkedHashMap<>();
+        for (SearchOutboxEntry entry : entries) {
+            idsByType.computeIfAbsent(entry.getEntityType(), type -> new LinkedHashSet<>()).add(entry.getEntityId());
+        }
+        List<SearchDocument> documents = new ArrayList<>(entries.size());
+        idsByType.forEach((type, ids) -> {
+            Optional<SearchDocumentType> documentType = searchDocumentTypes.get(type);
+            if (!documentType.isPresent()) {
+                log.warn("Ignoring search outbox entries of unknown type {}", type);
+                return;
+            }
+            documents.addAll(documents(documentType.get(), ids));
+        });
+        return documents;
+    }
+
+    private List<SearchDocument> documents(SearchDocumentType documentType, Set<Long> ids) {
+        Map<Long, ?> entities = documentType.getProjection().isPresent()
+            ? documentType.getProjection().get().findDocuments(ids)
+            : findEntities(documentType, ids);
+        List<SearchDocument> documents = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Object entity = entities.get(id);
+            documents.add(new SearchDocument(documentType, id, entity == null ? null : searchDocumentTypes.source(entity)));
+        }
+        return documents;
+    }
+
+    private Map<Long, Object> findEntities(SearchDocumentType documentType, Set<Long> ids) {
+        Map<Long, Object> entities = new HashMap<>();
+        for (Object entity : em.createQuery("select e from " + documentType.getEntityName() + " e where e.id in :ids", documentType.getJavaType())
+                .setParameter("ids", ids)
+                .getResultList()) {
+            entities.put((Long) em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity), entity);
+        }
+        return entities;
+    }
+
+    /**
+     * @return the keys of the entries whose documents could not be written.
+     */
+    private Set<String> write(List<SearchDocument> documents, List<SearchOutboxEntry> entries) {
+        List<SearchDocument> failed;
+        try {
+            failed = writeTimer.recordCallable(() -> searchBackend.write(documents));
+        } catch (Exception e) {
+            log.warn("Could not write {} search documents: {}", documents.size(), e.toString());
+            return entries.stream().map(SearchOutboxDispatcher::key).collect(Collectors.toSet());
+        } finally {
+            documents.stream().map(SearchDocument::getDocumentType).distinct().forEach(searchResultCache::invalidate);
+        }
+        return failed.stream()
+            .map(document -> document.getDocumentType().getEntityName() + "#" + document.getId())
+            .collect(Collectors.toSet());
+    }
+
+    private void complete(List<SearchOutboxEntry> entries, Set<String> failedKeys) {
+        List<Long> done = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        for (SearchOutboxEntry entry : entries) {
+            (failedKeys.contains(key(entry)) ? failed : done).add(entry.getId());
+        }
+        if (!done.isEmpty()) {
+            searchOutboxRepository.deleteByIdIn(done);
+        }
+        if (!failed.isEmpty()) {
+            // Only the entries still there are updated: saving a detached entry would insert it again
+            Instant now = Instant.now();
+            for (SearchOutboxEntry entry : searchOutboxRepository.findAllById(failed)) {
+                entry.setAttempts(entry.getAttempts() + 1);
+                entry.setNextAttemptDate(now.plus(backoff(entry.getAttempts())));
+            }
+            failureCounter.increment(failed.size());
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) < 0 ? backoff : maxBackoff;
+    }
+
+    private double lagMillis(AtomicReference<Instant> oldestCreatedDate) {
+        Instant oldest = oldestCreatedDate.get();
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis();
+    }
+
+    private static String key(SearchOutboxEntry entry) {
+        return entry.getEntityType() + "#" + entry.getEntityId();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mycompany.store_.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A search document assembled from several entities, and written again whenever one of them changes.
+ * <p>
+ * The class of the documents is annotated with {@link org.springframework.data.elasticsearch.annotations.Document},
+ * and the documents have the ids of a root entity.
+ *
+ * @param <T> the class of the documents.
+ * @see SearchDocumentTypes
+ */
+public interface SearchProjection<T> {
+
+    /**
+     * @return the class of the documents.
+     */
+    Class<T> getDocumentType();
+
+    /**
+     * @return the entity whose ids are the ids of the documents.
+     */
+    Class<?> getRootEntityType();
+
+    /**
+     * Find the documents that embed entities, in the transaction writing them. Called after the entities
+     * are saved or removed; the documents embedding them before and after the change are both found,
+     * whether the change was flushed already or not.
+     *
+     * @param entityType the class of the entities.
+     * @param ids the ids of the entities.
+     * @return the ids of the documents.
+     */
+    Collection<Long> findDocumentIds(Class<?> entityType, Collection<Long> ids);
+
+    /**
+     * Assemble documents from the database.
+     *
+     * @param ids the ids of the documents.
+     * @return the documents by id, without the documents whose root entity does not exist.
+     */
+    Map<Long, T> findDocuments(Set<Long> ids);
+}
@@ -0,0 +1,540 @@
+package com.mycompany.store_.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.service.dto.SearchReindexDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.searchbox.action.BulkableAction;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Delete;
+import io.searchbox.core.Index;
+import io.searchbox.indices.aliases.AddAliasMapping;
+import io.searchbox.indices.aliases.AliasMapping;
+import io.searchbox.indices.aliases.GetAliases;
+import io.searchbox.indices.aliases.ModifyAliases;
+import io.searchbox.indices.aliases.RemoveAliasMapping;
+import io.searchbox.indices.settings.UpdateSettings;
+import io.searchbox.params.Parameters;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Service rebuilding the search indices from the database, without interrupting searches.
+ * <p>
+ * Each entity type is written to a new index named after its alias and the start of the reindex,
+ * and the alias is moved to the new index in one request once it is complete; until then searches
+ * use the previous index. An index that the application created under the alias name is replaced
+ * by the alias. Tables are read in ranges of ids, each range scrolled by a worker of a fork-join
+ * pool and written in bulk requests, throttled to a configured number of documents per second.
+ * <p>
+ * The {@link SearchOutboxDispatcher} writes the changes made during the reindex to the new index
+ * as well, through the {@link ElasticsearchSearchBackend}. The reindex only creates documents, so
+ * that it does not overwrite a more recent document written by the dispatcher. It may create the
+ * document of an entity deleted meanwhile, after the dispatcher deleted it from the new index: the
+ * ids deleted during the scan are checked again once it is complete, before the alias is moved.
+ * <p>
+ * A Hazelcast lock, held until the reindex finishes, keeps the nodes from reindexing at the same
+ * time; it is released by Hazelcast if the node running the reindex leaves the cluster. The progress
+ * is only known to that node.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.search", name = "backend", havingValue = "elasticsearch", matchIfMissing = true)
+public class SearchReindexService {
+
+    /**
+     * Name of the Hazelcast lock held during a reindex.
+     */
+    public static final String LOCK_NAME = "search-reindex";
+
+    private static final DateTimeFormatter VERSION_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final SearchDocumentTypes searchDocumentTypes;
+
+    private final ElasticsearchSearchBackend elasticsearchSearchBackend;
+
+    private final SearchResultCache searchResultCache;
+
+    private final JestClient jestClient;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor taskExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int parallelism;
+
+    private final int rangeSize;
+
+    private final int bulkSize;
+
+    private final int maxDocumentsPerSecond;
+
+    // The FencedLock replacing ILock needs a CP subsystem of at least three members
+    @SuppressWarnings("deprecation")
+    private final com.hazelcast.core.ILock lock;
+
+    private final AtomicReference<Job> currentJob = new AtomicReference<>();
+
+    @SuppressWarnings("deprecation")
+    public SearchReindexService(SearchDocumentTypes searchDocumentTypes, ElasticsearchSearchBackend elasticsearchSearchBackend,
+            SearchResultCache searchResultCache, JestClient jestClient, ElasticsearchOperations elasticsearchOperations, EntityManager em,
+            PlatformTransactionManager transactionManager, @Qualifier("taskExecutor") Executor taskExecutor,
+            HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.searchDocumentTypes = searchDocumentTypes;
+        this.elasticsearchSearchBackend = elasticsearchSearchBackend;
+        this.searchResultCache = searchResultCache;
+        this.jestClient = jestClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.lock = hazelcastInstance.getLock(LOCK_NAME);
+        ApplicationProperties.SearchReindex properties = applicationProperties.getSearchReindex();
+        this.parallelism = properties.getParallelism();
+        this.rangeSize = properties.getRangeSize();
+        this.bulkSize = properties.getBulkSize();
+        this.maxDocumentsPerSecond = properties.getMaxDocumentsPerSecond();
+    }
+
+    /**
+     * Start a reindex of all the search indices in the background.
+     *
+     * @return the progress of the reindex, or empty if a reindex is already running on any node.
+     */
+    public Optional<SearchReindexDTO> start() {
+        Job previous = currentJob.get();
+        if (previous != null && previous.status == SearchReindexDTO.Status.RUNNING) {
+            return Optional.empty();
+        }
+        Job job = new Job(Instant.now());
+        if (!currentJob.compareAndSet(previous, job)) {
+            return Optional.empty();
+        }
+        if (!lock.tryLock()) {
+            log.info("Not reindexing the search indices, another node is");
+            currentJob.compareAndSet(job, previous);
+            return Optional.empty();
+        }
+        log.info("Starting a reindex of the search indices");
+        try {
+            elasticsearchSearchBackend.clearShadowIndices();
+            taskExecutor.execute(() -> run(job));
+        } catch (RuntimeException e) {
+            lock.forceUnlock();
+            currentJob.compareAndSet(job, previous);
+            throw e;
+        }
+        return Optional.of(job.toDTO());
+    }
+
+    /**
+     * @return the progress of the running or last reindex, if any.
+     */
+    public Optional<SearchReindexDTO> getProgress() {
+        return Optional.ofNullable(currentJob.get()).map(Job::toDTO);
+    }
+
+    private void run(Job job) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (IndexProgress progress : job.indices) {
+                reindex(job, progress, pool);
+            }
+            job.finish(SearchReindexDTO.Status.COMPLETED, null);
+            log.info("Reindexed the search indices in {}", Duration.between(job.startedDate, job.finishedDate));
+        } catch (Exception e) {
+            log.error("Could not reindex the search indices", e);
+            job.finish(SearchReindexDTO.Status.FAILED, e.toString());
+        } finally {
+            pool.shutdownNow();
+            // Taken by the thread starting the reindex, so it cannot be released with unlock()
+            lock.forceUnlock();
+        }
+    }
+
+    private void reindex(Job job, IndexProgress progress, ForkJoinPool pool) throws Exception {
+        SearchDocumentType documentType = progress.documentType;
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("index.refresh_interval", "-1");
+        elasticsearchOperations.createIndex(progress.index, settings);
+        elasticsearchOperations.putMapping(progress.index, documentType.getIndexType(), documentType.getJavaType());
+        elasticsearchSearchBackend.addShadowIndex(documentType, progress.index);
+        progress.startedDate = Instant.now();
+        try {
+            Object[] bounds = transactionTemplate.execute(status -> em
+                .createQuery("select min(e.id), max(e.id), count(e) from " + tableEntityName(documentType) + " e", Object[].class)
+                .getSingleResult());
+            progress.total = (Long) bounds[2];
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            if (progress.total > 0) {
+                long max = (Long) bounds[1];
+                for (long from = (Long) bounds[0]; from <= max; from += rangeSize) {
+                    long rangeFrom = from;
+                    long rangeTo = Math.min(from + rangeSize - 1, max);
+                    tasks.add(pool.submit(() -> scan(job, progress, rangeFrom, rangeTo)));
+                }
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+            deleteRemovedDocuments(progress);
+            checkSucceeded(jestClient.execute(new UpdateSettings.Builder("{\"index\":{\"refresh_interval\":null}}")
+                .addIndex(progress.index)
+                .build()));
+            elasticsearchOperations.refresh(progress.index);
+            moveAlias(documentType.getIndexName(), progress.index);
+            searchResultCache.invalidate(documentType);
+        } catch (Exception e) {
+            elasticsearchOperations.deleteIndex(progress.index);
+            throw e instanceof ExecutionException && e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            elasticsearchSearchBackend.removeShadowIndex(documentType);
+        }
+        progress.finishedDate = Instant.now();
+        Timer.builder("search.reindex.duration")
+            .description("Time spent rebuilding a search index")
+            .tag("index", documentType.getIndexName())
+            .register(meterRegistry)
+            .record(Duration.between(progress.startedDate, progress.finishedDate));
+    }
+
+    /**
+     * Index the entities of a range of ids, scrolling through them and clearing the session after
+     * each bulk request, so that memory does not grow with the size of the range.
+     */
+    private void scan(Job job, IndexProgress progress, long from, long to) {
+        SearchDocumentType documentType = progress.documentType;
+        if (documentType.getProjection().isPresent()) {
+            scanProjection(job, progress, documentType.getProjection().get(), from, to);
+            return;
+        }
+        transactionTemplate.execute(status -> {
+            Session session = em.unwrap(Session.class);
+            try (ScrollableResults results = session
+                    .createQuery("select e from " + documentType.getEntityName() + " e where e.id between :from and :to order by e.id")
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .setReadOnly(true)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .setFetchSize(bulkSize)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<BulkableAction<?>> actions = new ArrayList<>(bulkSize);
+                while (results.next()) {
+                    Object entity = results.get(0);
+                    actions.add(new Index.Builder(searchDocumentTypes.source(entity))
+                        .index(progress.index)
+                        .type(documentType.getIndexType())
+                        .id(session.getIdentifier(entity).toString())
+                        .setParameter(Parameters.OP_TYPE, "create")
+                        .build());
+                    if (actions.size() == bulkSize) {
+                        write(job, progress, actions);
+                        actions.clear();
+                        session.clear();
+                    }
+                }
+                if (!actions.isEmpty()) {
+                    write(job, progress, actions);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Index the documents of a projection for a range of ids of its root entity, assembling them a
+     * bulk request at a time.
+     */
+    private void scanProjection(Job job, IndexProgress progress, SearchProjection<?> projection, long from, long to) {
+        SearchDocumentType documentType = progress.documentType;
+        for (long start = from; start <= to; start += bulkSize) {
+            long bulkFrom = start;
+            long bulkTo = Math.min(start + bulkSize - 1, to);
+            List<BulkableAction<?>> actions = transactionTemplate.execute(status -> {
+                String query = "select e.id from " + tableEntityName(documentType) + " e where e.id between :from and :to order by e.id";
+                Set<Long> ids = new LinkedHashSet<>(em.createQuery(query, Long.class)
+                    .setParameter("from", bulkFrom)
+                    .setParameter("to", bulkTo)
+                    .getResultList());
+                List<BulkableAction<?>> documents = new ArrayList<>(ids.size());
+                projection.findDocuments(ids).forEach((id, document) -> documents.add(new Index.Builder(searchDocumentTypes.source(document))
+                    .index(progress.index)
+                    .type(documentType.getIndexType())
+                    .id(id.toString())
+                    .setParameter(Parameters.OP_TYPE, "create")
+                    .build()));
+                em.clear();
+                return documents;
+            });
+            if (!actions.isEmpty()) {
+                write(job, progress, actions);
+            }
+        }
+    }
+
+    /**
+     * Delete the documents deleted from the new index during the scan again, if their entities are
+     * still missing, as the scan may have created them after the dispatcher deleted them. Deletes
+     * written afterwards need no check, the documents they delete being created by then.
+     */
+    private void deleteRemovedDocuments(IndexProgress progress) throws IOException {
+        SearchDocumentType documentType = progress.documentType;
+        List<Long> deletedIds = new ArrayList<>(new HashSet<>(elasticsearchSearchBackend.getShadowDeletes(progress.index)));
+        for (int from = 0; from < deletedIds.size(); from += bulkSize) {
+            List<Long> ids = deletedIds.subList(from, Math.min(from + bulkSize, deletedIds.size()));
+            Set<Long> existingIds = new HashSet<>(transactionTemplate.execute(status -> em
+                .createQuery("select e.id from " + tableEntityName(documentType) + " e where e.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getResultList()));
+            List<BulkableAction<?>> actions = ids.stream()
+                .filter(id -> !existingIds.contains(id))
+                .map(id -> new Delete.Builder(id.toString()).index(progress.index).type(documentType.getIndexType()).build())
+                .collect(Collectors.toList());
+            if (actions.isEmpty()) {
+                continue;
+            }
+            BulkResult result = jestClient.execute(new Bulk.Builder().addAction(actions).build());
+            if (result.getItems().isEmpty()) {
+                checkSucceeded(result);
+            }
+            for (BulkResult.BulkResultItem item : result.getFailedItems()) {
+                if (item.status != HttpStatus.NOT_FOUND.value()) {
+                    throw new IllegalStateException("Could not delete " + item.index + "/" + item.id + ": " + item.error);
+                }
+            }
+            log.debug("Deleted {} documents of {} created after their entities were deleted", actions.size(), progress.index);
+        }
+    }
+
+    /**
+     * @return the entity of the table whose rows are the documents of a type.
+     */
+    private String tableEntityName(SearchDocumentType documentType) {
+        return documentType.getProjection()
+            .map(projection -> em.getMetamodel().entity(projection.getRootEntityType()).getName())
+            .orElse(documentType.getEntityName());
+    }
+
+    private void write(Job job, IndexProgress progress, List<BulkableAction<?>> actions) {
+        job.throttle(actions.size());
+        BulkResult result;
+        try {
+            result = jestClient.execute(new Bulk.Builder().addAction(actions).build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (result.getItems().isEmpty()) {
+            checkSucceeded(result);
+        }
+        for (BulkResult.BulkResultItem item : result.getFailedItems()) {
+            // A conflict means that the document was written by the search outbox meanwhile
+            if (item.status != HttpStatus.CONFLICT.value()) {
+                throw new IllegalStateException("Could not index " + item.index + "/" + item.id + ": " + item.error);
+            }
+        }
+        progress.indexed.addAndGet(actions.size());
+        meterRegistry.counter("search.reindex.documents", "index", progress.documentType.getIndexName()).increment(actions.size());
+    }
+
+    /**
+     * Point an alias to an index, and only to it, in one request, then delete the indices it pointed to.
+     */
+    private void moveAlias(String alias, String index) throws IOException {
+        List<String> previousIndices = aliasedIndices(alias);
+        List<AliasMapping> mappings = new ArrayList<>();
+        if (!previousIndices.isEmpty()) {
+            mappings.add(new RemoveAliasMapping.Builder(previousIndices, alias).build());
+        } else if (elasticsearchOperations.indexExists(alias)) {
+            mappings.add(new RemoveIndexMapping(alias));
+        }
+        mappings.add(new AddAliasMapping.Builder(index, alias).build());
+        checkSucceeded(jestClient.execute(new ModifyAliases.Builder(mappings).build()));
+        log.info("Moved the search alias {} to {}", alias, index);
+        for (String previousIndex : previousIndices) {
+            elasticsearchOperations.deleteIndex(previousIndex);
+        }
+    }
+
+    private List<String> aliasedIndices(String alias) throws IOException {
+        JestResult result = jestClient.execute(new GetAliases.Builder().addAlias(alias).build());
+        if (result.getResponseCode() == HttpStatus.NOT_FOUND.value()) {
+            return Collections.emptyList();
+        }
+        checkSucceeded(result);
+        return new ArrayList<>(result.getJsonObject().keySet());
+    }
+
+    private static void checkSucceeded(JestResult result) {
+        if (!result.isSucceeded()) {
+            throw new IllegalStateException(result.getErrorMessage());
+        }
+    }
+
+    /**
+     * Deletes an index in an alias request, which the Jest client has no mapping for.
+     */
+    private static final class RemoveIndexMapping extends AliasMapping {
+
+        private RemoveIndexMapping(String index) {
+            this.indices = Collections.singletonList(index);
+        }
+
+        @Override
+        public String getType() {
+            return "remove_index";
+        }
+
+        @Override
+        public List<Map<String, Object>> getData() {
+            Map<String, Object> index = new HashMap<>();
+            index.put("index", indices.get(0));
+            Map<String, Object> action = new HashMap<>();
+            action.put(getType(), index);
+            return Collections.singletonList(action);
+        }
+    }
+
+    private final class Job {
+
+        private final Instant startedDate;
+
+        private final List<IndexProgress> indices;
+
+        private volatile SearchReindexDTO.Status status = SearchReindexDTO.Status.RUNNING;
+
+        private volatile Instant finishedDate;
+
+        private volatile String error;
+
+        private long nextWriteNanos = System.nanoTime();
+
+        private Job(Instant startedDate) {
+            this.startedDate = startedDate;
+            String version = VERSION_FORMATTER.format(startedDate);
+            this.indices = searchDocumentTypes.all().stream()
+                .map(documentType -> new IndexProgress(documentType, documentType.getIndexName() + "_v" + version))
+                .collect(Collectors.toList());
+        }
+
+        /**
+         * Wait until writing a number of documents keeps the job under its maximum throughput.
+         */
+        private void throttle(int documents) {
+            if (maxDocumentsPerSecond <= 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(now, nextWriteNanos);
+                nextWriteNanos = start + TimeUnit.SECONDS.toNanos(documents) / maxDocumentsPerSecond;
+                waitNanos = start - now;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while throttled", e);
+            }
+        }
+
+        private void finish(SearchReindexDTO.Status status, String error) {
+            this.finishedDate = Instant.now();
+            this.error = error;
+            this.status = status;
+        }
+
+        private SearchReindexDTO toDTO() {
+            SearchReindexDTO dto = new SearchReindexDTO();
+            dto.setStatus(status);
+            dto.setStartedDate(startedDate);
+            dto.setFinishedDate(finishedDate);
+            dto.setError(error);
+            dto.setIndices(indices.stream().map(IndexProgress::toDTO).collect(Collectors.toList()));
+            return dto;
+        }
+    }
+
+    private static final class IndexProgress {
+
+        private final SearchDocumentType documentType;
+
+        private final String index;
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private volatile long total;
+
+        private volatile Instant startedDate;
+
+        private volatile Instant finishedDate;
+
+        private IndexProgress(SearchDocumentType documentType, String index) {
+            this.documentType = documentType;
+            this.index = index;
+        }
+
+        private SearchReindexDTO.IndexDTO toDTO() {
+            SearchReindexDTO.IndexDTO dto = new SearchReindexDTO.IndexDTO();
+            dto.setAlias(documentType.getIndexName());
+            dto.setIndex(index);
+            dto.setTotal(total);
+            dto.setIndexed(indexed.get());
+            if (startedDate != null) {
+                Instant end = finishedDate != null ? finishedDate : Instant.now();
+                long millis = Math.max(1, Duration.between(startedDate, end).toMillis());
+                dto.setDocumentsPerSecond(indexed.get() * 1000.0 / millis);
+            }
+            return dto;
+        }
+    }
+}
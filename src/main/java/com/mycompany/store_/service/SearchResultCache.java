@@ -0,0 +1,224 @@
+package com.mycompany.store_.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+import com.mycompany.store_.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the ids found by the searches of the {@link SearchBackend}, shared by the nodes in Hazelcast.
+ * <p>
+ * Results are keyed by index, query and page, the query being normalized so that requests differing in
+ * whitespace only share their results. Each write to an index bumps its generation, which is part of the
+ * key: the results of the previous generation are no longer found, and are evicted as the least recently
+ * used. The generation is the time of the last write, so that results found while the index may not show
+ * that write yet are not cached.
+ */
+@Component
+public class SearchResultCache {
+
+    /**
+     * Name of the Hazelcast map of the results, configured in {@code CacheConfiguration}.
+     */
+    public static final String RESULTS_MAP_NAME = "search-results";
+
+    private static final String GENERATIONS_MAP_NAME = "search-result-generations";
+
+    private final SearchBackend searchBackend;
+
+    private final IMap<String, Result> results;
+
+    private final IMap<String, Long> generations;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final long refreshIntervalMillis;
+
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public SearchResultCache(SearchBackend searchBackend, HazelcastInstance hazelcastInstance, ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.searchBackend = searchBackend;
+        this.results = hazelcastInstance.getMap(RESULTS_MAP_NAME);
+        this.generations = hazelcastInstance.getMap(GENERATIONS_MAP_NAME);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        ApplicationProperties.SearchResultCache properties = applicationProperties.getSearchResultCache();
+        this.enabled = properties.isEnabled();
+        this.refreshIntervalMillis = properties.getRefreshInterval().toMillis();
+    }
+
+    /**
+     * Search for the ids of the documents matching a query, in the cache first.
+     *
+     * @param documentType the type of the documents.
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @return the page of ids.
+     */
+    public Page<Long> search(SearchDocumentType documentType, QueryBuilder query, Pageable pageable) {
+        if (!enabled) {
+            return searchBackend.search(documentType, query, pageable);
+        }
+        String indexName = documentType.getIndexName();
+        Meters indexMeters = meters.computeIfAbsent(indexName, this::meters);
+        long generation = generations.getOrDefault(indexName, 0L);
+        String key = key(indexName, generation, query, pageable);
+        Result cached = results.get(key);
+        if (cached != null) {
+            indexMeters.hits.increment();
+            return new PageImpl<>(cached.getIds(), pageable, cached.total);
+        }
+        indexMeters.misses.increment();
+        Page<Long> page = searchBackend.search(documentType, query, pageable);
+        if (System.currentTimeMillis() - generation >= refreshIntervalMillis) {
+            results.set(key, new Result(page));
+        }
+        return page;
+    }
+
+    /**
+     * Invalidate the cached results of an index, after a write.
+     *
+     * @param documentType the type of the documents that were written.
+     */
+    public void invalidate(SearchDocumentType documentType) {
+        if (enabled) {
+            generations.executeOnKey(documentType.getIndexName(), new NextGeneration(System.currentTimeMillis()));
+        }
+    }
+
+    private String key(String indexName, long generation, QueryBuilder query, Pageable pageable) {
+        String page = pageable.isPaged()
+            ? pageable.getPageNumber() + "," + pageable.getPageSize() + "," + pageable.getSort()
+            : "unpaged," + pageable.getSort();
+        return indexName + "|" + generation + "|" + page + "|" + normalize(query);
+    }
+
+    /**
+     * @return the JSON of the query, with the whitespace of the query strings collapsed.
+     */
+    private String normalize(QueryBuilder query) {
+        try {
+            JsonNode node = objectMapper.readTree(Strings.toString(query));
+            normalize(node);
+            return node.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void normalize(JsonNode node) {
+        JsonNode queryString = node.get("query_string");
+        if (queryString instanceof ObjectNode && queryString.path("query").isTextual()) {
+            ((ObjectNode) queryString).set("query",
+                TextNode.valueOf(queryString.get("query").asText().trim().replaceAll("\\s+", " ")));
+        }
+        for (Iterator<JsonNode> children = node.elements(); children.hasNext(); ) {
+            normalize(children.next());
+        }
+    }
+
+    private Meters meters(String indexName) {
+        Counter hits = Counter.builder("search.results.cache")
+            .description("Number of searches, by whether their results were cached")
+            .tag("index", indexName)
+            .tag("result", "hit")
+            .register(meterRegistry);
+        Counter misses = Counter.builder("search.results.cache")
+            .description("Number of searches, by whether their results were cached")
+            .tag("index", indexName)
+            .tag("result", "miss")
+            .register(meterRegistry);
+        Gauge.builder("search.results.cache.hit.ratio", () -> {
+            double total = hits.count() + misses.count();
+            return total == 0 ? 0 : hits.count() / total;
+        })
+            .description("Ratio of the searches whose results were cached")
+            .tag("index", indexName)
+            .register(meterRegistry);
+        return new Meters(hits, misses);
+    }
+
+    private static final class Meters {
+
+        private final Counter hits;
+
+        private final Counter misses;
+
+        private Meters(Counter hits, Counter misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+    }
+
+    /**
+     * The ids of a page of results, and the total number of results.
+     */
+    static final class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] ids;
+
+        private final long total;
+
+        Result(Page<Long> page) {
+            this.ids = page.getContent().stream().mapToLong(Long::longValue).toArray();
+            this.total = page.getTotalElements();
+        }
+
+        List<Long> getIds() {
+            return Arrays.stream(ids).boxed().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Sets the generation of an index to the time of a write, or to the next one if it is not after
+     * the current generation, as the clocks of the nodes may differ.
+     */
+    static final class NextGeneration extends AbstractEntryProcessor<String, Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long time;
+
+        NextGeneration(long time) {
+            this.time = time;
+        }
+
+        @Override
+        public Object process(Map.Entry<String, Long> entry) {
+            Long current = entry.getValue();
+            entry.setValue(current == null ? time : Math.max(current + 1, time));
+            return null;
+        }
+    }
+}
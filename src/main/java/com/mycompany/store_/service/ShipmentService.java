@@ -1,8 +1,8 @@
 package com.mycompany.store_.service;
 
 import com.mycompany.store_.domain.Shipment;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.repository.ShipmentRepository;
-import com.mycompany.store_.repository.search.ShipmentSearchRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +26,14 @@ public class ShipmentService {
 
     private final ShipmentRepository shipmentRepository;
 
-    private final ShipmentSearchRepository shipmentSearchRepository;
+    private final SearchOutbox searchOutbox;
 
-    public ShipmentService(ShipmentRepository shipmentRepository, ShipmentSearchRepository shipmentSearchRepository) {
+    private final SearchHydrator searchHydrator;
+
+    public ShipmentService(ShipmentRepository shipmentRepository, SearchOutbox searchOutbox, SearchHydrator searchHydrator) {
         this.shipmentRepository = shipmentRepository;
-        this.shipmentSearchRepository = shipmentSearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
     }
 
     /**
@@ -42,12 +45,12 @@ public class ShipmentService {
     public Shipment save(Shipment shipment) {
         log.debug("Request to save Shipment : {}", shipment);
         Shipment result = shipmentRepository.save(shipment);
-        shipmentSearchRepository.save(result);
+        searchOutbox.index(Shipment.class, result.getId());
         return result;
     }
 
     /**
-     * Get all the shipments.
+     * Get all the shipments, with their invoice.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -55,12 +58,25 @@ public class ShipmentService {
     @Transactional(readOnly = true)
     public Page<Shipment> findAll(Pageable pageable) {
         log.debug("Request to get all Shipments");
-        return shipmentRepository.findAll(pageable);
+        return shipmentRepository.findAllWithInvoice(pageable);
+    }
+
+    /**
+     * Get a keyset page of the shipments, without counting them.
+     *
+     * @param after the cursor of the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page.
+     * @return the page of entities, with the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<Shipment> findAllAfter(String after, Pageable pageable) {
+        log.debug("Request to get Shipments after {}", after);
+        return shipmentRepository.findAllAfter(after, pageable);
     }
 
 
     /**
-     * Get one shipment by id.
+     * Get one shipment by id, with its invoice.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -68,7 +84,7 @@ public class ShipmentService {
     @Transactional(readOnly = true)
     public Optional<Shipment> findOne(Long id) {
         log.debug("Request to get Shipment : {}", id);
-        return shipmentRepository.findById(id);
+        return shipmentRepository.findOneWithInvoice(id);
     }
 
     /**
@@ -79,7 +95,7 @@ public class ShipmentService {
     public void delete(Long id) {
         log.debug("Request to delete Shipment : {}", id);
         shipmentRepository.deleteById(id);
-        shipmentSearchRepository.deleteById(id);
+        searchOutbox.delete(Shipment.class, id);
     }
 
     /**
@@ -92,5 +108,6 @@ public class ShipmentService {
     @Transactional(readOnly = true)
     public Page<Shipment> search(String query, Pageable pageable) {
         log.debug("Request to search for a page of Shipments for query {}", query);
-        return shipmentSearchRepository.search(queryStringQuery(query), pageable);    }
+        return searchHydrator.search(Shipment.class, queryStringQuery(query), pageable, "invoice");
+    }
 }
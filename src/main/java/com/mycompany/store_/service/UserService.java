@@ -5,7 +5,6 @@ import com.mycompany.store_.domain.Authority;
 import com.mycompany.store_.domain.User;
 import com.mycompany.store_.repository.AuthorityRepository;
 import com.mycompany.store_.repository.UserRepository;
-import com.mycompany.store_.repository.search.UserSearchRepository;
 import com.mycompany.store_.security.AuthoritiesConstants;
 import com.mycompany.store_.security.SecurityUtils;
 import com.mycompany.store_.service.dto.UserDTO;
@@ -27,6 +26,8 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
 /**
  * Service class for managing users.
  */
@@ -40,16 +41,19 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchOutbox searchOutbox;
+
+    private final SearchHydrator searchHydrator;
 
     private final AuthorityRepository authorityRepository;
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, SearchOutbox searchOutbox, SearchHydrator searchHydrator, AuthorityRepository authorityRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.userSearchRepository = userSearchRepository;
+        this.searchOutbox = searchOutbox;
+        this.searchHydrator = searchHydrator;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
     }
@@ -61,7 +65,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                userSearchRepository.save(user);
+                searchOutbox.index(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Activated user: {}", user);
                 return user;
@@ -125,7 +129,7 @@ public class UserService {
         authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
-        userSearchRepository.save(newUser);
+        searchOutbox.index(User.class, newUser.getId());
         this.clearUserCaches(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
@@ -169,7 +173,7 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
-        userSearchRepository.save(user);
+        searchOutbox.index(User.class, user.getId());
         this.clearUserCaches(user);
         log.debug("Created Information for User: {}", user);
         return user;
@@ -204,7 +208,7 @@ public class UserService {
                     .filter(Optional::isPresent)
                     .map(Optional::get)
                     .forEach(managedAuthorities::add);
-                userSearchRepository.save(user);
+                searchOutbox.index(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
                 return user;
@@ -215,7 +219,7 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
-            userSearchRepository.delete(user);
+            searchOutbox.delete(User.class, user.getId());
             this.clearUserCaches(user);
             log.debug("Deleted User: {}", user);
         });
@@ -241,7 +245,7 @@ public class UserService {
                 }
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                userSearchRepository.save(user);
+                searchOutbox.index(User.class, user.getId());
                 this.clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
             });
@@ -266,7 +270,17 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER).map(UserDTO::new);
+        Page<User> users = userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER);
+        if (users.hasContent()) {
+            // Initializes the authorities of the whole page in one query, as a page cannot be fetched with a collection
+            userRepository.findAllWithAuthoritiesByIdIn(users.map(User::getId).getContent());
+        }
+        return users.map(UserDTO::new);
+    }
+
+    @Transactional(readOnly = true)
+    public List<User> search(String query) {
+        return searchHydrator.search(User.class, queryStringQuery(query));
     }
 
     @Transactional(readOnly = true)
@@ -291,7 +305,7 @@ public class UserService {
             .forEach(user -> {
                 log.debug("Deleting not activated user {}", user.getLogin());
                 userRepository.delete(user);
-                userSearchRepository.delete(user);
+                searchOutbox.delete(User.class, user.getId());
                 this.clearUserCaches(user);
             });
     }
@@ -0,0 +1,56 @@
+package com.mycompany.store_.service.dto;
+
+/**
+ * A DTO representing a category of the catalog browsed by visitors, with its number of products.
+ */
+public class CatalogCategoryDTO {
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private long productCount;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(long productCount) {
+        this.productCount = productCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogCategoryDTO{" +
+            "id=" + id +
+            ", name='" + name + '\'' +
+            ", productCount=" + productCount +
+            "}";
+    }
+}
@@ -0,0 +1,92 @@
+package com.mycompany.store_.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+
+/**
+ * A DTO representing the latest change of a product or category: its current state, or a
+ * tombstone if it was deleted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogChangeDTO {
+
+    private long sequence;
+
+    private String entityType;
+
+    private Long id;
+
+    private boolean deleted;
+
+    private Product product;
+
+    private ProductCategory productCategory;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return {@code Product} or {@code ProductCategory}.
+     */
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    /**
+     * @return the product with its category, unless deleted or not a product.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    /**
+     * @return the category, unless deleted or not a category.
+     */
+    public ProductCategory getProductCategory() {
+        return productCategory;
+    }
+
+    public void setProductCategory(ProductCategory productCategory) {
+        this.productCategory = productCategory;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogChangeDTO{" +
+            "sequence=" + sequence +
+            ", entityType='" + entityType + '\'' +
+            ", id=" + id +
+            ", deleted=" + deleted +
+            "}";
+    }
+}
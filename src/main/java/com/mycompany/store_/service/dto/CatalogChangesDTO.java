@@ -0,0 +1,49 @@
+package com.mycompany.store_.service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing a page of the changes of the catalog, and the token to get the next ones.
+ */
+public class CatalogChangesDTO {
+
+    private List<CatalogChangeDTO> changes = new ArrayList<>();
+
+    private long next;
+
+    private boolean more;
+
+    /**
+     * @return the latest change of each product and category changed, in sequence order.
+     */
+    public List<CatalogChangeDTO> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<CatalogChangeDTO> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * @return the token to get the following changes with, as {@code since}.
+     */
+    public long getNext() {
+        return next;
+    }
+
+    public void setNext(long next) {
+        this.next = next;
+    }
+
+    /**
+     * @return whether there are more changes to get right away.
+     */
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+}
@@ -0,0 +1,96 @@
+package com.mycompany.store_.service.dto;
+
+import com.mycompany.store_.domain.enumeration.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * A DTO representing a product of the catalog browsed by visitors, with the name of its category.
+ */
+public class CatalogProductDTO {
+
+    private Long id;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private Size size;
+
+    private String imageContentType;
+
+    private Long productCategoryId;
+
+    private String productCategoryName;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Size getSize() {
+        return size;
+    }
+
+    public void setSize(Size size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the content type of the image, served by {@code /api/products/:id/image}, or null
+     * if the product has no image.
+     */
+    public String getImageContentType() {
+        return imageContentType;
+    }
+
+    public void setImageContentType(String imageContentType) {
+        this.imageContentType = imageContentType;
+    }
+
+    public Long getProductCategoryId() {
+        return productCategoryId;
+    }
+
+    public void setProductCategoryId(Long productCategoryId) {
+        this.productCategoryId = productCategoryId;
+    }
+
+    public String getProductCategoryName() {
+        return productCategoryName;
+    }
+
+    public void setProductCategoryName(String productCategoryName) {
+        this.productCategoryName = productCategoryName;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogProductDTO{" +
+            "id=" + id +
+            ", name='" + name + '\'' +
+            ", price=" + price +
+            ", size=" + size +
+            ", productCategoryId=" + productCategoryId +
+            "}";
+    }
+}
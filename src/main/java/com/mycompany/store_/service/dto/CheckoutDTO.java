@@ -0,0 +1,93 @@
+package com.mycompany.store_.service.dto;
+
+import com.mycompany.store_.domain.enumeration.PaymentMethod;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing a cart to check out: the order to place, with its items and the payment of its invoice.
+ * The code of the order is allocated at checkout.
+ */
+public class CheckoutDTO {
+
+    @NotNull
+    private Long customerId;
+
+    @NotNull
+    private PaymentMethod paymentMethod;
+
+    private String details;
+
+    @NotEmpty
+    @Valid
+    private List<ItemDTO> items = new ArrayList<>();
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(PaymentMethod paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    /**
+     * @return the details of the invoice.
+     */
+    public String getDetails() {
+        return details;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+    }
+
+    public List<ItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemDTO> items) {
+        this.items = items;
+    }
+
+    /**
+     * A line of the cart.
+     */
+    public static class ItemDTO {
+
+        @NotNull
+        private Long productId;
+
+        @NotNull
+        @Min(value = 1)
+        private Integer quantity;
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.mycompany.store_.service.dto;
+
+import com.mycompany.store_.domain.enumeration.InvoiceStatus;
+import com.mycompany.store_.domain.enumeration.OrderItemStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.domain.enumeration.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing an order placed by a checkout, with its items and invoice.
+ */
+public class CheckoutResultDTO {
+
+    private Long id;
+
+    private String code;
+
+    private Instant placedDate;
+
+    private OrderStatus status;
+
+    private Long customerId;
+
+    private List<ItemDTO> items = new ArrayList<>();
+
+    private InvoiceDTO invoice;
+
+    /**
+     * @return the id of the order.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public Instant getPlacedDate() {
+        return placedDate;
+    }
+
+    public void setPlacedDate(Instant placedDate) {
+        this.placedDate = placedDate;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public List<ItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemDTO> items) {
+        this.items = items;
+    }
+
+    public InvoiceDTO getInvoice() {
+        return invoice;
+    }
+
+    public void setInvoice(InvoiceDTO invoice) {
+        this.invoice = invoice;
+    }
+
+    /**
+     * An item of the order, with the name and price of its product at checkout.
+     */
+    public static class ItemDTO {
+
+        private Long id;
+
+        private Long productId;
+
+        private String productName;
+
+        private BigDecimal price;
+
+        private Integer quantity;
+
+        private OrderItemStatus status;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public void setProductName(String productName) {
+            this.productName = productName;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public OrderItemStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(OrderItemStatus status) {
+            this.status = status;
+        }
+    }
+
+    /**
+     * The invoice of the order.
+     */
+    public static class InvoiceDTO {
+
+        private Long id;
+
+        private Instant date;
+
+        private InvoiceStatus status;
+
+        private PaymentMethod paymentMethod;
+
+        private Instant paymentDate;
+
+        private BigDecimal paymentAmount;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public void setDate(Instant date) {
+            this.date = date;
+        }
+
+        public InvoiceStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(InvoiceStatus status) {
+            this.status = status;
+        }
+
+        public PaymentMethod getPaymentMethod() {
+            return paymentMethod;
+        }
+
+        public void setPaymentMethod(PaymentMethod paymentMethod) {
+            this.paymentMethod = paymentMethod;
+        }
+
+        public Instant getPaymentDate() {
+            return paymentDate;
+        }
+
+        public void setPaymentDate(Instant paymentDate) {
+            this.paymentDate = paymentDate;
+        }
+
+        public BigDecimal getPaymentAmount() {
+            return paymentAmount;
+        }
+
+        public void setPaymentAmount(BigDecimal paymentAmount) {
+            this.paymentAmount = paymentAmount;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.mycompany.store_.service.dto;
+
+import com.mycompany.store_.domain.enumeration.InvoiceStatus;
+import com.mycompany.store_.domain.enumeration.OrderItemStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.domain.enumeration.PaymentMethod;
+import com.mycompany.store_.domain.enumeration.Size;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing an order for its detail screen, with its customer, its items and their
+ * products, and its invoices and their shipments.
+ */
+public class OrderDetailsDTO {
+
+    private Long id;
+
+    private String code;
+
+    private Instant placedDate;
+
+    private OrderStatus status;
+
+    private CustomerDTO customer;
+
+    private List<ItemDTO> items = new ArrayList<>();
+
+    private List<InvoiceDTO> invoices = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public Instant getPlacedDate() {
+        return placedDate;
+    }
+
+    public void setPlacedDate(Instant placedDate) {
+        this.placedDate = placedDate;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public CustomerDTO getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(CustomerDTO customer) {
+        this.customer = customer;
+    }
+
+    /**
+     * @return the items, by id.
+     */
+    public List<ItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemDTO> items) {
+        this.items = items;
+    }
+
+    /**
+     * @return the invoices, by id.
+     */
+    public List<InvoiceDTO> getInvoices() {
+        return invoices;
+    }
+
+    public void setInvoices(List<InvoiceDTO> invoices) {
+        this.invoices = invoices;
+    }
+
+    /**
+     * The customer who placed the order.
+     */
+    public static class CustomerDTO {
+
+        private Long id;
+
+        private String firstName;
+
+        private String lastName;
+
+        private String email;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+    }
+
+    /**
+     * An item of the order, with its product.
+     */
+    public static class ItemDTO {
+
+        private Long id;
+
+        private Integer quantity;
+
+        private OrderItemStatus status;
+
+        private ProductDTO product;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public OrderItemStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(OrderItemStatus status) {
+            this.status = status;
+        }
+
+        public ProductDTO getProduct() {
+            return product;
+        }
+
+        public void setProduct(ProductDTO product) {
+            this.product = product;
+        }
+    }
+
+    /**
+     * The product of an item, without its image.
+     */
+    public static class ProductDTO {
+
+        private Long id;
+
+        private String name;
+
+        private BigDecimal price;
+
+        private Size size;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public Size getSize() {
+            return size;
+        }
+
+        public void setSize(Size size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * An invoice of the order, with its shipments.
+     */
+    public static class InvoiceDTO {
+
+        private Long id;
+
+        private Instant date;
+
+        private String details;
+
+        private InvoiceStatus status;
+
+        private PaymentMethod paymentMethod;
+
+        private Instant paymentDate;
+
+        private BigDecimal paymentAmount;
+
+        private List<ShipmentDTO> shipments = new ArrayList<>();
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public void setDate(Instant date) {
+            this.date = date;
+        }
+
+        public String getDetails() {
+            return details;
+        }
+
+        public void setDetails(String details) {
+            this.details = details;
+        }
+
+        public InvoiceStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(InvoiceStatus status) {
+            this.status = status;
+        }
+
+        public PaymentMethod getPaymentMethod() {
+            return paymentMethod;
+        }
+
+        public void setPaymentMethod(PaymentMethod paymentMethod) {
+            this.paymentMethod = paymentMethod;
+        }
+
+        public Instant getPaymentDate() {
+            return paymentDate;
+        }
+
+        public void setPaymentDate(Instant paymentDate) {
+            this.paymentDate = paymentDate;
+        }
+
+        public BigDecimal getPaymentAmount() {
+            return paymentAmount;
+        }
+
+        public void setPaymentAmount(BigDecimal paymentAmount) {
+            this.paymentAmount = paymentAmount;
+        }
+
+        /**
+         * @return the shipments, by id.
+         */
+        public List<ShipmentDTO> getShipments() {
+            return shipments;
+        }
+
+        public void setShipments(List<ShipmentDTO> shipments) {
+            this.shipments = shipments;
+        }
+    }
+
+    /**
+     * A shipment of an invoice.
+     */
+    public static class ShipmentDTO {
+
+        private Long id;
+
+        private String trackingCode;
+
+        private Instant date;
+
+        private String details;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getTrackingCode() {
+            return trackingCode;
+        }
+
+        public void setTrackingCode(String trackingCode) {
+            this.trackingCode = trackingCode;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public void setDate(Instant date) {
+            this.date = date;
+        }
+
+        public String getDetails() {
+            return details;
+        }
+
+        public void setDetails(String details) {
+            this.details = details;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.mycompany.store_.service.dto;
+
+import com.mycompany.store_.domain.enumeration.InvoiceStatus;
+import com.mycompany.store_.domain.enumeration.OrderItemStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.domain.enumeration.PaymentMethod;
+
+import org.springframework.data.elasticsearch.annotations.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing an order with its customer, items, invoices and shipments, searched as one
+ * document.
+ *
+ * @see com.mycompany.store_.service.OrderSearchProjection
+ */
+@Document(indexName = "orderview")
+public class OrderSearchDocument {
+
+    private Long id;
+
+    private String code;
+
+    private Instant placedDate;
+
+    private OrderStatus status;
+
+    private CustomerView customer;
+
+    private List<ItemView> items = new ArrayList<>();
+
+    private List<InvoiceView> invoices = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public Instant getPlacedDate() {
+        return placedDate;
+    }
+
+    public void setPlacedDate(Instant placedDate) {
+        this.placedDate = placedDate;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public CustomerView getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(CustomerView customer) {
+        this.customer = customer;
+    }
+
+    public List<ItemView> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemView> items) {
+        this.items = items;
+    }
+
+    public List<InvoiceView> getInvoices() {
+        return invoices;
+    }
+
+    public void setInvoices(List<InvoiceView> invoices) {
+        this.invoices = invoices;
+    }
+
+    public static class CustomerView {
+
+        private Long id;
+
+        private String firstName;
+
+        private String lastName;
+
+        private String email;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+    }
+
+    public static class ItemView {
+
+        private Long id;
+
+        private Long productId;
+
+        private String productName;
+
+        private Integer quantity;
+
+        private OrderItemStatus status;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public String getProductName() {
+            return productName;
+        }
+
+        public void setProductName(String productName) {
+            this.productName = productName;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public OrderItemStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(OrderItemStatus status) {
+            this.status = status;
+        }
+    }
+
+    public static class InvoiceView {
+
+        private Long id;
+
+        private Instant date;
+
+        private InvoiceStatus status;
+
+        private PaymentMethod paymentMethod;
+
+        private Instant paymentDate;
+
+        private List<ShipmentView> shipments = new ArrayList<>();
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public void setDate(Instant date) {
+            this.date = date;
+        }
+
+        public InvoiceStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(InvoiceStatus status) {
+            this.status = status;
+        }
+
+        public PaymentMethod getPaymentMethod() {
+            return paymentMethod;
+        }
+
+        public void setPaymentMethod(PaymentMethod paymentMethod) {
+            this.paymentMethod = paymentMethod;
+        }
+
+        public Instant getPaymentDate() {
+            return paymentDate;
+        }
+
+        public void setPaymentDate(Instant paymentDate) {
+            this.paymentDate = paymentDate;
+        }
+
+        public List<ShipmentView> getShipments() {
+            return shipments;
+        }
+
+        public void setShipments(List<ShipmentView> shipments) {
+            this.shipments = shipments;
+        }
+    }
+
+    /**
+     * A shipment of an invoice: its tracking code and date tell whether it is on its way.
+     */
+    public static class ShipmentView {
+
+        private Long id;
+
+        private String trackingCode;
+
+        private Instant date;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getTrackingCode() {
+            return trackingCode;
+        }
+
+        public void setTrackingCode(String trackingCode) {
+            this.trackingCode = trackingCode;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public void setDate(Instant date) {
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mycompany.store_.service.dto;
+
+import com.mycompany.store_.domain.enumeration.Size;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO representing the facets of the catalog: the number of products of each size, category and
+ * price band matching a filter.
+ * <p>
+ * The counts of a facet are computed with the filters of the other facets only, so that they tell
+ * how many products selecting another value of the facet would add.
+ */
+public class ProductFacetsDTO {
+
+    private long total;
+
+    private Map<Size, Long> sizes = new EnumMap<>(Size.class);
+
+    private Map<Long, Long> categories = new LinkedHashMap<>();
+
+    private List<PriceBandDTO> priceBands = new ArrayList<>();
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<Size, Long> getSizes() {
+        return sizes;
+    }
+
+    public void setSizes(Map<Size, Long> sizes) {
+        this.sizes = sizes;
+    }
+
+    /**
+     * @return the counts by category id.
+     */
+    public Map<Long, Long> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<Long, Long> categories) {
+        this.categories = categories;
+    }
+
+    public List<PriceBandDTO> getPriceBands() {
+        return priceBands;
+    }
+
+    public void setPriceBands(List<PriceBandDTO> priceBands) {
+        this.priceBands = priceBands;
+    }
+
+    /**
+     * A price band, from its lower bound included to its upper bound excluded.
+     */
+    public static class PriceBandDTO {
+
+        private int band;
+
+        private BigDecimal from;
+
+        private BigDecimal to;
+
+        private long count;
+
+        public PriceBandDTO() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public PriceBandDTO(int band, BigDecimal from, BigDecimal to, long count) {
+            this.band = band;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        /**
+         * @return the index of the band, to filter by.
+         */
+        public int getBand() {
+            return band;
+        }
+
+        public void setBand(int band) {
+            this.band = band;
+        }
+
+        /**
+         * @return the lower bound, or null for the first band.
+         */
+        public BigDecimal getFrom() {
+            return from;
+        }
+
+        public void setFrom(BigDecimal from) {
+            this.from = from;
+        }
+
+        /**
+         * @return the upper bound, or null for the last band.
+         */
+        public BigDecimal getTo() {
+            return to;
+        }
+
+        public void setTo(BigDecimal to) {
+            this.to = to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mycompany.store_.service.dto;
+
+/**
+ * A DTO representing a product suggested for the prefix typed in the catalog search box.
+ */
+public class ProductSuggestionDTO {
+
+    private Long id;
+
+    private String name;
+
+    public ProductSuggestionDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductSuggestionDTO(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSuggestionDTO{" +
+            "id=" + id +
+            ", name='" + name + '\'' +
+            "}";
+    }
+}
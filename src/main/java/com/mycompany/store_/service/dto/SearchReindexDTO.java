@@ -0,0 +1,121 @@
+package com.mycompany.store_.service.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the progress of a reindex of the search indices.
+ */
+public class SearchReindexDTO {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private Status status;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private String error;
+
+    private List<IndexDTO> indices = new ArrayList<>();
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<IndexDTO> getIndices() {
+        return indices;
+    }
+
+    public void setIndices(List<IndexDTO> indices) {
+        this.indices = indices;
+    }
+
+    /**
+     * The progress of one index, rebuilt under its alias.
+     */
+    public static class IndexDTO {
+
+        private String alias;
+
+        private String index;
+
+        private long total;
+
+        private long indexed;
+
+        private double documentsPerSecond;
+
+        public String getAlias() {
+            return alias;
+        }
+
+        public void setAlias(String alias) {
+            this.alias = alias;
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public void setIndex(String index) {
+            this.index = index;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public long getIndexed() {
+            return indexed;
+        }
+
+        public void setIndexed(long indexed) {
+            this.indexed = indexed;
+        }
+
+        public double getDocumentsPerSecond() {
+            return documentsPerSecond;
+        }
+
+        public void setDocumentsPerSecond(double documentsPerSecond) {
+            this.documentsPerSecond = documentsPerSecond;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.mycompany.store_.service.impl;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.service.ImageFormat;
+import com.mycompany.store_.service.InvalidProductImageException;
+import com.mycompany.store_.service.ProductImageStore;
+import com.mycompany.store_.service.ProductImageVariant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ProductImageStore} keeping images on the local file system.
+ * <p>
+ * Content is written to a temporary file while its digest is computed, then moved
+ * atomically to {@code <directory>/<first two hex digits>/<key>}. Variants are stored
+ * next to it as {@code <key>-w<width>.<format name>}, and the variants served as the original
+ * content as empty {@code <key>-w<width>.original} files. The modification time of the content
+ * is the last time it was stored.
+ */
+@Service
+public class FileSystemProductImageStore implements ProductImageStore {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String ORIGINAL_VARIANT_EXTENSION = "original";
+
+    /**
+     * The formats variants are encoded in, the most frequent first.
+     */
+    private static final ImageFormat[] VARIANT_FORMATS = { ImageFormat.JPEG, ImageFormat.PNG };
+
+    private final Logger log = LoggerFactory.getLogger(FileSystemProductImageStore.class);
+
+    private final Path root;
+
+    private final Path tmp;
+
+    public FileSystemProductImageStore(ApplicationProperties applicationProperties) throws IOException {
+        this.root = Paths.get(applicationProperties.getImageStore().getDirectory()).toAbsolutePath().normalize();
+        this.tmp = root.resolve(".tmp");
+        Files.createDirectories(tmp);
+        log.debug("Storing product images in {}", root);
+    }
+
+    @Override
+    public String put(InputStream content, long maxSize) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temporary = Files.createTempFile(tmp, "upload-", ".bin");
+        try {
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temporary)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long size = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new InvalidProductImageException("Image is larger than " + maxSize + " bytes", "imagetoolarge");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            String key = toHex(digest.digest());
+            Path target = pathOf(key);
+            if (!touch(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    log.debug("Image {} was stored concurrently", key);
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public Optional<Path> locate(String key) {
+        if (!isKey(key)) {
+            return Optional.empty();
+        }
+        Path path = pathOf(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public void putVariant(String key, int width, ImageFormat format, byte[] content) throws IOException {
+        writeVariant(key, width, format.getFormatName(), content);
+    }
+
+    @Override
+    public void putOriginalVariant(String key, int width) throws IOException {
+        writeVariant(key, width, ORIGINAL_VARIANT_EXTENSION, new byte[0]);
+    }
+
+    private void writeVariant(String key, int width, String extension, byte[] content) throws IOException {
+        if (!isKey(key)) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        Path temporary = Files.createTempFile(tmp, "variant-", ".bin");
+        try {
+            Files.write(temporary, content);
+            Path target = variantPathOf(key, width, extension);
+            Files.createDirectories(target.getParent());
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public Optional<ProductImageVariant> locateVariant(String key, int width) {
+        if (!isKey(key)) {
+            return Optional.empty();
+        }
+        for (ImageFormat format : VARIANT_FORMATS) {
+            Path path = variantPathOf(key, width, format.getFormatName());
+            if (Files.isRegularFile(path)) {
+                return Optional.of(ProductImageVariant.of(path, format));
+            }
+        }
+        if (Files.isRegularFile(variantPathOf(key, width, ORIGINAL_VARIANT_EXTENSION))) {
+            return Optional.of(ProductImageVariant.ORIGINAL);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<String> findKeysStoredBefore(Instant instant) throws IOException {
+        List<String> keys = new ArrayList<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, "[0-9a-f][0-9a-f]")) {
+            for (Path directory : directories) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        String key = file.getFileName().toString();
+                        if (isKey(key) && storedBefore(file, instant)) {
+                            keys.add(key);
+                        }
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public boolean deleteIfStoredBefore(String key, Instant instant) throws IOException {
+        if (!isKey(key) || !storedBefore(pathOf(key), instant)) {
+            return false;
+        }
+        delete(key);
+        return true;
+    }
+
+    private static boolean storedBefore(Path file, Instant instant) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(instant);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Mark existing content as stored now.
+     *
+     * @return whether the content exists.
+     */
+    private static boolean touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (!isKey(key)) {
+            return;
+        }
+        Path path = pathOf(key);
+        Files.deleteIfExists(path);
+        if (Files.isDirectory(path.getParent())) {
+            try (DirectoryStream<Path> variants = Files.newDirectoryStream(path.getParent(), key + "-w*")) {
+                for (Path variant : variants) {
+                    Files.deleteIfExists(variant);
+                }
+            }
+        }
+    }
+
+    private static boolean isKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    private Path pathOf(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private Path variantPathOf(String key, int width, String extension) {
+        return root.resolve(key.substring(0, 2)).resolve(key + "-w" + width + "." + extension);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.service.CatalogSnapshot;
+import com.mycompany.store_.service.ProductCategoryService;
+import com.mycompany.store_.service.ProductService;
+import com.mycompany.store_.service.dto.CatalogCategoryDTO;
+import com.mycompany.store_.service.dto.CatalogProductDTO;
+import com.mycompany.store_.web.rest.errors.BadRequestAlertException;
+
+import io.github.jhipster.web.util.PaginationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * REST controller for browsing the catalog without being authenticated, served from the
+ * {@link CatalogSnapshot}.
+ */
+@RestController
+@RequestMapping("/api")
+public class CatalogResource {
+
+    private final Logger log = LoggerFactory.getLogger(CatalogResource.class);
+
+    private static final String ENTITY_NAME = "product";
+
+    private final ProductService productService;
+
+    private final ProductCategoryService productCategoryService;
+
+    public CatalogResource(ProductService productService, ProductCategoryService productCategoryService) {
+        this.productService = productService;
+        this.productCategoryService = productCategoryService;
+    }
+
+    /**
+     * {@code GET  /catalog/products} : get a page of the products of the catalog matching a filter.
+     *
+     * @param categoryId the id of the category of the products, if any.
+     * @param size the size of the products, if any.
+     * @param minPrice the lowest price of the products, if any.
+     * @param maxPrice the highest price of the products, if any.
+     * @param pageable the pagination information, sorted by id, name or price.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body,
+     * or with status {@code 400 (Bad Request)} if the sort is not supported.
+     */
+    @GetMapping("/catalog/products")
+    public ResponseEntity<List<CatalogProductDTO>> browseProducts(@RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Size size, @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice, Pageable pageable) {
+        log.debug("REST request to browse a page of Products");
+        for (Sort.Order order : pageable.getSort()) {
+            if (!CatalogSnapshot.isSortable(order.getProperty())) {
+                throw new BadRequestAlertException("Cannot sort the catalog by " + order.getProperty(), ENTITY_NAME, "catalogsort");
+            }
+        }
+        Page<CatalogProductDTO> page = productService.browse(categoryId, size, minPrice, maxPrice, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /catalog/categories} : get the categories of the catalog, with their number of products.
+     *
+     * @return the list of categories.
+     */
+    @GetMapping("/catalog/categories")
+    public List<CatalogCategoryDTO> browseCategories() {
+        log.debug("REST request to browse ProductCategories");
+        return productCategoryService.browse();
+    }
+}
@@ -0,0 +1,57 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.service.CheckoutService;
+import com.mycompany.store_.service.dto.CheckoutDTO;
+import com.mycompany.store_.service.dto.CheckoutResultDTO;
+
+import io.github.jhipster.web.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * REST controller for checking out carts, placing an order with its items and invoice in one request.
+ */
+@RestController
+@RequestMapping("/api")
+public class CheckoutResource {
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutResource.class);
+
+    private static final String ENTITY_NAME = "productOrder";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final CheckoutService checkoutService;
+
+    public CheckoutResource(CheckoutService checkoutService) {
+        this.checkoutService = checkoutService;
+    }
+
+    /**
+     * {@code POST  /checkout} : Place the order of a cart, with its items and invoice.
+     *
+     * @param cart the cart to check out.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the order placed,
+     * or with status {@code 400 (Bad Request)} if the cart is not valid.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/checkout")
+    public ResponseEntity<CheckoutResultDTO> checkout(@Valid @RequestBody CheckoutDTO cart) throws URISyntaxException {
+        log.debug("REST request to check out a cart of Customer : {}", cart.getCustomerId());
+        CheckoutResultDTO result = checkoutService.checkout(cart);
+        return ResponseEntity.created(new URI("/api/product-orders/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+}
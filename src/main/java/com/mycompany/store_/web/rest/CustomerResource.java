@@ -1,8 +1,13 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.service.CustomerService;
+import com.mycompany.store_.service.ProductOrderService;
 import com.mycompany.store_.web.rest.errors.BadRequestAlertException;
+import com.mycompany.store_.web.rest.util.KeysetPaginationUtil;
 
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.PaginationUtil;
@@ -43,8 +48,11 @@ public class CustomerResource {
 
     private final CustomerService customerService;
 
-    public CustomerResource(CustomerService customerService) {
+    private final ProductOrderService productOrderService;
+
+    public CustomerResource(CustomerService customerService, ProductOrderService productOrderService) {
         this.customerService = customerService;
+        this.productOrderService = productOrderService;
     }
 
     /**
@@ -89,12 +97,22 @@ public class CustomerResource {
 
     /**
      * {@code GET  /customers} : get all the customers.
+     * <p>
+     * With an {@code after} parameter the customers are paged by keyset instead: an empty value
+     * requests the first page, and the {@code Link} header holds the cursor of the next page.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the previous page, for keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of customers in body.
      */
     @GetMapping("/customers")
-    public ResponseEntity<List<Customer>> getAllCustomers(Pageable pageable) {
+    public ResponseEntity<List<Customer>> getAllCustomers(Pageable pageable, @RequestParam(required = false) String after) {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of Customers after {}", after);
+            KeysetSlice<Customer> slice = customerService.findAllAfter(after, pageable);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         log.debug("REST request to get a page of Customers");
         Page<Customer> page = customerService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -114,6 +132,28 @@ public class CustomerResource {
         return ResponseUtil.wrapOrNotFound(customer);
     }
 
+    /**
+     * {@code GET  /customers/:id/orders} : get the orders of the "id" customer, the latest first.
+     * <p>
+     * The orders are paged by keyset: the {@code after} parameter is empty or missing for the first
+     * page, and the {@code Link} header holds the cursor of the next page. The sort of the pageable
+     * is ignored.
+     *
+     * @param id the id of the customer.
+     * @param status the statuses of the orders to keep, or none to keep all of them.
+     * @param after the cursor of the previous page.
+     * @param pageable the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of orders in body.
+     */
+    @GetMapping("/customers/{id}/orders")
+    public ResponseEntity<List<ProductOrder>> getCustomerOrders(@PathVariable Long id, @RequestParam(required = false) List<OrderStatus> status,
+            @RequestParam(defaultValue = "") String after, Pageable pageable) {
+        log.debug("REST request to get the ProductOrders of Customer {} after {}", id, after);
+        KeysetSlice<ProductOrder> slice = productOrderService.findAllByCustomer(id, status, after, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * {@code DELETE  /customers/:id} : delete the "id" customer.
      *
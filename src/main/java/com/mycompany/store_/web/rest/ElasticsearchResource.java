@@ -0,0 +1,56 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.service.SearchReindexService;
+import com.mycompany.store_.service.dto.SearchReindexDTO;
+
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for managing the search indices.
+ */
+@RestController
+@RequestMapping("/management/elasticsearch")
+@ConditionalOnProperty(prefix = "application.search", name = "backend", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchResource {
+
+    private final Logger log = LoggerFactory.getLogger(ElasticsearchResource.class);
+
+    private final SearchReindexService searchReindexService;
+
+    public ElasticsearchResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * {@code POST  /elasticsearch/reindex} : rebuild all the search indices from the database.
+     *
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the progress of the reindex in body,
+     * or with status {@code 409 (Conflict)} and the progress of the running reindex in body, which is empty if another node runs it.
+     */
+    @PostMapping("/reindex")
+    public ResponseEntity<SearchReindexDTO> reindex() {
+        log.debug("REST request to reindex the search indices");
+        return searchReindexService.start()
+            .map(progress -> ResponseEntity.status(HttpStatus.ACCEPTED).body(progress))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).body(searchReindexService.getProgress()
+                .filter(progress -> progress.getStatus() == SearchReindexDTO.Status.RUNNING)
+                .orElse(null)));
+    }
+
+    /**
+     * {@code GET  /elasticsearch/reindex} : get the progress of the running or last reindex.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the progress in body, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/reindex")
+    public ResponseEntity<SearchReindexDTO> getReindex() {
+        log.debug("REST request to get the progress of the reindex");
+        return ResponseUtil.wrapOrNotFound(searchReindexService.getProgress());
+    }
+}
@@ -1,8 +1,10 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.service.OrderItemService;
 import com.mycompany.store_.web.rest.errors.BadRequestAlertException;
+import com.mycompany.store_.web.rest.util.KeysetPaginationUtil;
 
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.PaginationUtil;
@@ -89,12 +91,22 @@ public class OrderItemResource {
 
     /**
      * {@code GET  /order-items} : get all the orderItems.
+     * <p>
+     * With an {@code after} parameter the orderItems are paged by keyset instead: an empty value
+     * requests the first page, and the {@code Link} header holds the cursor of the next page.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the previous page, for keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of orderItems in body.
      */
     @GetMapping("/order-items")
-    public ResponseEntity<List<OrderItem>> getAllOrderItems(Pageable pageable) {
+    public ResponseEntity<List<OrderItem>> getAllOrderItems(Pageable pageable, @RequestParam(required = false) String after) {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of OrderItems after {}", after);
+            KeysetSlice<OrderItem> slice = orderItemService.findAllAfter(after, pageable);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         log.debug("REST request to get a page of OrderItems");
         Page<OrderItem> page = orderItemService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -0,0 +1,191 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.service.ProductImageVariant;
+import com.mycompany.store_.service.ProductImageVariantService;
+import com.mycompany.store_.service.ProductService;
+
+import io.github.jhipster.web.util.HeaderUtil;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * REST controller serving the images of {@link com.mycompany.store_.domain.Product}.
+ */
+@RestController
+@RequestMapping("/api")
+public class ProductImageResource {
+
+    private final Logger log = LoggerFactory.getLogger(ProductImageResource.class);
+
+    private static final String ENTITY_NAME = "product";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final ProductService productService;
+
+    private final ProductImageVariantService productImageVariantService;
+
+    public ProductImageResource(ProductService productService, ProductImageVariantService productImageVariantService) {
+        this.productService = productService;
+        this.productImageVariantService = productImageVariantService;
+    }
+
+    /**
+     * {@code POST  /products/:id/image} : replace the image of the "id" product.
+     * <p>
+     * The multipart file is streamed to the image store; its content type is detected from its
+     * content.
+     *
+     * @param id the id of the product.
+     * @param file the image, in the {@code file} part.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated product,
+     * or with status {@code 400 (Bad Request)} if the file is not a supported image or is too large,
+     * or with status {@code 404 (Not Found)}.
+     * @throws IOException if the image could not be read or stored.
+     */
+    @PostMapping(value = "/products/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Product> uploadProductImage(@PathVariable Long id, @RequestParam("file") MultipartFile file) throws IOException {
+        log.debug("REST request to upload the image of Product : {}, {} bytes", id, file.getSize());
+        Optional<Product> result;
+        try (InputStream content = file.getInputStream()) {
+            result = productService.saveImage(id, content);
+        }
+        return ResponseUtil.wrapOrNotFound(result,
+            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()));
+    }
+
+    /**
+     * {@code GET  /products/:id/image} : stream the image of the "id" product.
+     * <p>
+     * The image key is used as a strong {@code ETag}, and a single byte range may be requested
+     * with the {@code Range} header.
+     * <p>
+     * With a {@code w} parameter the smallest variant at least {@code w} pixels wide is served,
+     * or the original image while that variant is being generated or if it is the original.
+     *
+     * @param id the id of the product.
+     * @param width the requested width, in pixels.
+     * @param request the current request.
+     * @param response the response the image is written to.
+     * @throws IOException if the image could not be read or written.
+     */
+    @GetMapping("/products/{id}/image")
+    public void getProductImage(@PathVariable Long id, @RequestParam(name = "w", required = false) Integer width,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get the image of Product : {}, width {}", id, width);
+        Product product = productService.findOne(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Path path = productService.locateImage(product)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        OptionalInt variantWidth = width != null ? productImageVariantService.selectWidth(width) : OptionalInt.empty();
+        if (variantWidth.isPresent()) {
+            Optional<ProductImageVariant> variant = productImageVariantService.locate(product.getImageKey(), variantWidth.getAsInt());
+            if (variant.isPresent() && !variant.get().isOriginal()) {
+                streamFile(variant.get().getPath(), "\"" + product.getImageKey() + "-w" + variantWidth.getAsInt() + "\"",
+                    variant.get().getFormat().getContentType(), request, response);
+                return;
+            }
+        }
+        String contentType = product.getImageContentType() != null ? product.getImageContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        streamFile(path, "\"" + product.getImageKey() + "\"", contentType, request, response);
+    }
+
+    private void streamFile(Path path, String eTag, String contentType, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePublic().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            long end = size - 1;
+            HttpRange range = requestedRange(request, eTag);
+            if (range != null) {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+                if (start >= size || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            } else {
+                response.setStatus(HttpStatus.OK.value());
+            }
+            long length = end - start + 1;
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Only a single range is honoured; multiple ranges or a stale {@code If-Range} validator
+     * fall back to the full content, as allowed by RFC 7233.
+     */
+    private HttpRange requestedRange(HttpServletRequest request, String eTag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,12 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.service.ProductOrderService;
+import com.mycompany.store_.service.dto.OrderDetailsDTO;
+import com.mycompany.store_.service.dto.OrderSearchDocument;
 import com.mycompany.store_.web.rest.errors.BadRequestAlertException;
+import com.mycompany.store_.web.rest.util.KeysetPaginationUtil;
 
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.PaginationUtil;
@@ -89,12 +93,22 @@ public class ProductOrderResource {
 
     /**
      * {@code GET  /product-orders} : get all the productOrders.
+     * <p>
+     * With an {@code after} parameter the productOrders are paged by keyset instead: an empty value
+     * requests the first page, and the {@code Link} header holds the cursor of the next page.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the previous page, for keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productOrders in body.
      */
     @GetMapping("/product-orders")
-    public ResponseEntity<List<ProductOrder>> getAllProductOrders(Pageable pageable) {
+    public ResponseEntity<List<ProductOrder>> getAllProductOrders(Pageable pageable, @RequestParam(required = false) String after) {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of ProductOrders after {}", after);
+            KeysetSlice<ProductOrder> slice = productOrderService.findAllAfter(after, pageable);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         log.debug("REST request to get a page of ProductOrders");
         Page<ProductOrder> page = productOrderService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -114,6 +128,20 @@ public class ProductOrderResource {
         return ResponseUtil.wrapOrNotFound(productOrder);
     }
 
+    /**
+     * {@code GET  /product-orders/:id/full} : get the "id" productOrder, with its customer, its items
+     * and their products, and its invoices and their shipments.
+     *
+     * @param id the id of the productOrder to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productOrder, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/product-orders/{id}/full")
+    public ResponseEntity<OrderDetailsDTO> getProductOrderDetails(@PathVariable Long id) {
+        log.debug("REST request to get the details of ProductOrder : {}", id);
+        Optional<OrderDetailsDTO> details = productOrderService.findDetails(id);
+        return ResponseUtil.wrapOrNotFound(details);
+    }
+
     /**
      * {@code DELETE  /product-orders/:id} : delete the "id" productOrder.
      *
@@ -142,4 +170,20 @@ public class ProductOrderResource {
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
         }
+
+    /**
+     * {@code SEARCH  /_search/order-views?query=:query} : search for the orders corresponding to the
+     * query, with their customer, items, invoices and shipments.
+     *
+     * @param query the query of the order search.
+     * @param pageable the pagination information.
+     * @return the result of the search.
+     */
+    @GetMapping("/_search/order-views")
+    public ResponseEntity<List<OrderSearchDocument>> searchOrderViews(@RequestParam String query, Pageable pageable) {
+        log.debug("REST request to search for a page of order views for query {}", query);
+        Page<OrderSearchDocument> page = productOrderService.searchViews(query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
 }
@@ -1,8 +1,14 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.service.ProductService;
+import com.mycompany.store_.service.dto.CatalogChangesDTO;
+import com.mycompany.store_.service.dto.ProductFacetsDTO;
+import com.mycompany.store_.service.dto.ProductSuggestionDTO;
 import com.mycompany.store_.web.rest.errors.BadRequestAlertException;
+import com.mycompany.store_.web.rest.util.KeysetPaginationUtil;
 
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.PaginationUtil;
@@ -89,18 +95,98 @@ public class ProductResource {
 
     /**
      * {@code GET  /products} : get all the products.
+     * <p>
+     * With an {@code after} parameter the products are paged by keyset instead: an empty value
+     * requests the first page, and the {@code Link} header holds the cursor of the next page.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the previous page, for keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
      */
     @GetMapping("/products")
-    public ResponseEntity<List<Product>> getAllProducts(Pageable pageable) {
+    public ResponseEntity<List<Product>> getAllProducts(Pageable pageable, @RequestParam(required = false) String after) {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of Products after {}", after);
+            KeysetSlice<Product> slice = productService.findAllAfter(after, pageable);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         log.debug("REST request to get a page of Products");
         Page<Product> page = productService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /products/suggest?prefix=:prefix} : suggest the most popular products with a word
+     * of their name starting with the prefix, for the search box.
+     *
+     * @param prefix the prefix typed in the search box.
+     * @param size the number of products to suggest.
+     * @return the suggested products, the most popular first.
+     */
+    @GetMapping("/products/suggest")
+    public List<ProductSuggestionDTO> suggestProducts(@RequestParam String prefix, @RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to suggest Products for prefix {}", prefix);
+        return productService.suggest(prefix, size);
+    }
+
+    /**
+     * {@code GET  /products/facets} : count the products of each size, category and price band
+     * matching a filter. Each facet is filtered by the selected values of the other facets only.
+     *
+     * @param sizes the sizes to keep, or none to keep all of them.
+     * @param categoryIds the ids of the categories to keep, or none to keep all of them.
+     * @param priceBands the price bands to keep, or none to keep all of them.
+     * @return the facets.
+     */
+    @GetMapping("/products/facets")
+    public ProductFacetsDTO getProductFacets(@RequestParam(required = false) List<Size> sizes,
+            @RequestParam(required = false) List<Long> categoryIds, @RequestParam(required = false) List<Integer> priceBands) {
+        log.debug("REST request to get the facets of Products");
+        return productService.facets(sizes, categoryIds, priceBands);
+    }
+
+    /**
+     * {@code GET  /products/filter} : get a page of the products matching a filter of their facets,
+     * in id order.
+     *
+     * @param sizes the sizes to keep, or none to keep all of them.
+     * @param categoryIds the ids of the categories to keep, or none to keep all of them.
+     * @param priceBands the price bands to keep, or none to keep all of them.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
+     */
+    @GetMapping("/products/filter")
+    public ResponseEntity<List<Product>> filterProducts(@RequestParam(required = false) List<Size> sizes,
+            @RequestParam(required = false) List<Long> categoryIds, @RequestParam(required = false) List<Integer> priceBands,
+            Pageable pageable) {
+        log.debug("REST request to filter a page of Products");
+        Page<Product> page = productService.findAllByFacets(sizes, categoryIds, priceBands, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /products/changes?since=:since&limit=:limit} : get the changes of the products and
+     * categories after a sequence, to keep a copy of the catalog in sync: the latest change of each
+     * product and category changed, in sequence order, with its current state or as a tombstone.
+     * Without {@code since}, get the sequence of the last change only, to read the changes from
+     * after copying the whole catalog.
+     *
+     * @param since the {@code next} sequence of the previous changes read.
+     * @param limit the most changes to read.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the changes in body, or with
+     * status {@code 410 (Gone)} if changes after the sequence have been purged, or with status
+     * {@code 400 (Bad Request)} if the sequence is after the last change.
+     */
+    @GetMapping("/products/changes")
+    public CatalogChangesDTO getProductChanges(@RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("REST request to get the changes of Products since {}", since);
+        return productService.findChanges(since, limit);
+    }
+
     /**
      * {@code GET  /products/:id} : get the "id" product.
      *
@@ -1,8 +1,10 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.domain.Shipment;
+import com.mycompany.store_.repository.KeysetSlice;
 import com.mycompany.store_.service.ShipmentService;
 import com.mycompany.store_.web.rest.errors.BadRequestAlertException;
+import com.mycompany.store_.web.rest.util.KeysetPaginationUtil;
 
 import io.github.jhipster.web.util.HeaderUtil;
 import io.github.jhipster.web.util.PaginationUtil;
@@ -89,12 +91,22 @@ public class ShipmentResource {
 
     /**
      * {@code GET  /shipments} : get all the shipments.
+     * <p>
+     * With an {@code after} parameter the shipments are paged by keyset instead: an empty value
+     * requests the first page, and the {@code Link} header holds the cursor of the next page.
      *
      * @param pageable the pagination information.
+     * @param after the cursor of the previous page, for keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shipments in body.
      */
     @GetMapping("/shipments")
-    public ResponseEntity<List<Shipment>> getAllShipments(Pageable pageable) {
+    public ResponseEntity<List<Shipment>> getAllShipments(Pageable pageable, @RequestParam(required = false) String after) {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of Shipments after {}", after);
+            KeysetSlice<Shipment> slice = shipmentService.findAllAfter(after, pageable);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         log.debug("REST request to get a page of Shipments");
         Page<Shipment> page = shipmentService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
@@ -3,7 +3,6 @@ package com.mycompany.store_.web.rest;
 import com.mycompany.store_.config.Constants;
 import com.mycompany.store_.domain.User;
 import com.mycompany.store_.repository.UserRepository;
-import com.mycompany.store_.repository.search.UserSearchRepository;
 import com.mycompany.store_.security.AuthoritiesConstants;
 import com.mycompany.store_.service.MailService;
 import com.mycompany.store_.service.UserService;
@@ -32,10 +31,6 @@ import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * REST controller for managing users.
@@ -76,13 +71,10 @@ public class UserResource {
 
     private final MailService mailService;
 
-    private final UserSearchRepository userSearchRepository;
-
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService, UserSearchRepository userSearchRepository) {
+    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.userSearchRepository = userSearchRepository;
     }
 
     /**
@@ -203,8 +195,6 @@ public class UserResource {
      */
     @GetMapping("/_search/users/{query}")
     public List<User> search(@PathVariable String query) {
-        return StreamSupport
-            .stream(userSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+        return userService.search(query);
     }
 }
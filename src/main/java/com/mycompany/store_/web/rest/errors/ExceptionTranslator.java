@@ -108,6 +108,31 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidProductImageException(com.mycompany.store_.service.InvalidProductImageException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "product", ex.getErrorKey()), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidCartException(com.mycompany.store_.service.InvalidCartException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "checkout", ex.getErrorKey()), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidCatalogSequenceException(com.mycompany.store_.service.InvalidCatalogSequenceException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "product", "sinceinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleReservedOrderCodeException(com.mycompany.store_.service.ReservedOrderCodeException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "productOrder", "codereserved"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidCursorException(com.mycompany.store_.repository.InvalidCursorException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), ex.getEntityName(), ex.getErrorKey()), request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(ex, request, HeaderUtil.createFailureAlert(applicationName, true, ex.getEntityName(), ex.getErrorKey(), ex.getMessage()));
@@ -121,4 +146,14 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
             .build();
         return create(ex, problem, request);
     }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleCatalogChangesExpiredException(com.mycompany.store_.service.CatalogChangesExpiredException ex, NativeWebRequest request) {
+        Problem problem = Problem.builder()
+            .withStatus(Status.GONE)
+            .withDetail(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_CATALOG_CHANGES_EXPIRED)
+            .build();
+        return create(ex, problem, request);
+    }
 }
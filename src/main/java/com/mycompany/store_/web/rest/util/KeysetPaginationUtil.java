@@ -0,0 +1,39 @@
+package com.mycompany.store_.web.rest.util;
+
+import com.mycompany.store_.repository.KeysetSlice;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset pagination.
+ * <p>
+ * Only the next page is linked, following <a href="https://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>:
+ * a keyset page has no total count and cannot jump to the last page.
+ */
+public final class KeysetPaginationUtil {
+
+    private KeysetPaginationUtil() {
+    }
+
+    /**
+     * Generate keyset pagination headers for a Spring Data {@link KeysetSlice} object.
+     *
+     * @param uriBuilder the URI builder of the current request.
+     * @param slice the page.
+     * @param <T> the type of the content.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateKeysetHttpHeaders(UriComponentsBuilder uriBuilder, KeysetSlice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.getNextCursor() != null) {
+            String next = uriBuilder
+                .replaceQueryParam("page")
+                .replaceQueryParam("after", slice.getNextCursor())
+                .replaceQueryParam("size", slice.getSize())
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
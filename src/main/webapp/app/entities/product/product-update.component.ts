@@ -27,6 +27,7 @@ export class ProductUpdateComponent implements OnInit {
     price: [null, [Validators.required, Validators.min(0)]],
     size: [null, [Validators.required]],
     image: [],
+    imageKey: [],
     imageContentType: [],
     productCategory: [],
   });
@@ -57,6 +58,7 @@ export class ProductUpdateComponent implements OnInit {
       price: product.price,
       size: product.size,
       image: product.image,
+      imageKey: product.imageKey,
       imageContentType: product.imageContentType,
       productCategory: product.productCategory,
     });
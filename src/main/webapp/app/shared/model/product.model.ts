@@ -9,6 +9,7 @@ export interface IProduct {
   size?: Size;
   imageContentType?: string;
   image?: any;
+  imageKey?: string;
   productCategory?: IProductCategory;
 }
 
@@ -21,6 +22,7 @@ export class Product implements IProduct {
     public size?: Size,
     public imageContentType?: string,
     public image?: any,
-    public productCategory?: IProductCategory
+    public productCategory?: IProductCategory,
+    public imageKey?: string
   ) {}
 }
@@ -0,0 +1,78 @@
+package com.mycompany.store_.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link ElasticsearchConfiguration.CustomEntityMapper}.
+ */
+public class ElasticsearchConfigurationTest {
+
+    private ObjectMapper objectMapper;
+
+    private EntityMapper entityMapper;
+
+    @BeforeEach
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        entityMapper = new ElasticsearchConfiguration(objectMapper).getEntityMapper();
+    }
+
+    @Test
+    public void mapObjectMatchesTheDocument() throws Exception {
+        Product product = product();
+
+        Map<String, Object> map = entityMapper.mapObject(product);
+
+        assertThat(objectMapper.readTree(objectMapper.writeValueAsString(map)))
+            .isEqualTo(objectMapper.readTree(entityMapper.mapToString(product)));
+    }
+
+    @Test
+    public void readObjectReadsMappedObjects() {
+        Product product = product();
+
+        Product read = entityMapper.readObject(entityMapper.mapObject(product), Product.class);
+
+        assertThat(read.getId()).isEqualTo(product.getId());
+        assertThat(read.getPrice()).isEqualByComparingTo(product.getPrice());
+        assertThat(read.getProductCategory().getName()).isEqualTo(product.getProductCategory().getName());
+    }
+
+    @Test
+    public void mapToObjectReadsDocuments() throws Exception {
+        ProductOrder productOrder = new ProductOrder().code("ORDER-1").status(OrderStatus.PENDING).placedDate(Instant.parse("2020-11-10T09:00:00Z"));
+        productOrder.setId(1L);
+        OrderItem orderItem = new OrderItem().quantity(2).product(product());
+        orderItem.setId(2L);
+        productOrder.addOrderItem(orderItem);
+
+        ProductOrder read = entityMapper.mapToObject(entityMapper.mapToString(productOrder), ProductOrder.class);
+
+        assertThat(read.getCode()).isEqualTo(productOrder.getCode());
+        assertThat(read.getPlacedDate()).isEqualTo(productOrder.getPlacedDate());
+        assertThat(read.getOrderItems()).extracting(OrderItem::getId).containsExactly(2L);
+    }
+
+    private static Product product() {
+        ProductCategory productCategory = new ProductCategory().name("Category");
+        productCategory.setId(1L);
+        Product product = new Product().name("Product").price(new BigDecimal("19.99")).productCategory(productCategory);
+        product.setId(3L);
+        return product;
+    }
+}
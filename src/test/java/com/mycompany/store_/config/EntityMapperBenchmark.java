@@ -0,0 +1,200 @@
+package com.mycompany.store_.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.enumeration.Gender;
+import com.mycompany.store_.domain.enumeration.OrderItemStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.domain.enumeration.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.mapping.MappingException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link ElasticsearchConfiguration.CustomEntityMapper} on product and order
+ * graphs, against the previous mapper, which converted to and from maps through JSON text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMapperBenchmark {
+
+    @Param({"product", "productOrder"})
+    private String graph;
+
+    private EntityMapper mapper;
+
+    private EntityMapper textMapper;
+
+    private Object entity;
+
+    private String source;
+
+    private Map<String, Object> map;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = new ElasticsearchConfiguration(objectMapper()).getEntityMapper();
+        textMapper = new TextEntityMapper(objectMapper());
+        entity = "product".equals(graph) ? product(1L) : productOrder();
+        source = mapper.mapToString(entity);
+        map = mapper.mapObject(entity);
+    }
+
+    @Benchmark
+    public String mapToString() throws IOException {
+        return mapper.mapToString(entity);
+    }
+
+    @Benchmark
+    public String mapToStringText() throws IOException {
+        return textMapper.mapToString(entity);
+    }
+
+    @Benchmark
+    public Object mapToObject() throws IOException {
+        return mapper.mapToObject(source, entity.getClass());
+    }
+
+    @Benchmark
+    public Object mapToObjectText() throws IOException {
+        return textMapper.mapToObject(source, entity.getClass());
+    }
+
+    @Benchmark
+    public Map<String, Object> mapObject() {
+        return mapper.mapObject(entity);
+    }
+
+    @Benchmark
+    public Map<String, Object> mapObjectText() {
+        return textMapper.mapObject(entity);
+    }
+
+    @Benchmark
+    public Object readObject() {
+        return mapper.readObject(map, entity.getClass());
+    }
+
+    @Benchmark
+    public Object readObjectText() {
+        return textMapper.readObject(map, entity.getClass());
+    }
+
+    private static ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule()).registerModule(new Jdk8Module());
+    }
+
+    private static Product product(long id) {
+        ProductCategory productCategory = new ProductCategory().name("Category").description("The category of the products");
+        productCategory.setId(1L);
+        Product product = new Product()
+            .name("Product " + id)
+            .description("A product, with a description as long as they usually are")
+            .price(new BigDecimal("19.99"))
+            .size(Size.M)
+            .imageKey("images/" + id)
+            .imageContentType("image/png")
+            .productCategory(productCategory);
+        product.setId(id);
+        return product;
+    }
+
+    private static ProductOrder productOrder() {
+        Customer customer = new Customer()
+            .firstName("Jane")
+            .lastName("Doe")
+            .gender(Gender.FEMALE)
+            .email("jane.doe@example.com")
+            .phone("+1 555 0100")
+            .addressLine1("1 Main Street")
+            .city("Springfield")
+            .country("US");
+        customer.setId(1L);
+        ProductOrder productOrder = new ProductOrder()
+            .placedDate(Instant.parse("2020-11-10T09:00:00Z"))
+            .status(OrderStatus.PENDING)
+            .code("ORDER-1")
+            .customer(customer);
+        productOrder.setId(1L);
+        for (long id = 1; id <= 5; id++) {
+            OrderItem orderItem = new OrderItem().quantity(2).status(OrderItemStatus.AVAILABLE).product(product(id));
+            orderItem.setId(id);
+            productOrder.addOrderItem(orderItem);
+        }
+        return productOrder;
+    }
+
+    /**
+     * The previous mapper, writing and parsing JSON text to convert to and from maps.
+     */
+    private static class TextEntityMapper implements EntityMapper {
+
+        private final ObjectMapper objectMapper;
+
+        TextEntityMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+            objectMapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+            objectMapper.configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, true);
+            objectMapper.configure(SerializationFeature.INDENT_OUTPUT, false);
+            objectMapper.configure(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS, true);
+        }
+
+        @Override
+        public String mapToString(Object object) throws IOException {
+            return objectMapper.writeValueAsString(object);
+        }
+
+        @Override
+        public <T> T mapToObject(String source, Class<T> clazz) throws IOException {
+            return objectMapper.readValue(source, clazz);
+        }
+
+        @Override
+        public Map<String, Object> mapObject(Object source) {
+            try {
+                return objectMapper.readValue(mapToString(source), new TypeReference<Map<String, Object>>() {});
+            } catch (IOException e) {
+                throw new MappingException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public <T> T readObject(Map<String, Object> source, Class<T> targetType) {
+            try {
+                return mapToObject(mapToString(source), targetType);
+            } catch (IOException e) {
+                throw new MappingException(e.getMessage(), e);
+            }
+        }
+    }
+}
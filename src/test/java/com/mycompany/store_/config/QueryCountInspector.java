@@ -0,0 +1,90 @@
+package com.mycompany.store_.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hibernate {@link StatementInspector} counting the SQL statements prepared by the current thread,
+ * to pin the number of queries run by an endpoint.
+ * <p>
+ * Registered for the tests with the {@code hibernate.session_factory.statement_inspector} property.
+ * Statements are counted as they are prepared: a JDBC batch of inserts counts once.
+ * <pre>
+ * QueryCountInspector.reset();
+ * restMockMvc.perform(get("/api/products"));
+ * QueryCountInspector.assertSelectCount(2);
+ * </pre>
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<Map<String, Integer>> COUNTS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<List<String>> SELECTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        String kind = kind(sql);
+        COUNTS.get().merge(kind, 1, Integer::sum);
+        if ("select".equals(kind)) {
+            SELECTS.get().add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Forgets the statements counted so far by the current thread.
+     */
+    public static void reset() {
+        COUNTS.get().clear();
+        SELECTS.get().clear();
+    }
+
+    /**
+     * @return the select statements prepared by the current thread since the last {@link #reset()}, in order.
+     */
+    public static List<String> selectStatements() {
+        return new ArrayList<>(SELECTS.get());
+    }
+
+    public static void assertSelectCount(int expected) {
+        assertCount("select", expected);
+    }
+
+    public static void assertInsertCount(int expected) {
+        assertCount("insert", expected);
+    }
+
+    public static void assertUpdateCount(int expected) {
+        assertCount("update", expected);
+    }
+
+    public static void assertDeleteCount(int expected) {
+        assertCount("delete", expected);
+    }
+
+    private static void assertCount(String kind, int expected) {
+        assertThat(count(kind)).as("number of %s statements", kind).isEqualTo(expected);
+    }
+
+    private static int count(String kind) {
+        return COUNTS.get().getOrDefault(kind, 0);
+    }
+
+    private static String kind(String sql) {
+        String statement = sql.trim();
+        int end = 0;
+        while (end < statement.length() && Character.isLetter(statement.charAt(end))) {
+            end++;
+        }
+        return statement.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+}
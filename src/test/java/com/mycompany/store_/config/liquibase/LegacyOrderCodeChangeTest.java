@@ -0,0 +1,47 @@
+package com.mycompany.store_.config.liquibase;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Unit tests for {@link LegacyOrderCodeChange}.
+ */
+public class LegacyOrderCodeChangeTest {
+
+    @Test
+    public void rewritesOnlyTheCodesTheAllocatorCouldHandOut() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table product_order (id bigint primary key, code varchar(255))");
+                statement.execute("insert into product_order values (1, '000001Y'), (2, '000001Z'), (3, 'order-3'), (4, null)");
+            }
+            Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+            LegacyOrderCodeChange change = new LegacyOrderCodeChange();
+            change.execute(database);
+
+            Map<Long, String> codes = new LinkedHashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("select id, code from product_order order by id")) {
+                while (rows.next()) {
+                    codes.put(rows.getLong("id"), rows.getString("code"));
+                }
+            }
+            assertThat(codes).containsExactly(
+                entry(1L, "000001Y-1"), entry(2L, "000001Z"), entry(3L, "order-3"), entry(4L, null));
+            assertThat(change.getConfirmationMessage()).startsWith("Rewrote 1 ");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mycompany.store_.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building and probing the {@link HashSet}s used for the to-many associations, with
+ * the hash code of {@link AbstractEntity}, against entities hashing to a literal constant as
+ * they did before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityHashSetBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private List<Product> persisted;
+
+    private List<Product> detached;
+
+    private List<Product> transients;
+
+    private List<Product> constantHash;
+
+    private Set<Product> persistedSet;
+
+    private Set<Product> constantHashSet;
+
+    @Setup
+    public void setUp() {
+        persisted = new ArrayList<>(size);
+        detached = new ArrayList<>(size);
+        transients = new ArrayList<>(size);
+        constantHash = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            persisted.add(product(new Product(), id));
+            detached.add(product(new Product(), id));
+            transients.add(new Product());
+            constantHash.add(product(new ConstantHashProduct(), id));
+        }
+        persistedSet = new HashSet<>(persisted);
+        constantHashSet = new HashSet<>(constantHash);
+    }
+
+    @Benchmark
+    public Set<Product> buildPersisted() {
+        return new HashSet<>(persisted);
+    }
+
+    @Benchmark
+    public Set<Product> buildTransient() {
+        return new HashSet<>(transients);
+    }
+
+    @Benchmark
+    public Set<Product> buildConstantHash() {
+        return new HashSet<>(constantHash);
+    }
+
+    @Benchmark
+    public int containsPersisted() {
+        int found = 0;
+        for (Product product : detached) {
+            if (persistedSet.contains(product)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsConstantHash() {
+        int found = 0;
+        for (Product product : detached) {
+            if (constantHashSet.contains(product)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static Product product(Product product, long id) {
+        product.setId(id);
+        return product;
+    }
+
+    /**
+     * The previous identity scheme: equal by id, constant hash code.
+     */
+    private static class ConstantHashProduct extends Product {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Product && getId() != null && getId().equals(((Product) o).getId());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31;
+        }
+    }
+}
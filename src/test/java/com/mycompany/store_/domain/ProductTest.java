@@ -1,6 +1,10 @@
 package com.mycompany.store_.domain;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import com.mycompany.store_.web.rest.TestUtil;
 
@@ -19,4 +23,20 @@ public class ProductTest {
         product1.setId(null);
         assertThat(product1).isNotEqualTo(product2);
     }
+
+    @Test
+    public void hashCodeIsStableOncePersisted() {
+        Product product = new Product();
+        Set<Product> products = new HashSet<>();
+        products.add(product);
+        product.setId(1L);
+        assertThat(products).contains(product);
+
+        // Another instance of the same row, hashed once persisted
+        Product loaded = new Product();
+        loaded.setId(1L);
+        assertThat(loaded).isEqualTo(product);
+        assertThat(loaded.hashCode()).isEqualTo(product.hashCode());
+        assertThat(products).contains(loaded);
+    }
 }
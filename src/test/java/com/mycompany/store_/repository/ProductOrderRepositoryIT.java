@@ -0,0 +1,73 @@
+package com.mycompany.store_.repository;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.web.rest.ProductOrderResourceIT;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link ProductOrderRepository}.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@Transactional
+public class ProductOrderRepositoryIT {
+
+    private static final int ROWS = 60;
+
+    private static final int BATCH_SIZE = 25;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void insertsAreBatched() {
+        JdbcCounter counter = new JdbcCounter();
+        em.unwrap(Session.class).addEventListeners(counter);
+        List<ProductOrder> productOrders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            productOrders.add(ProductOrderResourceIT.createEntity(em).code("ORDER-" + i));
+        }
+
+        productOrderRepository.saveAll(productOrders);
+        productOrderRepository.flush();
+
+        assertThat(productOrders).extracting(ProductOrder::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(counter.batches).isEqualTo((ROWS + BATCH_SIZE - 1) / BATCH_SIZE);
+        // Only the id_generator select and update of each block of 50 ids are not batched
+        assertThat(counter.statements).isLessThanOrEqualTo(2 * (ROWS / 50 + 1));
+    }
+
+    private static class JdbcCounter extends BaseSessionEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        private int batches;
+
+        private int statements;
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            batches++;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            statements++;
+        }
+    }
+}
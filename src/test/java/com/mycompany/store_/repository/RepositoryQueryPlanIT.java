@@ -0,0 +1,217 @@
+package com.mycompany.store_.repository;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.Shipment;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.service.OrderSearchProjection;
+import com.mycompany.store_.web.rest.CustomerResourceIT;
+import com.mycompany.store_.web.rest.InvoiceResourceIT;
+import com.mycompany.store_.web.rest.OrderItemResourceIT;
+import com.mycompany.store_.web.rest.ProductCategoryResourceIT;
+import com.mycompany.store_.web.rest.ProductOrderResourceIT;
+import com.mycompany.store_.web.rest.ProductResourceIT;
+import com.mycompany.store_.web.rest.ShipmentResourceIT;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests checking that the lookups of the repositories are answered from an index.
+ * <p>
+ * The select statements prepared by each lookup are explained by H2, and a plan reading a whole
+ * table fails the test. The listings of a whole table are not checked, nor the lookup of users by
+ * e-mail, whose {@code upper()} cannot use an index in H2, nor the daily purge of the accounts
+ * that were never activated.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@Transactional
+public class RepositoryQueryPlanIT {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ShipmentRepository shipmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private OrderSearchProjection orderSearchProjection;
+
+    @Autowired
+    private EntityManager em;
+
+    private ProductCategory productCategory;
+
+    private Product product;
+
+    private Customer customer;
+
+    private ProductOrder productOrder;
+
+    private OrderItem orderItem;
+
+    private Invoice invoice;
+
+    private Shipment shipment;
+
+    @BeforeEach
+    public void initTest() {
+        productCategory = ProductCategoryResourceIT.createEntity(em);
+        em.persist(productCategory);
+        product = ProductResourceIT.createEntity(em).productCategory(productCategory);
+        em.persist(product);
+        customer = CustomerResourceIT.createEntity(em);
+        em.persist(customer);
+        productOrder = ProductOrderResourceIT.createEntity(em).customer(customer);
+        em.persist(productOrder);
+        orderItem = OrderItemResourceIT.createEntity(em).order(productOrder).product(product);
+        em.persist(orderItem);
+        invoice = InvoiceResourceIT.createEntity(em).order(productOrder);
+        em.persist(invoice);
+        shipment = ShipmentResourceIT.createEntity(em).invoice(invoice);
+        em.persist(shipment);
+        em.flush();
+        em.clear();
+        // Lookups answered by the second level cache would not reach the database
+        em.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    @Test
+    public void catalogLookupsUseIndexes() {
+        assertIndexed(() -> {
+            productRepository.findImageKeyById(product.getId());
+            productRepository.findImageKeysByImageKeyIn(Collections.singletonList("image"));
+            productRepository.findOneWithProductCategory(product.getId());
+            productRepository.findAllWithProductCategoryByIdIn(Collections.singletonList(product.getId()));
+            em.find(ProductCategory.class, productCategory.getId()).getProducts().size();
+        });
+    }
+
+    @Test
+    public void orderLookupsUseIndexes() {
+        assertIndexed(() -> {
+            productOrderRepository.findOneWithCustomer(productOrder.getId());
+            productOrderRepository.findOneWithCustomerAndOrderItems(productOrder.getId());
+            productOrderRepository.findAllByCustomerAfter(customer.getId(), EnumSet.of(OrderStatus.PENDING), "", 20);
+            invoiceRepository.findAllWithShipmentsByOrderId(productOrder.getId());
+            orderItemRepository.findOneWithProductAndOrder(orderItem.getId());
+            shipmentRepository.findOneWithInvoice(shipment.getId());
+            customerRepository.findOneWithUser(customer.getId());
+        });
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        assertIndexed(() -> {
+            ProductOrder order = em.find(ProductOrder.class, productOrder.getId());
+            order.getOrderItems().size();
+            order.getInvoices().forEach(orderInvoice -> orderInvoice.getShipments().size());
+            order.getCustomer().getOrders().size();
+        });
+    }
+
+    @Test
+    public void orderSearchProjectionUsesIndexes() {
+        assertIndexed(() -> {
+            orderSearchProjection.findDocumentIds(OrderItem.class, Collections.singletonList(orderItem.getId()));
+            orderSearchProjection.findDocumentIds(Invoice.class, Collections.singletonList(invoice.getId()));
+            orderSearchProjection.findDocumentIds(Shipment.class, Collections.singletonList(shipment.getId()));
+            // Only the changes of embedded columns look up the orders of a customer or a product
+            orderSearchProjection.findDocumentIds(Customer.class, Collections.singletonList(customer.lastName("Renamed").getId()));
+            orderSearchProjection.findDocumentIds(Product.class, Collections.singletonList(product.name("Renamed").getId()));
+            orderSearchProjection.findDocuments(Collections.singleton(productOrder.getId()));
+        });
+    }
+
+    @Test
+    public void accountLookupsUseIndexes() {
+        assertIndexed(() -> {
+            userRepository.findOneByActivationKey("activation");
+            userRepository.findOneByResetKey("reset");
+            userRepository.findOneByLogin("admin");
+            userRepository.findOneWithAuthoritiesByLogin("admin");
+            userRepository.findAllWithAuthoritiesByIdIn(Collections.singletonList(1L));
+            persistenceAuditEventRepository.findByPrincipal("admin");
+            persistenceAuditEventRepository.findByPrincipalAndAuditEventDateAfterAndAuditEventType("admin", Instant.now(), "AUTHENTICATION_SUCCESS");
+            persistenceAuditEventRepository.findAllByAuditEventDateBetween(Instant.EPOCH, Instant.now(), PageRequest.of(0, 20));
+            persistenceAuditEventRepository.findByAuditEventDateBefore(Instant.EPOCH);
+        });
+    }
+
+    @Test
+    public void queueLookupsUseIndexes() {
+        assertIndexed(() -> {
+            searchOutboxRepository.findByNextAttemptDateLessThanEqualOrderById(Instant.now(), PageRequest.of(0, 100));
+            catalogChangeRepository.findBySequenceGreaterThanOrderBySequence(0L, PageRequest.of(0, 100));
+        });
+    }
+
+    /**
+     * Runs the lookups, then explains each select statement they prepared, with null parameters:
+     * H2 chooses the plan from the statement alone.
+     */
+    private void assertIndexed(Runnable lookups) {
+        QueryCountInspector.reset();
+        lookups.run();
+        List<String> selects = QueryCountInspector.selectStatements();
+        assertThat(selects).isNotEmpty();
+        em.unwrap(Session.class).doWork(connection -> {
+            for (String select : selects) {
+                try (PreparedStatement explain = connection.prepareStatement("explain " + select)) {
+                    int parameterCount = explain.getParameterMetaData().getParameterCount();
+                    for (int i = 1; i <= parameterCount; i++) {
+                        explain.setNull(i, Types.NULL);
+                    }
+                    try (ResultSet plan = explain.executeQuery()) {
+                        assertThat(plan.next()).isTrue();
+                        assertThat(plan.getString(1)).as("plan of %s", select).doesNotContain(".tableScan");
+                    }
+                }
+            }
+        });
+    }
+}
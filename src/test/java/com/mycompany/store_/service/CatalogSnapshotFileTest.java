@@ -0,0 +1,73 @@
+package com.mycompany.store_.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link CatalogSnapshotFile}.
+ */
+public class CatalogSnapshotFileTest {
+
+    private static final Instant WATERMARK = Instant.parse("2020-11-13T09:00:00.123Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writeThenRead() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(file, new CatalogSnapshotFile.Contents(WATERMARK, Arrays.asList(
+            new CatalogSnapshot.ProductRow(1L, "Blue shirt", 1999L, (byte) 1, 10L, "image/png"),
+            new CatalogSnapshot.ProductRow(2L, "Chaussette bleue été", 250L, (byte) -1, Long.MIN_VALUE, null)),
+            Arrays.asList(new CatalogSnapshot.CategoryRow(10L, "Shirts", null))));
+
+        CatalogSnapshotFile.Contents contents = CatalogSnapshotFile.read(file);
+
+        assertThat(contents.getWatermark()).isEqualTo(WATERMARK);
+        assertThat(contents.getProducts()).hasSize(2);
+        CatalogSnapshot.ProductRow shirt = contents.getProducts().get(0);
+        assertThat(shirt.id).isEqualTo(1L);
+        assertThat(shirt.name).isEqualTo("Blue shirt");
+        assertThat(shirt.priceCents).isEqualTo(1999L);
+        assertThat(shirt.size).isEqualTo((byte) 1);
+        assertThat(shirt.categoryId).isEqualTo(10L);
+        assertThat(shirt.imageContentType).isEqualTo("image/png");
+        CatalogSnapshot.ProductRow sock = contents.getProducts().get(1);
+        assertThat(sock.name).isEqualTo("Chaussette bleue été");
+        assertThat(sock.size).isEqualTo((byte) -1);
+        assertThat(sock.categoryId).isEqualTo(Long.MIN_VALUE);
+        assertThat(sock.imageContentType).isNull();
+        assertThat(contents.getCategories()).hasSize(1);
+        assertThat(contents.getCategories().get(0).name).isEqualTo("Shirts");
+        assertThat(contents.getCategories().get(0).description).isNull();
+    }
+
+    @Test
+    public void readRejectsACorruptedFile() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshotFile.write(file, new CatalogSnapshotFile.Contents(WATERMARK, Arrays.asList(
+            new CatalogSnapshot.ProductRow(1L, "Blue shirt", 1999L, (byte) 1, 10L, null)), Arrays.asList()));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[40] ^= 1;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> CatalogSnapshotFile.read(file)).isInstanceOf(IOException.class).hasMessageContaining("checksum");
+    }
+
+    @Test
+    public void readRejectsATruncatedFile() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        Files.write(file, new byte[] { 'C', 'A', 'T' });
+
+        assertThatThrownBy(() -> CatalogSnapshotFile.read(file)).isInstanceOf(IOException.class);
+    }
+}
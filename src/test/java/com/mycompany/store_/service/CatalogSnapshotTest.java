@@ -0,0 +1,165 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.service.dto.CatalogCategoryDTO;
+import com.mycompany.store_.service.dto.CatalogProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CatalogSnapshot}.
+ */
+public class CatalogSnapshotTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        List<Object[]> products = new ArrayList<>();
+        products.add(new Object[] { 3L, "Blue shirt", new BigDecimal("19.99"), Size.M, 10L, "image/png" });
+        products.add(new Object[] { 1L, "red shirt", new BigDecimal("9.50"), Size.S, 10L, null });
+        products.add(new Object[] { 2L, "Trousers", new BigDecimal("45.00"), Size.L, 20L, "image/png" });
+        products.add(new Object[] { 4L, "Hat", new BigDecimal("19.99"), Size.M, null, null });
+        List<Object[]> categories = new ArrayList<>();
+        categories.add(new Object[] { 20L, "Trousers", null });
+        categories.add(new Object[] { 10L, "Shirts", "All the shirts" });
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getCatalogSnapshot().setFile(null);
+        snapshot = new CatalogSnapshot(null, applicationProperties);
+        snapshot.load(Instant.now(), products, categories);
+    }
+
+    @Test
+    public void findProductsInIdOrderByDefault() {
+        Page<CatalogProductDTO> page = snapshot.findProducts(null, null, null, null, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(CatalogProductDTO::getId).containsExactly(1L, 2L, 3L, 4L);
+        CatalogProductDTO product = page.getContent().get(0);
+        assertThat(product.getName()).isEqualTo("red shirt");
+        assertThat(product.getPrice()).isEqualByComparingTo("9.50");
+        assertThat(product.getSize()).isEqualTo(Size.S);
+        assertThat(product.getProductCategoryId()).isEqualTo(10L);
+        assertThat(product.getProductCategoryName()).isEqualTo("Shirts");
+        assertThat(page.getContent().get(3).getProductCategoryId()).isNull();
+    }
+
+    @Test
+    public void findProductsSortedByNameOrPrice() {
+        assertThat(ids(null, null, null, null, PageRequest.of(0, 10, Sort.by("name")))).containsExactly(3L, 4L, 1L, 2L);
+        assertThat(ids(null, null, null, null, PageRequest.of(0, 10, Sort.by("price")))).containsExactly(1L, 3L, 4L, 2L);
+        assertThat(ids(null, null, null, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price")))).containsExactly(2L, 4L, 3L, 1L);
+    }
+
+    @Test
+    public void findProductsFiltered() {
+        assertThat(ids(10L, null, null, null, PageRequest.of(0, 10))).containsExactly(1L, 3L);
+        assertThat(ids(null, Size.M, null, null, PageRequest.of(0, 10))).containsExactly(3L, 4L);
+        assertThat(ids(null, null, new BigDecimal("9.51"), new BigDecimal("19.99"), PageRequest.of(0, 10))).containsExactly(3L, 4L);
+        assertThat(ids(30L, null, null, null, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    public void findProductsPaged() {
+        Page<CatalogProductDTO> page = snapshot.findProducts(null, null, null, null, PageRequest.of(1, 3, Sort.by("price")));
+
+        assertThat(page.getContent()).extracting(CatalogProductDTO::getId).containsExactly(2L);
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void findCategoriesCountsTheirProducts() {
+        List<CatalogCategoryDTO> categories = snapshot.findCategories();
+
+        assertThat(categories).extracting(CatalogCategoryDTO::getId).containsExactly(10L, 20L);
+        assertThat(categories).extracting(CatalogCategoryDTO::getProductCount).containsExactly(2L, 1L);
+        assertThat(categories.get(0).getDescription()).isEqualTo("All the shirts");
+    }
+
+    @Test
+    public void putAndRemoveProducts() {
+        snapshot.putProduct(1L, "Red shirt", new BigDecimal("50"), Size.S, 20L, null);
+        snapshot.putProduct(5L, "Cap", new BigDecimal("5"), Size.XL, 10L, null);
+        snapshot.removeProduct(2L);
+        snapshot.removeProduct(6L);
+
+        assertThat(ids(null, null, null, null, PageRequest.of(0, 10, Sort.by("price")))).containsExactly(5L, 3L, 4L, 1L);
+        assertThat(ids(20L, null, null, null, PageRequest.of(0, 10))).containsExactly(1L);
+        assertThat(snapshot.findCategories()).extracting(CatalogCategoryDTO::getProductCount).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void putAndRemoveCategories() {
+        snapshot.putCategory(10L, "All shirts", null);
+        snapshot.removeCategory(20L);
+
+        assertThat(snapshot.findCategories()).extracting(CatalogCategoryDTO::getName).containsExactly("All shirts");
+        List<CatalogProductDTO> products = snapshot.findProducts(null, null, null, null, PageRequest.of(0, 10)).getContent();
+        assertThat(products.get(0).getProductCategoryName()).isEqualTo("All shirts");
+        assertThat(products.get(1).getProductCategoryId()).isEqualTo(20L);
+        assertThat(products.get(1).getProductCategoryName()).isNull();
+    }
+
+    @Test
+    public void productsWithoutPriceSortFirstAndAreNotInPriceRanges() {
+        snapshot.putProduct(5L, "Gift card", null, null, null, null);
+
+        assertThat(snapshot.findProducts(null, null, null, null, PageRequest.of(0, 10)).getContent().get(4).getPrice()).isNull();
+        assertThat(ids(null, null, null, null, PageRequest.of(0, 10, Sort.by("price")))).containsExactly(5L, 1L, 3L, 4L, 2L);
+        assertThat(ids(null, null, null, new BigDecimal("10"), PageRequest.of(0, 10))).containsExactly(1L);
+    }
+
+    @Test
+    public void putAndRemoveProductsKeepTheOrdersOfALoad() {
+        for (long id = 1; id <= 4; id++) {
+            snapshot.removeProduct(id);
+        }
+        Random random = new Random(42);
+        Map<Long, Object[]> products = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(60);
+            if (random.nextInt(4) == 0) {
+                snapshot.removeProduct(id);
+                products.put(id, null);
+            } else {
+                String name = random.nextBoolean() ? null : "Product " + random.nextInt(20);
+                BigDecimal price = random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(5000), 2);
+                snapshot.putProduct(id, name, price, Size.S, 10L, null);
+                products.put(id, new Object[] { id, name, price, Size.S, 10L, null });
+            }
+        }
+        CatalogSnapshot loaded = new CatalogSnapshot(null, new ApplicationProperties());
+        List<Object[]> rows = products.values().stream().filter(row -> row != null).collect(Collectors.toList());
+        loaded.load(Instant.now(), rows, new ArrayList<>());
+
+        for (String property : new String[] { "id", "name", "price" }) {
+            Pageable pageable = PageRequest.of(0, 100, Sort.by(property));
+            assertThat(ids(null, null, null, null, pageable)).as(property)
+                .containsExactlyElementsOf(loaded.findProducts(null, null, null, null, pageable).getContent().stream()
+                    .map(CatalogProductDTO::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    private List<Long> ids(Long categoryId, Size size, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return snapshot.findProducts(categoryId, size, minPrice, maxPrice, pageable).getContent().stream()
+            .map(CatalogProductDTO::getId)
+            .collect(Collectors.toList());
+    }
+}
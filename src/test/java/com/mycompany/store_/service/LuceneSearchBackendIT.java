@@ -0,0 +1,49 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.web.rest.ProductCategoryResourceIT;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the application searching with the {@link LuceneSearchBackend}.
+ */
+@SpringBootTest(classes = StoreApp.class, properties = {
+    "application.search.backend=lucene",
+    "application.search.lucene.directory=target/lucene"
+})
+@Transactional
+public class LuceneSearchBackendIT {
+
+    @Autowired
+    private SearchBackend searchBackend;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private SearchOutboxDispatcher searchOutboxDispatcher;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void searchFindsDispatchedEntities() {
+        assertThat(searchBackend).isInstanceOf(LuceneSearchBackend.class);
+        ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        searchOutboxDispatcher.flush();
+
+        List<ProductCategory> productCategories = productCategoryService.search("id:" + productCategory.getId());
+
+        assertThat(productCategories).containsExactly(productCategory);
+    }
+}
@@ -0,0 +1,125 @@
+package com.mycompany.store_.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
+/**
+ * Unit tests for {@link LuceneSearchBackend}.
+ */
+public class LuceneSearchBackendTest {
+
+    private static final SearchDocumentType PRODUCT = new SearchDocumentType("Product", Product.class, "product", "product");
+
+    @TempDir
+    public Path directory;
+
+    private ApplicationProperties applicationProperties;
+
+    private LuceneSearchBackend backend;
+
+    @BeforeEach
+    public void setUp() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().getLucene().setDirectory(directory.toString());
+        backend = new LuceneSearchBackend(applicationProperties, new ObjectMapper());
+        List<SearchDocument> failed = backend.write(Arrays.asList(
+            product(1L, "{\"id\":1,\"name\":\"Red shirt\",\"price\":19.99,\"productCategory\":{\"id\":7,\"name\":\"Shirts\"}}"),
+            product(2L, "{\"id\":2,\"name\":\"Blue shirt\",\"price\":24.5,\"productCategory\":{\"id\":7,\"name\":\"Shirts\"}}"),
+            product(3L, "{\"id\":3,\"name\":\"Blue trousers\",\"price\":49,\"productCategory\":null}")));
+        assertThat(failed).isEmpty();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Test
+    public void searchAllFieldsByDefault() {
+        assertThat(search("blue", Pageable.unpaged()).getContent()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(search("shirts", Pageable.unpaged()).getContent()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    public void searchFieldsByPath() {
+        assertThat(search("id:2", Pageable.unpaged()).getContent()).containsExactly(2L);
+        assertThat(search("productCategory.id:7 AND name:red", Pageable.unpaged()).getContent()).containsExactly(1L);
+        assertThat(search("price:[20 TO 50]", Pageable.unpaged()).getContent()).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    public void searchPagesSortedResults() {
+        Page<Long> page = search("*", PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).containsExactly(1L);
+        assertThat(search("*", PageRequest.of(0, 3, Sort.by("name"))).getContent()).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    public void searchFarPageIsEmpty() {
+        Page<Long> page = search("*", PageRequest.of(Integer.MAX_VALUE / 2, 100));
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void writeReplacesAndDeletesDocuments() {
+        backend.write(Arrays.asList(
+            product(1L, "{\"id\":1,\"name\":\"Green shirt\",\"price\":19.99}"),
+            product(2L, null)));
+
+        assertThat(search("red", Pageable.unpaged()).getContent()).isEmpty();
+        assertThat(search("green", Pageable.unpaged()).getContent()).containsExactly(1L);
+        assertThat(search("id:2", Pageable.unpaged()).getContent()).isEmpty();
+    }
+
+    @Test
+    public void reopenedIndexKeepsNumericFields() {
+        backend.close();
+        backend = new LuceneSearchBackend(applicationProperties, new ObjectMapper());
+
+        assertThat(search("id:3", Pageable.unpaged()).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    public void writeReportsUnreadableDocuments() {
+        SearchDocument unreadable = product(4L, "{");
+
+        assertThat(backend.write(Collections.singletonList(unreadable))).containsExactly(unreadable);
+    }
+
+    @Test
+    public void searchRejectsOtherQueries() {
+        assertThatThrownBy(() -> backend.search(PRODUCT, boolQuery(), Pageable.unpaged()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Page<Long> search(String query, Pageable pageable) {
+        return backend.search(PRODUCT, queryStringQuery(query), pageable);
+    }
+
+    private static SearchDocument product(Long id, String source) {
+        return new SearchDocument(PRODUCT, id, source);
+    }
+}
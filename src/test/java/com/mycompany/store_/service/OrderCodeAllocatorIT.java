@@ -0,0 +1,70 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.ApplicationProperties;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link OrderCodeAllocator}.
+ */
+@SpringBootTest(classes = StoreApp.class)
+public class OrderCodeAllocatorIT {
+
+    private static final int THREADS = 4;
+
+    private static final int CODES_PER_THREAD = 250;
+
+    @Autowired
+    private OrderCodeAllocator orderCodeAllocator;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void codesAreUniqueAcrossNodes() throws Exception {
+        // Another node, reserving small blocks concurrently with this one
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getOrderCodes().setBlockSize(7);
+        OrderCodeAllocator otherNode = new OrderCodeAllocator(em, transactionManager, properties);
+
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                OrderCodeAllocator allocator = thread % 2 == 0 ? orderCodeAllocator : otherNode;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < CODES_PER_THREAD; i++) {
+                        codes.add(allocator.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(codes).hasSize(THREADS * CODES_PER_THREAD);
+        assertThat(codes).allMatch(OrderCodeAllocator::isValid);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mycompany.store_.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the codes of {@link OrderCodeAllocator}.
+ */
+public class OrderCodeAllocatorTest {
+
+    @Test
+    public void formatPadsAndAppendsCheckCharacter() {
+        assertThat(OrderCodeAllocator.format(1)).hasSize(OrderCodeAllocator.MIN_LENGTH + 1).startsWith("000001");
+        assertThat(OrderCodeAllocator.format(32)).startsWith("000010");
+        assertThat(OrderCodeAllocator.format(1L << 35)).startsWith("1000000");
+        for (long value = 1; value < 100_000; value += 7) {
+            assertThat(OrderCodeAllocator.isValid(OrderCodeAllocator.format(value))).as("code of %d", value).isTrue();
+        }
+    }
+
+    @Test
+    public void isValidRejectsSubstitutedCharacter() {
+        String alphabet = OrderCodeAllocator.ALPHABET;
+        for (long value = 1; value < 5_000; value += 13) {
+            String code = OrderCodeAllocator.format(value);
+            for (int i = 0; i < code.length(); i++) {
+                for (int c = 0; c < alphabet.length(); c++) {
+                    if (alphabet.charAt(c) != code.charAt(i)) {
+                        String typo = code.substring(0, i) + alphabet.charAt(c) + code.substring(i + 1);
+                        assertThat(OrderCodeAllocator.isValid(typo)).as("typo %s of %s", typo, code).isFalse();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void isValidRejectsSwappedCharacters() {
+        String alphabet = OrderCodeAllocator.ALPHABET;
+        for (long value = 1; value < 5_000; value += 13) {
+            String code = OrderCodeAllocator.format(value);
+            for (int i = 0; i + 1 < code.length(); i++) {
+                char first = code.charAt(i);
+                char second = code.charAt(i + 1);
+                // Like 09 and 90 in Luhn mod 10, Luhn mod N misses the swap of its first and last characters
+                if (first == second || Math.abs(alphabet.indexOf(first) - alphabet.indexOf(second)) == alphabet.length() - 1) {
+                    continue;
+                }
+                String swap = code.substring(0, i) + second + first + code.substring(i + 2);
+                assertThat(OrderCodeAllocator.isValid(swap)).as("swap %s of %s", swap, code).isFalse();
+            }
+        }
+    }
+
+    @Test
+    public void isValidRejectsMalformedCodes() {
+        String code = OrderCodeAllocator.format(12345);
+        assertThat(OrderCodeAllocator.isValid(null)).isFalse();
+        assertThat(OrderCodeAllocator.isValid(code.substring(1))).isFalse();
+        assertThat(OrderCodeAllocator.isValid(code.toLowerCase())).isFalse();
+        assertThat(OrderCodeAllocator.isValid(code.replace('0', 'O'))).isFalse();
+    }
+}
@@ -0,0 +1,118 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.service.dto.ProductFacetsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Unit tests for {@link ProductFacetIndex}.
+ */
+public class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductFacetIndex(new ApplicationProperties());
+        List<Object[]> products = new ArrayList<>();
+        products.add(new Object[] { 1L, Size.S, 10L, new BigDecimal("5") });
+        products.add(new Object[] { 2L, Size.M, 10L, new BigDecimal("10") });
+        products.add(new Object[] { 3L, Size.M, 20L, new BigDecimal("30") });
+        products.add(new Object[] { 4L, Size.L, null, new BigDecimal("150") });
+        products.add(new Object[] { 5L, Size.M, 20L, new BigDecimal("99.99") });
+        index.load(products);
+    }
+
+    @Test
+    public void facetsCountAllTheProductsWithoutFilter() {
+        ProductFacetsDTO facets = index.facets(null, null, null);
+
+        assertThat(facets.getTotal()).isEqualTo(5);
+        assertThat(facets.getSizes()).containsEntry(Size.S, 1L).containsEntry(Size.M, 3L).containsEntry(Size.L, 1L)
+            .containsEntry(Size.XL, 0L);
+        assertThat(facets.getCategories()).containsExactly(entry(10L, 2L), entry(20L, 2L));
+        assertThat(facets.getPriceBands()).extracting(ProductFacetsDTO.PriceBandDTO::getCount).containsExactly(1L, 1L, 1L, 1L, 1L);
+        assertThat(facets.getPriceBands().get(0).getFrom()).isNull();
+        assertThat(facets.getPriceBands().get(1).getFrom()).isEqualByComparingTo("10");
+        assertThat(facets.getPriceBands().get(1).getTo()).isEqualByComparingTo("25");
+        assertThat(facets.getPriceBands().get(4).getTo()).isNull();
+    }
+
+    @Test
+    public void facetsCountEachFacetWithTheFiltersOfTheOthers() {
+        ProductFacetsDTO facets = index.facets(Collections.singleton(Size.M), Collections.singleton(20L), null);
+
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getSizes()).containsEntry(Size.S, 0L).containsEntry(Size.M, 2L);
+        assertThat(facets.getCategories()).containsExactly(entry(10L, 1L), entry(20L, 2L));
+        assertThat(facets.getPriceBands()).extracting(ProductFacetsDTO.PriceBandDTO::getCount).containsExactly(0L, 0L, 1L, 1L, 0L);
+    }
+
+    @Test
+    public void findIdsMatchesAnyValueOfAFacetAndAllTheFacets() {
+        assertThat(index.findIds(Arrays.asList(Size.S, Size.L), null, null, PageRequest.of(0, 10)).getContent())
+            .containsExactly(1L, 4L);
+        assertThat(index.findIds(null, Collections.singleton(10L), Arrays.asList(1, 3), PageRequest.of(0, 10)).getContent())
+            .containsExactly(2L);
+        assertThat(index.findIds(null, Collections.singleton(30L), null, PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    public void findIdsPages() {
+        Page<Long> page = index.findIds(null, null, null, PageRequest.of(1, 2));
+
+        assertThat(page.getContent()).containsExactly(3L, 4L);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void findIdsPagesAcrossWords() {
+        List<Object[]> products = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            products.add(new Object[] { id, id % 2 == 0 ? Size.S : Size.M, null, BigDecimal.ONE });
+        }
+        index.load(products);
+
+        Page<Long> page = index.findIds(Collections.singleton(Size.S), null, null, PageRequest.of(7, 10));
+        assertThat(page.getContent()).containsExactly(142L, 144L, 146L, 148L, 150L, 152L, 154L, 156L, 158L, 160L);
+        assertThat(page.getTotalElements()).isEqualTo(100);
+    }
+
+    @Test
+    public void putMovesTheProductAndAppendsNewOnes() {
+        index.put(1L, Size.L, 20L, new BigDecimal("200"));
+        index.put(6L, Size.S, 30L, new BigDecimal("1"));
+
+        ProductFacetsDTO facets = index.facets(null, null, null);
+        assertThat(facets.getTotal()).isEqualTo(6);
+        assertThat(facets.getSizes()).containsEntry(Size.S, 1L).containsEntry(Size.L, 2L);
+        assertThat(facets.getCategories()).containsExactly(entry(10L, 1L), entry(20L, 3L), entry(30L, 1L));
+        assertThat(index.findIds(Collections.singleton(Size.L), null, null, PageRequest.of(0, 10)).getContent())
+            .containsExactly(1L, 4L);
+    }
+
+    @Test
+    public void removeDeletesTheProduct() {
+        index.remove(2L);
+        index.remove(7L);
+
+        ProductFacetsDTO facets = index.facets(null, null, null);
+        assertThat(facets.getTotal()).isEqualTo(4);
+        assertThat(facets.getSizes()).containsEntry(Size.M, 2L);
+        assertThat(facets.getCategories()).containsExactly(entry(10L, 1L), entry(20L, 2L));
+        assertThat(index.findIds(null, null, null, PageRequest.of(0, 10)).getContent()).containsExactly(1L, 3L, 4L, 5L);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.web.rest.ProductResourceIT;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link ProductImageSweeper}.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@Transactional
+public class ProductImageSweeperIT {
+
+    @Autowired
+    private ProductImageSweeper productImageSweeper;
+
+    @Autowired
+    private ProductImageStore productImageStore;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void sweepDeletesOnlyOldUnusedImages() throws IOException {
+        String used = storeOld("used");
+        Product product = ProductResourceIT.createEntity(em).image(null);
+        product.setImageKey(used);
+        em.persist(product);
+        em.flush();
+        String unused = storeOld("unused");
+        String reused = storeOld("reused");
+        // An upload of the same bytes, not saved yet
+        assertThat(put("reused")).isEqualTo(reused);
+        String recent = put("recent");
+
+        productImageSweeper.sweep();
+
+        assertThat(productImageStore.locate(used)).isPresent();
+        assertThat(productImageStore.locate(unused)).isEmpty();
+        assertThat(productImageStore.locate(reused)).isPresent();
+        assertThat(productImageStore.locate(recent)).isPresent();
+    }
+
+    private String storeOld(String content) throws IOException {
+        String key = put(content);
+        Files.setLastModifiedTime(productImageStore.locate(key).get(), FileTime.from(Instant.now().minus(1, ChronoUnit.DAYS)));
+        return key;
+    }
+
+    private String put(String content) throws IOException {
+        return productImageStore.put(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 1024);
+    }
+}
@@ -0,0 +1,66 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.service.dto.ProductSuggestionDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks suggesting products for prefixes of increasing length, as typed in the search box,
+ * from catalogs of random three-word names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSuggestionIndexBenchmark {
+
+    private static final String[] WORDS = {
+        "blue", "red", "green", "black", "white", "cotton", "linen", "wool", "leather", "silk",
+        "shirt", "trousers", "jacket", "dress", "skirt", "hat", "scarf", "shoes", "boots", "socks",
+        "slim", "regular", "loose", "classic", "modern", "vintage", "summer", "winter", "sport", "casual"
+    };
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    @Param({"s", "sh", "shirt", "blue shirt"})
+    private String prefix;
+
+    private ProductSuggestionIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Long> popularity = new HashMap<>();
+        for (long id = 1; id <= size; id++) {
+            names.put(id, WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " +
+                WORDS[random.nextInt(WORDS.length)] + " " + id);
+            popularity.put(id, (long) random.nextInt(1000));
+        }
+        index = new ProductSuggestionIndex();
+        index.load(names, popularity);
+    }
+
+    @Benchmark
+    public List<ProductSuggestionDTO> suggest() {
+        return index.suggest(prefix, 10);
+    }
+}
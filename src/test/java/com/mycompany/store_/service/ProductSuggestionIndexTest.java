@@ -0,0 +1,91 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.service.dto.ProductSuggestionDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ProductSuggestionIndex}.
+ */
+public class ProductSuggestionIndexTest {
+
+    private ProductSuggestionIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        Map<Long, String> names = new HashMap<>();
+        names.put(1L, "Red shirt");
+        names.put(2L, "Blue shirt");
+        names.put(3L, "Blue trousers");
+        names.put(4L, "Shirt, blue and blue");
+        names.put(5L, "Bluetooth speaker");
+        Map<Long, Long> popularity = new HashMap<>();
+        popularity.put(1L, 5L);
+        popularity.put(2L, 20L);
+        popularity.put(3L, 10L);
+        popularity.put(5L, 1L);
+        index = new ProductSuggestionIndex();
+        index.load(names, popularity);
+    }
+
+    @Test
+    public void suggestRanksByPopularity() {
+        assertThat(ids("blue", 10)).containsExactly(2L, 3L, 5L, 4L);
+        assertThat(ids("blue", 2)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void suggestMatchesAnyWordAndTheNextOnes() {
+        assertThat(ids("SHI", 10)).containsExactly(2L, 1L, 4L);
+        assertThat(ids("blue sh", 10)).containsExactly(2L);
+        assertThat(ids("shirt blue", 10)).containsExactly(4L);
+        assertThat(ids("hirt", 10)).isEmpty();
+    }
+
+    @Test
+    public void suggestWholeWordsBeforeASeparator() {
+        assertThat(ids("blue ", 10)).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    public void suggestWholeWordsEndingTheName() {
+        assertThat(ids("shirt ", 10)).containsExactly(2L, 1L, 4L);
+        assertThat(ids("blue shirt,", 10)).containsExactly(2L);
+    }
+
+    @Test
+    public void suggestNothingForAnEmptyPrefix() {
+        assertThat(ids(" , ", 10)).isEmpty();
+        assertThat(ids("blue", 0)).isEmpty();
+    }
+
+    @Test
+    public void putReplacesTheNameAndKeepsThePopularity() {
+        index.put(2L, "Green shirt");
+        index.put(6L, "Blue hat");
+
+        List<ProductSuggestionDTO> suggestions = index.suggest("shirt", 10);
+        assertThat(suggestions.get(0).getId()).isEqualTo(2L);
+        assertThat(suggestions.get(0).getName()).isEqualTo("Green shirt");
+        assertThat(ids("blue", 10)).containsExactly(3L, 5L, 6L, 4L);
+    }
+
+    @Test
+    public void removeDeletesTheProduct() {
+        index.remove(2L);
+        index.remove(7L);
+
+        assertThat(ids("blue", 10)).containsExactly(3L, 5L, 4L);
+    }
+
+    private List<Long> ids(String prefix, int size) {
+        return index.suggest(prefix, size).stream().map(ProductSuggestionDTO::getId).collect(Collectors.toList());
+    }
+}
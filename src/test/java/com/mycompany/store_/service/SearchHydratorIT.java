@@ -0,0 +1,107 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.repository.ProductCategoryRepository;
+import com.mycompany.store_.web.rest.ProductCategoryResourceIT;
+import com.mycompany.store_.web.rest.ProductResourceIT;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
+/**
+ * Integration tests for {@link SearchHydrator}, against the embedded Elasticsearch node.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@Transactional
+public class SearchHydratorIT {
+
+    @Autowired
+    private SearchHydrator searchHydrator;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private SearchOutboxDispatcher searchOutboxDispatcher;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void searchKeepsTheOrderOfTheHits() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(productCategoryService.save(ProductCategoryResourceIT.createEntity(em)).getId());
+        }
+        index(ProductCategory.class);
+
+        Page<ProductCategory> page = searchHydrator.search(ProductCategory.class, queryStringQuery(idQuery(ids)),
+            PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(ProductCategory::getId).containsExactly(ids.get(2), ids.get(1));
+    }
+
+    @Test
+    public void searchLeavesOutDeletedRows() {
+        ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        index(ProductCategory.class);
+        // Deleted without going through the outbox, as if the document was not removed yet
+        productCategoryRepository.delete(productCategory);
+        em.flush();
+
+        List<ProductCategory> productCategories = searchHydrator.search(ProductCategory.class, queryStringQuery("id:" + productCategory.getId()));
+
+        assertThat(productCategories).isEmpty();
+    }
+
+    @Test
+    public void searchInitializesAssociations() {
+        ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        Product product = productService.save(ProductResourceIT.createEntity(em).productCategory(productCategory));
+        index(Product.class);
+        em.clear();
+
+        List<Product> products = searchHydrator.search(Product.class, queryStringQuery("id:" + product.getId()), "productCategory");
+
+        assertThat(products).hasSize(1);
+        assertThat(Hibernate.isInitialized(products.get(0).getProductCategory())).isTrue();
+        assertThat(products.get(0).getProductCategory().getName()).isEqualTo(productCategory.getName());
+    }
+
+    private void index(Class<?> entityType) {
+        em.flush();
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(entityType);
+    }
+
+    private static String idQuery(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(" OR ", "id:(", ")"));
+    }
+}
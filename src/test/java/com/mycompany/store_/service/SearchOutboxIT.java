@@ -0,0 +1,200 @@
+package com.mycompany.store_.service;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.web.rest.ProductCategoryResourceIT;
+import com.mycompany.store_.web.rest.TestUtil;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.searchbox.client.JestClient;
+import io.searchbox.core.DocumentResult;
+import io.searchbox.core.Get;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link SearchOutbox} and {@link SearchOutboxDispatcher}, against the
+ * embedded Elasticsearch node.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@Transactional
+public class SearchOutboxIT {
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private SearchOutboxDispatcher searchOutboxDispatcher;
+
+    @Autowired
+    private ElasticsearchSearchBackend elasticsearchSearchBackend;
+
+    @Autowired
+    private JestClient jestClient;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void flushIndexesSavedEntities() throws Exception {
+        ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isEqualTo(1);
+
+        searchOutboxDispatcher.flush();
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isZero();
+        DocumentResult document = getDocument(productCategory);
+        assertThat(document.isSucceeded()).isTrue();
+        assertThat(document.getSourceAsObject(ProductCategory.class).getName()).isEqualTo(productCategory.getName());
+    }
+
+    @Test
+    public void refreshMetricsCountsPendingEntries() {
+        productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+
+        searchOutboxDispatcher.refreshMetrics();
+
+        assertThat(meterRegistry.get("search.outbox.pending").gauge().value()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("search.outbox.lag").timeGauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void flushRemovesDocumentsOfDeletedEntities() throws Exception {
+        ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        searchOutboxDispatcher.flush();
+        assertThat(getDocument(productCategory).isSucceeded()).isTrue();
+
+        productCategoryService.delete(productCategory.getId());
+        em.flush();
+        searchOutboxDispatcher.flush();
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isZero();
+        assertThat(getDocument(productCategory).isSucceeded()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void dispatchSkipsWhileAnotherNodeDrains() throws Exception {
+        ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        com.hazelcast.core.ILock lock = hazelcastInstance.getLock(SearchOutboxDispatcher.LOCK_NAME);
+        try {
+            otherNode.submit(() -> lock.lock()).get();
+
+            searchOutboxDispatcher.dispatch();
+
+            assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isEqualTo(1);
+        } finally {
+            otherNode.submit(() -> lock.unlock()).get();
+            otherNode.shutdown();
+        }
+
+        searchOutboxDispatcher.flush();
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isZero();
+        assertThat(getDocument(productCategory).isSucceeded()).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void flushWritesToShadowIndicesWhileAnotherNodeReindexes() throws Exception {
+        String shadowIndex = elasticsearchOperations.getPersistentEntityFor(ProductCategory.class).getIndexName() + "_vshadow";
+        IMap<String, String> shadowIndices = hazelcastInstance.getMap(ElasticsearchSearchBackend.SHADOW_INDICES_MAP_NAME);
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        com.hazelcast.core.ILock lock = hazelcastInstance.getLock(SearchReindexService.LOCK_NAME);
+        try {
+            otherNode.submit(() -> lock.lock()).get();
+            shadowIndices.put("ProductCategory", shadowIndex);
+            ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+
+            searchOutboxDispatcher.flush();
+
+            assertThat(getDocument(productCategory).isSucceeded()).isTrue();
+            assertThat(getDocument(productCategory, shadowIndex).isSucceeded()).isTrue();
+        } finally {
+            shadowIndices.remove("ProductCategory");
+            otherNode.submit(() -> lock.unlock()).get();
+            otherNode.shutdown();
+            elasticsearchOperations.deleteIndex(shadowIndex);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void flushRecordsDeletesFromShadowIndicesWhileAnotherNodeReindexes() throws Exception {
+        String shadowIndex = elasticsearchOperations.getPersistentEntityFor(ProductCategory.class).getIndexName() + "_vdeletes";
+        IMap<String, String> shadowIndices = hazelcastInstance.getMap(ElasticsearchSearchBackend.SHADOW_INDICES_MAP_NAME);
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        com.hazelcast.core.ILock lock = hazelcastInstance.getLock(SearchReindexService.LOCK_NAME);
+        try {
+            otherNode.submit(() -> lock.lock()).get();
+            shadowIndices.put("ProductCategory", shadowIndex);
+            ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+            searchOutboxDispatcher.flush();
+            assertThat(elasticsearchSearchBackend.getShadowDeletes(shadowIndex)).isEmpty();
+
+            productCategoryService.delete(productCategory.getId());
+            em.flush();
+            searchOutboxDispatcher.flush();
+
+            assertThat(getDocument(productCategory, shadowIndex).isSucceeded()).isFalse();
+            assertThat(elasticsearchSearchBackend.getShadowDeletes(shadowIndex)).containsExactly(productCategory.getId());
+        } finally {
+            shadowIndices.remove("ProductCategory");
+            hazelcastInstance.getMultiMap(ElasticsearchSearchBackend.SHADOW_DELETES_MAP_NAME).remove(shadowIndex);
+            otherNode.submit(() -> lock.unlock()).get();
+            otherNode.shutdown();
+            elasticsearchOperations.deleteIndex(shadowIndex);
+        }
+    }
+
+    @Test
+    public void flushIgnoresShadowIndicesLeftByAnUnfinishedReindex() throws Exception {
+        String shadowIndex = elasticsearchOperations.getPersistentEntityFor(ProductCategory.class).getIndexName() + "_vleft";
+        IMap<String, String> shadowIndices = hazelcastInstance.getMap(ElasticsearchSearchBackend.SHADOW_INDICES_MAP_NAME);
+        try {
+            shadowIndices.put("ProductCategory", shadowIndex);
+            ProductCategory productCategory = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+
+            searchOutboxDispatcher.flush();
+
+            assertThat(getDocument(productCategory).isSucceeded()).isTrue();
+            assertThat(elasticsearchOperations.indexExists(shadowIndex)).isFalse();
+        } finally {
+            shadowIndices.remove("ProductCategory");
+        }
+    }
+
+    private DocumentResult getDocument(ProductCategory productCategory) throws IOException {
+        return getDocument(productCategory, elasticsearchOperations.getPersistentEntityFor(ProductCategory.class).getIndexName());
+    }
+
+    private DocumentResult getDocument(ProductCategory productCategory, String indexName) throws IOException {
+        ElasticsearchPersistentEntity<?> document = elasticsearchOperations.getPersistentEntityFor(ProductCategory.class);
+        return jestClient.execute(new Get.Builder(indexName, productCategory.getId().toString())
+            .type(document.getIndexType())
+            .build());
+    }
+}
@@ -0,0 +1,129 @@
+package com.mycompany.store_.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.ApplicationProperties;
+import com.mycompany.store_.domain.Product;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration tests for {@link SearchResultCache}, against the Hazelcast instance.
+ */
+@SpringBootTest(classes = StoreApp.class)
+public class SearchResultCacheIT {
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private SearchBackend searchBackend;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private SearchDocumentType documentType;
+
+    @BeforeEach
+    public void setUp() {
+        searchBackend = mock(SearchBackend.class);
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearchResultCache().setRefreshInterval(Duration.ZERO);
+        // An index of its own, so that the generations of the tests are independent
+        documentType = new SearchDocumentType("Product", Product.class, "product-" + UUID.randomUUID(), "product");
+        when(searchBackend.search(eq(documentType), any(), any()))
+            .thenAnswer(invocation -> new PageImpl<>(Arrays.asList(2L, 1L), invocation.getArgument(2, Pageable.class), 12));
+    }
+
+    @Test
+    public void searchCachesNormalizedQueries() {
+        SearchResultCache cache = createCache();
+
+        cache.search(documentType, queryStringQuery("blue  shirt"), PageRequest.of(0, 2));
+        Page<Long> page = cache.search(documentType, queryStringQuery(" blue shirt "), PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).containsExactly(2L, 1L);
+        assertThat(page.getTotalElements()).isEqualTo(12);
+        verify(searchBackend, times(1)).search(eq(documentType), any(), any());
+        assertThat(meterRegistry.get("search.results.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.results.cache").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.results.cache.hit.ratio").tag("index", documentType.getIndexName()).gauge().value())
+            .isEqualTo(0.5);
+    }
+
+    @Test
+    public void searchKeysResultsByPage() {
+        SearchResultCache cache = createCache();
+
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(1, 2));
+        cache.search(documentType, queryStringQuery("shirt"), Pageable.unpaged());
+
+        verify(searchBackend, times(3)).search(eq(documentType), any(), any());
+    }
+
+    @Test
+    public void invalidateSearchesAgain() {
+        SearchResultCache cache = createCache();
+
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+        cache.invalidate(documentType);
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+
+        verify(searchBackend, times(2)).search(eq(documentType), any(), any());
+    }
+
+    @Test
+    public void searchDoesNotCacheResultsDuringTheRefreshInterval() {
+        applicationProperties.getSearchResultCache().setRefreshInterval(Duration.ofMinutes(1));
+        SearchResultCache cache = createCache();
+        cache.invalidate(documentType);
+
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+
+        verify(searchBackend, times(2)).search(eq(documentType), any(), any());
+    }
+
+    @Test
+    public void searchBypassesTheCacheWhenDisabled() {
+        applicationProperties.getSearchResultCache().setEnabled(false);
+        SearchResultCache cache = createCache();
+
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+        cache.search(documentType, queryStringQuery("shirt"), PageRequest.of(0, 2));
+
+        verify(searchBackend, times(2)).search(eq(documentType), any(), any());
+    }
+
+    private SearchResultCache createCache() {
+        return new SearchResultCache(searchBackend, hazelcastInstance, objectMapper, applicationProperties, meterRegistry);
+    }
+}
@@ -3,9 +3,9 @@ package com.mycompany.store_.service;
 import com.mycompany.store_.StoreApp;
 import com.mycompany.store_.config.Constants;
 import com.mycompany.store_.domain.User;
-import com.mycompany.store_.repository.search.UserSearchRepository;
 import com.mycompany.store_.repository.UserRepository;
 import com.mycompany.store_.service.dto.UserDTO;
+import com.mycompany.store_.web.rest.TestUtil;
 
 import io.github.jhipster.security.RandomUtil;
 
@@ -21,6 +21,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.time.LocalDateTime;
@@ -28,9 +29,6 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -58,13 +56,8 @@ public class UserServiceIT {
     @Autowired
     private UserService userService;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.UserSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private UserSearchRepository mockUserSearchRepository;
+    private EntityManager em;
 
     @Autowired
     private AuditingHandler auditingHandler;
@@ -181,8 +174,8 @@ public class UserServiceIT {
         users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isEmpty();
 
-        // Verify Elasticsearch mock
-        verify(mockUserSearchRepository, times(1)).delete(user);
+        // Validate the User in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "User", user.getId())).isEqualTo(1);
     }
 
     @Test
@@ -201,8 +194,8 @@ public class UserServiceIT {
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
 
-        // Verify Elasticsearch mock
-        verify(mockUserSearchRepository, never()).delete(user);
+        // Validate the User in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "User", dbUser.getId())).isZero();
     }
 
     @Test
@@ -0,0 +1,121 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.domain.enumeration.Size;
+import com.mycompany.store_.service.CatalogSnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link CatalogResource} REST controller, browsed without being authenticated.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@AutoConfigureMockMvc
+@WithUnauthenticatedMockUser
+public class CatalogResourceIT {
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restCatalogMockMvc;
+
+    @Test
+    @Transactional
+    public void browseProducts() throws Exception {
+        // Initialize the database and the snapshot
+        ProductCategory category = ProductCategoryResourceIT.createEntity(em).name("Lamps");
+        em.persist(category);
+        Product cheap = ProductResourceIT.createEntity(em).name("Desk lamp").price(new BigDecimal("12.50")).size(Size.M)
+            .productCategory(category);
+        Product expensive = ProductResourceIT.createEntity(em).name("Floor lamp").price(new BigDecimal("80")).size(Size.L)
+            .productCategory(category);
+        em.persist(cheap);
+        em.persist(expensive);
+        em.flush();
+        catalogSnapshot.rebuild();
+
+        // Browse the products of the category, the most expensive first
+        restCatalogMockMvc.perform(get("/api/catalog/products?categoryId={id}&sort=price,desc", category.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(expensive.getId().intValue(), cheap.getId().intValue())))
+            .andExpect(jsonPath("$.[0].name").value("Floor lamp"))
+            .andExpect(jsonPath("$.[0].price").value(80.0))
+            .andExpect(jsonPath("$.[0].size").value("L"))
+            .andExpect(jsonPath("$.[0].productCategoryName").value("Lamps"));
+        restCatalogMockMvc.perform(get("/api/catalog/products?categoryId={id}&maxPrice=20", category.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(cheap.getId().intValue())));
+        restCatalogMockMvc.perform(get("/api/catalog/categories"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.id == " + category.getId() + ")].productCount").value(contains(2)));
+    }
+
+    @Test
+    @Transactional
+    public void browseProductsAfterWarmUpFromTheSnapshotFile() throws Exception {
+        // Initialize the database and the snapshot file
+        ProductCategory category = ProductCategoryResourceIT.createEntity(em).name("Rugs");
+        em.persist(category);
+        Product unchanged = ProductResourceIT.createEntity(em).name("Round rug").productCategory(category);
+        Product updated = ProductResourceIT.createEntity(em).name("Square rug").productCategory(category);
+        Product deleted = ProductResourceIT.createEntity(em).name("Long rug").productCategory(category);
+        em.persist(unchanged);
+        em.persist(updated);
+        em.persist(deleted);
+        em.flush();
+        catalogSnapshot.rebuild();
+
+        // Change the catalog, renaming a product behind the snapshot's back as if before it was taken
+        em.createNativeQuery("update product set name = 'Renamed rug', last_modified_date = ? where id = ?")
+            .setParameter(1, Instant.now().minus(Duration.ofHours(1)))
+            .setParameter(2, unchanged.getId())
+            .executeUpdate();
+        updated.setName("Square wool rug");
+        em.remove(deleted);
+        Product added = ProductResourceIT.createEntity(em).name("Oval rug").productCategory(category);
+        em.persist(added);
+        em.flush();
+        catalogSnapshot.warmUp();
+
+        // Unchanged products come from the file, the others from the database
+        restCatalogMockMvc.perform(get("/api/catalog/products?categoryId={id}", category.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(unchanged.getId().intValue(), updated.getId().intValue(),
+                added.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(contains("Round rug", "Square wool rug", "Oval rug")));
+    }
+
+    @Test
+    public void browseProductsWithUnsupportedSort() throws Exception {
+        restCatalogMockMvc.perform(get("/api/catalog/products?sort=description"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void productsStillRequireAuthentication() throws Exception {
+        restCatalogMockMvc.perform(get("/api/products"))
+            .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.enumeration.InvoiceStatus;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
+import com.mycompany.store_.domain.enumeration.PaymentMethod;
+import com.mycompany.store_.repository.InvoiceRepository;
+import com.mycompany.store_.repository.OrderItemRepository;
+import com.mycompany.store_.repository.ProductOrderRepository;
+import com.mycompany.store_.service.OrderCodeAllocator;
+import com.mycompany.store_.service.dto.CheckoutDTO;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link CheckoutResource} REST controller.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@AutoConfigureMockMvc
+@WithMockUser
+public class CheckoutResourceIT {
+
+    @Autowired
+    private ProductOrderRepository productOrderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restCheckoutMockMvc;
+
+    private static CheckoutDTO.ItemDTO line(Product product, int quantity) {
+        CheckoutDTO.ItemDTO line = new CheckoutDTO.ItemDTO();
+        line.setProductId(product.getId());
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    private static CheckoutDTO cart(Customer customer, CheckoutDTO.ItemDTO... lines) {
+        CheckoutDTO cart = new CheckoutDTO();
+        cart.setCustomerId(customer.getId());
+        cart.setPaymentMethod(PaymentMethod.PAYPAL);
+        cart.setItems(Arrays.asList(lines));
+        return cart;
+    }
+
+    @Test
+    @Transactional
+    public void checkout() throws Exception {
+        // Initialize the database
+        Customer customer = CustomerResourceIT.createEntity(em);
+        em.persist(customer);
+        Product lamp = ProductResourceIT.createEntity(em).name("Lamp").price(new BigDecimal("12.50"));
+        Product rug = ProductResourceIT.createEntity(em).name("Rug").price(new BigDecimal("80"));
+        em.persist(lamp);
+        em.persist(rug);
+        em.flush();
+        int orderCount = productOrderRepository.findAll().size();
+
+        // Check out a cart with two lines of the same product
+        QueryCountInspector.reset();
+        restCheckoutMockMvc.perform(post("/api/checkout").contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(cart(customer, line(lamp, 2), line(rug, 1), line(lamp, 1)))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.code").isNotEmpty())
+            .andExpect(jsonPath("$.status").value(OrderStatus.PENDING.toString()))
+            .andExpect(jsonPath("$.customerId").value(customer.getId().intValue()))
+            .andExpect(jsonPath("$.items.[*].productName").value(contains("Lamp", "Rug")))
+            .andExpect(jsonPath("$.items.[*].quantity").value(contains(3, 1)))
+            .andExpect(jsonPath("$.invoice.status").value(InvoiceStatus.ISSUED.toString()))
+            .andExpect(jsonPath("$.invoice.paymentMethod").value(PaymentMethod.PAYPAL.toString()))
+            .andExpect(jsonPath("$.invoice.paymentAmount").value(117.5));
+        em.flush();
+
+        // The rows are inserted with a batch per table
+        QueryCountInspector.assertInsertCount(4);
+
+        // Validate the order, items and invoice in the database
+        List<ProductOrder> orders = productOrderRepository.findAll();
+        assertThat(orders).hasSize(orderCount + 1);
+        ProductOrder order = orders.get(orders.size() - 1);
+        assertThat(OrderCodeAllocator.isValid(order.getCode())).isTrue();
+        assertThat(order.getCustomer()).isEqualTo(customer);
+        List<OrderItem> items = orderItemRepository.findAll();
+        assertThat(items).filteredOn(item -> order.equals(item.getOrder())).hasSize(2);
+        List<Invoice> invoices = invoiceRepository.findAll();
+        assertThat(invoices).filteredOn(invoice -> order.equals(invoice.getOrder()))
+            .extracting(Invoice::getPaymentAmount).usingElementComparator(BigDecimal::compareTo)
+            .containsExactly(new BigDecimal("117.50"));
+
+        // The search documents are written after commit
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductOrder", order.getId())).isEqualTo(1);
+        for (OrderItem item : order.getOrderItems()) {
+            assertThat(TestUtil.countSearchOutboxEntries(em, "OrderItem", item.getId())).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Transactional
+    public void checkoutWithUnknownProduct() throws Exception {
+        Customer customer = CustomerResourceIT.createEntity(em);
+        em.persist(customer);
+        Product lamp = ProductResourceIT.createEntity(em);
+        em.persist(lamp);
+        em.flush();
+        Product removed = ProductResourceIT.createEntity(em);
+        removed.setId(Long.MAX_VALUE);
+        int orderCount = productOrderRepository.findAll().size();
+
+        restCheckoutMockMvc.perform(post("/api/checkout").contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(cart(customer, line(lamp, 1), line(removed, 1)))))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-storeApp-error", "error.productnotfound"));
+
+        assertThat(productOrderRepository.findAll()).hasSize(orderCount);
+    }
+
+    @Test
+    @Transactional
+    public void checkoutWithEmptyCart() throws Exception {
+        Customer customer = CustomerResourceIT.createEntity(em);
+        em.persist(customer);
+        em.flush();
+
+        restCheckoutMockMvc.perform(post("/api/checkout").contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(cart(customer))))
+            .andExpect(status().isBadRequest());
+    }
+}
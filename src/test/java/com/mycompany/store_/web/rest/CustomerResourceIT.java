@@ -1,10 +1,13 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
 import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.User;
 import com.mycompany.store_.repository.CustomerRepository;
-import com.mycompany.store_.repository.search.CustomerSearchRepository;
 import com.mycompany.store_.service.CustomerService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,24 +17,28 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
-import java.util.Collections;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.mycompany.store_.domain.enumeration.Gender;
+import com.mycompany.store_.domain.enumeration.OrderStatus;
 /**
  * Integration tests for the {@link CustomerResource} REST controller.
  */
@@ -71,16 +78,15 @@ public class CustomerResourceIT {
     @Autowired
     private CustomerRepository customerRepository;
 
+
     @Autowired
-    private CustomerService customerService;
+    private SearchOutboxDispatcher searchOutboxDispatcher;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.CustomerSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private CustomerSearchRepository mockCustomerSearchRepository;
+    private CustomerService customerService;
 
     @Autowired
     private EntityManager em;
@@ -158,8 +164,8 @@ public class CustomerResourceIT {
         assertThat(testCustomer.getCity()).isEqualTo(DEFAULT_CITY);
         assertThat(testCustomer.getCountry()).isEqualTo(DEFAULT_COUNTRY);
 
-        // Validate the Customer in Elasticsearch
-        verify(mockCustomerSearchRepository, times(1)).save(testCustomer);
+        // Validate the Customer in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Customer", testCustomer.getId())).isEqualTo(1);
     }
 
     @Test
@@ -180,8 +186,8 @@ public class CustomerResourceIT {
         List<Customer> customerList = customerRepository.findAll();
         assertThat(customerList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Customer in Elasticsearch
-        verify(mockCustomerSearchRepository, times(0)).save(customer);
+        // Validate the Customer in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Customer", customer.getId())).isEqualTo(0);
     }
 
 
@@ -359,6 +365,41 @@ public class CustomerResourceIT {
             .andExpect(jsonPath("$.[*].country").value(hasItem(DEFAULT_COUNTRY)));
     }
     
+    @Test
+    @Transactional
+    public void getCustomersWithFixedQueryCount() throws Exception {
+        // Initialize the database with customers of distinct users
+        Customer last = null;
+        for (int i = 0; i < 10; i++) {
+            User user = UserResourceIT.createEntity(em);
+            em.persist(user);
+            last = createEntity(em).user(user);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select and its count, whatever the number of rows
+        QueryCountInspector.reset();
+        restCustomerMockMvc.perform(get("/api/customers?sort=id,desc&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].user.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(2);
+
+        // A page after a cursor is not counted
+        QueryCountInspector.reset();
+        restCustomerMockMvc.perform(get("/api/customers?sort=id,desc&size=5&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].user.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(1);
+
+        QueryCountInspector.reset();
+        restCustomerMockMvc.perform(get("/api/customers/{id}", last.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.user.login").isNotEmpty());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getCustomer() throws Exception {
@@ -430,8 +471,8 @@ public class CustomerResourceIT {
         assertThat(testCustomer.getCity()).isEqualTo(UPDATED_CITY);
         assertThat(testCustomer.getCountry()).isEqualTo(UPDATED_COUNTRY);
 
-        // Validate the Customer in Elasticsearch
-        verify(mockCustomerSearchRepository, times(2)).save(testCustomer);
+        // Validate the Customer in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Customer", testCustomer.getId())).isEqualTo(2);
     }
 
     @Test
@@ -449,8 +490,8 @@ public class CustomerResourceIT {
         List<Customer> customerList = customerRepository.findAll();
         assertThat(customerList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Customer in Elasticsearch
-        verify(mockCustomerSearchRepository, times(0)).save(customer);
+        // Validate the Customer in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Customer", customer.getId())).isEqualTo(0);
     }
 
     @Test
@@ -470,18 +511,17 @@ public class CustomerResourceIT {
         List<Customer> customerList = customerRepository.findAll();
         assertThat(customerList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Customer in Elasticsearch
-        verify(mockCustomerSearchRepository, times(1)).deleteById(customer.getId());
+        // Validate the Customer in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Customer", customer.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchCustomer() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         customerService.save(customer);
-        when(mockCustomerSearchRepository.search(queryStringQuery("id:" + customer.getId()), PageRequest.of(0, 20)))
-            .thenReturn(new PageImpl<>(Collections.singletonList(customer), PageRequest.of(0, 1), 1));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(Customer.class);
 
         // Search the customer
         restCustomerMockMvc.perform(get("/api/_search/customers?query=id:" + customer.getId()))
@@ -498,4 +538,44 @@ public class CustomerResourceIT {
             .andExpect(jsonPath("$.[*].city").value(hasItem(DEFAULT_CITY)))
             .andExpect(jsonPath("$.[*].country").value(hasItem(DEFAULT_COUNTRY)));
     }
+
+    @Test
+    @Transactional
+    public void getCustomerOrders() throws Exception {
+        // Initialize the database with orders of the customer and of another one
+        customerRepository.saveAndFlush(customer);
+        Customer other = createEntity(em);
+        em.persist(other);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        ProductOrder oldest = ProductOrderResourceIT.createEntity(em).code("oldest").customer(customer)
+            .placedDate(now.minus(3, ChronoUnit.DAYS)).status(OrderStatus.COMPLETED);
+        ProductOrder older = ProductOrderResourceIT.createEntity(em).code("older").customer(customer)
+            .placedDate(now.minus(2, ChronoUnit.DAYS)).status(OrderStatus.PENDING);
+        ProductOrder latest = ProductOrderResourceIT.createEntity(em).code("latest").customer(customer)
+            .placedDate(now.minus(1, ChronoUnit.DAYS)).status(OrderStatus.PENDING);
+        ProductOrder ofOther = ProductOrderResourceIT.createEntity(em).code("ofOther").customer(other).placedDate(now);
+        em.persist(oldest);
+        em.persist(older);
+        em.persist(latest);
+        em.persist(ofOther);
+        em.flush();
+
+        // The latest orders first, then the next page from the link
+        MockHttpServletResponse response = restCustomerMockMvc.perform(get("/api/customers/{id}/orders?size=2", customer.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(contains(latest.getId().intValue(), older.getId().intValue())))
+            .andExpect(header().exists(HttpHeaders.LINK))
+            .andReturn().getResponse();
+        String link = response.getHeader(HttpHeaders.LINK);
+        restCustomerMockMvc.perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(oldest.getId().intValue())))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+
+        // Filtered by status
+        restCustomerMockMvc.perform(get("/api/customers/{id}/orders?status=COMPLETED&status=CANCELLED", customer.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(oldest.getId().intValue())));
+    }
 }
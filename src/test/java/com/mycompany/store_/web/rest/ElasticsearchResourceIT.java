@@ -0,0 +1,147 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.repository.ProductCategoryRepository;
+import com.mycompany.store_.security.AuthoritiesConstants;
+import com.mycompany.store_.service.SearchReindexService;
+import com.mycompany.store_.service.dto.SearchReindexDTO;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.core.DocumentResult;
+import io.searchbox.core.Get;
+import io.searchbox.indices.aliases.GetAliases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ElasticsearchResource} REST controller, against the embedded
+ * Elasticsearch node.
+ * <p>
+ * Not transactional: the reindex reads the database from its own threads.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@SpringBootTest(classes = StoreApp.class)
+public class ElasticsearchResourceIT {
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private JestClient jestClient;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restElasticsearchMockMvc;
+
+    private final List<ProductCategory> productCategories = new ArrayList<>();
+
+    @AfterEach
+    public void deleteProductCategories() {
+        productCategoryRepository.deleteAll(productCategories);
+    }
+
+    @Test
+    public void reindexMovesAliasesToNewIndices() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            productCategories.add(productCategoryRepository.save(new ProductCategory().name("Category " + i)));
+        }
+
+        restElasticsearchMockMvc.perform(post("/management/elasticsearch/reindex"))
+            .andExpect(status().isAccepted())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.status").value(SearchReindexDTO.Status.RUNNING.toString()));
+        SearchReindexDTO progress = awaitReindex();
+
+        assertThat(progress.getStatus()).as(progress.getError()).isEqualTo(SearchReindexDTO.Status.COMPLETED);
+        ElasticsearchPersistentEntity<?> document = elasticsearchOperations.getPersistentEntityFor(ProductCategory.class);
+        SearchReindexDTO.IndexDTO index = progress.getIndices().stream()
+            .filter(indexProgress -> indexProgress.getAlias().equals(document.getIndexName()))
+            .findFirst()
+            .get();
+        assertThat(index.getIndexed()).isEqualTo(index.getTotal()).isGreaterThanOrEqualTo(productCategories.size());
+        JestResult aliases = jestClient.execute(new GetAliases.Builder().addAlias(document.getIndexName()).build());
+        assertThat(aliases.getJsonObject().keySet()).containsExactly(index.getIndex());
+        for (ProductCategory productCategory : productCategories) {
+            DocumentResult result = jestClient.execute(new Get.Builder(document.getIndexName(), productCategory.getId().toString())
+                .type(document.getIndexType())
+                .build());
+            assertThat(result.getSourceAsObject(ProductCategory.class).getName()).isEqualTo(productCategory.getName());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void reindexConflictsWhileAnotherNodeReindexes() throws Exception {
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        com.hazelcast.core.ILock lock = hazelcastInstance.getLock(SearchReindexService.LOCK_NAME);
+        try {
+            otherNode.submit(() -> lock.lock()).get();
+
+            restElasticsearchMockMvc.perform(post("/management/elasticsearch/reindex"))
+                .andExpect(status().isConflict());
+        } finally {
+            otherNode.submit(() -> lock.unlock()).get();
+            otherNode.shutdown();
+        }
+    }
+
+    @Test
+    public void getReindexWithoutReindexIsNotFoundOrReportsLastReindex() throws Exception {
+        int status = restElasticsearchMockMvc.perform(get("/management/elasticsearch/reindex"))
+            .andReturn().getResponse().getStatus();
+
+        assertThat(status).isIn(200, 404);
+    }
+
+    @Test
+    @WithMockUser
+    public void reindexRequiresAdmin() throws Exception {
+        restElasticsearchMockMvc.perform(post("/management/elasticsearch/reindex"))
+            .andExpect(status().isForbidden());
+    }
+
+    private SearchReindexDTO awaitReindex() throws Exception {
+        for (int attempt = 0; attempt < 300; attempt++) {
+            String body = restElasticsearchMockMvc.perform(get("/management/elasticsearch/reindex"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            SearchReindexDTO progress = objectMapper.readValue(body, SearchReindexDTO.class);
+            if (progress.getStatus() != SearchReindexDTO.Status.RUNNING) {
+                return progress;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("The reindex did not finish");
+    }
+}
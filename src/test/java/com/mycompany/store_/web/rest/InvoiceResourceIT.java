@@ -1,10 +1,12 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
 import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.ProductOrder;
 import com.mycompany.store_.repository.InvoiceRepository;
-import com.mycompany.store_.repository.search.InvoiceSearchRepository;
 import com.mycompany.store_.service.InvoiceService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,8 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,13 +25,12 @@ import javax.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -66,16 +66,15 @@ public class InvoiceResourceIT {
     @Autowired
     private InvoiceRepository invoiceRepository;
 
+
     @Autowired
-    private InvoiceService invoiceService;
+    private SearchOutboxDispatcher searchOutboxDispatcher;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.InvoiceSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private InvoiceSearchRepository mockInvoiceSearchRepository;
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private InvoiceService invoiceService;
 
     @Autowired
     private EntityManager em;
@@ -144,8 +143,8 @@ public class InvoiceResourceIT {
         assertThat(testInvoice.getPaymentDate()).isEqualTo(DEFAULT_PAYMENT_DATE);
         assertThat(testInvoice.getPaymentAmount()).isEqualTo(DEFAULT_PAYMENT_AMOUNT);
 
-        // Validate the Invoice in Elasticsearch
-        verify(mockInvoiceSearchRepository, times(1)).save(testInvoice);
+        // Validate the Invoice in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Invoice", testInvoice.getId())).isEqualTo(1);
     }
 
     @Test
@@ -166,8 +165,8 @@ public class InvoiceResourceIT {
         List<Invoice> invoiceList = invoiceRepository.findAll();
         assertThat(invoiceList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Invoice in Elasticsearch
-        verify(mockInvoiceSearchRepository, times(0)).save(invoice);
+        // Validate the Invoice in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Invoice", invoice.getId())).isEqualTo(0);
     }
 
 
@@ -285,6 +284,41 @@ public class InvoiceResourceIT {
             .andExpect(jsonPath("$.[*].paymentAmount").value(hasItem(DEFAULT_PAYMENT_AMOUNT.intValue())));
     }
     
+    @Test
+    @Transactional
+    public void getInvoicesWithFixedQueryCount() throws Exception {
+        // Initialize the database with invoices of distinct orders
+        Invoice last = null;
+        for (int i = 0; i < 10; i++) {
+            ProductOrder productOrder = ProductOrderResourceIT.createEntity(em).code("ORDER-" + i);
+            em.persist(productOrder);
+            last = createEntity(em).order(productOrder);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select and its count, whatever the number of rows
+        QueryCountInspector.reset();
+        restInvoiceMockMvc.perform(get("/api/invoices?sort=id,desc&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].order.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(2);
+
+        // A page after a cursor is not counted
+        QueryCountInspector.reset();
+        restInvoiceMockMvc.perform(get("/api/invoices?sort=id,desc&size=5&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].order.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(1);
+
+        QueryCountInspector.reset();
+        restInvoiceMockMvc.perform(get("/api/invoices/{id}", last.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.order.id").isNotEmpty());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getInvoice() throws Exception {
@@ -347,8 +381,8 @@ public class InvoiceResourceIT {
         assertThat(testInvoice.getPaymentDate()).isEqualTo(UPDATED_PAYMENT_DATE);
         assertThat(testInvoice.getPaymentAmount()).isEqualTo(UPDATED_PAYMENT_AMOUNT);
 
-        // Validate the Invoice in Elasticsearch
-        verify(mockInvoiceSearchRepository, times(2)).save(testInvoice);
+        // Validate the Invoice in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Invoice", testInvoice.getId())).isEqualTo(2);
     }
 
     @Test
@@ -366,8 +400,8 @@ public class InvoiceResourceIT {
         List<Invoice> invoiceList = invoiceRepository.findAll();
         assertThat(invoiceList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Invoice in Elasticsearch
-        verify(mockInvoiceSearchRepository, times(0)).save(invoice);
+        // Validate the Invoice in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Invoice", invoice.getId())).isEqualTo(0);
     }
 
     @Test
@@ -387,18 +421,17 @@ public class InvoiceResourceIT {
         List<Invoice> invoiceList = invoiceRepository.findAll();
         assertThat(invoiceList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Invoice in Elasticsearch
-        verify(mockInvoiceSearchRepository, times(1)).deleteById(invoice.getId());
+        // Validate the Invoice in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Invoice", invoice.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchInvoice() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         invoiceService.save(invoice);
-        when(mockInvoiceSearchRepository.search(queryStringQuery("id:" + invoice.getId()), PageRequest.of(0, 20)))
-            .thenReturn(new PageImpl<>(Collections.singletonList(invoice), PageRequest.of(0, 1), 1));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(Invoice.class);
 
         // Search the invoice
         restInvoiceMockMvc.perform(get("/api/_search/invoices?query=id:" + invoice.getId()))
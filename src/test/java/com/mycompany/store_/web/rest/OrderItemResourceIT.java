@@ -1,10 +1,13 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
 import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductOrder;
 import com.mycompany.store_.repository.OrderItemRepository;
-import com.mycompany.store_.repository.search.OrderItemSearchRepository;
 import com.mycompany.store_.service.OrderItemService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,20 +17,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
-import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -50,16 +51,15 @@ public class OrderItemResourceIT {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+
     @Autowired
-    private OrderItemService orderItemService;
+    private SearchOutboxDispatcher searchOutboxDispatcher;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.OrderItemSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private OrderItemSearchRepository mockOrderItemSearchRepository;
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private OrderItemService orderItemService;
 
     @Autowired
     private EntityManager em;
@@ -116,8 +116,8 @@ public class OrderItemResourceIT {
         assertThat(testOrderItem.getQuantity()).isEqualTo(DEFAULT_QUANTITY);
         assertThat(testOrderItem.getStatus()).isEqualTo(DEFAULT_STATUS);
 
-        // Validate the OrderItem in Elasticsearch
-        verify(mockOrderItemSearchRepository, times(1)).save(testOrderItem);
+        // Validate the OrderItem in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderItem", testOrderItem.getId())).isEqualTo(1);
     }
 
     @Test
@@ -138,8 +138,8 @@ public class OrderItemResourceIT {
         List<OrderItem> orderItemList = orderItemRepository.findAll();
         assertThat(orderItemList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the OrderItem in Elasticsearch
-        verify(mockOrderItemSearchRepository, times(0)).save(orderItem);
+        // Validate the OrderItem in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderItem", orderItem.getId())).isEqualTo(0);
     }
 
 
@@ -196,6 +196,43 @@ public class OrderItemResourceIT {
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())));
     }
     
+    @Test
+    @Transactional
+    public void getOrderItemsWithFixedQueryCount() throws Exception {
+        // Initialize the database with items of distinct products and orders
+        OrderItem last = null;
+        for (int i = 0; i < 10; i++) {
+            Product product = ProductResourceIT.createEntity(em);
+            em.persist(product);
+            ProductOrder productOrder = ProductOrderResourceIT.createEntity(em).code("ORDER-" + i);
+            em.persist(productOrder);
+            last = createEntity(em).product(product).order(productOrder);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select and its count, whatever the number of rows
+        QueryCountInspector.reset();
+        restOrderItemMockMvc.perform(get("/api/order-items?sort=id,desc&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].order.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(2);
+
+        // A page after a cursor is not counted
+        QueryCountInspector.reset();
+        restOrderItemMockMvc.perform(get("/api/order-items?sort=id,desc&size=5&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].order.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(1);
+
+        QueryCountInspector.reset();
+        restOrderItemMockMvc.perform(get("/api/order-items/{id}", last.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.product.id").isNotEmpty());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getOrderItem() throws Exception {
@@ -246,8 +283,8 @@ public class OrderItemResourceIT {
         assertThat(testOrderItem.getQuantity()).isEqualTo(UPDATED_QUANTITY);
         assertThat(testOrderItem.getStatus()).isEqualTo(UPDATED_STATUS);
 
-        // Validate the OrderItem in Elasticsearch
-        verify(mockOrderItemSearchRepository, times(2)).save(testOrderItem);
+        // Validate the OrderItem in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderItem", testOrderItem.getId())).isEqualTo(2);
     }
 
     @Test
@@ -265,8 +302,8 @@ public class OrderItemResourceIT {
         List<OrderItem> orderItemList = orderItemRepository.findAll();
         assertThat(orderItemList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the OrderItem in Elasticsearch
-        verify(mockOrderItemSearchRepository, times(0)).save(orderItem);
+        // Validate the OrderItem in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderItem", orderItem.getId())).isEqualTo(0);
     }
 
     @Test
@@ -286,18 +323,17 @@ public class OrderItemResourceIT {
         List<OrderItem> orderItemList = orderItemRepository.findAll();
         assertThat(orderItemList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the OrderItem in Elasticsearch
-        verify(mockOrderItemSearchRepository, times(1)).deleteById(orderItem.getId());
+        // Validate the OrderItem in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderItem", orderItem.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchOrderItem() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         orderItemService.save(orderItem);
-        when(mockOrderItemSearchRepository.search(queryStringQuery("id:" + orderItem.getId()), PageRequest.of(0, 20)))
-            .thenReturn(new PageImpl<>(Collections.singletonList(orderItem), PageRequest.of(0, 1), 1));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(OrderItem.class);
 
         // Search the orderItem
         restOrderItemMockMvc.perform(get("/api/_search/order-items?query=id:" + orderItem.getId()))
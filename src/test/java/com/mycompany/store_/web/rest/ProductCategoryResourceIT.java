@@ -1,10 +1,11 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
 import com.mycompany.store_.domain.ProductCategory;
 import com.mycompany.store_.repository.ProductCategoryRepository;
-import com.mycompany.store_.repository.search.ProductCategorySearchRepository;
 import com.mycompany.store_.service.ProductCategoryService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,18 +15,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
-import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -47,16 +46,15 @@ public class ProductCategoryResourceIT {
     @Autowired
     private ProductCategoryRepository productCategoryRepository;
 
+
     @Autowired
-    private ProductCategoryService productCategoryService;
+    private SearchOutboxDispatcher searchOutboxDispatcher;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.ProductCategorySearchRepositoryMockConfiguration
-     */
     @Autowired
-    private ProductCategorySearchRepository mockProductCategorySearchRepository;
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
 
     @Autowired
     private EntityManager em;
@@ -113,8 +111,8 @@ public class ProductCategoryResourceIT {
         assertThat(testProductCategory.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testProductCategory.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
 
-        // Validate the ProductCategory in Elasticsearch
-        verify(mockProductCategorySearchRepository, times(1)).save(testProductCategory);
+        // Validate the ProductCategory in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", testProductCategory.getId())).isEqualTo(1);
     }
 
     @Test
@@ -135,8 +133,8 @@ public class ProductCategoryResourceIT {
         List<ProductCategory> productCategoryList = productCategoryRepository.findAll();
         assertThat(productCategoryList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the ProductCategory in Elasticsearch
-        verify(mockProductCategorySearchRepository, times(0)).save(productCategory);
+        // Validate the ProductCategory in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isEqualTo(0);
     }
 
 
@@ -174,6 +172,31 @@ public class ProductCategoryResourceIT {
             .andExpect(jsonPath("$.[*].description").value(hasItem(DEFAULT_DESCRIPTION)));
     }
     
+    @Test
+    @Transactional
+    public void getProductCategoriesWithFixedQueryCount() throws Exception {
+        // Initialize the database
+        ProductCategory last = null;
+        for (int i = 0; i < 10; i++) {
+            last = createEntity(em);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        QueryCountInspector.reset();
+        restProductCategoryMockMvc.perform(get("/api/product-categories"))
+            .andExpect(status().isOk());
+        QueryCountInspector.assertSelectCount(1);
+
+        // The categories of the list are still in the persistence context of the test
+        em.clear();
+        QueryCountInspector.reset();
+        restProductCategoryMockMvc.perform(get("/api/product-categories/{id}", last.getId()))
+            .andExpect(status().isOk());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getProductCategory() throws Exception {
@@ -224,8 +247,8 @@ public class ProductCategoryResourceIT {
         assertThat(testProductCategory.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testProductCategory.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
 
-        // Validate the ProductCategory in Elasticsearch
-        verify(mockProductCategorySearchRepository, times(2)).save(testProductCategory);
+        // Validate the ProductCategory in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", testProductCategory.getId())).isEqualTo(2);
     }
 
     @Test
@@ -243,8 +266,8 @@ public class ProductCategoryResourceIT {
         List<ProductCategory> productCategoryList = productCategoryRepository.findAll();
         assertThat(productCategoryList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the ProductCategory in Elasticsearch
-        verify(mockProductCategorySearchRepository, times(0)).save(productCategory);
+        // Validate the ProductCategory in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isEqualTo(0);
     }
 
     @Test
@@ -264,18 +287,17 @@ public class ProductCategoryResourceIT {
         List<ProductCategory> productCategoryList = productCategoryRepository.findAll();
         assertThat(productCategoryList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the ProductCategory in Elasticsearch
-        verify(mockProductCategorySearchRepository, times(1)).deleteById(productCategory.getId());
+        // Validate the ProductCategory in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductCategory", productCategory.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchProductCategory() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         productCategoryService.save(productCategory);
-        when(mockProductCategorySearchRepository.search(queryStringQuery("id:" + productCategory.getId())))
-            .thenReturn(Collections.singletonList(productCategory));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(ProductCategory.class);
 
         // Search the productCategory
         restProductCategoryMockMvc.perform(get("/api/_search/product-categories?query=id:" + productCategory.getId()))
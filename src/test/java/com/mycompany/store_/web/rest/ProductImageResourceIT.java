@@ -0,0 +1,273 @@
+package com.mycompany.store_.web.rest;
+
+import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.repository.ProductRepository;
+import com.mycompany.store_.service.ProductImageStore;
+import com.mycompany.store_.service.ProductImageVariant;
+import com.mycompany.store_.service.ProductImageVariantService;
+import com.mycompany.store_.service.ProductService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import javax.persistence.EntityManager;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link ProductImageResource} REST controller.
+ */
+@SpringBootTest(classes = StoreApp.class)
+@AutoConfigureMockMvc
+public class ProductImageResourceIT {
+
+    private static final byte[] IMAGE = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final String IMAGE_KEY = "84d89877f0d4041efb6bf91a16f0248f2fd573e6af05c19f96bedb9f882f7882";
+    private static final String IMAGE_CONTENT_TYPE = "image/png";
+
+    private static final byte[] PNG_IMAGE = Arrays.copyOf(new byte[] { (byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A }, 64);
+    private static final String PNG_IMAGE_KEY = "941ba72c4f8f39b383a7c41751fc29570de070aa195c3251e272333457d58a1a";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageVariantService productImageVariantService;
+
+    @Autowired
+    private ProductImageStore productImageStore;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restProductImageMockMvc;
+
+    private Product product;
+
+    @BeforeEach
+    public void initTest() {
+        product = ProductResourceIT.createEntity(em)
+            .image(IMAGE)
+            .imageContentType(IMAGE_CONTENT_TYPE);
+    }
+
+    @Test
+    @Transactional
+    public void getProductImage() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(IMAGE_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + IMAGE_KEY + "\""))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, IMAGE.length))
+            .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    @Transactional
+    public void getProductImageRange() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId())
+            .header(HttpHeaders.RANGE, "bytes=2-5"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+            .andExpect(content().string("2345"));
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId())
+            .header(HttpHeaders.RANGE, "bytes=-3"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+            .andExpect(content().string("789"));
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId())
+            .header(HttpHeaders.RANGE, "bytes=20-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    @Transactional
+    public void getProductImageIgnoresStaleIfRange() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId())
+            .header(HttpHeaders.RANGE, "bytes=2-5")
+            .header(HttpHeaders.IF_RANGE, "\"stale\""))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    @Transactional
+    public void getProductImageNotModified() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + IMAGE_KEY + "\""))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void uploadProductImage() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(multipart("/api/products/{id}/image", product.getId())
+            .file(new MockMultipartFile("file", "image.bin", "application/octet-stream", PNG_IMAGE)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imageKey").value(PNG_IMAGE_KEY))
+            .andExpect(jsonPath("$.imageContentType").value("image/png"));
+
+        Product testProduct = productRepository.findById(product.getId()).get();
+        assertThat(testProduct.getImageKey()).isEqualTo(PNG_IMAGE_KEY);
+        assertThat(testProduct.getImageContentType()).isEqualTo("image/png");
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/png"))
+            .andExpect(content().bytes(PNG_IMAGE));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void uploadUnsupportedProductImage() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(multipart("/api/products/{id}/image", product.getId())
+            .file(new MockMultipartFile("file", "image.png", IMAGE_CONTENT_TYPE, "<svg/>".getBytes(StandardCharsets.US_ASCII))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.imageformat"));
+
+        assertThat(productRepository.findById(product.getId()).get().getImageKey()).isEqualTo(IMAGE_KEY);
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void uploadTooLargeProductImage() throws Exception {
+        productService.save(product);
+
+        restProductImageMockMvc.perform(multipart("/api/products/{id}/image", product.getId())
+            .file(new MockMultipartFile("file", "image.png", IMAGE_CONTENT_TYPE, Arrays.copyOf(PNG_IMAGE, 2048))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.imagetoolarge"));
+
+        assertThat(productRepository.findById(product.getId()).get().getImageKey()).isEqualTo(IMAGE_KEY);
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void uploadImageOfNonExistingProduct() throws Exception {
+        restProductImageMockMvc.perform(multipart("/api/products/{id}/image", Long.MAX_VALUE)
+            .file(new MockMultipartFile("file", "image.png", IMAGE_CONTENT_TYPE, PNG_IMAGE)))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getProductImageVariant() throws Exception {
+        byte[] image = pngImage(300, 200);
+        productService.save(product.image(image));
+        productImageVariantService.generate(product.getImageKey());
+
+        byte[] variant = restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()).param("w", "100"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/png"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + product.getImageKey() + "-w256\""))
+            .andReturn().getResponse().getContentAsByteArray();
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(variant));
+        assertThat(decoded.getWidth()).isEqualTo(256);
+        assertThat(decoded.getHeight()).isEqualTo(171);
+
+        // The original is not wider than the 1024 variant, so it is served without a copy
+        assertThat(productImageStore.locateVariant(product.getImageKey(), 1024)).containsSame(ProductImageVariant.ORIGINAL);
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()).param("w", "1000"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/png"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + product.getImageKey() + "\""))
+            .andExpect(content().bytes(image));
+
+        // No variant is wide enough, so the original is served
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()).param("w", "5000"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + product.getImageKey() + "\""))
+            .andExpect(content().bytes(image));
+    }
+
+    @Test
+    @Transactional
+    public void getUndecodableProductImageVariantServesOriginal() throws Exception {
+        productService.save(product);
+        productImageVariantService.generate(IMAGE_KEY);
+
+        assertThat(productImageStore.locateVariant(IMAGE_KEY, 64)).containsSame(ProductImageVariant.ORIGINAL);
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()).param("w", "64"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(IMAGE_CONTENT_TYPE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + IMAGE_KEY + "\""))
+            .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    @Transactional
+    public void getMissingProductImageVariantServesOriginal() throws Exception {
+        // The store outlives the tests, remove the variants other tests may have generated
+        productImageStore.delete(IMAGE_KEY);
+        productService.save(product);
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()).param("w", "64"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + IMAGE_KEY + "\""))
+            .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    @Transactional
+    public void getProductWithoutImage() throws Exception {
+        productRepository.saveAndFlush(product.image(null));
+
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", product.getId()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getImageOfNonExistingProduct() throws Exception {
+        restProductImageMockMvc.perform(get("/api/products/{id}/image", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    private static byte[] pngImage(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
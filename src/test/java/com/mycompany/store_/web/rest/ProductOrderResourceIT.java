@@ -1,11 +1,26 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
+import com.mycompany.store_.domain.Customer;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.OrderItem;
+import com.mycompany.store_.domain.Product;
 import com.mycompany.store_.domain.ProductOrder;
+import com.mycompany.store_.domain.Shipment;
 import com.mycompany.store_.repository.ProductOrderRepository;
-import com.mycompany.store_.repository.search.ProductOrderSearchRepository;
+import com.mycompany.store_.service.CustomerService;
+import com.mycompany.store_.service.InvoiceService;
+import com.mycompany.store_.service.OrderCodeAllocator;
+import com.mycompany.store_.service.OrderItemService;
 import com.mycompany.store_.service.ProductOrderService;
+import com.mycompany.store_.service.ProductService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
+import com.mycompany.store_.service.ShipmentService;
+import com.mycompany.store_.service.dto.OrderSearchDocument;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -14,22 +29,27 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -55,16 +75,33 @@ public class ProductOrderResourceIT {
     @Autowired
     private ProductOrderRepository productOrderRepository;
 
+
+    @Autowired
+    private SearchOutboxDispatcher searchOutboxDispatcher;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
     @Autowired
     private ProductOrderService productOrderService;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.ProductOrderSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private ProductOrderSearchRepository mockProductOrderSearchRepository;
+    private OrderCodeAllocator orderCodeAllocator;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ShipmentService shipmentService;
 
     @Autowired
     private EntityManager em;
@@ -124,8 +161,8 @@ public class ProductOrderResourceIT {
         assertThat(testProductOrder.getStatus()).isEqualTo(DEFAULT_STATUS);
         assertThat(testProductOrder.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the ProductOrder in Elasticsearch
-        verify(mockProductOrderSearchRepository, times(1)).save(testProductOrder);
+        // Validate the ProductOrder in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductOrder", testProductOrder.getId())).isEqualTo(1);
     }
 
     @Test
@@ -146,11 +183,30 @@ public class ProductOrderResourceIT {
         List<ProductOrder> productOrderList = productOrderRepository.findAll();
         assertThat(productOrderList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the ProductOrder in Elasticsearch
-        verify(mockProductOrderSearchRepository, times(0)).save(productOrder);
+        // Validate the ProductOrder in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductOrder", productOrder.getId())).isEqualTo(0);
     }
 
 
+    @Test
+    @Transactional
+    public void createProductOrderWithAllocatedCode() throws Exception {
+        int databaseSizeBeforeCreate = productOrderRepository.findAll().size();
+
+        // Create the ProductOrder with a code the allocator could give to an order at checkout
+        productOrder.setCode(orderCodeAllocator.next());
+
+        restProductOrderMockMvc.perform(post("/api/product-orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(productOrder)))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-storeApp-error", "error.codereserved"));
+
+        // Validate the ProductOrder in the database
+        List<ProductOrder> productOrderList = productOrderRepository.findAll();
+        assertThat(productOrderList).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     @Transactional
     public void checkPlacedDateIsRequired() throws Exception {
@@ -224,6 +280,83 @@ public class ProductOrderResourceIT {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE)));
     }
     
+    @Test
+    @Transactional
+    public void getAllProductOrdersByKeyset() throws Exception {
+        // Initialize the database, with two orders sharing the same placed date
+        ProductOrder first = productOrderRepository.saveAndFlush(createUpdatedEntity(em).code("first"));
+        ProductOrder second = productOrderRepository.saveAndFlush(createUpdatedEntity(em).code("second"));
+        ProductOrder third = productOrderRepository.saveAndFlush(productOrder);
+
+        // Follow the next links, one order at a time
+        List<Long> ids = new ArrayList<>();
+        String url = "/api/product-orders?sort=placedDate,desc&size=1&after=";
+        while (url != null) {
+            MockHttpServletResponse response = restProductOrderMockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andReturn().getResponse();
+            JsonNode page = new ObjectMapper().readTree(response.getContentAsString());
+            page.forEach(order -> ids.add(order.get("id").asLong()));
+            String link = response.getHeader(HttpHeaders.LINK);
+            url = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        }
+
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids).containsSubsequence(first.getId(), second.getId(), third.getId());
+    }
+
+    @Test
+    @Transactional
+    public void getAllProductOrdersWithInvalidCursor() throws Exception {
+        restProductOrderMockMvc.perform(get("/api/product-orders?sort=placedDate,desc&after=bm90LWEtY3Vyc29y"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.cursor"));
+    }
+
+    @Test
+    @Transactional
+    public void getAllProductOrdersByKeysetWithUnsupportedSort() throws Exception {
+        restProductOrderMockMvc.perform(get("/api/product-orders?sort=customer.id&after="))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.cursorsort"));
+    }
+
+    @Test
+    @Transactional
+    public void getProductOrdersWithFixedQueryCount() throws Exception {
+        // Initialize the database with orders of distinct customers
+        ProductOrder last = null;
+        for (int i = 0; i < 10; i++) {
+            Customer customer = CustomerResourceIT.createEntity(em);
+            em.persist(customer);
+            last = createEntity(em).code("ORDER-" + i).customer(customer);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select and its count, whatever the number of rows
+        QueryCountInspector.reset();
+        restProductOrderMockMvc.perform(get("/api/product-orders?sort=id,desc&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].customer.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(2);
+
+        // A page after a cursor is not counted
+        QueryCountInspector.reset();
+        restProductOrderMockMvc.perform(get("/api/product-orders?sort=id,desc&size=5&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].customer.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(1);
+
+        QueryCountInspector.reset();
+        restProductOrderMockMvc.perform(get("/api/product-orders/{id}", last.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.customer.id").isNotEmpty());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getProductOrder() throws Exception {
@@ -247,6 +380,57 @@ public class ProductOrderResourceIT {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    public void getProductOrderDetails() throws Exception {
+        // Initialize the database with an order of several items, invoices and shipments
+        Customer customer = CustomerResourceIT.createEntity(em);
+        em.persist(customer);
+        em.persist(productOrder.customer(customer));
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Product product = ProductResourceIT.createEntity(em).name("Product " + i);
+            em.persist(product);
+            OrderItem orderItem = OrderItemResourceIT.createEntity(em).order(productOrder).product(product);
+            em.persist(orderItem);
+            orderItems.add(orderItem);
+        }
+        Invoice paid = InvoiceResourceIT.createEntity(em).order(productOrder);
+        Invoice cancelled = InvoiceResourceIT.createEntity(em).order(productOrder);
+        em.persist(paid);
+        em.persist(cancelled);
+        Shipment first = ShipmentResourceIT.createEntity(em).invoice(paid).trackingCode("first");
+        Shipment second = ShipmentResourceIT.createEntity(em).invoice(paid).trackingCode("second");
+        em.persist(first);
+        em.persist(second);
+        em.flush();
+        em.clear();
+
+        // The order and its items, then the invoices and their shipments
+        QueryCountInspector.reset();
+        restProductOrderMockMvc.perform(get("/api/product-orders/{id}/full", productOrder.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(productOrder.getId().intValue()))
+            .andExpect(jsonPath("$.code").value(DEFAULT_CODE))
+            .andExpect(jsonPath("$.customer.email").value(customer.getEmail()))
+            .andExpect(jsonPath("$.items").value(hasSize(3)))
+            .andExpect(jsonPath("$.items[0].id").value(orderItems.get(0).getId().intValue()))
+            .andExpect(jsonPath("$.items[2].product.name").value("Product 2"))
+            .andExpect(jsonPath("$.invoices").value(hasSize(2)))
+            .andExpect(jsonPath("$.invoices[0].id").value(paid.getId().intValue()))
+            .andExpect(jsonPath("$.invoices[0].shipments[*].trackingCode").value(contains("first", "second")))
+            .andExpect(jsonPath("$.invoices[1].shipments").value(hasSize(0)));
+        QueryCountInspector.assertSelectCount(2);
+    }
+
+    @Test
+    @Transactional
+    public void getNonExistingProductOrderDetails() throws Exception {
+        restProductOrderMockMvc.perform(get("/api/product-orders/{id}/full", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void updateProductOrder() throws Exception {
@@ -277,8 +461,47 @@ public class ProductOrderResourceIT {
         assertThat(testProductOrder.getStatus()).isEqualTo(UPDATED_STATUS);
         assertThat(testProductOrder.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the ProductOrder in Elasticsearch
-        verify(mockProductOrderSearchRepository, times(2)).save(testProductOrder);
+        // Validate the ProductOrder in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductOrder", testProductOrder.getId())).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    public void updateProductOrderKeepingAllocatedCode() throws Exception {
+        // Initialize the database with an order placed at checkout
+        String code = orderCodeAllocator.next();
+        productOrderRepository.saveAndFlush(productOrder.code(code));
+
+        ProductOrder updatedProductOrder = productOrderRepository.findById(productOrder.getId()).get();
+        em.detach(updatedProductOrder);
+        updatedProductOrder.status(UPDATED_STATUS);
+
+        restProductOrderMockMvc.perform(put("/api/product-orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedProductOrder)))
+            .andExpect(status().isOk());
+
+        ProductOrder testProductOrder = productOrderRepository.findById(productOrder.getId()).get();
+        assertThat(testProductOrder.getStatus()).isEqualTo(UPDATED_STATUS);
+        assertThat(testProductOrder.getCode()).isEqualTo(code);
+    }
+
+    @Test
+    @Transactional
+    public void updateProductOrderWithAllocatedCode() throws Exception {
+        // Initialize the database
+        productOrderRepository.saveAndFlush(productOrder);
+
+        ProductOrder updatedProductOrder = productOrderRepository.findById(productOrder.getId()).get();
+        em.detach(updatedProductOrder);
+        updatedProductOrder.code(orderCodeAllocator.next());
+
+        restProductOrderMockMvc.perform(put("/api/product-orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(updatedProductOrder)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(productOrderRepository.findById(productOrder.getId()).get().getCode()).isEqualTo(DEFAULT_CODE);
     }
 
     @Test
@@ -296,8 +519,8 @@ public class ProductOrderResourceIT {
         List<ProductOrder> productOrderList = productOrderRepository.findAll();
         assertThat(productOrderList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the ProductOrder in Elasticsearch
-        verify(mockProductOrderSearchRepository, times(0)).save(productOrder);
+        // Validate the ProductOrder in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductOrder", productOrder.getId())).isEqualTo(0);
     }
 
     @Test
@@ -317,18 +540,17 @@ public class ProductOrderResourceIT {
         List<ProductOrder> productOrderList = productOrderRepository.findAll();
         assertThat(productOrderList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the ProductOrder in Elasticsearch
-        verify(mockProductOrderSearchRepository, times(1)).deleteById(productOrder.getId());
+        // Validate the ProductOrder in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "ProductOrder", productOrder.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchProductOrder() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         productOrderService.save(productOrder);
-        when(mockProductOrderSearchRepository.search(queryStringQuery("id:" + productOrder.getId()), PageRequest.of(0, 20)))
-            .thenReturn(new PageImpl<>(Collections.singletonList(productOrder), PageRequest.of(0, 1), 1));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(ProductOrder.class);
 
         // Search the productOrder
         restProductOrderMockMvc.perform(get("/api/_search/product-orders?query=id:" + productOrder.getId()))
@@ -339,4 +561,105 @@ public class ProductOrderResourceIT {
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())))
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE)));
     }
+
+    @Test
+    @Transactional
+    public void searchOrderViews() throws Exception {
+        // Initialize the database and the search index
+        Customer customer = customerService.save(CustomerResourceIT.createEntity(em).lastName("Lovelace"));
+        Product product = productService.save(ProductResourceIT.createEntity(em).name("Analytical engine"));
+        productOrderService.save(productOrder.customer(customer));
+        OrderItem orderItem = orderItemService.save(OrderItemResourceIT.createEntity(em).order(productOrder).product(product));
+        Invoice invoice = invoiceService.save(InvoiceResourceIT.createEntity(em).order(productOrder));
+        Shipment shipment = shipmentService.save(ShipmentResourceIT.createEntity(em).invoice(invoice));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(OrderSearchDocument.class);
+
+        // Search the order by its customer and its products
+        restProductOrderMockMvc.perform(get("/api/_search/order-views?query=customer.lastName:lovelace AND items.productName:engine"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productOrder.getId().intValue())))
+            .andExpect(jsonPath("$.[0].code").value(DEFAULT_CODE))
+            .andExpect(jsonPath("$.[0].customer.email").value(customer.getEmail()))
+            .andExpect(jsonPath("$.[0].items[0].productName").value("Analytical engine"))
+            .andExpect(jsonPath("$.[0].items[0].quantity").value(orderItem.getQuantity()))
+            .andExpect(jsonPath("$.[0].invoices[0].status").value(invoice.getStatus().toString()))
+            .andExpect(jsonPath("$.[0].invoices[0].shipments[0].trackingCode").value(shipment.getTrackingCode()));
+    }
+
+    @Test
+    @Transactional
+    public void searchOrderViewsAfterChanges() throws Exception {
+        // Initialize the database and the search index
+        Customer customer = customerService.save(CustomerResourceIT.createEntity(em).lastName("Lovelace"));
+        productOrderService.save(productOrder.customer(customer));
+        OrderItem orderItem = orderItemService.save(OrderItemResourceIT.createEntity(em).order(productOrder));
+        searchOutboxDispatcher.flush();
+
+        // Change the customer and remove the item
+        customerService.save(customer.lastName("Byron"));
+        orderItemService.delete(orderItem.getId());
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(OrderSearchDocument.class);
+
+        restProductOrderMockMvc.perform(get("/api/_search/order-views?query=customer.lastName:lovelace"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(productOrder.getId().intValue()))));
+        restProductOrderMockMvc.perform(get("/api/_search/order-views?query=customer.lastName:byron"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productOrder.getId().intValue())))
+            .andExpect(jsonPath("$.[0].items").value(hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    public void savingProductWritesItsOrdersOnlyWhenRenamed() throws Exception {
+        // Initialize the database and the search index
+        Product product = productService.save(ProductResourceIT.createEntity(em).name("Analytical engine"));
+        productOrderService.save(productOrder);
+        orderItemService.save(OrderItemResourceIT.createEntity(em).order(productOrder).product(product));
+        searchOutboxDispatcher.flush();
+
+        productService.save(product.price(product.getPrice().add(BigDecimal.ONE)));
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderSearchDocument", productOrder.getId())).isZero();
+
+        productService.save(product.name("Difference engine"));
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderSearchDocument", productOrder.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void savingProductWritesItsOrdersWhenRenamedAndFlushedEarlier() throws Exception {
+        // Initialize the database and the search index
+        Product product = productService.save(ProductResourceIT.createEntity(em).name("Analytical engine"));
+        productOrderService.save(productOrder);
+        orderItemService.save(OrderItemResourceIT.createEntity(em).order(productOrder).product(product));
+        searchOutboxDispatcher.flush();
+
+        product.name("Difference engine");
+        em.flush();
+        productService.save(product);
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderSearchDocument", productOrder.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void savingItemMovedAndFlushedEarlierWritesBothOrders() throws Exception {
+        // Initialize the database and the search index
+        productOrderService.save(productOrder);
+        ProductOrder otherOrder = productOrderService.save(createUpdatedEntity(em));
+        OrderItem orderItem = orderItemService.save(OrderItemResourceIT.createEntity(em).order(productOrder));
+        searchOutboxDispatcher.flush();
+
+        orderItem.order(otherOrder);
+        em.flush();
+        orderItemService.save(orderItem);
+
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderSearchDocument", productOrder.getId())).isEqualTo(1);
+        assertThat(TestUtil.countSearchOutboxEntries(em, "OrderSearchDocument", otherOrder.getId())).isEqualTo(1);
+    }
 }
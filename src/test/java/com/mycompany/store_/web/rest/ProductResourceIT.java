@@ -1,10 +1,16 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
 import com.mycompany.store_.domain.Product;
+import com.mycompany.store_.domain.ProductCategory;
+import com.mycompany.store_.repository.CatalogChangeRepository;
 import com.mycompany.store_.repository.ProductRepository;
-import com.mycompany.store_.repository.search.ProductSearchRepository;
+import com.mycompany.store_.service.CatalogFeed;
+import com.mycompany.store_.service.ProductCategoryService;
+import com.mycompany.store_.service.ProductImageStore;
 import com.mycompany.store_.service.ProductService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,22 +20,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 import javax.persistence.EntityManager;
 import java.math.BigDecimal;
-import java.util.Collections;
+import java.time.Instant;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -57,22 +62,35 @@ public class ProductResourceIT {
 
     private static final byte[] DEFAULT_IMAGE = TestUtil.createByteArray(1, "0");
     private static final byte[] UPDATED_IMAGE = TestUtil.createByteArray(1, "1");
+    private static final String DEFAULT_IMAGE_KEY = "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d";
+    private static final String UPDATED_IMAGE_KEY = "4bf5122f344554c53bde2ebb8cd2b7e3d1600ad631c385a5d7cce23c7785459a";
     private static final String DEFAULT_IMAGE_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_IMAGE_CONTENT_TYPE = "image/png";
 
     @Autowired
     private ProductRepository productRepository;
 
+
+    @Autowired
+    private SearchOutboxDispatcher searchOutboxDispatcher;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
     @Autowired
     private ProductService productService;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.ProductSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private ProductSearchRepository mockProductSearchRepository;
+    private ProductImageStore productImageStore;
+
+    @Autowired
+    private CatalogFeed catalogFeed;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
 
     @Autowired
     private EntityManager em;
@@ -138,11 +156,12 @@ public class ProductResourceIT {
         assertThat(testProduct.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
         assertThat(testProduct.getPrice()).isEqualTo(DEFAULT_PRICE);
         assertThat(testProduct.getSize()).isEqualTo(DEFAULT_SIZE);
-        assertThat(testProduct.getImage()).isEqualTo(DEFAULT_IMAGE);
+        assertThat(testProduct.getImageKey()).isEqualTo(DEFAULT_IMAGE_KEY);
+        assertThat(productImageStore.locate(DEFAULT_IMAGE_KEY)).isPresent();
         assertThat(testProduct.getImageContentType()).isEqualTo(DEFAULT_IMAGE_CONTENT_TYPE);
 
-        // Validate the Product in Elasticsearch
-        verify(mockProductSearchRepository, times(1)).save(testProduct);
+        // Validate the Product in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Product", testProduct.getId())).isEqualTo(1);
     }
 
     @Test
@@ -163,8 +182,8 @@ public class ProductResourceIT {
         List<Product> productList = productRepository.findAll();
         assertThat(productList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Product in Elasticsearch
-        verify(mockProductSearchRepository, times(0)).save(product);
+        // Validate the Product in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Product", product.getId())).isEqualTo(0);
     }
 
 
@@ -229,7 +248,7 @@ public class ProductResourceIT {
     @Transactional
     public void getAllProducts() throws Exception {
         // Initialize the database
-        productRepository.saveAndFlush(product);
+        productService.save(product);
 
         // Get all the productList
         restProductMockMvc.perform(get("/api/products?sort=id,desc"))
@@ -241,14 +260,50 @@ public class ProductResourceIT {
             .andExpect(jsonPath("$.[*].price").value(hasItem(DEFAULT_PRICE.intValue())))
             .andExpect(jsonPath("$.[*].size").value(hasItem(DEFAULT_SIZE.toString())))
             .andExpect(jsonPath("$.[*].imageContentType").value(hasItem(DEFAULT_IMAGE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].image").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGE))));
+            .andExpect(jsonPath("$.[*].imageKey").value(hasItem(DEFAULT_IMAGE_KEY)))
+            .andExpect(jsonPath("$.[*].image").doesNotExist());
     }
     
+    @Test
+    @Transactional
+    public void getProductsWithFixedQueryCount() throws Exception {
+        // Initialize the database with products of distinct categories
+        Product last = null;
+        for (int i = 0; i < 10; i++) {
+            ProductCategory productCategory = ProductCategoryResourceIT.createEntity(em);
+            em.persist(productCategory);
+            last = createEntity(em).productCategory(productCategory);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select and its count, whatever the number of rows
+        QueryCountInspector.reset();
+        restProductMockMvc.perform(get("/api/products?sort=id,desc&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].productCategory.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(2);
+
+        // A page after a cursor is not counted
+        QueryCountInspector.reset();
+        restProductMockMvc.perform(get("/api/products?sort=id,desc&size=5&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].productCategory.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(1);
+
+        QueryCountInspector.reset();
+        restProductMockMvc.perform(get("/api/products/{id}", last.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.productCategory.id").isNotEmpty());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getProduct() throws Exception {
         // Initialize the database
-        productRepository.saveAndFlush(product);
+        productService.save(product);
 
         // Get the product
         restProductMockMvc.perform(get("/api/products/{id}", product.getId()))
@@ -260,7 +315,8 @@ public class ProductResourceIT {
             .andExpect(jsonPath("$.price").value(DEFAULT_PRICE.intValue()))
             .andExpect(jsonPath("$.size").value(DEFAULT_SIZE.toString()))
             .andExpect(jsonPath("$.imageContentType").value(DEFAULT_IMAGE_CONTENT_TYPE))
-            .andExpect(jsonPath("$.image").value(Base64Utils.encodeToString(DEFAULT_IMAGE)));
+            .andExpect(jsonPath("$.imageKey").value(DEFAULT_IMAGE_KEY))
+            .andExpect(jsonPath("$.image").doesNotExist());
     }
     @Test
     @Transactional
@@ -303,11 +359,12 @@ public class ProductResourceIT {
         assertThat(testProduct.getDescription()).isEqualTo(UPDATED_DESCRIPTION);
         assertThat(testProduct.getPrice()).isEqualTo(UPDATED_PRICE);
         assertThat(testProduct.getSize()).isEqualTo(UPDATED_SIZE);
-        assertThat(testProduct.getImage()).isEqualTo(UPDATED_IMAGE);
+        assertThat(testProduct.getImageKey()).isEqualTo(UPDATED_IMAGE_KEY);
+        assertThat(productImageStore.locate(UPDATED_IMAGE_KEY)).isPresent();
         assertThat(testProduct.getImageContentType()).isEqualTo(UPDATED_IMAGE_CONTENT_TYPE);
 
-        // Validate the Product in Elasticsearch
-        verify(mockProductSearchRepository, times(2)).save(testProduct);
+        // Validate the Product in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Product", testProduct.getId())).isEqualTo(2);
     }
 
     @Test
@@ -325,8 +382,8 @@ public class ProductResourceIT {
         List<Product> productList = productRepository.findAll();
         assertThat(productList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Product in Elasticsearch
-        verify(mockProductSearchRepository, times(0)).save(product);
+        // Validate the Product in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Product", product.getId())).isEqualTo(0);
     }
 
     @Test
@@ -346,18 +403,17 @@ public class ProductResourceIT {
         List<Product> productList = productRepository.findAll();
         assertThat(productList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Product in Elasticsearch
-        verify(mockProductSearchRepository, times(1)).deleteById(product.getId());
+        // Validate the Product in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Product", product.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchProduct() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         productService.save(product);
-        when(mockProductSearchRepository.search(queryStringQuery("id:" + product.getId()), PageRequest.of(0, 20)))
-            .thenReturn(new PageImpl<>(Collections.singletonList(product), PageRequest.of(0, 1), 1));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(Product.class);
 
         // Search the product
         restProductMockMvc.perform(get("/api/_search/products?query=id:" + product.getId()))
@@ -369,6 +425,150 @@ public class ProductResourceIT {
             .andExpect(jsonPath("$.[*].price").value(hasItem(DEFAULT_PRICE.intValue())))
             .andExpect(jsonPath("$.[*].size").value(hasItem(DEFAULT_SIZE.toString())))
             .andExpect(jsonPath("$.[*].imageContentType").value(hasItem(DEFAULT_IMAGE_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].image").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGE))));
+            .andExpect(jsonPath("$.[*].imageKey").value(hasItem(DEFAULT_IMAGE_KEY)))
+            .andExpect(jsonPath("$.[*].image").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void suggestProducts() throws Exception {
+        // Initialize the database and the suggestions
+        Product lamp = productService.save(createEntity(em).name("Zebra lamp"));
+        Product rug = productService.save(createEntity(em).name("Zebra rug"));
+        em.persist(OrderItemResourceIT.createEntity(em).quantity(3).product(rug));
+        em.flush();
+        catalogFeed.reload();
+
+        // Suggest the most ordered product first
+        restProductMockMvc.perform(get("/api/products/suggest?prefix=zeb"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(contains(rug.getId().intValue(), lamp.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(contains("Zebra rug", "Zebra lamp")));
+        restProductMockMvc.perform(get("/api/products/suggest?prefix=zebra l&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(lamp.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void suggestProductsChangedSinceTheLastLoad() throws Exception {
+        // Initialize the database and the suggestions
+        Product lamp = productService.save(createEntity(em).name("Zebra lamp"));
+        Product rug = productService.save(createEntity(em).name("Zebra rug"));
+        em.flush();
+        catalogFeed.reload();
+
+        // Rename one product and delete the other
+        productService.save(lamp.name("Quagga lamp"));
+        productService.delete(rug.getId());
+        em.flush();
+        catalogFeed.poll();
+
+        // Suggest the products as they are now
+        restProductMockMvc.perform(get("/api/products/suggest?prefix=zeb"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restProductMockMvc.perform(get("/api/products/suggest?prefix=quag"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(lamp.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getProductFacetsAndFilterProducts() throws Exception {
+        // Initialize the database and the facets
+        ProductCategory category = ProductCategoryResourceIT.createEntity(em);
+        em.persist(category);
+        Product small = productService.save(createEntity(em).size(Size.S).price(new BigDecimal("5")).productCategory(category));
+        productService.save(createEntity(em).size(Size.M).price(new BigDecimal("30")).productCategory(category));
+        Product large = productService.save(createEntity(em).size(Size.L).price(new BigDecimal("40")).productCategory(category));
+        em.flush();
+        catalogFeed.reload();
+
+        // Count each facet with the filters of the others
+        String categoryId = "categoryIds=" + category.getId();
+        restProductMockMvc.perform(get("/api/products/facets?" + categoryId + "&sizes=M&sizes=L&priceBands=2"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.total").value(2))
+            .andExpect(jsonPath("$.sizes.S").value(0))
+            .andExpect(jsonPath("$.sizes.M").value(1))
+            .andExpect(jsonPath("$.sizes.L").value(1))
+            .andExpect(jsonPath("$.categories." + category.getId()).value(2))
+            .andExpect(jsonPath("$.priceBands[0].count").value(0))
+            .andExpect(jsonPath("$.priceBands[2].count").value(2))
+            .andExpect(jsonPath("$.priceBands[2].from").value(25))
+            .andExpect(jsonPath("$.priceBands[2].to").value(50));
+
+        // Get the matching products in id order
+        restProductMockMvc.perform(get("/api/products/filter?" + categoryId + "&sizes=M&sizes=L&priceBands=2&size=1&page=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[*].id").value(contains(large.getId().intValue())))
+            .andExpect(jsonPath("$.[0].productCategory.id").value(category.getId().intValue()));
+        restProductMockMvc.perform(get("/api/products/filter?" + categoryId + "&sizes=S"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(small.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getProductChanges() throws Exception {
+        // Get the sequence to read the changes from
+        long since = productService.findChanges(null, 0).getNext();
+        restProductMockMvc.perform(get("/api/products/changes"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes").isEmpty())
+            .andExpect(jsonPath("$.next").value(since));
+
+        // Change the catalog
+        ProductCategory category = productCategoryService.save(ProductCategoryResourceIT.createEntity(em));
+        Product kept = productService.save(createEntity(em).productCategory(category));
+        Product deleted = productService.save(createEntity(em));
+        productService.save(kept.name(UPDATED_NAME));
+        productService.delete(deleted.getId());
+        em.flush();
+
+        // Get the latest change of each entity, in sequence order
+        restProductMockMvc.perform(get("/api/products/changes?since={since}", since))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.changes.[*].sequence").value(contains((int) since + 1, (int) since + 4, (int) since + 5)))
+            .andExpect(jsonPath("$.changes.[0].entityType").value("ProductCategory"))
+            .andExpect(jsonPath("$.changes.[0].productCategory.id").value(category.getId().intValue()))
+            .andExpect(jsonPath("$.changes.[1].entityType").value("Product"))
+            .andExpect(jsonPath("$.changes.[1].deleted").value(false))
+            .andExpect(jsonPath("$.changes.[1].product.name").value(UPDATED_NAME))
+            .andExpect(jsonPath("$.changes.[1].product.productCategory.id").value(category.getId().intValue()))
+            .andExpect(jsonPath("$.changes.[2].id").value(deleted.getId().intValue()))
+            .andExpect(jsonPath("$.changes.[2].deleted").value(true))
+            .andExpect(jsonPath("$.changes.[2].product").doesNotExist())
+            .andExpect(jsonPath("$.next").value(since + 5))
+            .andExpect(jsonPath("$.more").value(false));
+
+        // Page through the changes
+        restProductMockMvc.perform(get("/api/products/changes?since={since}&limit=2", since))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes.[*].sequence").value(contains((int) since + 1, (int) since + 2)))
+            .andExpect(jsonPath("$.next").value(since + 2))
+            .andExpect(jsonPath("$.more").value(true));
+        restProductMockMvc.perform(get("/api/products/changes?since={since}", since + 5))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes").isEmpty())
+            .andExpect(jsonPath("$.next").value(since + 5))
+            .andExpect(jsonPath("$.more").value(false));
+        restProductMockMvc.perform(get("/api/products/changes?since={since}", since + 6))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-storeApp-error", "error.sinceinvalid"));
+
+        // Purge the changes
+        catalogChangeRepository.deleteByCreatedDateBefore(Instant.now().plusSeconds(1));
+        restProductMockMvc.perform(get("/api/products/changes?since={since}", since + 4))
+            .andExpect(status().isGone())
+            .andExpect(jsonPath("$.message").value("error.catalogChangesExpired"));
+        restProductMockMvc.perform(get("/api/products/changes?since={since}", since + 5))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes").isEmpty());
     }
 }
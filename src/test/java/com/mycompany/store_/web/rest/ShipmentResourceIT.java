@@ -1,10 +1,13 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
+import com.mycompany.store_.domain.Invoice;
+import com.mycompany.store_.domain.ProductOrder;
 import com.mycompany.store_.domain.Shipment;
 import com.mycompany.store_.repository.ShipmentRepository;
-import com.mycompany.store_.repository.search.ShipmentSearchRepository;
 import com.mycompany.store_.service.ShipmentService;
+import com.mycompany.store_.service.SearchOutboxDispatcher;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,8 +17,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,13 +25,12 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -54,16 +55,15 @@ public class ShipmentResourceIT {
     @Autowired
     private ShipmentRepository shipmentRepository;
 
+
     @Autowired
-    private ShipmentService shipmentService;
+    private SearchOutboxDispatcher searchOutboxDispatcher;
 
-    /**
-     * This repository is mocked in the com.mycompany.store_.repository.search test package.
-     *
-     * @see com.mycompany.store_.repository.search.ShipmentSearchRepositoryMockConfiguration
-     */
     @Autowired
-    private ShipmentSearchRepository mockShipmentSearchRepository;
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ShipmentService shipmentService;
 
     @Autowired
     private EntityManager em;
@@ -123,8 +123,8 @@ public class ShipmentResourceIT {
         assertThat(testShipment.getDate()).isEqualTo(DEFAULT_DATE);
         assertThat(testShipment.getDetails()).isEqualTo(DEFAULT_DETAILS);
 
-        // Validate the Shipment in Elasticsearch
-        verify(mockShipmentSearchRepository, times(1)).save(testShipment);
+        // Validate the Shipment in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Shipment", testShipment.getId())).isEqualTo(1);
     }
 
     @Test
@@ -145,8 +145,8 @@ public class ShipmentResourceIT {
         List<Shipment> shipmentList = shipmentRepository.findAll();
         assertThat(shipmentList).hasSize(databaseSizeBeforeCreate);
 
-        // Validate the Shipment in Elasticsearch
-        verify(mockShipmentSearchRepository, times(0)).save(shipment);
+        // Validate the Shipment in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Shipment", shipment.getId())).isEqualTo(0);
     }
 
 
@@ -185,6 +185,46 @@ public class ShipmentResourceIT {
             .andExpect(jsonPath("$.[*].details").value(hasItem(DEFAULT_DETAILS)));
     }
     
+    @Test
+    @Transactional
+    public void getShipmentsWithFixedQueryCount() throws Exception {
+        // Initialize the database with shipments of distinct invoices and orders
+        Shipment last = null;
+        for (int i = 0; i < 10; i++) {
+            ProductOrder productOrder = ProductOrderResourceIT.createEntity(em).code("ORDER-" + i);
+            em.persist(productOrder);
+            Invoice invoice = InvoiceResourceIT.createEntity(em).order(productOrder);
+            em.persist(invoice);
+            last = createEntity(em).invoice(invoice);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select and its count, whatever the number of rows;
+        // invoices are fetched with the shipments, their orders are written with their id only
+        QueryCountInspector.reset();
+        restShipmentMockMvc.perform(get("/api/shipments?sort=id,desc&size=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].invoice.paymentMethod").value(hasItem(InvoiceResourceIT.createEntity(em).getPaymentMethod().toString())))
+            .andExpect(jsonPath("$.[0].invoice.order.id").isNumber())
+            .andExpect(jsonPath("$.[0].invoice.order.code").doesNotExist());
+        QueryCountInspector.assertSelectCount(2);
+
+        // A page after a cursor is not counted
+        QueryCountInspector.reset();
+        restShipmentMockMvc.perform(get("/api/shipments?sort=id,desc&size=5&after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].invoice.id").value(everyItem(notNullValue())));
+        QueryCountInspector.assertSelectCount(1);
+
+        QueryCountInspector.reset();
+        restShipmentMockMvc.perform(get("/api/shipments/{id}", last.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.invoice.id").isNotEmpty());
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getShipment() throws Exception {
@@ -238,8 +278,8 @@ public class ShipmentResourceIT {
         assertThat(testShipment.getDate()).isEqualTo(UPDATED_DATE);
         assertThat(testShipment.getDetails()).isEqualTo(UPDATED_DETAILS);
 
-        // Validate the Shipment in Elasticsearch
-        verify(mockShipmentSearchRepository, times(2)).save(testShipment);
+        // Validate the Shipment in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Shipment", testShipment.getId())).isEqualTo(2);
     }
 
     @Test
@@ -257,8 +297,8 @@ public class ShipmentResourceIT {
         List<Shipment> shipmentList = shipmentRepository.findAll();
         assertThat(shipmentList).hasSize(databaseSizeBeforeUpdate);
 
-        // Validate the Shipment in Elasticsearch
-        verify(mockShipmentSearchRepository, times(0)).save(shipment);
+        // Validate the Shipment in the search outbox
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Shipment", shipment.getId())).isEqualTo(0);
     }
 
     @Test
@@ -278,18 +318,17 @@ public class ShipmentResourceIT {
         List<Shipment> shipmentList = shipmentRepository.findAll();
         assertThat(shipmentList).hasSize(databaseSizeBeforeDelete - 1);
 
-        // Validate the Shipment in Elasticsearch
-        verify(mockShipmentSearchRepository, times(1)).deleteById(shipment.getId());
+        // Validate the Shipment in the search outbox, once saved and once deleted
+        assertThat(TestUtil.countSearchOutboxEntries(em, "Shipment", shipment.getId())).isEqualTo(2);
     }
 
     @Test
     @Transactional
     public void searchShipment() throws Exception {
-        // Configure the mock search repository
-        // Initialize the database
+        // Initialize the database and the search index
         shipmentService.save(shipment);
-        when(mockShipmentSearchRepository.search(queryStringQuery("id:" + shipment.getId()), PageRequest.of(0, 20)))
-            .thenReturn(new PageImpl<>(Collections.singletonList(shipment), PageRequest.of(0, 1), 1));
+        searchOutboxDispatcher.flush();
+        elasticsearchOperations.refresh(Shipment.class);
 
         // Search the shipment
         restShipmentMockMvc.perform(get("/api/_search/shipments?query=id:" + shipment.getId()))
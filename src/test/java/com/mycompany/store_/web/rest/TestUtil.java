@@ -9,6 +9,7 @@ import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.time.ZonedDateTime;
@@ -123,6 +124,10 @@ public final class TestUtil {
         assertThat(domainObject1).isNotEqualTo(domainObject2);
         // HashCodes are equals because the objects are not persisted yet
         assertThat(domainObject1.hashCode()).isEqualTo(domainObject2.hashCode());
+        // HashCodes do not change once the objects are persisted
+        int hashCode = domainObject1.hashCode();
+        ReflectionTestUtils.setField(domainObject1, "id", 1L);
+        assertThat(domainObject1.hashCode()).isEqualTo(hashCode);
     }
 
     /**
@@ -153,5 +158,20 @@ public final class TestUtil {
         return allQuery.getResultList();
     }
 
+    /**
+     * Count the entries of the search outbox for an entity.
+     *
+     * @param em the database entity manager.
+     * @param entityType the name of the entity type, or of the search projection.
+     * @param entityId the id of the entity.
+     * @return the number of entries.
+     */
+    public static long countSearchOutboxEntries(EntityManager em, String entityType, Long entityId) {
+        return em.createQuery("select count(entry) from SearchOutboxEntry entry where entry.entityType = :entityType and entry.entityId = :entityId", Long.class)
+            .setParameter("entityType", entityType)
+            .setParameter("entityId", entityId)
+            .getSingleResult();
+    }
+
     private TestUtil() {}
 }
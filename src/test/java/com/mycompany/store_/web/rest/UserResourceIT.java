@@ -1,6 +1,7 @@
 package com.mycompany.store_.web.rest;
 
 import com.mycompany.store_.StoreApp;
+import com.mycompany.store_.config.QueryCountInspector;
 import com.mycompany.store_.domain.Authority;
 import com.mycompany.store_.domain.User;
 import com.mycompany.store_.repository.UserRepository;
@@ -27,6 +28,7 @@ import java.util.*;
 import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -259,6 +261,35 @@ public class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    public void getUsersWithFixedQueryCount() throws Exception {
+        // Initialize the database with more users than the batch size of their authorities
+        Authority authority = em.find(Authority.class, AuthoritiesConstants.USER);
+        User last = null;
+        for (int i = 0; i < 30; i++) {
+            last = createEntity(em);
+            last.getAuthorities().add(authority);
+            em.persist(last);
+        }
+        em.flush();
+        em.clear();
+
+        // A page costs its select, its count and the select of the authorities of its users
+        QueryCountInspector.reset();
+        restUserMockMvc.perform(get("/api/users?sort=id,desc&size=25")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].authorities").value(everyItem(hasItem(AuthoritiesConstants.USER))));
+        QueryCountInspector.assertSelectCount(3);
+
+        QueryCountInspector.reset();
+        restUserMockMvc.perform(get("/api/users/{login}", last.getLogin()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.authorities").value(hasItem(AuthoritiesConstants.USER)));
+        QueryCountInspector.assertSelectCount(1);
+    }
+
     @Test
     @Transactional
     public void getUser() throws Exception {